@@ -25,55 +25,89 @@
 package org.spongepowered.despector;
 
 import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.SpillingSourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.config.ConfigBase.CleanupConfigSection;
 import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.config.DecompilerOptions;
 import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
 import org.spongepowered.despector.decompiler.BaseDecompiler;
-import org.spongepowered.despector.decompiler.Decompiler;
+import org.spongepowered.despector.decompiler.ClassDeduplicator;
+import org.spongepowered.despector.decompiler.ClassDeduplicator.Conflict;
 import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.decompiler.DirectoryWalker;
 import org.spongepowered.despector.decompiler.JarWalker;
+import org.spongepowered.despector.decompiler.mapping.Mappings;
+import org.spongepowered.despector.decompiler.mapping.MappingsLoader;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.format.EmitterFormat;
 import org.spongepowered.despector.emitter.format.FormatLoader;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+import org.spongepowered.despector.emitter.java.JavaEmitterPool;
+import org.spongepowered.despector.parallel.AsyncDecompiler;
+import org.spongepowered.despector.parallel.MethodBodyMemo;
 import org.spongepowered.despector.parallel.Timing;
 import org.spongepowered.despector.transform.TypeTransformer;
 import org.spongepowered.despector.transform.cleanup.CleanupOperations;
+import org.spongepowered.despector.util.HeapReport;
 
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
 
 /**
  * Despector.
  */
 public final class Despector {
 
-    private static final Map<String, Consumer<String>> flags = new HashMap<>();
+    private static final int SPILL_BATCH_SIZE = 256;
+
+    private static final Map<String, BiConsumer<String, Path>> flags = new HashMap<>();
+    private static final JavaEmitterPool EMITTER_POOL = new JavaEmitterPool(EmitterFormat.defaults());
+    // the decompilers of jobs run from the command line or a daemon, kept
+    // apart from the global decompilers so that the settings of a job never
+    // reach other users of those
+    private static final Map<Language, BaseDecompiler> RUN_DECOMPILERS = new EnumMap<>(Language.class);
 
     public static Language LANGUAGE = Language.ANY;
 
+    @Nullable private static Set<String> shard = null;
+    @Nullable private static Path manifest = null;
+    private static long memory_budget = 0;
+    @Nullable private static Retention retention = null;
+    private static boolean heap_report = false;
+    private static boolean dedupe_methods = false;
+    @Nullable private static Mappings mappings = null;
+    private static boolean disassemble = false;
+
     static {
-        flags.put("--config=", (arg) -> {
+        flags.put("--config=", (arg, working_dir) -> {
             String config = arg.substring(9);
-            Path config_path = Paths.get(".").resolve(config);
+            Path config_path = working_dir.resolve(config);
             ConfigManager.load(config_path);
         });
-        flags.put("--lang=", (arg) -> {
+        flags.put("--lang=", (arg, working_dir) -> {
             String lang = arg.substring(7);
             if ("kotlin".equalsIgnoreCase(lang)) {
                 LANGUAGE = Language.KOTLIN;
@@ -84,7 +118,58 @@ public final class Despector {
             } else {
                 System.err.println("Unknown language: " + lang);
                 System.err.println("Options are: java, kotlin, any");
-                System.exit(0);
+                throw new IllegalArgumentException("Unknown language: " + lang);
+            }
+        });
+        flags.put("--shard=", (arg, working_dir) -> {
+            Path shard_path = working_dir.resolve(arg.substring(8));
+            try {
+                shard = new HashSet<>(Files.readAllLines(shard_path, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Error reading shard " + shard_path);
+                e.printStackTrace();
+                throw new IllegalArgumentException("Unreadable shard: " + shard_path);
+            }
+        });
+        flags.put("--manifest=", (arg, working_dir) -> {
+            manifest = working_dir.resolve(arg.substring(11));
+        });
+        flags.put("--retention=", (arg, working_dir) -> {
+            String policy = arg.substring(12);
+            try {
+                retention = Retention.valueOf(policy.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown retention policy: " + policy);
+                System.err.println("Options are: all, ir, minimal");
+                throw e;
+            }
+        });
+        flags.put("--heap-report", (arg, working_dir) -> {
+            heap_report = true;
+        });
+        flags.put("--mappings=", (arg, working_dir) -> {
+            Path mappings_path = working_dir.resolve(arg.substring(11));
+            try {
+                mappings = MappingsLoader.loadFrom(mappings_path);
+            } catch (IOException e) {
+                System.err.println("Error reading mappings " + mappings_path);
+                e.printStackTrace();
+                throw new IllegalArgumentException("Unreadable mappings: " + mappings_path);
+            }
+        });
+        flags.put("--ir", (arg, working_dir) -> {
+            disassemble = true;
+        });
+        flags.put("--dedupe-methods", (arg, working_dir) -> {
+            dedupe_methods = true;
+        });
+        flags.put("--memory-budget=", (arg, working_dir) -> {
+            String budget = arg.substring(16);
+            try {
+                memory_budget = Long.parseLong(budget) * 1024 * 1024;
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid memory budget: " + budget + " must be a number of megabytes");
+                throw new IllegalArgumentException("Invalid memory budget: " + budget);
             }
         });
     }
@@ -140,31 +225,88 @@ public final class Despector {
         return type;
     }
 
+    /**
+     * Decompiles only the method with the given name and descriptor from the
+     * given {@link InputStream}. Returns null if the class has no such method.
+     */
+    @Nullable
+    public static MethodEntry decompileMethod(InputStream input, String name, String desc) throws IOException {
+        return decompileMethod(input, new SourceSet(), Language.ANY, name, desc);
+    }
+
+    /**
+     * Decompiles only the method with the given name and descriptor from the
+     * given {@link InputStream} as the given language into the given source
+     * set. The other methods of the class are decompiled once their bodies are
+     * first requested. Returns null if the class has no such method.
+     */
+    @Nullable
+    public static MethodEntry decompileMethod(InputStream input, SourceSet source, Language lang, String name, String desc) throws IOException {
+        BaseDecompiler decompiler = (BaseDecompiler) Decompilers.get(lang);
+        return decompiler.decompileMethod(input, source, name, desc);
+    }
+
+    /**
+     * Decompiles every class in the given jar on the given executor. For more
+     * control over the job see {@link AsyncDecompiler}.
+     */
+    public static CompletableFuture<SourceSet> decompileAsync(Path jar, Executor executor) {
+        return new AsyncDecompiler(executor).submitJar(jar, new SourceSet());
+    }
+
     /**
      * Emits the given type entry to a string.
      */
     public static String emitToString(TypeEntry type) {
-        StringWriter writer = new StringWriter();
-        JavaEmitterContext ctx = new JavaEmitterContext(writer, EmitterFormat.defaults());
-        Emitters.get(type.getLanguage()).emit(ctx, type);
-        return writer.toString();
+        return EMITTER_POOL.emitToString(type);
     }
 
     /**
      * The main entrance point.
      */
     public static void main(String[] args) throws IOException {
+        if (!run(args, Paths.get("."))) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a decompile job with the given command line arguments, resolving
+     * all relative paths against the given working directory. Returns whether
+     * the job ran to completion.
+     *
+     * <p>All global state set by the arguments is reset at the start of each
+     * job so that a long running process can run many jobs one after
+     * another.</p>
+     */
+    public static synchronized boolean run(String[] args, Path working_dir) throws IOException {
         if (args.length < 2) {
             System.out.println("Usage: java -jar Despector.jar [sources...] [destination]");
-            return;
+            return false;
         }
+        LANGUAGE = Language.ANY;
+        shard = null;
+        manifest = null;
+        memory_budget = 0;
+        retention = null;
+        heap_report = false;
+        dedupe_methods = false;
+        mappings = null;
+        disassemble = false;
+        ConfigManager.reset();
+        Timing.reset();
+        LibraryConfiguration.deferred_method_count.set(0);
 
         List<String> sources = new ArrayList<>();
         outer: for (int i = 0; i < args.length - 1; i++) {
             if (args[i].startsWith("-")) {
                 for (String flag : flags.keySet()) {
                     if (args[i].startsWith(flag)) {
-                        flags.get(flag).accept(args[i]);
+                        try {
+                            flags.get(flag).accept(args[i], working_dir);
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        }
                         continue outer;
                     }
                 }
@@ -174,122 +316,178 @@ public final class Despector {
             }
         }
         String destination = args[args.length - 1];
-        Path output = Paths.get(destination).toAbsolutePath();
+        Path output = working_dir.resolve(destination).toAbsolutePath();
         if (!Files.exists(output)) {
             Files.createDirectories(output);
         }
         EmitterFormat formatter = EmitterFormat.defaults();
         formatter.loadFrom(ConfigManager.getConfig().formatter);
-        Path formatter_path = Paths.get(".").resolve(ConfigManager.getConfig().emitter.formatting_path);
-        Path importorder_path = Paths.get(".").resolve(ConfigManager.getConfig().emitter.imports_path);
+        Path formatter_path = working_dir.resolve(ConfigManager.getConfig().emitter.formatting_path);
+        Path importorder_path = working_dir.resolve(ConfigManager.getConfig().emitter.imports_path);
         if (Files.exists(formatter_path) && Files.exists(importorder_path)) {
             FormatLoader formatter_loader = FormatLoader.getLoader(ConfigManager.getConfig().emitter.formatting_type);
             formatter_loader.load(formatter, formatter_path, importorder_path);
         }
 
-        Decompiler decompiler = Decompilers.get(LANGUAGE);
+        BaseDecompiler decompiler = RUN_DECOMPILERS.computeIfAbsent(LANGUAGE, BaseDecompiler::new);
+        DecompilerOptions options = new DecompilerOptions();
 
-        if (LibraryConfiguration.parallel) {
+        if (options.isParallel()) {
             System.out.println("Running parallel decompile with " + Runtime.getRuntime().availableProcessors() + " workers");
         }
 
-        SourceSet source = new SourceSet();
-        for (String s : sources) {
-            Path path = Paths.get(s);
-            if (!Files.exists(path)) {
-                System.err.println("Unknown source: " + path.toAbsolutePath().toString());
-            } else if (s.endsWith(".jar")) {
-                JarWalker walker = new JarWalker(path);
-                walker.walk(source, decompiler);
-            } else if (Files.isDirectory(path)) {
-                DirectoryWalker walker = new DirectoryWalker(path);
-                try {
+        Set<String> shard_classes = shard;
+        Predicate<String> filter = shard_classes == null ? null : shard_classes::contains;
+        SourceSet source = memory_budget > 0 ? new SpillingSourceSet(memory_budget) : new SourceSet();
+        if (memory_budget > 0 && options.getParallelBatchSize() == 0) {
+            // flush decompiled types into the source set regularly so that
+            // they can be spilled instead of piling up in the scheduler
+            options.setParallelBatchSize(SPILL_BATCH_SIZE);
+        }
+        if (retention != null) {
+            options.setRetention(retention);
+        }
+        HeapReport report = heap_report ? new HeapReport() : null;
+        // when disassembling methods are only translated to ir
+        Emitter<JavaEmitterContext> emitter = disassemble ? Emitters.IR : Emitters.get(LANGUAGE);
+        MethodBodyMemo memo = dedupe_methods ? new MethodBodyMemo() : null;
+        // shaded copies of a class found in several inputs are only
+        // decompiled once
+        ClassDeduplicator deduplicator = new ClassDeduplicator();
+        decompiler.setOptions(options);
+        decompiler.setHeapReport(report);
+        decompiler.setEmitter(emitter);
+        decompiler.setMethodBodyMemo(memo);
+        decompiler.setMappings(mappings);
+        try {
+            for (String s : sources) {
+                Path path = working_dir.resolve(s);
+                if (!Files.exists(path)) {
+                    System.err.println("Unknown source: " + path.toAbsolutePath().toString());
+                } else if (s.endsWith(".jar")) {
+                    JarWalker walker = new JarWalker(path);
+                    walker.setFilter(filter);
+                    walker.setDeduplicator(deduplicator);
                     walker.walk(source, decompiler);
-                } catch (IOException e) {
-                    System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
-                    e.printStackTrace();
+                } else if (Files.isDirectory(path)) {
+                    DirectoryWalker walker = new DirectoryWalker(path);
+                    walker.setFilter(filter);
+                    walker.setDeduplicator(deduplicator);
+                    try {
+                        walker.walk(source, decompiler);
+                    } catch (IOException e) {
+                        System.err.println("Error while walking directory: " + path.toAbsolutePath().toString());
+                        e.printStackTrace();
+                    }
+                } else if (s.endsWith(".class")) {
+                    decompiler.decompile(path, source);
+                } else {
+                    System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
                 }
-            } else if (s.endsWith(".class")) {
-                decompiler.decompile(path, source);
-            } else {
-                System.err.println("Unknown source type: " + path.toAbsolutePath().toString() + " must be jar or directory");
             }
-        }
-        if (LibraryConfiguration.parallel && decompiler instanceof BaseDecompiler) {
-            ((BaseDecompiler) decompiler).flushTasks();
-        }
-
-        if (source.getAllClasses().isEmpty()) {
-            System.err.println("No sources found.");
-            return;
-        }
+            decompiler.flushTasks();
+            if (deduplicator.getDuplicateCount() > 0) {
+                System.out.println("Skipped " + deduplicator.getDuplicateCount() + " duplicate class files");
+            }
+            for (Conflict conflict : deduplicator.getConflicts()) {
+                System.err.println("Warning: Conflicting class files for " + conflict);
+            }
+            if (report != null) {
+                System.out.println("Heap retained by decompiled methods with retention " + options.getRetention().name().toLowerCase() + ":");
+                System.out.print(report);
+            }
 
-        List<TypeTransformer> transformers = new ArrayList<>();
-        for (String operation : ConfigManager.getConfig().cleanup.operations) {
-            TypeTransformer transformer = CleanupOperations.getOperation(operation);
-            if (transformer == null) {
-                System.err.println("Unknown cleanup operation: " + operation);
-            } else {
-                transformers.add(transformer);
+            if (source.getAllClasses().isEmpty()) {
+                System.err.println("No sources found.");
+                return false;
             }
-        }
-        Map<String, Set<TypeTransformer>> targeted_transformers = new HashMap<>();
-        for (CleanupConfigSection section : ConfigManager.getConfig().cleanup_sections) {
-            List<TypeTransformer> trans = new ArrayList<>();
-            for (String operation : section.operations) {
+
+            List<TypeTransformer> transformers = new ArrayList<>();
+            for (String operation : ConfigManager.getConfig().cleanup.operations) {
                 TypeTransformer transformer = CleanupOperations.getOperation(operation);
                 if (transformer == null) {
                     System.err.println("Unknown cleanup operation: " + operation);
                 } else {
-                    trans.add(transformer);
+                    transformers.add(transformer);
                 }
             }
-            for (String target : section.targets) {
-                Set<TypeTransformer> target_trans = targeted_transformers.get(target);
-                if (target_trans == null) {
-                    target_trans = new HashSet<>();
-                    targeted_transformers.put(target, target_trans);
+            Map<String, Set<TypeTransformer>> targeted_transformers = new HashMap<>();
+            for (CleanupConfigSection section : ConfigManager.getConfig().cleanup_sections) {
+                List<TypeTransformer> trans = new ArrayList<>();
+                for (String operation : section.operations) {
+                    TypeTransformer transformer = CleanupOperations.getOperation(operation);
+                    if (transformer == null) {
+                        System.err.println("Unknown cleanup operation: " + operation);
+                    } else {
+                        trans.add(transformer);
+                    }
                 }
-                target_trans.addAll(trans);
-            }
-        }
-        if (!transformers.isEmpty() || !targeted_transformers.isEmpty()) {
-            for (TypeEntry type : source.getAllClasses()) {
-                for (TypeTransformer transformer : transformers) {
-                    transformer.transform(type);
+                for (String target : section.targets) {
+                    Set<TypeTransformer> target_trans = targeted_transformers.get(target);
+                    if (target_trans == null) {
+                        target_trans = new HashSet<>();
+                        targeted_transformers.put(target, target_trans);
+                    }
+                    target_trans.addAll(trans);
                 }
-                Set<TypeTransformer> targetted = targeted_transformers.get(type.getName());
-                if (targetted != null) {
-                    for (TypeTransformer transformer : targetted) {
+            }
+            if (!disassemble && (!transformers.isEmpty() || !targeted_transformers.isEmpty())) {
+                for (TypeEntry type : source.getAllClasses()) {
+                    for (TypeTransformer transformer : transformers) {
                         transformer.transform(type);
                     }
+                    Set<TypeTransformer> targetted = targeted_transformers.get(type.getName());
+                    if (targetted != null) {
+                        for (TypeTransformer transformer : targetted) {
+                            transformer.transform(type);
+                        }
+                    }
+                }
+            }
+
+            List<String> emitted = new ArrayList<>();
+            for (TypeEntry type : source.getAllClasses()) {
+                if (type.isInnerClass() || type.isAnonType()) {
+                    continue;
+                }
+                String file = type.getName() + (disassemble ? ".ir" : LANGUAGE.getExtension(type));
+                emitted.add(file);
+                Path out = output.resolve(file);
+                if (!Files.exists(out.getParent())) {
+                    Files.createDirectories(out.getParent());
+                }
+                try (FileWriter writer = new FileWriter(out.toFile())) {
+                    JavaEmitterContext ctx = new JavaEmitterContext(writer, formatter);
+                    emitter.emit(ctx, type);
                 }
             }
-        }
 
-        Emitter<JavaEmitterContext> emitter = Emitters.get(LANGUAGE);
+            if (manifest != null) {
+                Collections.sort(emitted);
+                Files.write(manifest, emitted, StandardCharsets.UTF_8);
+            }
 
-        for (TypeEntry type : source.getAllClasses()) {
-            if (type.isInnerClass() || type.isAnonType()) {
-                continue;
+            if (memo != null) {
+                System.out.println("Method body memo: " + memo);
             }
-            Path out = output.resolve(type.getName() + LANGUAGE.getExtension(type));
-            if (!Files.exists(out.getParent())) {
-                Files.createDirectories(out.getParent());
+            if (LibraryConfiguration.print_times) {
+                System.out.println("Time spend decompiling: " + (Timing.time_decompiling.get() / 1000000) + "ms");
+                System.out.println("Time spend decompiling methods: " + (Timing.time_decompiling_methods.get() / 1000000) + "ms");
+                System.out.println("Time spend loading classes: " + (Timing.time_loading_classes.get() / 1000000) + "ms");
+                System.out.println("Time spend emitting: " + (Timing.time_emitting.get() / 1000000) + "ms");
+                System.out.println("Method bodies deferred until requested: " + LibraryConfiguration.deferred_method_count.get());
             }
-            try (FileWriter writer = new FileWriter(out.toFile())) {
-                JavaEmitterContext ctx = new JavaEmitterContext(writer, formatter);
-                emitter.emit(ctx, type);
+            return true;
+        } finally {
+            decompiler.setOptions(null);
+            decompiler.setHeapReport(null);
+            decompiler.setEmitter(null);
+            decompiler.setMethodBodyMemo(null);
+            decompiler.setMappings(null);
+            if (source instanceof SpillingSourceSet) {
+                ((SpillingSourceSet) source).close();
             }
         }
-
-        if (LibraryConfiguration.print_times) {
-            System.out.println("Time spend decompiling: " + (Timing.time_decompiling / 1000000) + "ms");
-            System.out.println("Time spend decompiling methods: " + (Timing.time_decompiling_methods / 1000000) + "ms");
-            System.out.println("Time spend loading classes: " + (Timing.time_loading_classes / 1000000) + "ms");
-            System.out.println("Time spend emitting: " + (Timing.time_emitting / 1000000) + "ms");
-        }
-
     }
 
     private Despector() {
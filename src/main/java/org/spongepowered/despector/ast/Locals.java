@@ -29,13 +29,17 @@ import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.MethodSignature;
 import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.util.LabelIndex;
 import org.spongepowered.despector.util.SignatureParser;
 import org.spongepowered.despector.util.serialization.MessagePacker;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A tracker of local variables.
@@ -86,28 +90,41 @@ public class Locals {
      * @param methodSignature
      */
     public void bakeInstances(MethodSignature methodSignature, List<Integer> label_indices) {
+        bakeInstances(methodSignature, LabelIndex.of(label_indices));
+    }
+
+    /**
+     * Bakes the local instances using the given label index.
+     */
+    public void bakeInstances(MethodSignature methodSignature, LabelIndex label_indices) {
         for (Local local : this.locals) {
             local.bakeInstances(label_indices);
         }
     }
 
+    /**
+     * Releases the local variable tables of all locals. The local instances
+     * must already have been baked.
+     */
+    public void releaseLVT() {
+        for (Local local : this.locals) {
+            local.releaseLVT();
+        }
+    }
+
     /**
      * Gets a name for the variable that does not conflict with any other names.
      */
     public String getNonConflictingName(String name, int index) {
-        int i = 1;
-        while (true) {
-            boolean conflict = false;
-            for (Local local : this.locals) {
-                LocalInstance insn = local.getInstance(index);
-                if (insn != null && insn.getName().equals(name)) {
-                    conflict = true;
-                    break;
-                }
-            }
-            if (!conflict) {
-                break;
+        Set<String> taken = new HashSet<>();
+        for (Local local : this.locals) {
+            LocalInstance insn = local.getInstance(index);
+            if (insn != null) {
+                taken.add(insn.getName());
             }
+        }
+        int i = 1;
+        while (taken.contains(name)) {
             name = name + (i++);
         }
         return name;
@@ -167,13 +184,22 @@ public class Locals {
      */
     public static class Local {
 
+        private static final int INDEX_THRESHOLD = 8;
+
         private final Locals locals;
         private final boolean is_static;
         private final int index;
         private LocalInstance parameter_instance = null;
-        private final List<LVT> lvt = Lists.newArrayList();
+        private List<LVT> lvt = Lists.newArrayList();
         private final List<LocalInstance> instances = Lists.newArrayList();
 
+        // The instances sorted by start, with their position in the instances
+        // list and the greatest end of any instance up to and including them.
+        // Rebuilt whenever the number of instances changes.
+        private LocalInstance[] sorted;
+        private int[] sorted_order;
+        private int[] max_end;
+
         public Local(Locals locals, int i, boolean is_static) {
             this.locals = locals;
             this.index = i;
@@ -200,6 +226,13 @@ public class Locals {
             this.lvt.add(new LVT(s, l, n, d));
         }
 
+        /**
+         * Releases the local variable table of this local.
+         */
+        public void releaseLVT() {
+            this.lvt = Collections.emptyList();
+        }
+
         public LVT getLVT(int s) {
             for (LVT l : this.lvt) {
                 if (l.start_pc == s) {
@@ -213,6 +246,13 @@ public class Locals {
          * Bakes the instances of this local.
          */
         public void bakeInstances(List<Integer> label_indices) {
+            bakeInstances(LabelIndex.of(label_indices));
+        }
+
+        /**
+         * Bakes the instances of this local using the given label index.
+         */
+        public void bakeInstances(LabelIndex label_indices) {
             for (LVT l : this.lvt) {
                 int start = label_indices.indexOf(l.start_pc);
                 if (start == -1) {
@@ -220,7 +260,7 @@ public class Locals {
                 }
                 int end = label_indices.indexOf(l.start_pc + l.length);
                 if (end == -1 && !label_indices.isEmpty()) {
-                    end = label_indices.get(label_indices.size() - 1);
+                    end = label_indices.getLastOffset();
                 }
                 TypeSignature sig = null;
                 if (l.signature == null) {
@@ -246,10 +286,9 @@ public class Locals {
          * Gets the local instance for the given index.
          */
         public LocalInstance getInstance(int index) {
-            for (LocalInstance insn : this.instances) {
-                if (index >= insn.getStart() - 1 && index <= insn.getEnd()) {
-                    return insn;
-                }
+            LocalInstance found = findInstance(index);
+            if (found != null) {
+                return found;
             }
             if (this.parameter_instance != null) {
                 return this.parameter_instance;
@@ -268,6 +307,61 @@ public class Locals {
             return insn;
         }
 
+        private LocalInstance findInstance(int index) {
+            if (this.instances.size() < INDEX_THRESHOLD) {
+                for (LocalInstance insn : this.instances) {
+                    if (index >= insn.getStart() - 1 && index <= insn.getEnd()) {
+                        return insn;
+                    }
+                }
+                return null;
+            }
+            if (this.sorted == null || this.sorted.length != this.instances.size()) {
+                buildIndex();
+            }
+            // find the last instance starting at or before the index
+            int low = 0;
+            int high = this.sorted.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (this.sorted[mid].getStart() - 1 <= index) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            // instances may overlap, in which case the earliest added wins
+            int best = -1;
+            for (int i = high; i >= 0 && this.max_end[i] >= index; i--) {
+                if (this.sorted[i].getEnd() >= index && (best == -1 || this.sorted_order[i] < this.sorted_order[best])) {
+                    best = i;
+                }
+            }
+            return best == -1 ? null : this.sorted[best];
+        }
+
+        private void buildIndex() {
+            int size = this.instances.size();
+            // sort by start, keeping the position in the instances list in the
+            // low bits so that the order of equal starts is preserved
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) this.instances.get(i).getStart() << 32) | i;
+            }
+            Arrays.sort(keys);
+            LocalInstance[] sorted = new LocalInstance[size];
+            int[] order = new int[size];
+            int[] max_end = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) keys[i];
+                sorted[i] = this.instances.get(order[i]);
+                max_end[i] = i == 0 ? sorted[i].getEnd() : Math.max(max_end[i - 1], sorted[i].getEnd());
+            }
+            this.sorted = sorted;
+            this.sorted_order = order;
+            this.max_end = max_end;
+        }
+
         /**
          * Adds the given instance to this local.
          */
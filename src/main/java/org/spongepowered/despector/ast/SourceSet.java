@@ -24,6 +24,7 @@
  */
 package org.spongepowered.despector.ast;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.spongepowered.despector.Language;
@@ -37,24 +38,26 @@ import org.spongepowered.despector.util.serialization.MessagePacker;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
 
 /**
  * A source set for types which are part of the obfuscated source being mapped.
+ * Types may be added and looked up concurrently.
  */
 public class SourceSet {
 
     private Loader loader;
-    private final Set<String> load_failed_cache = new HashSet<>();
+    private final Set<String> load_failed_cache = ConcurrentHashMap.newKeySet();
 
-    private final Map<String, TypeEntry> classes = new HashMap<>();
-    private final Map<String, EnumEntry> enums = new HashMap<>();
-    private final Map<String, InterfaceEntry> interfaces = new HashMap<>();
+    private final Map<String, TypeEntry> classes = new ConcurrentHashMap<>();
+    private final Map<String, EnumEntry> enums = new ConcurrentHashMap<>();
+    private final Map<String, InterfaceEntry> interfaces = new ConcurrentHashMap<>();
 
-    private final Map<String, AnnotationType> annotations = new HashMap<>();
+    private final Map<String, AnnotationType> annotations = new ConcurrentHashMap<>();
 
     public SourceSet() {
     }
@@ -91,7 +94,7 @@ public class SourceSet {
         if (name.endsWith("[]")) {
             return get(name.substring(0, name.length() - 2));
         }
-        TypeEntry entry = this.classes.get(name);
+        TypeEntry entry = getLoaded(name);
         if (entry == null && this.loader != null && !this.load_failed_cache.contains(name)) {
             InputStream data = this.loader.find(name);
             if (data == null) {
@@ -110,6 +113,15 @@ public class SourceSet {
         return entry;
     }
 
+    /**
+     * Gets the type with the given internal name if it has been added to this
+     * source set, without requesting it from the loader.
+     */
+    @Nullable
+    public TypeEntry getLoaded(String name) {
+        return this.classes.get(name);
+    }
+
     public EnumEntry getEnum(String name) {
         EnumEntry entry = this.enums.get(name);
         return entry;
@@ -150,12 +162,7 @@ public class SourceSet {
      * Gets the annotation type with the given internal name.
      */
     public AnnotationType getAnnotationType(String name) {
-        AnnotationType anno = this.annotations.get(name);
-        if (anno == null) {
-            anno = new AnnotationType(name);
-            this.annotations.put(name, anno);
-        }
-        return anno;
+        return this.annotations.computeIfAbsent(name, AnnotationType::new);
     }
 
     public Collection<AnnotationType> getAllAnnotations() {
@@ -163,20 +170,34 @@ public class SourceSet {
     }
 
     public void accept(AstVisitor visitor) {
-        for (TypeEntry type : this.classes.values()) {
+        for (TypeEntry type : getAllClasses()) {
             type.accept(visitor);
         }
     }
 
     /**
-     * Writes this source set to the given {@link MessagePacker}.
+     * Writes this source set to the given {@link MessagePacker} in the
+     * {@link AstSerializer#VERSION default} format.
      */
     public void writeTo(MessagePacker pack) throws IOException {
+        writeTo(pack, AstSerializer.VERSION);
+    }
+
+    /**
+     * Writes this source set to the given {@link MessagePacker} in the given
+     * serialization format version.
+     */
+    public void writeTo(MessagePacker pack, int version) throws IOException {
+        checkArgument(version == AstSerializer.VERSION_1 || version == AstSerializer.VERSION_2, "Unsupported ast version %s", version);
         pack.startMap(2);
-        pack.writeString("version").writeInt(AstSerializer.VERSION);
+        pack.writeString("version").writeInt(version);
+        if (version == AstSerializer.VERSION_2) {
+            AstSerializer.enableStringTable(pack);
+        }
         pack.writeString("classes");
-        pack.startArray(this.classes.size());
-        for (TypeEntry type : this.classes.values()) {
+        Collection<TypeEntry> classes = getAllClasses();
+        pack.startArray(classes.size());
+        for (TypeEntry type : classes) {
             type.writeTo(pack);
         }
         pack.endArray();
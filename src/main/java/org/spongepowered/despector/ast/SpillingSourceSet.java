@@ -0,0 +1,415 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.ast;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.type.EnumEntry;
+import org.spongepowered.despector.ast.type.InterfaceEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.AstSerializer;
+import org.spongepowered.despector.util.serialization.BufferMessagePacker;
+import org.spongepowered.despector.util.serialization.BufferMessageUnpacker;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+/**
+ * A source set which keeps the serialized size of the types it holds in
+ * memory below a budget by spilling the least recently used types to a
+ * temporary file.
+ *
+ * <p>Spilled types are held by a soft reference until the garbage collector
+ * needs the memory, and are loaded back from the spill file when they are
+ * next requested. A type is written to the spill file again each time it is
+ * spilled as it may have been modified since it was last requested. Callers
+ * must therefore request a type again before modifying it if they held onto
+ * it while other types were added or requested.</p>
+ *
+ * <p>Only fully decompiled types are added to a source set, so every type
+ * held by this source set may be spilled. Types which cannot be serialized
+ * are kept in memory outside of the budget. Serializing a type decompiles
+ * any of its method bodies which were deferred until requested.</p>
+ */
+public class SpillingSourceSet extends SourceSet implements AutoCloseable {
+
+    private final long budget;
+    private final Path spill_path;
+    private final FileChannel spill;
+    private long spill_end = 0;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> enums = new LinkedHashSet<>();
+    private final Set<String> interfaces = new LinkedHashSet<>();
+    private final BufferMessagePacker buffer = new BufferMessagePacker();
+    private long hot_size = 0;
+
+    private int spill_count = 0;
+    private int reload_count = 0;
+    private int pinned_count = 0;
+
+    /**
+     * Creates a new source set which keeps types with a serialized size of
+     * up to the given number of bytes in memory, spilling into a new file in
+     * the default temporary directory.
+     */
+    public SpillingSourceSet(long budget) throws IOException {
+        this(budget, Files.createTempFile("despector", ".spill"));
+    }
+
+    /**
+     * Creates a new source set which keeps types with a serialized size of
+     * up to the given number of bytes in memory, spilling into the given file.
+     * The file is deleted when this source set is closed, or as soon as it
+     * is opened on platforms which allow it.
+     */
+    public SpillingSourceSet(long budget, Path spill_path) throws IOException {
+        checkArgument(budget >= 0, "Budget must not be negative but was %s", budget);
+        this.budget = budget;
+        this.spill_path = checkNotNull(spill_path, "spill_path");
+        this.spill = FileChannel.open(spill_path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Gets the memory budget of this source set in bytes of serialized types.
+     */
+    public long getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Gets the serialized size of the types currently held in memory.
+     */
+    public synchronized long getHeldSize() {
+        return this.hot_size;
+    }
+
+    /**
+     * Gets the number of types currently held in memory.
+     */
+    public synchronized int getHeldCount() {
+        return this.hot.size();
+    }
+
+    /**
+     * Gets the number of times a type was spilled.
+     */
+    public synchronized int getSpillCount() {
+        return this.spill_count;
+    }
+
+    /**
+     * Gets the number of times a spilled type was loaded back from the spill
+     * file.
+     */
+    public synchronized int getReloadCount() {
+        return this.reload_count;
+    }
+
+    /**
+     * Gets the number of types which are kept in memory regardless of the
+     * budget because they could not be serialized.
+     */
+    public synchronized int getPinnedCount() {
+        return this.pinned_count;
+    }
+
+    /**
+     * Drops the references to all spilled types so that they are loaded from
+     * the spill file when they are next requested, rather than waiting for
+     * the garbage collector to clear them.
+     */
+    public synchronized void releaseSpilled() {
+        for (Entry entry : this.entries.values()) {
+            entry.cold = null;
+        }
+    }
+
+    @Override
+    public synchronized void add(TypeEntry e) {
+        checkNotNull(e);
+        String name = e.getName();
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            entry = new Entry(name);
+            this.entries.put(name, entry);
+        } else {
+            unhold(entry);
+            if (entry.pinned != null) {
+                entry.pinned = null;
+                this.pinned_count--;
+            }
+            // the type may have been replaced by one of a different kind
+            this.enums.remove(name);
+            this.interfaces.remove(name);
+        }
+        if (e instanceof EnumEntry) {
+            this.enums.add(name);
+        } else if (e instanceof InterfaceEntry) {
+            this.interfaces.add(name);
+        }
+        try {
+            entry.size = serialize(e).size();
+        } catch (IOException | RuntimeException ex) {
+            pin(entry, e, ex);
+            return;
+        }
+        hold(entry, e);
+    }
+
+    @Override
+    @Nullable
+    public synchronized TypeEntry getLoaded(String name) {
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.pinned != null) {
+            return entry.pinned;
+        }
+        if (entry.hot != null) {
+            this.hot.get(name);
+            return entry.hot;
+        }
+        TypeEntry type = entry.cold == null ? null : entry.cold.get();
+        if (type == null) {
+            type = reload(entry);
+        }
+        hold(entry, type);
+        return type;
+    }
+
+    @Override
+    public EnumEntry getEnum(String name) {
+        TypeEntry type = getLoaded(name);
+        return type instanceof EnumEntry ? (EnumEntry) type : null;
+    }
+
+    @Override
+    public InterfaceEntry getInterface(String name) {
+        TypeEntry type = getLoaded(name);
+        return type instanceof InterfaceEntry ? (InterfaceEntry) type : null;
+    }
+
+    /**
+     * Gets all classes in the source set. This also includes all interfaces and
+     * enums. Spilled types are loaded back as the collection is iterated.
+     */
+    @Override
+    public Collection<TypeEntry> getAllClasses() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(this.entries.keySet());
+        }
+        return new LoadingCollection<>(names);
+    }
+
+    @Override
+    public Collection<EnumEntry> getAllEnums() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(this.enums);
+        }
+        return new LoadingCollection<>(names);
+    }
+
+    @Override
+    public Collection<InterfaceEntry> getAllInterfaces() {
+        List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(this.interfaces);
+        }
+        return new LoadingCollection<>(names);
+    }
+
+    private BufferMessagePacker serialize(TypeEntry type) throws IOException {
+        this.buffer.reset();
+        AstSerializer.enableStringTable(this.buffer);
+        type.writeTo(this.buffer);
+        return this.buffer;
+    }
+
+    private void hold(Entry entry, TypeEntry type) {
+        entry.hot = type;
+        entry.cold = null;
+        this.hot.put(entry.name, entry);
+        this.hot_size += entry.size;
+        Iterator<Entry> it = this.hot.values().iterator();
+        while (this.hot_size > this.budget && it.hasNext()) {
+            Entry next = it.next();
+            if (next == entry) {
+                break;
+            }
+            it.remove();
+            spill(next);
+        }
+    }
+
+    private void unhold(Entry entry) {
+        if (entry.hot != null) {
+            this.hot.remove(entry.name);
+            this.hot_size -= entry.size;
+            entry.hot = null;
+        }
+    }
+
+    private void spill(Entry entry) {
+        TypeEntry type = entry.hot;
+        this.hot_size -= entry.size;
+        entry.hot = null;
+        ByteBuffer data;
+        try {
+            data = serialize(type).getBuffer();
+        } catch (IOException | RuntimeException e) {
+            pin(entry, type, e);
+            return;
+        }
+        try {
+            entry.offset = this.spill_end;
+            entry.length = data.remaining();
+            while (data.hasRemaining()) {
+                this.spill_end += this.spill.write(data, this.spill_end);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to spill type " + entry.name, e);
+        }
+        this.spill_count++;
+        entry.size = entry.length;
+        entry.cold = new SoftReference<>(type);
+    }
+
+    private void pin(Entry entry, TypeEntry type, Exception cause) {
+        if (!LibraryConfiguration.quiet) {
+            System.err.println("Keeping " + entry.name + " in memory as it cannot be serialized: " + cause);
+        }
+        entry.pinned = type;
+        this.pinned_count++;
+    }
+
+    private TypeEntry reload(Entry entry) {
+        try {
+            ByteBuffer data = ByteBuffer.allocate(entry.length);
+            while (data.hasRemaining()) {
+                if (this.spill.read(data, entry.offset + data.position()) < 0) {
+                    throw new IOException("Unexpected end of spill file");
+                }
+            }
+            data.flip();
+            BufferMessageUnpacker unpack = new BufferMessageUnpacker(data);
+            AstSerializer.enableStringTable(unpack);
+            TypeEntry type = AstLoader.loadType(unpack, this);
+            this.reload_count++;
+            return type;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to reload spilled type " + entry.name, e);
+        }
+    }
+
+    /**
+     * Closes and deletes the spill file. Spilled types can no longer be
+     * loaded afterwards.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.spill.close();
+        Files.deleteIfExists(this.spill_path);
+    }
+
+    private static class Entry {
+
+        final String name;
+        @Nullable TypeEntry hot;
+        @Nullable SoftReference<TypeEntry> cold;
+        @Nullable TypeEntry pinned;
+        long size;
+        long offset = -1;
+        int length;
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+    }
+
+    private class LoadingCollection<T extends TypeEntry> extends AbstractCollection<T> {
+
+        private final List<String> names;
+
+        LoadingCollection(List<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public int size() {
+            return this.names.size();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            Iterator<String> it = this.names.iterator();
+            return new Iterator<T>() {
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @SuppressWarnings("unchecked")
+                @Override
+                public T next() {
+                    if (!it.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return (T) getLoaded(it.next());
+                }
+
+            };
+        }
+
+    }
+
+}
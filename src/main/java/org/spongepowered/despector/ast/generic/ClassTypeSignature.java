@@ -26,6 +26,7 @@ package org.spongepowered.despector.ast.generic;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.MapMaker;
 import org.spongepowered.despector.util.TypeHelper;
 import org.spongepowered.despector.util.serialization.AstSerializer;
 import org.spongepowered.despector.util.serialization.MessagePacker;
@@ -33,6 +34,7 @@ import org.spongepowered.despector.util.serialization.MessagePacker;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A type signature of a class or primative type (but not void).
@@ -60,6 +62,7 @@ public class ClassTypeSignature extends TypeSignature {
     public static final ClassTypeSignature CHARACTER_OBJECT = new ClassTypeSignature("Ljava/lang/Character;");
 
     private static final Map<String, ClassTypeSignature> SPECIAL = new HashMap<>();
+    private static final ConcurrentMap<String, ClassTypeSignature> INTERNED = new MapMaker().weakValues().makeMap();
 
     static {
         SPECIAL.put(BOOLEAN.getType(), BOOLEAN);
@@ -85,18 +88,18 @@ public class ClassTypeSignature extends TypeSignature {
     }
 
     /**
-     * Gets the {@link ClassTypeSignature} for the given type descriptor. A new
-     * instance is created unless the type is a special type (primatives,
-     * primative wrappers, object, and string).
+     * Gets the {@link ClassTypeSignature} for the given type descriptor. Equal
+     * descriptors share a single instance for as long as it is reachable, so
+     * the returned signature must not be modified.
      */
     public static ClassTypeSignature of(String type) {
         return of(type, false);
     }
 
     /**
-     * Gets the {@link ClassTypeSignature} for the given type descriptor. A new
-     * instance is created unless the type is a special type (primatives,
-     * primative wrappers, object, and string) and the no_special flag is unset.
+     * Gets the {@link ClassTypeSignature} for the given type descriptor. If the
+     * no_special flag is set a new instance is always created, otherwise the
+     * shared instance for the descriptor is returned.
      */
     public static ClassTypeSignature of(String type, boolean no_special) {
         if(!TypeHelper.isDescriptor(type)) {
@@ -107,6 +110,15 @@ public class ClassTypeSignature extends TypeSignature {
             if (sig != null) {
                 return sig;
             }
+            sig = INTERNED.get(type);
+            if (sig == null) {
+                ClassTypeSignature created = new ClassTypeSignature(TypeHelper.intern(type));
+                sig = INTERNED.putIfAbsent(created.getType(), created);
+                if (sig == null) {
+                    sig = created;
+                }
+            }
+            return sig;
         }
         return new ClassTypeSignature(type);
     }
@@ -125,7 +137,8 @@ public class ClassTypeSignature extends TypeSignature {
     }
 
     /**
-     * Sets the type descriptor.
+     * Sets the type descriptor. This must only be called on an instance
+     * created with the no_special flag as other instances are shared.
      */
     public void setType(String type) {
         this.type_name = checkNotNull(type, "type");
@@ -186,4 +199,9 @@ public class ClassTypeSignature extends TypeSignature {
         return c.type_name.equals(this.type_name);
     }
 
+    @Override
+    public int hashCode() {
+        return this.type_name.hashCode();
+    }
+
 }
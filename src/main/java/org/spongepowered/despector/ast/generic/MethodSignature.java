@@ -52,6 +52,17 @@ public class MethodSignature {
         this.return_type = checkNotNull(sig, "sig");
     }
 
+    /**
+     * Creates a new method signature with the same type parameters,
+     * parameters, exceptions, and return type as the given signature.
+     */
+    public MethodSignature(MethodSignature other) {
+        this.type_parameters.addAll(other.type_parameters);
+        this.parameters.addAll(other.parameters);
+        this.exceptions.addAll(other.exceptions);
+        this.return_type = other.return_type;
+    }
+
     /**
      * Gets the method type parameters.
      */
@@ -112,7 +112,7 @@ public class Break implements Statement {
         pack.writeString("id").writeInt(AstSerializer.STATEMENT_ID_BREAK);
         pack.writeString("type").writeInt(this.type.ordinal());
         pack.writeString("nested").writeBool(this.nested);
-        pack.writeString("break_id").writeInt(((Object) this).hashCode());
+        pack.writeString("break_id").writeInt(pack.getObjectId(this));
         pack.endMap();
     }
 
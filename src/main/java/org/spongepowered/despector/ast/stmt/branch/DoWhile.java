@@ -118,7 +118,7 @@ public class DoWhile implements Statement, Breakable {
         this.condition.writeTo(pack);
         pack.writeString("breakpoints").startArray(this.breaks.size());
         for (Break br : this.breaks) {
-            pack.writeInt(((Object) br).hashCode());
+            pack.writeInt(pack.getObjectId(br));
         }
         pack.endArray();
         pack.writeString("body");
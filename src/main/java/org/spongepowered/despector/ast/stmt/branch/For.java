@@ -159,7 +159,7 @@ public class For implements Statement, Breakable {
         }
         pack.writeString("breakpoints").startArray(this.breaks.size());
         for (Break br : this.breaks) {
-            pack.writeInt(((Object) br).hashCode());
+            pack.writeInt(pack.getObjectId(br));
         }
         pack.endArray();
         pack.writeString("body");
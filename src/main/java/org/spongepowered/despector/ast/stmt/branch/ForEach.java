@@ -128,7 +128,7 @@ public class ForEach implements Statement, Breakable {
         this.collection.writeTo(pack);
         pack.writeString("breakpoints").startArray(this.breaks.size());
         for (Break br : this.breaks) {
-            pack.writeInt(((Object) br).hashCode());
+            pack.writeInt(pack.getObjectId(br));
         }
         pack.endArray();
         pack.writeString("body");
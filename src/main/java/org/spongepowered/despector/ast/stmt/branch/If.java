@@ -232,6 +232,13 @@ public class If implements Statement {
             If.this.addElifBlock(this);
         }
 
+        /**
+         * Gets the if statement this block is attached to.
+         */
+        public If getIf() {
+            return If.this;
+        }
+
         /**
          * Gets the condition of this block.
          */
@@ -264,6 +271,7 @@ public class If implements Statement {
             if (visitor instanceof StatementVisitor) {
                 ((StatementVisitor) visitor).visitElif(this);
             }
+            this.condition.accept(visitor);
             for (Statement stmt : this.block.getStatements()) {
                 stmt.accept(visitor);
             }
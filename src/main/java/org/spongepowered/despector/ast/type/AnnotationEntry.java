@@ -48,8 +48,8 @@ public class AnnotationEntry extends TypeEntry {
     }
 
     @Override
-    public void writeTo(MessagePacker pack) throws IOException {
-        super.writeTo(pack, 0, AstSerializer.ENTRY_ID_ANNOTATIONTYPE);
+    public void writeTo(MessagePacker pack, boolean with_bodies) throws IOException {
+        super.writeTo(pack, 0, AstSerializer.ENTRY_ID_ANNOTATIONTYPE, with_bodies);
         pack.endMap();
     }
 
@@ -67,8 +67,8 @@ public class ClassEntry extends TypeEntry {
     }
 
     @Override
-    public void writeTo(MessagePacker pack) throws IOException {
-        super.writeTo(pack, 1, AstSerializer.ENTRY_ID_CLASS);
+    public void writeTo(MessagePacker pack, boolean with_bodies) throws IOException {
+        super.writeTo(pack, 1, AstSerializer.ENTRY_ID_CLASS, with_bodies);
         pack.writeString("supername").writeString(this.superclass);
         pack.endMap();
     }
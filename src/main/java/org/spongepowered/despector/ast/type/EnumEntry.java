@@ -68,8 +68,8 @@ public class EnumEntry extends TypeEntry {
     }
 
     @Override
-    public void writeTo(MessagePacker pack) throws IOException {
-        super.writeTo(pack, 1, AstSerializer.ENTRY_ID_ENUM);
+    public void writeTo(MessagePacker pack, boolean with_bodies) throws IOException {
+        super.writeTo(pack, 1, AstSerializer.ENTRY_ID_ENUM, with_bodies);
         pack.writeString("enumconstants").startArray(this.enum_constants.size());
         for (String cst : this.enum_constants) {
             pack.writeString(cst);
@@ -48,8 +48,8 @@ public class InterfaceEntry extends TypeEntry {
     }
 
     @Override
-    public void writeTo(MessagePacker pack) throws IOException {
-        super.writeTo(pack, 0, AstSerializer.ENTRY_ID_INTERFACE);
+    public void writeTo(MessagePacker pack, boolean with_bodies) throws IOException {
+        super.writeTo(pack, 0, AstSerializer.ENTRY_ID_INTERFACE, with_bodies);
         pack.endMap();
     }
 
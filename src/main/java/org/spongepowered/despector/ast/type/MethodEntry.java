@@ -37,6 +37,8 @@ import org.spongepowered.despector.ast.generic.MethodSignature;
 import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.invoke.Lambda;
+import org.spongepowered.despector.config.Retention;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.util.serialization.AstSerializer;
 import org.spongepowered.despector.util.serialization.MessagePacker;
@@ -46,6 +48,9 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * Represents a method declaration in a type.
@@ -79,7 +84,10 @@ public class MethodEntry extends AstEntry {
     public String[] block_debug = new String[3];
 
     protected Locals locals;
-    protected StatementBlock instructions = null;
+    protected volatile StatementBlock instructions = null;
+    @Nullable protected volatile Runnable deferred_body = null;
+    protected Set<String> referenced_types = null;
+    protected List<Lambda> referenced_lambdas = null;
 
     protected MethodSignature sig;
 
@@ -250,7 +258,11 @@ public class MethodEntry extends AstEntry {
         if (this.is_abstract) {
             return null;
         }
-        return this.instructions;
+        StatementBlock block = this.instructions;
+        if (block == null && this.deferred_body != null) {
+            block = loadDeferredBody();
+        }
+        return block;
     }
 
     /**
@@ -260,6 +272,79 @@ public class MethodEntry extends AstEntry {
         this.instructions = block;
     }
 
+    /**
+     * Gets if the statements of this method have not been decompiled yet and
+     * will be decompiled when they are first requested.
+     */
+    public synchronized boolean isBodyDeferred() {
+        return this.deferred_body != null;
+    }
+
+    /**
+     * Defers decompiling the statements of this method until they are first
+     * requested. The given loader is run at most once and is expected to set
+     * the statements of this method.
+     */
+    public synchronized void deferBody(@Nullable Runnable loader) {
+        this.deferred_body = loader;
+    }
+
+    private synchronized StatementBlock loadDeferredBody() {
+        // another thread may have finished loading the body while this one
+        // waited for the lock
+        if (this.instructions == null) {
+            Runnable loader = this.deferred_body;
+            if (loader != null) {
+                // the loader is only cleared once it has run so that other
+                // threads wait for the body rather than seeing no body at all
+                try {
+                    loader.run();
+                } finally {
+                    this.deferred_body = null;
+                }
+            }
+        }
+        return this.instructions;
+    }
+
+    /**
+     * Gets the descriptors of all types referenced from within the statements
+     * of this method, or null if they have not been collected.
+     */
+    @Nullable
+    public Set<String> getReferencedTypes() {
+        return this.referenced_types;
+    }
+
+    /**
+     * Gets the lambdas within the statements of this method, or null if they
+     * have not been collected. The bodies of these lambdas are inlined into
+     * this method when it is emitted.
+     */
+    @Nullable
+    public List<Lambda> getReferencedLambdas() {
+        return this.referenced_lambdas;
+    }
+
+    /**
+     * Sets the types and lambdas referenced from within the statements of this
+     * method.
+     */
+    public void setReferencedTypes(Set<String> types, List<Lambda> lambdas) {
+        this.referenced_types = checkNotNull(types, "types");
+        this.referenced_lambdas = checkNotNull(lambdas, "lambdas");
+    }
+
+    /**
+     * Marks the referenced types of this method as unknown. This must be called
+     * by anything which changes the types referenced by the statements of this
+     * method.
+     */
+    public void invalidateReferencedTypes() {
+        this.referenced_types = null;
+        this.referenced_lambdas = null;
+    }
+
     public InsnBlock getIR() {
         return this.ir;
     }
@@ -268,6 +353,23 @@ public class MethodEntry extends AstEntry {
         this.ir = block;
     }
 
+    /**
+     * Releases the data of this method which is no longer needed once it has
+     * been decompiled, as allowed by the given retention policy.
+     */
+    public void release(Retention retention) {
+        if (retention == Retention.ALL) {
+            return;
+        }
+        this.block_debug = null;
+        if (retention == Retention.MINIMAL) {
+            this.ir = null;
+            if (this.locals != null) {
+                this.locals.releaseLVT();
+            }
+        }
+    }
+
     public Annotation getAnnotation(AnnotationType type) {
         return this.annotations.get(type);
     }
@@ -290,6 +392,14 @@ public class MethodEntry extends AstEntry {
 
     @Override
     public void writeTo(MessagePacker pack) throws IOException {
+        writeTo(pack, true);
+    }
+
+    /**
+     * Writes this method to the given {@link MessagePacker}, optionally
+     * omitting the method body which is then written as nil.
+     */
+    public void writeTo(MessagePacker pack, boolean with_body) throws IOException {
         pack.startMap(18);
         pack.writeString("id").writeInt(AstSerializer.ENTRY_ID_METHOD);
         pack.writeString("access").writeInt(this.access.ordinal());
@@ -310,7 +420,8 @@ public class MethodEntry extends AstEntry {
         pack.writeString("locals");
         this.locals.writeTo(pack);
         pack.writeString("instructions");
-        if (this.instructions != null) {
+        if (with_body && getInstructions() != null) {
+            pack.resetObjectIds();
             pack.startArray(this.instructions.getStatementCount());
             for (Statement stmt : this.instructions.getStatements()) {
                 stmt.writeTo(pack);
@@ -331,7 +442,7 @@ public class MethodEntry extends AstEntry {
         if (visitor instanceof TypeVisitor) {
             ((TypeVisitor) visitor).visitMethod(this);
         }
-        if (this.instructions != null) {
+        if (getInstructions() != null) {
             this.instructions.accept(visitor);
         }
         if (visitor instanceof TypeVisitor) {
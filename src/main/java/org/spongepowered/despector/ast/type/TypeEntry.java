@@ -44,6 +44,8 @@ import org.spongepowered.despector.util.serialization.MessagePacker;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +75,10 @@ public abstract class TypeEntry extends AstEntry {
     protected final Map<String, FieldEntry> fields = new LinkedHashMap<>();
     protected final Multimap<String, MethodEntry> methods = LinkedHashMultimap.create();
 
+    // Methods keyed by their name followed by their descriptor
+    private final Map<String, MethodEntry> static_method_index = new HashMap<>();
+    private final Map<String, MethodEntry> method_index = new HashMap<>();
+
     protected final Map<AnnotationType, Annotation> annotations = new LinkedHashMap<>();
     protected final Map<String, InnerClassInfo> inner_classes = new LinkedHashMap<>();
 
@@ -192,25 +198,20 @@ public abstract class TypeEntry extends AstEntry {
     }
 
     protected MethodEntry findMethod(String name, Multimap<String, MethodEntry> map) {
-        MethodEntry ret = null;
-        for (MethodEntry m : map.values()) {
-            if (m.getName().equals(name)) {
-                if (ret != null) {
-                    throw new IllegalStateException("Tried to get ambiguous method " + name);
-                }
-                ret = m;
-            }
+        Collection<MethodEntry> named = map.get(name);
+        if (named.isEmpty()) {
+            return null;
+        }
+        Iterator<MethodEntry> it = named.iterator();
+        MethodEntry ret = it.next();
+        if (it.hasNext()) {
+            throw new IllegalStateException("Tried to get ambiguous method " + name);
         }
         return ret;
     }
 
-    protected MethodEntry findMethod(String name, String sig, Multimap<String, MethodEntry> map) {
-        for (MethodEntry m : map.values()) {
-            if (m.getName().equals(name) && m.getDescription().equals(sig)) {
-                return m;
-            }
-        }
-        return null;
+    protected MethodEntry findMethod(String name, String sig, Map<String, MethodEntry> index) {
+        return index.get(name + sig);
     }
 
     /**
@@ -228,7 +229,7 @@ public abstract class TypeEntry extends AstEntry {
      */
     public MethodEntry getStaticMethod(String name, String sig) {
         checkNotNull(name);
-        return findMethod(name, sig, this.static_methods);
+        return findMethod(name, sig, this.static_method_index);
     }
 
     /**
@@ -247,22 +248,23 @@ public abstract class TypeEntry extends AstEntry {
     public MethodEntry getMethod(String name, String sig) {
         checkNotNull(name);
         checkNotNull(sig);
-        return findMethod(name, sig, this.methods);
+        return findMethod(name, sig, this.method_index);
     }
 
     /**
-     * Adds the given method to this type.
+     * Adds the given method to this type. The name, descriptor and static
+     * flag of the method must not change after it has been added.
      */
     public void addMethod(MethodEntry m) {
         checkNotNull(m);
         if (m.isStatic()) {
-            MethodEntry existing = getStaticMethod(m.getName(), m.getDescription());
+            MethodEntry existing = this.static_method_index.putIfAbsent(m.getName() + m.getDescription(), m);
             if (existing != null) {
                 throw new IllegalArgumentException("Duplicate method " + existing);
             }
             this.static_methods.put(m.getName(), m);
         } else {
-            MethodEntry existing = getMethod(m.getName(), m.getDescription());
+            MethodEntry existing = this.method_index.putIfAbsent(m.getName() + m.getDescription(), m);
             if (existing != null) {
                 throw new IllegalArgumentException("Duplicate method " + existing);
             }
@@ -286,6 +288,20 @@ public abstract class TypeEntry extends AstEntry {
         return this.static_methods.values();
     }
 
+    /**
+     * Marks the referenced types of all methods in this type as unknown. This
+     * must be called by any transformer which changes the types referenced
+     * within method bodies.
+     */
+    public void invalidateReferencedTypes() {
+        for (MethodEntry mth : this.static_methods.values()) {
+            mth.invalidateReferencedTypes();
+        }
+        for (MethodEntry mth : this.methods.values()) {
+            mth.invalidateReferencedTypes();
+        }
+    }
+
     /**
      * Gets the static field with the given obfuscated name. If the field is not
      * found then an {@link IllegalStateException} is thrown.
@@ -364,6 +380,17 @@ public abstract class TypeEntry extends AstEntry {
         this.inner_classes.put(name, new InnerClassInfo(name, simple, outer, acc));
     }
 
+    /**
+     * Writes this type to the given {@link MessagePacker}, optionally omitting
+     * all method bodies.
+     */
+    public abstract void writeTo(MessagePacker pack, boolean with_bodies) throws IOException;
+
+    @Override
+    public void writeTo(MessagePacker pack) throws IOException {
+        writeTo(pack, true);
+    }
+
     public abstract void accept(AstVisitor visitor);
 
     @Override
@@ -376,6 +403,14 @@ public abstract class TypeEntry extends AstEntry {
      * for how much extra space in the map to reserve for the subtypes values.
      */
     public void writeTo(MessagePacker pack, int extra, int id) throws IOException {
+        writeTo(pack, extra, id, true);
+    }
+
+    /**
+     * Writes the common values of this type, optionally omitting all method
+     * bodies.
+     */
+    public void writeTo(MessagePacker pack, int extra, int id, boolean with_bodies) throws IOException {
         pack.startMap(14 + extra);
         pack.writeString("id").writeInt(id);
         pack.writeString("language").writeInt(this.lang.ordinal());
@@ -400,12 +435,12 @@ public abstract class TypeEntry extends AstEntry {
         pack.endArray();
         pack.writeString("staticmethods").startArray(this.static_methods.size());
         for (MethodEntry mth : this.static_methods.values()) {
-            mth.writeTo(pack);
+            mth.writeTo(pack, with_bodies);
         }
         pack.endArray();
         pack.writeString("methods").startArray(this.methods.size());
         for (MethodEntry mth : this.methods.values()) {
-            mth.writeTo(pack);
+            mth.writeTo(pack, with_bodies);
         }
         pack.endArray();
         pack.writeString("signature");
@@ -29,8 +29,10 @@ import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
 import ninja.leaping.configurate.objectmapping.ObjectMapper;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 
 /**
  * The manager for all configuration.
@@ -45,6 +47,10 @@ public class ConfigManager {
 
     private static ConfigBase config = null;
 
+    private static Path loaded_path;
+    private static FileTime loaded_time;
+    private static ConfigBase loaded_config;
+
     /**
      * Gets the global configuration object.
      */
@@ -56,9 +62,23 @@ public class ConfigManager {
     }
 
     /**
-     * Loads the given configuration file.
+     * Resets the global configuration back to the defaults.
+     */
+    public static void reset() {
+        config = null;
+    }
+
+    /**
+     * Loads the given configuration file. If the same file was loaded last and
+     * has not been modified since then the previously loaded configuration is
+     * reused.
      */
     public static void load(Path path) {
+        path = path.toAbsolutePath().normalize();
+        if (path.equals(loaded_path) && loaded_time != null && loaded_time.equals(getModifiedTime(path))) {
+            config = loaded_config;
+            return;
+        }
         System.out.println("Loading config from " + path.toString());
         try {
             Files.createDirectories(path.getParent());
@@ -72,12 +92,24 @@ public class ConfigManager {
             config = configMapper.populate(node);
             configMapper.serialize(node);
             loader.save(node);
+            loaded_path = path;
+            loaded_time = getModifiedTime(path);
+            loaded_config = config;
         } catch (Exception e) {
+            loaded_path = null;
             System.err.println("Error loading configuration:");
             e.printStackTrace();
         }
     }
 
+    private static FileTime getModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /**
      * Saves the config back to disk to persist and changes made.
      */
@@ -85,6 +117,7 @@ public class ConfigManager {
         try {
             configMapper.serialize(node);
             loader.save(node);
+            loaded_time = loaded_path == null ? null : getModifiedTime(loaded_path);
         } catch (Exception e) {
             System.err.println("Error saving configuration:");
             e.printStackTrace();
@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The settings used by a single decompiler. New options start from the
+ * global {@link LibraryConfiguration} and {@link ConfigManager} settings, but
+ * later changes to either do not affect each other.
+ */
+public class DecompilerOptions {
+
+    private boolean quiet;
+    private boolean parallel;
+    private boolean force_lang;
+    private int parallel_batch_size;
+    private Retention retention;
+    private boolean print_opcodes_on_error;
+
+    /**
+     * Creates options with the current global settings.
+     */
+    public DecompilerOptions() {
+        this.quiet = LibraryConfiguration.quiet;
+        this.parallel = LibraryConfiguration.parallel;
+        this.force_lang = LibraryConfiguration.force_lang;
+        this.parallel_batch_size = LibraryConfiguration.parallel_batch_size;
+        this.retention = LibraryConfiguration.retention;
+        this.print_opcodes_on_error = ConfigManager.getConfig().print_opcodes_on_error;
+    }
+
+    /**
+     * Gets whether errors and progress are not printed.
+     */
+    public boolean isQuiet() {
+        return this.quiet;
+    }
+
+    public void setQuiet(boolean state) {
+        this.quiet = state;
+    }
+
+    /**
+     * Gets whether method bodies are decompiled in parallel once their types
+     * are flushed.
+     */
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
+    public void setParallel(boolean state) {
+        this.parallel = state;
+    }
+
+    /**
+     * Gets whether types are decompiled as the language of the decompiler
+     * rather than the language they are detected as.
+     */
+    public boolean isForceLanguage() {
+        return this.force_lang;
+    }
+
+    public void setForceLanguage(boolean state) {
+        this.force_lang = state;
+    }
+
+    /**
+     * Gets the number of types whose methods are queued for parallel
+     * decompilation before the queue is flushed, or zero to only flush once
+     * all types are loaded.
+     */
+    public int getParallelBatchSize() {
+        return this.parallel_batch_size;
+    }
+
+    public void setParallelBatchSize(int size) {
+        this.parallel_batch_size = size;
+    }
+
+    /**
+     * Gets which intermediate data of a method is kept once the method has
+     * been decompiled.
+     */
+    public Retention getRetention() {
+        return this.retention;
+    }
+
+    public void setRetention(Retention retention) {
+        this.retention = checkNotNull(retention, "retention");
+    }
+
+    /**
+     * Gets whether the opcodes of a method are added to its body when it
+     * fails to decompile.
+     */
+    public boolean printOpcodesOnError() {
+        return this.print_opcodes_on_error;
+    }
+
+    public void setPrintOpcodesOnError(boolean state) {
+        this.print_opcodes_on_error = state;
+    }
+
+}
@@ -24,6 +24,8 @@
  */
 package org.spongepowered.despector.config;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Static config designed to be set when despector is being used as a library.
  */
@@ -33,10 +35,27 @@ public class LibraryConfiguration {
     public static boolean parallel = true;
     public static boolean print_times = false;
     public static boolean force_lang = false;
+    /**
+     * The number of types whose methods are queued for parallel decompilation
+     * before the queue is flushed, or zero to only flush once all types are
+     * loaded.
+     */
+    public static int parallel_batch_size = 0;
+    /**
+     * Which intermediate data of a method is kept once the method has been
+     * decompiled.
+     */
+    public static Retention retention = Retention.ALL;
     
     // Viewer control fields
     public static boolean emit_block_debug = false;
-    public static int failed_method_count = 0;
-    public static int total_method_count = 0;
+    // counted by every decompiler, which may run on several threads at once
+    public static final AtomicInteger failed_method_count = new AtomicInteger();
+    public static final AtomicInteger total_method_count = new AtomicInteger();
+    /**
+     * The number of method bodies whose decompilation was deferred because the
+     * emitter will not print them.
+     */
+    public static final AtomicInteger deferred_method_count = new AtomicInteger();
 
 }
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.daemon;
+
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A client which submits jobs to a running {@link DaemonServer}.
+ */
+public class DaemonClient {
+
+    private final int port;
+    private final String token;
+
+    private int status;
+    private String output = "";
+
+    /**
+     * Creates a new client for the daemon described by the given daemon file.
+     */
+    public DaemonClient(Path daemon_file) throws IOException {
+        List<String> lines = Files.readAllLines(daemon_file, StandardCharsets.UTF_8);
+        if (lines.size() < 2) {
+            throw new IllegalStateException("Malformed daemon file " + daemon_file);
+        }
+        this.port = Integer.parseInt(lines.get(0).trim());
+        this.token = lines.get(1).trim();
+    }
+
+    /**
+     * Gets the status of the last request.
+     */
+    public int getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Gets the output printed by the daemon during the last request.
+     */
+    public String getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Runs a decompile job with the given command line arguments, relative
+     * paths are resolved against the given working directory. Returns the
+     * status of the job.
+     */
+    public int decompile(List<String> args, Path working_dir) throws IOException {
+        return send(DaemonServer.COMMAND_DECOMPILE, args, working_dir);
+    }
+
+    /**
+     * Checks that the daemon is alive.
+     */
+    public int ping() throws IOException {
+        return send(DaemonServer.COMMAND_PING, new ArrayList<>(), Paths.get("."));
+    }
+
+    /**
+     * Requests that the daemon stops after this request.
+     */
+    public int stop() throws IOException {
+        return send(DaemonServer.COMMAND_STOP, new ArrayList<>(), Paths.get("."));
+    }
+
+    private int send(String command, List<String> args, Path working_dir) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            MessagePacker pack = new MessagePacker(out);
+            pack.startMap(4);
+            pack.writeString("token").writeString(this.token);
+            pack.writeString("command").writeString(command);
+            pack.writeString("cwd").writeString(working_dir.toAbsolutePath().normalize().toString());
+            pack.writeString("args");
+            pack.startArray(args.size());
+            for (String arg : args) {
+                pack.writeString(arg);
+            }
+            pack.endArray();
+            pack.endMap();
+            out.flush();
+
+            MessageUnpacker unpack = new MessageUnpacker(new BufferedInputStream(socket.getInputStream()));
+            this.status = DaemonServer.STATUS_FAILED;
+            this.output = "";
+            int entries = unpack.readMap();
+            for (int i = 0; i < entries; i++) {
+                String key = unpack.readString();
+                if ("status".equals(key)) {
+                    this.status = unpack.readInt();
+                } else if ("output".equals(key)) {
+                    this.output = unpack.readString();
+                } else {
+                    throw new IllegalStateException("Unknown response key: " + key);
+                }
+            }
+            return this.status;
+        }
+    }
+
+    /**
+     * Submits a job to a running daemon. Accepts the same arguments as
+     * {@link org.spongepowered.despector.Despector#main} as well as an
+     * optional {@code --daemon-file=} argument and a {@code --stop} flag to
+     * shut the daemon down.
+     */
+    public static void main(String[] args) throws IOException {
+        Path daemon_file = DaemonServer.getDefaultDaemonFile();
+        boolean stop = false;
+        List<String> job = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--daemon-file=")) {
+                daemon_file = Paths.get(arg.substring(14));
+            } else if ("--stop".equals(arg)) {
+                stop = true;
+            } else {
+                job.add(arg);
+            }
+        }
+        if (!Files.exists(daemon_file)) {
+            System.err.println("No daemon running, " + daemon_file + " not found");
+            System.exit(DaemonServer.STATUS_FAILED);
+        }
+        DaemonClient client = new DaemonClient(daemon_file);
+        int status = stop ? client.stop() : client.decompile(job, Paths.get("."));
+        System.out.print(client.getOutput());
+        System.exit(status);
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.daemon;
+
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A long running decompiler process which accepts jobs from a
+ * {@link DaemonClient} over a loopback socket.
+ *
+ * <p>Keeping the process alive between jobs keeps the jit compiled
+ * decompiler, the emitter pool, the loaded configuration and the worker
+ * threads of the scheduler warm. Jobs are run one at a time as the
+ * configuration and target language are global.</p>
+ *
+ * <p>On startup the port and a random token are written to the daemon file,
+ * requests which do not present the token are rejected. Clients which do not
+ * send their request in time are dropped.</p>
+ */
+public class DaemonServer implements AutoCloseable {
+
+    public static final String COMMAND_DECOMPILE = "decompile";
+    public static final String COMMAND_PING = "ping";
+    public static final String COMMAND_STOP = "stop";
+
+    public static final int STATUS_OK = 0;
+    public static final int STATUS_FAILED = 1;
+    public static final int STATUS_REJECTED = 2;
+
+    public static final int DEFAULT_REQUEST_TIMEOUT = 30000;
+
+    private static final int MAX_REQUEST_ENTRIES = 16;
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_STRING_LENGTH = 64 * 1024;
+    private static final int MAX_ARGS = 4096;
+
+    /**
+     * Gets the default location of the daemon file.
+     */
+    public static Path getDefaultDaemonFile() {
+        return Paths.get(System.getProperty("user.home"), ".despector-daemon");
+    }
+
+    private final ServerSocket socket;
+    private final Path daemon_file;
+    private final String token;
+    private volatile boolean running = true;
+    private int request_timeout = DEFAULT_REQUEST_TIMEOUT;
+
+    /**
+     * Creates a new daemon listening on the given loopback port and writes
+     * its details to the given daemon file. A port of zero picks any free
+     * port.
+     */
+    public DaemonServer(int port, Path daemon_file) throws IOException {
+        this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.daemon_file = daemon_file;
+        byte[] secret = new byte[16];
+        new SecureRandom().nextBytes(secret);
+        StringBuilder token = new StringBuilder();
+        for (byte b : secret) {
+            token.append(String.format("%02x", b & 0xFF));
+        }
+        this.token = token.toString();
+        try {
+            writeDaemonFile();
+        } catch (IOException e) {
+            this.socket.close();
+            throw e;
+        }
+    }
+
+    private void writeDaemonFile() throws IOException {
+        Files.deleteIfExists(this.daemon_file);
+        try {
+            Files.createFile(this.daemon_file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(this.daemon_file);
+        }
+        List<String> lines = Arrays.asList(String.valueOf(getPort()), this.token);
+        Files.write(this.daemon_file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the port this daemon is listening on.
+     */
+    public int getPort() {
+        return this.socket.getLocalPort();
+    }
+
+    /**
+     * Sets the time in milliseconds a client may take to send its request
+     * before it is dropped, so that an idle connection cannot hold up later
+     * jobs.
+     */
+    public void setRequestTimeout(int timeout) {
+        this.request_timeout = timeout;
+    }
+
+    /**
+     * Gets if this daemon is still accepting jobs.
+     */
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Accepts and runs jobs until a stop request is received or the daemon is
+     * closed.
+     */
+    public void run() throws IOException {
+        try {
+            while (this.running) {
+                Socket client;
+                try {
+                    client = this.socket.accept();
+                } catch (IOException e) {
+                    if (!this.running) {
+                        break;
+                    }
+                    throw e;
+                }
+                try (Socket s = client) {
+                    handle(s);
+                } catch (Throwable e) {
+                    // a bad request, including one which runs out of memory,
+                    // must not stop the daemon
+                    if (!LibraryConfiguration.quiet) {
+                        System.err.println("Error handling daemon request");
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void handle(Socket client) throws IOException {
+        client.setSoTimeout(this.request_timeout);
+        MessageUnpacker unpack = new MessageUnpacker(new BufferedInputStream(client.getInputStream()));
+        OutputStream out = new BufferedOutputStream(client.getOutputStream());
+        // the token must come first and is checked before anything else is
+        // read so that unauthenticated clients cannot make the daemon read
+        // large requests
+        int entries = unpack.readMap();
+        if (entries < 1 || entries > MAX_REQUEST_ENTRIES || !"token".equals(unpack.readString(MAX_KEY_LENGTH))) {
+            respond(out, STATUS_REJECTED, "Invalid daemon request\n");
+            return;
+        }
+        String token = unpack.readString(MAX_TOKEN_LENGTH);
+        if (!MessageDigest.isEqual(this.token.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            respond(out, STATUS_REJECTED, "Invalid daemon token\n");
+            return;
+        }
+        String command = null;
+        String cwd = null;
+        List<String> args = new ArrayList<>();
+        for (int i = 1; i < entries; i++) {
+            String key = unpack.readString(MAX_KEY_LENGTH);
+            if ("command".equals(key)) {
+                command = unpack.readString(MAX_STRING_LENGTH);
+            } else if ("cwd".equals(key)) {
+                cwd = unpack.readString(MAX_STRING_LENGTH);
+            } else if ("args".equals(key)) {
+                int len = unpack.readArray();
+                if (len < 0 || len > MAX_ARGS) {
+                    throw new IllegalStateException("Too many arguments: " + (len & 0xFFFFFFFFL));
+                }
+                for (int j = 0; j < len; j++) {
+                    args.add(unpack.readString(MAX_STRING_LENGTH));
+                }
+            } else {
+                throw new IllegalStateException("Unknown request key: " + key);
+            }
+        }
+        if (COMMAND_PING.equals(command)) {
+            respond(out, STATUS_OK, "");
+        } else if (COMMAND_STOP.equals(command)) {
+            this.running = false;
+            respond(out, STATUS_OK, "Daemon stopped\n");
+        } else if (COMMAND_DECOMPILE.equals(command)) {
+            Path working_dir = cwd == null ? Paths.get(".") : Paths.get(cwd);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int status = runJob(args.toArray(new String[args.size()]), working_dir, output);
+            respond(out, status, new String(output.toByteArray(), StandardCharsets.UTF_8));
+        } else {
+            respond(out, STATUS_FAILED, "Unknown command: " + command + "\n");
+        }
+    }
+
+    private static int runJob(String[] args, Path working_dir, ByteArrayOutputStream output) {
+        PrintStream old_out = System.out;
+        PrintStream old_err = System.err;
+        PrintStream capture = new PrintStream(output, true);
+        System.setOut(capture);
+        System.setErr(capture);
+        try {
+            return Despector.run(args, working_dir) ? STATUS_OK : STATUS_FAILED;
+        } catch (Throwable e) {
+            e.printStackTrace(capture);
+            return STATUS_FAILED;
+        } finally {
+            capture.flush();
+            System.setOut(old_out);
+            System.setErr(old_err);
+        }
+    }
+
+    private static void respond(OutputStream out, int status, String output) throws IOException {
+        MessagePacker pack = new MessagePacker(out);
+        pack.startMap(2);
+        pack.writeString("status").writeInt(status);
+        pack.writeString("output").writeString(output);
+        pack.endMap();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        if (!this.socket.isClosed()) {
+            this.socket.close();
+            Files.deleteIfExists(this.daemon_file);
+        }
+    }
+
+    /**
+     * Starts a daemon. Accepts an optional {@code --port=} and
+     * {@code --daemon-file=} argument.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        Path daemon_file = getDefaultDaemonFile();
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring(7));
+            } else if (arg.startsWith("--daemon-file=")) {
+                daemon_file = Paths.get(arg.substring(14));
+            } else {
+                System.err.println("Unknown flag: " + arg);
+            }
+        }
+        try (DaemonServer server = new DaemonServer(port, daemon_file)) {
+            System.out.println("Despector daemon listening on port " + server.getPort());
+            server.run();
+        }
+    }
+
+}
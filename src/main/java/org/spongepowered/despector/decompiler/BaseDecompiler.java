@@ -24,6 +24,8 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.AccessModifier;
 import org.spongepowered.despector.ast.Annotation;
@@ -37,6 +39,8 @@ import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.GenericClassTypeSignature;
 import org.spongepowered.despector.ast.generic.MethodSignature;
 import org.spongepowered.despector.ast.generic.TypeSignature;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.invoke.Lambda;
 import org.spongepowered.despector.ast.type.AnnotationEntry;
 import org.spongepowered.despector.ast.type.ClassEntry;
 import org.spongepowered.despector.ast.type.EnumEntry;
@@ -44,16 +48,21 @@ import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
-import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.DecompilerOptions;
 import org.spongepowered.despector.decompiler.error.SourceFormatException;
 import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHandleEntry;
+import org.spongepowered.despector.decompiler.mapping.Mappings;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.decompiler.method.special.ReferencedTypesVisitor;
+import org.spongepowered.despector.emitter.Emitter;
+import org.spongepowered.despector.parallel.MethodBodyMemo;
 import org.spongepowered.despector.parallel.MethodDecompileTask;
 import org.spongepowered.despector.parallel.Scheduler;
 import org.spongepowered.despector.parallel.Timing;
+import org.spongepowered.despector.util.HeapReport;
 import org.spongepowered.despector.util.SignatureParser;
 import org.spongepowered.despector.util.TypeHelper;
 
@@ -62,8 +71,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 /**
  * A language decompiler.
@@ -94,13 +107,67 @@ public class BaseDecompiler implements Decompiler {
     private final BytecodeTranslator bytecode = new BytecodeTranslator();
     private final Language lang;
 
-    private Scheduler<MethodDecompileTask> scheduler;
+    @Nullable private Scheduler<MethodDecompileTask> scheduler;
+    @Nullable private DecompilerOptions options;
+    @Nullable private HeapReport heap_report;
+    @Nullable private Emitter<?> emitter;
+    @Nullable private MethodBodyMemo memo;
+    @Nullable private Mappings mappings;
 
     public BaseDecompiler(Language lang) {
         this.lang = lang;
-        if (LibraryConfiguration.parallel) {
-            this.scheduler = new Scheduler<>(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Gets the options which classes are decompiled with. If no options have
+     * been set then these are the global settings at the time of the call.
+     */
+    public DecompilerOptions getOptions() {
+        if (this.options == null) {
+            return new DecompilerOptions();
         }
+        return this.options;
+    }
+
+    /**
+     * Sets the options which classes are decompiled with, or null to use the
+     * global settings at the time each class is decompiled.
+     */
+    public void setOptions(@Nullable DecompilerOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Sets a report to which the intermediate data still held by each type is
+     * added once its methods have been decompiled.
+     */
+    public void setHeapReport(@Nullable HeapReport report) {
+        this.heap_report = report;
+    }
+
+    /**
+     * Sets the emitter which the decompiled types will be emitted with. Method
+     * bodies which this emitter does not print are only decompiled once they
+     * are requested, or all bodies are decompiled if the emitter is null.
+     */
+    public void setEmitter(@Nullable Emitter<?> emitter) {
+        this.emitter = emitter;
+    }
+
+    /**
+     * Sets a memo from which the bodies of methods identical to an already
+     * decompiled method are copied instead of being decompiled again.
+     */
+    public void setMethodBodyMemo(@Nullable MethodBodyMemo memo) {
+        this.memo = memo;
+    }
+
+    /**
+     * Sets the obfuscation mappings which are applied to classes as they are
+     * loaded.
+     */
+    public void setMappings(@Nullable Mappings mappings) {
+        this.mappings = mappings;
     }
 
     @Override
@@ -110,6 +177,74 @@ public class BaseDecompiler implements Decompiler {
 
     @Override
     public TypeEntry decompile(InputStream input, SourceSet set) throws IOException {
+        DecompilerOptions options = getOptions();
+        return decompile(input, set, options, false, options.isParallel());
+    }
+
+    /**
+     * Decompiles the given class and the bodies of its methods on the calling
+     * thread, whether or not parallel decompilation is enabled. Unlike
+     * {@link #decompile(InputStream, SourceSet)} this may be called from
+     * several threads at once.
+     */
+    public TypeEntry decompileNow(InputStream input, SourceSet set) throws IOException {
+        return decompile(input, set, getOptions(), false, false);
+    }
+
+    /**
+     * Decompiles only the body of the method with the given name and
+     * descriptor from the given class, along with the bodies of any lambdas
+     * within it. The bodies of all other methods are decompiled once they are
+     * first requested. Returns null if the class has no such method.
+     */
+    @Nullable
+    public MethodEntry decompileMethod(InputStream input, SourceSet set, String name, String desc) throws IOException {
+        checkNotNull(name);
+        checkNotNull(desc);
+        TypeEntry entry = decompile(input, set, getOptions(), true, false);
+        MethodEntry mth = entry.getStaticMethod(name, desc);
+        if (mth == null) {
+            mth = entry.getMethod(name, desc);
+        }
+        if (mth == null) {
+            return null;
+        }
+        decompileLambdas(entry, mth, new HashSet<>());
+        return mth;
+    }
+
+    /**
+     * Decompiles the bodies of the synthetic lambda methods of the given type
+     * which are referenced from the given method, and of any lambdas nested
+     * within them.
+     */
+    private static void decompileLambdas(TypeEntry type, MethodEntry mth, Set<MethodEntry> visited) {
+        StatementBlock block = mth.getInstructions();
+        if (block == null) {
+            return;
+        }
+        List<Lambda> lambdas = mth.getReferencedLambdas();
+        if (lambdas == null) {
+            ReferencedTypesVisitor visitor = new ReferencedTypesVisitor();
+            block.accept(visitor);
+            lambdas = visitor.getLambdas();
+        }
+        for (Lambda lambda : lambdas) {
+            if (!type.getName().equals(TypeHelper.descToType(lambda.getLambdaOwner()))) {
+                continue;
+            }
+            MethodEntry body = type.getStaticMethod(lambda.getLambdaMethod(), lambda.getLambdaDescription());
+            if (body == null) {
+                body = type.getMethod(lambda.getLambdaMethod(), lambda.getLambdaDescription());
+            }
+            if (body != null && visited.add(body)) {
+                decompileLambdas(type, body, visited);
+            }
+        }
+    }
+
+    private TypeEntry decompile(InputStream input, SourceSet set, DecompilerOptions options, boolean defer_methods, boolean schedule)
+            throws IOException {
         DataInputStream data = (input instanceof DataInputStream) ? (DataInputStream) input : new DataInputStream(input);
         long decompile_start = System.nanoTime();
         int magic = data.readInt();
@@ -122,13 +257,16 @@ public class BaseDecompiler implements Decompiler {
 
         // TODO check versions and adapt loading to support a range of versions
 
-        ClassConstantPool pool = new ClassConstantPool();
+        ClassConstantPool pool = new ClassConstantPool(this.mappings);
         pool.load(data);
 
         int access_flags = data.readUnsignedShort();
 
-        String name = pool.getClass(data.readUnsignedShort()).name;
-        if (!LibraryConfiguration.quiet) {
+        ClassConstantPool.ClassEntry this_class = pool.getClass(data.readUnsignedShort());
+        String name = this_class.name;
+        // members are mapped by the obfuscated name of their owner
+        String obf_name = pool.getUtf8(this_class.name_index);
+        if (!options.isQuiet()) {
             System.out.println("Decompiling class " + name);
         }
         int super_index = data.readUnsignedShort();
@@ -141,7 +279,7 @@ public class BaseDecompiler implements Decompiler {
         }
 
         Language actual_lang = Language.JAVA;
-        if (LibraryConfiguration.force_lang && this.lang != Language.ANY) {
+        if (options.isForceLanguage() && this.lang != Language.ANY) {
             actual_lang = this.lang;
         }
         TypeEntry entry = null;
@@ -165,10 +303,13 @@ public class BaseDecompiler implements Decompiler {
         for (int i = 0; i < field_count; i++) {
             int field_access = data.readUnsignedShort();
             String field_name = pool.getUtf8(data.readUnsignedShort());
+            if (this.mappings != null) {
+                field_name = this.mappings.mapField(obf_name, field_name);
+            }
             if ((field_access & ACC_ENUM) != 0) {
                 ((EnumEntry) entry).addEnumConstant(field_name);
             }
-            String field_desc = pool.getUtf8(data.readUnsignedShort());
+            String field_desc = mapDescriptor(pool.getUtf8(data.readUnsignedShort()));
 
             FieldEntry field = new FieldEntry(set);
             field.setAccessModifier(AccessModifier.fromModifiers(field_access));
@@ -192,7 +333,7 @@ public class BaseDecompiler implements Decompiler {
                 } else if ("Synthetic".equals(attribute_name)) {
                     field.setSynthetic(true);
                 } else if ("Signature".equals(attribute_name)) {
-                    field.setType(SignatureParser.parseFieldTypeSignature(pool.getUtf8(data.readUnsignedShort())));
+                    field.setType(SignatureParser.parseFieldTypeSignature(mapSignature(pool.getUtf8(data.readUnsignedShort()))));
                 } else if ("Deprecated".equals(attribute_name)) {
                     field.setDeprecated(true);
                 } else if ("RuntimeVisibleAnnotations".equals(attribute_name)) {
@@ -221,6 +362,10 @@ public class BaseDecompiler implements Decompiler {
             int method_access = data.readUnsignedShort();
             String method_name = pool.getUtf8(data.readUnsignedShort());
             String method_desc = pool.getUtf8(data.readUnsignedShort());
+            if (this.mappings != null) {
+                method_name = this.mappings.mapMethod(obf_name, method_name, method_desc);
+                method_desc = this.mappings.mapDescriptor(method_desc);
+            }
 
             List<TypeSignature> param_types = new ArrayList<>();
             for (String t : TypeHelper.splitSig(method_desc)) {
@@ -286,7 +431,7 @@ public class BaseDecompiler implements Decompiler {
                                 int start_pc = data.readUnsignedShort();
                                 int local_length = data.readUnsignedShort();
                                 String local_name = pool.getUtf8(data.readUnsignedShort());
-                                String local_desc = pool.getUtf8(data.readUnsignedShort());
+                                String local_desc = mapDescriptor(pool.getUtf8(data.readUnsignedShort()));
                                 int index = data.readUnsignedShort();
                                 Local loc = locals.getLocal(index);
                                 loc.addLVT(start_pc, local_length, local_name, local_desc);
@@ -299,7 +444,7 @@ public class BaseDecompiler implements Decompiler {
                                 int start_pc = data.readUnsignedShort();
                                 /* int local_length = */ data.readUnsignedShort();
                                 /* String local_name = */ pool.getUtf8(data.readUnsignedShort());
-                                String local_signature = pool.getUtf8(data.readUnsignedShort());
+                                String local_signature = mapSignature(pool.getUtf8(data.readUnsignedShort()));
                                 int index = data.readUnsignedShort();
                                 Local loc = locals.getLocal(index);
                                 loc.getLVT(start_pc).setSignature(local_signature);
@@ -320,7 +465,7 @@ public class BaseDecompiler implements Decompiler {
                 } else if ("Synthetic".equals(attribute_name)) {
                     method.setSynthetic(true);
                 } else if ("Signature".equals(attribute_name)) {
-                    method_sig = pool.getUtf8(data.readUnsignedShort());
+                    method_sig = mapSignature(pool.getUtf8(data.readUnsignedShort()));
                 } else if ("Deprecated".equals(attribute_name)) {
                     method.setDeprecated(true);
                 } else if ("RuntimeVisibleAnnotations".equals(attribute_name)) {
@@ -384,15 +529,15 @@ public class BaseDecompiler implements Decompiler {
                 }
             }
             if (method_sig != null) {
-                method.setMethodSignature(SignatureParser.parseMethod(method_sig));
-            } else {
-                MethodSignature sig = SignatureParser.parseMethod(method_desc);
-                method.setMethodSignature(sig);
-                if (checked_exceptions != null && !checked_exceptions.isEmpty()) {
-                    for (String ex : checked_exceptions) {
-                        sig.getThrowsSignature().add(ClassTypeSignature.of("L" + ex + ";"));
-                    }
+                method.setMethodSignature(SignatureParser.internMethod(method_sig));
+            } else if (checked_exceptions != null && !checked_exceptions.isEmpty()) {
+                MethodSignature sig = new MethodSignature(SignatureParser.internMethod(method_desc));
+                for (String ex : checked_exceptions) {
+                    sig.getThrowsSignature().add(ClassTypeSignature.of("L" + ex + ";"));
                 }
+                method.setMethodSignature(sig);
+            } else {
+                method.setMethodSignature(SignatureParser.internMethod(method_desc));
             }
         }
         List<BootstrapMethod> bootstrap_methods = new ArrayList<>();
@@ -403,11 +548,15 @@ public class BaseDecompiler implements Decompiler {
             if ("InnerClasses".equals(attribute_name)) {
                 int number_of_classes = data.readUnsignedShort();
                 for (int j = 0; j < number_of_classes; j++) {
-                    String inner_cls = pool.getClass(data.readUnsignedShort()).name;
+                    ClassConstantPool.ClassEntry inner = pool.getClass(data.readUnsignedShort());
+                    String inner_cls = inner.name;
                     int outer_index = data.readUnsignedShort();
                     String outer_cls = outer_index == 0 ? null : pool.getClass(outer_index).name;
                     int name_index = data.readUnsignedShort();
                     String inner_name = name_index == 0 ? null : pool.getUtf8(name_index);
+                    if (inner_name != null && this.mappings != null && !inner_cls.equals(pool.getUtf8(inner.name_index))) {
+                        inner_name = inner_cls.substring(Math.max(inner_cls.lastIndexOf('$'), inner_cls.lastIndexOf('/')) + 1);
+                    }
                     int acc = data.readUnsignedShort();
                     entry.addInnerClass(inner_cls, inner_name, outer_cls, acc);
                 }
@@ -416,7 +565,7 @@ public class BaseDecompiler implements Decompiler {
             } else if ("Synthetic".equals(attribute_name)) {
                 entry.setSynthetic(true);
             } else if ("Signature".equals(attribute_name)) {
-                entry.setSignature(SignatureParser.parse(pool.getUtf8(data.readUnsignedShort())));
+                entry.setSignature(SignatureParser.parse(mapSignature(pool.getUtf8(data.readUnsignedShort()))));
             } else if ("SourceFile".equals(attribute_name)) {
                 data.skipBytes(length);
             } else if ("SourceDebugExtension".equals(attribute_name)) {
@@ -468,42 +617,60 @@ public class BaseDecompiler implements Decompiler {
         }
 
         long classloading_time = System.nanoTime() - decompile_start;
-        Timing.time_loading_classes += classloading_time;
+        Timing.time_loading_classes.addAndGet(classloading_time);
 
-        if (!LibraryConfiguration.force_lang) {
+        if (!options.isForceLanguage()) {
             entry.setLanguage(actual_lang);
         }
 
-        MethodDecompileTask task = new MethodDecompileTask(entry, pool, unfinished_methods, this.bytecode, bootstrap_methods);
-        if (LibraryConfiguration.parallel) {
+        MethodDecompileTask task =
+                new MethodDecompileTask(entry, pool, unfinished_methods, this.bytecode, bootstrap_methods, this.emitter, this.memo, options);
+        if (defer_methods) {
+            task.defer();
+            set.add(entry);
+        } else if (schedule) {
+            if (this.scheduler == null) {
+                this.scheduler = new Scheduler<>(Runtime.getRuntime().availableProcessors());
+            }
             this.scheduler.add(task);
+            if (options.getParallelBatchSize() > 0 && this.scheduler.getTasks().size() >= options.getParallelBatchSize()) {
+                flushTasks();
+            }
         } else {
             long method_decompile_start = System.nanoTime();
             task.run();
+            if (this.heap_report != null) {
+                this.heap_report.add(entry);
+                task.addCodeTo(this.heap_report);
+            }
             set.add(entry);
             long method_decompile_time = System.nanoTime() - method_decompile_start;
-            Timing.time_decompiling_methods += method_decompile_time;
+            Timing.time_decompiling_methods.addAndGet(method_decompile_time);
         }
         long decompile_time = System.nanoTime() - decompile_start;
-        Timing.time_decompiling += decompile_time;
+        Timing.time_decompiling.addAndGet(decompile_time);
         return entry;
     }
 
     public void flushTasks() {
-        if (LibraryConfiguration.parallel) {
+        if (this.scheduler != null) {
             long start = System.nanoTime();
             this.scheduler.execute();
             for (MethodDecompileTask task : this.scheduler.getTasks()) {
+                if (this.heap_report != null) {
+                    this.heap_report.add(task.getEntry());
+                    task.addCodeTo(this.heap_report);
+                }
                 task.getEntry().getSource().add(task.getEntry());
             }
             long method_decompile_time = System.nanoTime() - start;
-            Timing.time_decompiling_methods += method_decompile_time;
+            Timing.time_decompiling_methods.addAndGet(method_decompile_time);
             this.scheduler.reset();
         }
     }
 
     private Annotation readAnnotation(DataInputStream data, ClassConstantPool pool, SourceSet set) throws IOException {
-        String anno_type_name = pool.getUtf8(data.readUnsignedShort());
+        String anno_type_name = mapDescriptor(pool.getUtf8(data.readUnsignedShort()));
         AnnotationType anno_type = set.getAnnotationType(TypeHelper.descToType(anno_type_name));
         Annotation anno = new Annotation(anno_type);
         int value_paris = data.readUnsignedShort();
@@ -544,7 +711,7 @@ public class BaseDecompiler implements Decompiler {
             int value = pool.getInt(data.readUnsignedShort());
             return Boolean.valueOf(value != 0);
         } else if (element_type_tag == 'c') {
-            String value = pool.getUtf8(data.readUnsignedShort());
+            String value = mapDescriptor(pool.getUtf8(data.readUnsignedShort()));
             return ClassTypeSignature.of(value);
         } else if (element_type_tag == '@') {
             Annotation value = readAnnotation(data, pool, set);
@@ -552,6 +719,10 @@ public class BaseDecompiler implements Decompiler {
         } else if (element_type_tag == 'e') {
             String enum_type = pool.getUtf8(data.readUnsignedShort());
             String enum_cst = pool.getUtf8(data.readUnsignedShort());
+            if (this.mappings != null) {
+                enum_cst = this.mappings.mapField(TypeHelper.descToType(enum_type), enum_cst);
+                enum_type = this.mappings.mapDescriptor(enum_type);
+            }
             EnumConstant value = new EnumConstant(enum_type, enum_cst);
             return value;
         } else if (element_type_tag == '[') {
@@ -565,6 +736,14 @@ public class BaseDecompiler implements Decompiler {
         throw new IllegalStateException();
     }
 
+    private String mapDescriptor(String desc) {
+        return this.mappings == null ? desc : this.mappings.mapDescriptor(desc);
+    }
+
+    private String mapSignature(String sig) {
+        return this.mappings == null ? sig : this.mappings.mapSignature(sig);
+    }
+
     public static class BootstrapMethod {
 
         public MethodHandleEntry handle;
@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the class files loaded from several inputs, such as jars which shade
+ * copies of the same library, so that each distinct class is only decompiled
+ * once.
+ *
+ * <p>Class files are identified by their internal name and a hash of their
+ * contents. An identical copy of a class which was already loaded is skipped,
+ * while a class whose contents differ from the last loaded class of the same
+ * name is loaded again, replacing it, and recorded as a conflict.</p>
+ */
+public class ClassDeduplicator {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final Map<String, Loaded> classes = new HashMap<>();
+    private final List<Conflict> conflicts = new ArrayList<>();
+    private int duplicates;
+
+    /**
+     * Checks if the given class file from the given source should be loaded,
+     * and records it if so.
+     */
+    public synchronized boolean add(String name, byte[] data, String source) {
+        HashCode hash = HASH.hashBytes(data);
+        Loaded last = this.classes.get(name);
+        if (last != null) {
+            if (last.hash.equals(hash)) {
+                this.duplicates++;
+                return false;
+            }
+            this.conflicts.add(new Conflict(name, last.source, source));
+        }
+        this.classes.put(name, new Loaded(hash, source));
+        return true;
+    }
+
+    /**
+     * Gets the number of distinct class names seen.
+     */
+    public synchronized int getClassCount() {
+        return this.classes.size();
+    }
+
+    /**
+     * Gets the number of identical class files which were skipped.
+     */
+    public synchronized int getDuplicateCount() {
+        return this.duplicates;
+    }
+
+    /**
+     * Gets all classes which were found with differing contents.
+     */
+    public synchronized List<Conflict> getConflicts() {
+        return Collections.unmodifiableList(new ArrayList<>(this.conflicts));
+    }
+
+    private static class Loaded {
+
+        final HashCode hash;
+        final String source;
+
+        Loaded(HashCode hash, String source) {
+            this.hash = hash;
+            this.source = source;
+        }
+
+    }
+
+    /**
+     * A class which was found in two sources with different contents.
+     */
+    public static class Conflict {
+
+        private final String name;
+        private final String previous_source;
+        private final String source;
+
+        public Conflict(String name, String previous_source, String source) {
+            this.name = name;
+            this.previous_source = previous_source;
+            this.source = source;
+        }
+
+        /**
+         * Gets the internal name of the conflicting class.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the source of the copy which was replaced.
+         */
+        public String getPreviousSource() {
+            return this.previous_source;
+        }
+
+        /**
+         * Gets the source of the copy which replaced it.
+         */
+        public String getSource() {
+            return this.source;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + " in " + this.previous_source + " and " + this.source;
+        }
+
+    }
+
+}
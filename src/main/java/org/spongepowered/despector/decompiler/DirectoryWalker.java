@@ -26,9 +26,14 @@ package org.spongepowered.despector.decompiler;
 
 import org.spongepowered.despector.ast.SourceSet;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
 
 /**
  * A directory walker which walks a directory and visits all child files and
@@ -37,11 +42,32 @@ import java.nio.file.Path;
 public class DirectoryWalker {
 
     private final Path directory;
+    @Nullable private Predicate<String> filter;
+    @Nullable private ClassDeduplicator deduplicator;
 
     public DirectoryWalker(Path dir) {
         this.directory = dir;
     }
 
+    /**
+     * Sets a filter of the internal names of the classes to load. The name of
+     * a class file is its path relative to the walked directory. The filter is
+     * also applied to the classes of any jars found in the directory.
+     */
+    public void setFilter(@Nullable Predicate<String> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets a deduplicator which class files are checked against before being
+     * decompiled. The name of a class file is its path relative to the walked
+     * directory, and the deduplicator is also used for any jars found in the
+     * directory.
+     */
+    public void setDeduplicator(@Nullable ClassDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
     /**
      * Walks this directory and visits all class files in it or any child
      * directory and loads them into the given {@link SourceSet}.
@@ -58,12 +84,31 @@ public class DirectoryWalker {
             }
         } else {
             if (decomp.isValid(file.getName())) {
+                String name = getClassName(file);
+                if (this.filter != null && !this.filter.test(name)) {
+                    return;
+                }
+                if (this.deduplicator != null) {
+                    byte[] data = Files.readAllBytes(file.toPath());
+                    if (this.deduplicator.add(name, data, file.toString())) {
+                        decomp.decompile(new ByteArrayInputStream(data), src);
+                    }
+                    return;
+                }
                 decomp.decompile(file, src);
             } else if (file.getName().endsWith(".jar")) {
                 JarWalker walker = new JarWalker(file.toPath());
+                walker.setFilter(this.filter);
+                walker.setDeduplicator(this.deduplicator);
                 walker.walk(src, decomp);
             }
         }
     }
 
+    private String getClassName(File file) {
+        String name = this.directory.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+        int ext = name.lastIndexOf('.');
+        return ext == -1 ? name : name.substring(0, ext);
+    }
+
 }
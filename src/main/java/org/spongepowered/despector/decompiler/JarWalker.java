@@ -24,15 +24,20 @@
  */
 package org.spongepowered.despector.decompiler;
 
+import com.google.common.io.ByteStreams;
 import org.spongepowered.despector.ast.SourceSet;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Predicate;
 import java.util.jar.JarInputStream;
 import java.util.zip.ZipEntry;
 
+import javax.annotation.Nullable;
+
 /**
  * Walks a jar file to produce an ast. Steps such as associating overriding
  * methods and finding string constants are also during this traversal.
@@ -40,6 +45,8 @@ import java.util.zip.ZipEntry;
 public class JarWalker {
 
     private final Path jar;
+    @Nullable private Predicate<String> filter;
+    @Nullable private ClassDeduplicator deduplicator;
 
     /**
      * Creates a new jar walker.
@@ -48,6 +55,23 @@ public class JarWalker {
         this.jar = jar;
     }
 
+    /**
+     * Sets a filter of the internal names of the classes to load, classes
+     * which do not match the filter are skipped without being read.
+     */
+    public void setFilter(@Nullable Predicate<String> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Sets a deduplicator which class files are checked against before being
+     * decompiled, so that classes already loaded from another source are
+     * skipped.
+     */
+    public void setDeduplicator(@Nullable ClassDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
     /**
      * Produces a new obfuscated source set for this version.
      */
@@ -69,6 +93,17 @@ public class JarWalker {
                 if (!name.endsWith(".class")) {
                     continue;
                 }
+                String cls_name = name.substring(0, name.length() - 6);
+                if (this.filter != null && !this.filter.test(cls_name)) {
+                    continue;
+                }
+                if (this.deduplicator != null) {
+                    byte[] data = ByteStreams.toByteArray(jar);
+                    if (this.deduplicator.add(cls_name, data, path + "!/" + name)) {
+                        decomp.decompile(new ByteArrayInputStream(data), src);
+                    }
+                    continue;
+                }
                 scanClassFile(jar, src, decomp);
             } while ((entry = jar.getNextEntry()) != null);
         } catch (IOException e) {
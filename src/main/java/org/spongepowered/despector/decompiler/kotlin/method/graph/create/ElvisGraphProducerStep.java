@@ -38,10 +38,10 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlo
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.ProcessedOpcodeBlock;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A graph operation that pre-processes ternaries before the rest of the graph
@@ -52,7 +52,7 @@ public class ElvisGraphProducerStep implements GraphProducerStep {
     private Map<Integer, ElvisBlockSection> sections = new HashMap<>();
 
     @Override
-    public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
+    public void collectBreakpoints(PartialMethod partial, BitSet break_points) {
         this.sections.clear();
         InsnBlock ops = partial.getOpcodes();
         if (ops.size() == 0) {
@@ -119,15 +119,15 @@ public class ElvisGraphProducerStep implements GraphProducerStep {
                 OpcodeBlock holder = new BodyOpcodeBlock(0, 0);
                 holder.getOpcodes().addAll(else_body);
                 // remove any break points that were placed inside the elvis
-                for (int l = start; l < o; l++) {
-                    break_points.remove(l);
-                }
+                break_points.clear(start, o);
                 // add break points at the start and end of the elvis
                 //
                 // the one just before will create a body block that ends with
                 // the checked value being left on the stack
-                break_points.add(o - 1);
-                break_points.add(start - 1);
+                break_points.set(o - 1);
+                if (start > 0) {
+                    break_points.set(start - 1);
+                }
                 // TODO we need to parse any ternaries that might be contained
                 // in the else body of the elvis statement.
                 ElvisBlockSection elvis = new ElvisBlockSection(holder);
@@ -139,7 +139,7 @@ public class ElvisGraphProducerStep implements GraphProducerStep {
     }
 
     @Override
-    public void formEdges(PartialMethod partial, List<Integer> sorted_break_points, List<OpcodeBlock> block_list) {
+    public void formEdges(PartialMethod partial, BitSet break_points, List<OpcodeBlock> block_list) {
         for (int i = 0; i < block_list.size(); i++) {
                 OpcodeBlock block = block_list.get(i);
             ElvisBlockSection elvis = this.sections.get(block.getStart());
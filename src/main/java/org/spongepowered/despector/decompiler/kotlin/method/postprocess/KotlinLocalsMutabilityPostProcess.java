@@ -49,6 +49,7 @@ import org.spongepowered.despector.ast.stmt.misc.Increment;
 import org.spongepowered.despector.ast.stmt.misc.Return;
 import org.spongepowered.despector.ast.stmt.misc.Throw;
 import org.spongepowered.despector.decompiler.method.postprocess.StatementPostProcessor;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -65,6 +66,12 @@ public class KotlinLocalsMutabilityPostProcess implements StatementPostProcessor
         block.accept(visitor);
     }
 
+    @Override
+    public boolean addTo(FusedTraversal traversal) {
+        traversal.addVisitor(new LocalMutabilityVisitor());
+        return true;
+    }
+
     /**
      * An instruction visitor for determining which locals are mutated.
      */
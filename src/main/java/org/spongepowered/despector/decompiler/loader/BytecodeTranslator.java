@@ -58,6 +58,7 @@ import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHan
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodRefEntry;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool.StringEntry;
 import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.util.LabelIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -710,16 +711,17 @@ public class BytecodeTranslator {
             }
         }
 
+        LabelIndex labels = LabelIndex.of(insn_starts);
         for (Insn insn : block) {
             if (insn instanceof JumpInsn) {
                 JumpInsn jump = (JumpInsn) insn;
-                jump.setTarget(insn_starts.indexOf(jump.getTarget()));
+                jump.setTarget(labels.indexOf(jump.getTarget()));
             } else if (insn instanceof SwitchInsn) {
                 SwitchInsn sw = (SwitchInsn) insn;
-                sw.setDefault(insn_starts.indexOf(sw.getDefault()));
+                sw.setDefault(labels.indexOf(sw.getDefault()));
                 Map<Integer, Integer> new_targets = new HashMap<>();
                 for (Map.Entry<Integer, Integer> e : sw.getTargets().entrySet()) {
-                    new_targets.put(e.getKey(), insn_starts.indexOf(e.getValue()));
+                    new_targets.put(e.getKey(), labels.indexOf(e.getValue()));
                 }
                 sw.getTargets().clear();
                 sw.getTargets().putAll(new_targets);
@@ -727,13 +729,13 @@ public class BytecodeTranslator {
         }
 
         for (TryCatchRegion region : catch_regions) {
-            int start_pc = insn_starts.indexOf(region.getStart());
-            int end_pc = insn_starts.indexOf(region.getEnd());
-            int catch_pc = insn_starts.indexOf(region.getCatch());
+            int start_pc = labels.indexOf(region.getStart());
+            int end_pc = labels.indexOf(region.getEnd());
+            int catch_pc = labels.indexOf(region.getCatch());
             block.getCatchRegions().add(new TryCatchRegion(start_pc, end_pc, catch_pc, region.getException()));
         }
 
-        locals.bakeInstances(methodSignature, insn_starts);
+        locals.bakeInstances(methodSignature, labels);
 
         return block;
     }
@@ -26,17 +26,32 @@ package org.spongepowered.despector.decompiler.loader;
 
 import com.google.common.base.Charsets;
 import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.mapping.Mappings;
+import org.spongepowered.despector.util.TypeHelper;
 
 import java.io.DataInputStream;
 import java.io.IOException;
 
+import javax.annotation.Nullable;
+
 public class ClassConstantPool {
 
     private static final boolean DUMP_CONSTANT_POOL = Boolean.getBoolean("despect.debug.jvm.dump_constant_pool");
 
     private Entry[] values;
+    @Nullable private final Mappings mappings;
 
     public ClassConstantPool() {
+        this(null);
+    }
+
+    /**
+     * Creates a constant pool which applies the given mappings to the class
+     * names, member names and descriptors it resolves. The utf8 entries
+     * themselves keep their obfuscated values.
+     */
+    public ClassConstantPool(@Nullable Mappings mappings) {
+        this.mappings = mappings;
     }
 
     public void load(DataInputStream data) throws IOException {
@@ -58,7 +73,7 @@ public class ClassConstantPool {
                     len -= read;
                     offs += read;
                 }
-                u.value = new String(bytes, Charsets.UTF_8);
+                u.value = TypeHelper.intern(new String(bytes, Charsets.UTF_8));
                 this.values[i] = u;
                 if (DUMP_CONSTANT_POOL) {
                     System.out.println(i + ": Utf8 " + u.value);
@@ -219,6 +234,9 @@ public class ClassConstantPool {
             case CLASS: {
                 ClassEntry c = (ClassEntry) e;
                 c.name = getUtf8(c.name_index);
+                if (this.mappings != null) {
+                    c.name = this.mappings.mapType(c.name);
+                }
                 break;
             }
             case STRING: {
@@ -231,6 +249,11 @@ public class ClassConstantPool {
                 f.cls = getUtf8(getClass(f.class_index).name_index);
                 f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
                 f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
+                if (this.mappings != null) {
+                    f.name = this.mappings.mapField(f.cls, f.name);
+                    f.cls = this.mappings.mapType(f.cls);
+                    f.type_name = this.mappings.mapDescriptor(f.type_name);
+                }
                 break;
             }
             case METHOD_REF: {
@@ -238,6 +261,11 @@ public class ClassConstantPool {
                 f.cls = getUtf8(getClass(f.class_index).name_index);
                 f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
                 f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
+                if (this.mappings != null) {
+                    f.name = this.mappings.mapMethod(f.cls, f.name, f.type_name);
+                    f.cls = this.mappings.mapType(f.cls);
+                    f.type_name = this.mappings.mapDescriptor(f.type_name);
+                }
                 break;
             }
             case INTERFACE_METHOD_REF: {
@@ -245,12 +273,20 @@ public class ClassConstantPool {
                 f.cls = getUtf8(getClass(f.class_index).name_index);
                 f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
                 f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
+                if (this.mappings != null) {
+                    f.name = this.mappings.mapMethod(f.cls, f.name, f.type_name);
+                    f.cls = this.mappings.mapType(f.cls);
+                    f.type_name = this.mappings.mapDescriptor(f.type_name);
+                }
                 break;
             }
             case NAME_AND_TYPE: {
                 NameAndTypeEntry n = (NameAndTypeEntry) e;
                 n.name = getUtf8(n.name_index);
                 n.type_name = getUtf8(n.type_index);
+                if (this.mappings != null) {
+                    n.type_name = this.mappings.mapDescriptor(n.type_name);
+                }
                 break;
             }
             case METHOD_HANDLE:
@@ -258,12 +294,18 @@ public class ClassConstantPool {
             case METHOD_TYPE: {
                 MethodTypeEntry t = (MethodTypeEntry) e;
                 t.desc = getUtf8(t.desc_index);
+                if (this.mappings != null) {
+                    t.desc = this.mappings.mapDescriptor(t.desc);
+                }
                 break;
             }
             case INVOKE_DYNAMIC: {
                 InvokeDynamicEntry f = (InvokeDynamicEntry) e;
                 f.name = getUtf8(getNameAndType(f.name_and_type_index).name_index);
                 f.type_name = getUtf8(getNameAndType(f.name_and_type_index).type_index);
+                if (this.mappings != null) {
+                    f.type_name = this.mappings.mapDescriptor(f.type_name);
+                }
                 break;
             }
             default:
@@ -0,0 +1,295 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.mapping;
+
+import org.spongepowered.despector.util.TypeHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * A set of obfuscation mappings which is applied while classes are loaded so
+ * that the decompiled ast uses the deobfuscated names.
+ *
+ * <p>Classes are indexed by their obfuscated internal name and members by
+ * their obfuscated owner, name and for methods their obfuscated descriptor.
+ * Members are only found on the class which declares them in the mappings,
+ * references through a subclass are left as they are.</p>
+ */
+public class Mappings {
+
+    private final Map<String, String> classes = new HashMap<>();
+    private final Map<String, Map<String, String>> fields = new HashMap<>();
+    private final Map<String, Map<String, String>> methods = new HashMap<>();
+    private final Map<String, String> descriptors = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the number of mapped classes.
+     */
+    public int getClassCount() {
+        return this.classes.size();
+    }
+
+    /**
+     * Gets the number of mapped fields.
+     */
+    public int getFieldCount() {
+        int count = 0;
+        for (Map<String, String> owner : this.fields.values()) {
+            count += owner.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of mapped methods.
+     */
+    public int getMethodCount() {
+        int count = 0;
+        for (Map<String, String> owner : this.methods.values()) {
+            count += owner.size();
+        }
+        return count;
+    }
+
+    /**
+     * Adds a mapping for the class with the given obfuscated internal name.
+     */
+    public void addClass(String obf, String name) {
+        this.classes.put(obf, TypeHelper.intern(name));
+        this.descriptors.clear();
+    }
+
+    /**
+     * Adds a mapping for the field with the given obfuscated owner and name.
+     */
+    public void addField(String owner, String obf, String name) {
+        this.fields.computeIfAbsent(owner, (k) -> new HashMap<>()).put(obf, TypeHelper.intern(name));
+    }
+
+    /**
+     * Adds a mapping for the method with the given obfuscated owner, name and
+     * descriptor.
+     */
+    public void addMethod(String owner, String obf, String desc, String name) {
+        this.methods.computeIfAbsent(owner, (k) -> new HashMap<>()).put(obf + desc, TypeHelper.intern(name));
+    }
+
+    /**
+     * Gets the deobfuscated internal name of the given class. Inner classes
+     * without a mapping of their own are moved along with their outer class.
+     */
+    public String mapClass(String obf) {
+        String name = this.classes.get(obf);
+        if (name != null) {
+            return name;
+        }
+        int inner = obf.lastIndexOf('$');
+        if (inner != -1) {
+            String outer = mapClass(obf.substring(0, inner));
+            if (!outer.regionMatches(0, obf, 0, inner)) {
+                return TypeHelper.intern(outer + obf.substring(inner));
+            }
+        }
+        return obf;
+    }
+
+    /**
+     * Gets the deobfuscated name of a class constant, which is either an
+     * internal name or the descriptor of an array type.
+     */
+    public String mapType(String obf) {
+        if (obf.startsWith("[")) {
+            return mapDescriptor(obf);
+        }
+        return mapClass(obf);
+    }
+
+    /**
+     * Gets the deobfuscated name of the given field.
+     */
+    public String mapField(String owner, String obf) {
+        Map<String, String> owner_fields = this.fields.get(owner);
+        if (owner_fields == null) {
+            return obf;
+        }
+        String name = owner_fields.get(obf);
+        return name == null ? obf : name;
+    }
+
+    /**
+     * Gets the deobfuscated name of the given method, the descriptor is the
+     * obfuscated descriptor of the method.
+     */
+    public String mapMethod(String owner, String obf, String desc) {
+        Map<String, String> owner_methods = this.methods.get(owner);
+        if (owner_methods == null) {
+            return obf;
+        }
+        String name = owner_methods.get(obf + desc);
+        return name == null ? obf : name;
+    }
+
+    /**
+     * Gets the deobfuscated form of the given field or method descriptor.
+     */
+    public String mapDescriptor(String desc) {
+        if (desc.indexOf('L') == -1 || this.classes.isEmpty()) {
+            return desc;
+        }
+        String mapped = this.descriptors.get(desc);
+        if (mapped == null) {
+            mapped = TypeHelper.intern(remap(desc));
+            this.descriptors.put(desc, mapped);
+        }
+        return mapped;
+    }
+
+    /**
+     * Gets the deobfuscated form of the given generic signature, which may be
+     * a class, method or field signature.
+     */
+    @Nullable
+    public String mapSignature(@Nullable String sig) {
+        if (sig == null || sig.indexOf('L') == -1 || this.classes.isEmpty()) {
+            return sig;
+        }
+        return remap(sig);
+    }
+
+    private String remap(String sig) {
+        StringBuilder str = new StringBuilder(sig.length() + 16);
+        int i = 0;
+        if (sig.charAt(0) == '<') {
+            // formal type parameters, whose names may start with L as well
+            str.append('<');
+            i++;
+            while (sig.charAt(i) != '>') {
+                int colon = sig.indexOf(':', i);
+                str.append(sig, i, colon);
+                i = colon;
+                while (sig.charAt(i) == ':') {
+                    str.append(':');
+                    i++;
+                    char next = sig.charAt(i);
+                    if (next == 'L' || next == 'T' || next == '[') {
+                        i = remapType(sig, i, str);
+                    }
+                }
+            }
+            str.append('>');
+            i++;
+        }
+        while (i < sig.length()) {
+            char c = sig.charAt(i);
+            if (c == '(' || c == ')' || c == '^') {
+                str.append(c);
+                i++;
+            } else {
+                i = remapType(sig, i, str);
+            }
+        }
+        return str.toString();
+    }
+
+    private int remapType(String sig, int i, StringBuilder str) {
+        char c = sig.charAt(i);
+        if (c == '[') {
+            str.append(c);
+            return remapType(sig, i + 1, str);
+        } else if (c == 'T') {
+            int end = sig.indexOf(';', i) + 1;
+            str.append(sig, i, end);
+            return end;
+        } else if (c != 'L') {
+            str.append(c);
+            return i + 1;
+        }
+        str.append('L');
+        i++;
+        String obf = null;
+        String mapped = null;
+        while (true) {
+            int end = i;
+            char n;
+            while ((n = sig.charAt(end)) != ';' && n != '<' && n != '.') {
+                end++;
+            }
+            if (obf == null) {
+                obf = sig.substring(i, end);
+                mapped = mapClass(obf);
+                str.append(mapped);
+            } else {
+                // an inner class of the previous type given by its simple
+                // name
+                obf = obf + "$" + sig.substring(i, end);
+                String inner = mapClass(obf);
+                if (inner.startsWith(mapped) && inner.length() > mapped.length() && inner.charAt(mapped.length()) == '$') {
+                    str.append(inner, mapped.length() + 1, inner.length());
+                } else {
+                    str.append(inner, inner.lastIndexOf('$') + 1, inner.length());
+                }
+                mapped = inner;
+            }
+            i = end;
+            if (n == '<') {
+                str.append('<');
+                i++;
+                while (sig.charAt(i) != '>') {
+                    char arg = sig.charAt(i);
+                    if (arg == '*') {
+                        str.append(arg);
+                        i++;
+                        continue;
+                    }
+                    if (arg == '+' || arg == '-') {
+                        str.append(arg);
+                        i++;
+                    }
+                    i = remapType(sig, i, str);
+                }
+                str.append('>');
+                i++;
+                n = sig.charAt(i);
+            }
+            if (n == ';') {
+                str.append(';');
+                return i + 1;
+            }
+            // n == '.'
+            str.append('.');
+            i++;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Mappings[classes=" + getClassCount() + ", fields=" + getFieldCount() + ", methods=" + getMethodCount() + "]";
+    }
+
+}
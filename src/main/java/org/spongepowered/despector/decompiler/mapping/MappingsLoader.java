@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.mapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A loader for a format of obfuscation mappings.
+ */
+public interface MappingsLoader {
+
+    /**
+     * Gets the loader for the given mappings format.
+     */
+    public static MappingsLoader getLoader(String name) {
+        if ("srg".equalsIgnoreCase(name)) {
+            return SrgMappingsLoader.instance;
+        } else if ("tsrg".equalsIgnoreCase(name)) {
+            return TsrgMappingsLoader.instance;
+        } else if ("proguard".equalsIgnoreCase(name)) {
+            return ProguardMappingsLoader.instance;
+        }
+        throw new IllegalArgumentException("Unknown mappings format: " + name);
+    }
+
+    /**
+     * Gets the loader for the mappings file at the given path from its
+     * extension. Files which are not srg or tsrg files are assumed to be
+     * proguard mappings.
+     */
+    public static MappingsLoader forPath(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".srg")) {
+            return SrgMappingsLoader.instance;
+        } else if (name.endsWith(".tsrg")) {
+            return TsrgMappingsLoader.instance;
+        }
+        return ProguardMappingsLoader.instance;
+    }
+
+    /**
+     * Loads the mappings file at the given path with the loader for its
+     * extension.
+     */
+    public static Mappings loadFrom(Path path) throws IOException {
+        Mappings mappings = new Mappings();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            forPath(path).load(mappings, reader);
+        }
+        return mappings;
+    }
+
+    /**
+     * Loads all mappings from the given reader into the given mappings.
+     */
+    void load(Mappings mappings, BufferedReader reader) throws IOException;
+
+}
@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.mapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A loader for mappings in the format written by proguard, which maps
+ * deobfuscated names to obfuscated ones and gives types as java source names:
+ *
+ * <pre>
+ * net.example.Foo -&gt; a:
+ *     int count -&gt; b
+ *     1:4:void copy(net.example.Foo):12:15 -&gt; c
+ * </pre>
+ *
+ * <p>As method descriptors are given with deobfuscated types they are only
+ * converted once all classes have been read.</p>
+ */
+public final class ProguardMappingsLoader implements MappingsLoader {
+
+    public static final ProguardMappingsLoader instance = new ProguardMappingsLoader();
+
+    private static final Map<String, String> PRIMITIVES = new HashMap<>();
+
+    static {
+        PRIMITIVES.put("boolean", "Z");
+        PRIMITIVES.put("byte", "B");
+        PRIMITIVES.put("char", "C");
+        PRIMITIVES.put("short", "S");
+        PRIMITIVES.put("int", "I");
+        PRIMITIVES.put("long", "J");
+        PRIMITIVES.put("float", "F");
+        PRIMITIVES.put("double", "D");
+        PRIMITIVES.put("void", "V");
+    }
+
+    @Override
+    public void load(Mappings mappings, BufferedReader reader) throws IOException {
+        Map<String, String> obf_classes = new HashMap<>();
+        List<String[]> methods = new ArrayList<>();
+        String line;
+        int line_number = 0;
+        String owner = null;
+        while ((line = reader.readLine()) != null) {
+            line_number++;
+            if (line.trim().isEmpty() || line.trim().startsWith("#")) {
+                continue;
+            }
+            int arrow = line.indexOf(" -> ");
+            if (arrow == -1) {
+                throw new IOException("Malformed proguard mapping on line " + line_number + ": " + line);
+            }
+            String obf = line.substring(arrow + 4).trim();
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (!obf.endsWith(":")) {
+                    throw new IOException("Malformed proguard mapping on line " + line_number + ": " + line);
+                }
+                String name = line.substring(0, arrow).trim().replace('.', '/');
+                owner = obf.substring(0, obf.length() - 1).replace('.', '/');
+                obf_classes.put(name, owner);
+                mappings.addClass(owner, name);
+                continue;
+            }
+            if (owner == null) {
+                throw new IOException("Malformed proguard mapping on line " + line_number + ": " + line);
+            }
+            String member = line.substring(0, arrow).trim();
+            int paren = member.indexOf('(');
+            int space = member.indexOf(' ');
+            if (space == -1) {
+                throw new IOException("Malformed proguard mapping on line " + line_number + ": " + line);
+            }
+            if (paren == -1) {
+                mappings.addField(owner, obf, member.substring(space + 1));
+                continue;
+            }
+            // strip the line numbers around the method
+            String type = member.substring(0, space);
+            int lines = type.lastIndexOf(':');
+            if (lines != -1) {
+                type = type.substring(lines + 1);
+            }
+            String name = member.substring(space + 1, paren);
+            if (name.indexOf('.') != -1) {
+                // a method of another class inlined into this one
+                continue;
+            }
+            String params = member.substring(paren + 1, member.indexOf(')', paren));
+            methods.add(new String[] {owner, obf, name, type, params});
+        }
+        for (String[] method : methods) {
+            StringBuilder desc = new StringBuilder("(");
+            if (!method[4].isEmpty()) {
+                for (String param : method[4].split(",")) {
+                    desc.append(toDescriptor(param.trim(), obf_classes));
+                }
+            }
+            desc.append(')').append(toDescriptor(method[3], obf_classes));
+            mappings.addMethod(method[0], method[1], desc.toString(), method[2]);
+        }
+    }
+
+    private static String toDescriptor(String type, Map<String, String> obf_classes) {
+        StringBuilder desc = new StringBuilder();
+        while (type.endsWith("[]")) {
+            desc.append('[');
+            type = type.substring(0, type.length() - 2);
+        }
+        String primitive = PRIMITIVES.get(type);
+        if (primitive != null) {
+            return desc.append(primitive).toString();
+        }
+        String name = type.replace('.', '/');
+        String obf = obf_classes.get(name);
+        return desc.append('L').append(obf == null ? name : obf).append(';').toString();
+    }
+
+    private ProguardMappingsLoader() {
+    }
+
+}
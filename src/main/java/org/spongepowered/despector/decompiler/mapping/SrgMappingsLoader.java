@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.mapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A loader for mappings in the srg format, which has one line per class,
+ * field and method:
+ *
+ * <pre>
+ * CL: a net/example/Foo
+ * FD: a/b net/example/Foo/count
+ * MD: a/c (La;)V net/example/Foo/copy (Lnet/example/Foo;)V
+ * </pre>
+ */
+public final class SrgMappingsLoader implements MappingsLoader {
+
+    public static final SrgMappingsLoader instance = new SrgMappingsLoader();
+
+    @Override
+    public void load(Mappings mappings, BufferedReader reader) throws IOException {
+        String line;
+        int line_number = 0;
+        while ((line = reader.readLine()) != null) {
+            line_number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            if ("CL:".equals(parts[0]) && parts.length >= 3) {
+                mappings.addClass(parts[1], parts[2]);
+            } else if ("FD:".equals(parts[0]) && parts.length >= 3) {
+                int obf = parts[1].lastIndexOf('/');
+                mappings.addField(parts[1].substring(0, obf), parts[1].substring(obf + 1), parts[2].substring(parts[2].lastIndexOf('/') + 1));
+            } else if ("MD:".equals(parts[0]) && parts.length >= 5) {
+                int obf = parts[1].lastIndexOf('/');
+                mappings.addMethod(parts[1].substring(0, obf), parts[1].substring(obf + 1), parts[2], parts[3].substring(parts[3].lastIndexOf('/') + 1));
+            } else if (!"PK:".equals(parts[0])) {
+                throw new IOException("Malformed srg mapping on line " + line_number + ": " + line);
+            }
+        }
+    }
+
+    private SrgMappingsLoader() {
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.mapping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * A loader for mappings in the tsrg format, where the fields and methods of a
+ * class are indented on the lines following it:
+ *
+ * <pre>
+ * a net/example/Foo
+ *     b count
+ *     c (La;)V copy
+ * </pre>
+ *
+ * <p>Files with a tsrg2 header are supported as well, the first two
+ * namespaces are used and parameter lines are ignored.</p>
+ */
+public final class TsrgMappingsLoader implements MappingsLoader {
+
+    public static final TsrgMappingsLoader instance = new TsrgMappingsLoader();
+
+    @Override
+    public void load(Mappings mappings, BufferedReader reader) throws IOException {
+        String line;
+        int line_number = 0;
+        String owner = null;
+        int namespaces = 2;
+        while ((line = reader.readLine()) != null) {
+            line_number++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line_number == 1 && line.startsWith("tsrg2 ")) {
+                namespaces = line.trim().split("\\s+").length - 1;
+                continue;
+            }
+            String[] parts = line.trim().split("\\s+");
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (parts.length < 2) {
+                    throw new IOException("Malformed tsrg mapping on line " + line_number + ": " + line);
+                }
+                owner = parts[0];
+                if (!owner.endsWith("/")) {
+                    mappings.addClass(owner, parts[1]);
+                }
+                continue;
+            }
+            if (line.length() > 1 && Character.isWhitespace(line.charAt(1)) && line.charAt(0) == '\t') {
+                // parameters and other details of the previous member
+                continue;
+            }
+            if (owner == null || (parts.length != namespaces && parts.length < 3)) {
+                throw new IOException("Malformed tsrg mapping on line " + line_number + ": " + line);
+            }
+            if (parts.length == namespaces) {
+                mappings.addField(owner, parts[0], parts[1]);
+            } else if (parts[1].startsWith("(")) {
+                mappings.addMethod(owner, parts[0], parts[1], parts[2]);
+            } else {
+                // a field with a descriptor
+                mappings.addField(owner, parts[0], parts[2]);
+            }
+        }
+    }
+
+    private TsrgMappingsLoader() {
+    }
+
+}
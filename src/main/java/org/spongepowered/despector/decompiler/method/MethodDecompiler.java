@@ -30,6 +30,7 @@ import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.insn.var.LocalAccess;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.config.DecompilerOptions;
 import org.spongepowered.despector.config.LibraryConfiguration;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.ir.JumpInsn;
@@ -44,19 +45,19 @@ import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlo
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.SwitchOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 import org.spongepowered.despector.decompiler.method.postprocess.StatementPostProcessor;
+import org.spongepowered.despector.decompiler.method.special.ReferencedTypesVisitor;
 import org.spongepowered.despector.decompiler.method.special.SpecialMethodProcessor;
 import org.spongepowered.despector.decompiler.method.special.UninitializedNewVisitor;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
 
 import java.io.StringWriter;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -133,12 +134,20 @@ public class MethodDecompiler {
      * Decompiles the given asm method to a statement block.
      */
     public StatementBlock decompile(MethodEntry entry) {
+        return decompile(entry, new DecompilerOptions());
+    }
+
+    /**
+     * Decompiles the given asm method to a statement block with the given
+     * options.
+     */
+    public StatementBlock decompile(MethodEntry entry, DecompilerOptions options) {
         if (entry.getIR() == null || entry.getIR().size() == 0) {
             return null;
         }
 
         // Setup the partial method
-        PartialMethod partial = new PartialMethod(this, entry);
+        PartialMethod partial = new PartialMethod(this, entry, options);
 
         // Convert the instructions linked list to an array list for easier
         // processing
@@ -224,18 +233,35 @@ public class MethodDecompiler {
             BlockSection op = flat_graph.get(i);
             op.appendTo(block, entry.getLocals(), stack);
         }
+        // Post processors which support it are fused into a single traversal
+        // of the statements along with the final visitors below. Any which do
+        // not are run on their own once everything before them has been run.
+        FusedTraversal traversal = new FusedTraversal();
         for (StatementPostProcessor post : this.post_processors) {
+            if (post.addTo(traversal)) {
+                continue;
+            }
+            if (!traversal.isEmpty()) {
+                traversal.traverse(block);
+                traversal = new FusedTraversal();
+            }
             try {
                 post.postprocess(block);
             } catch (Exception e) {
-                if (!LibraryConfiguration.quiet) {
+                if (!options.isQuiet()) {
                     System.err.println("Failed to apply post processor: " + post.getClass().getSimpleName());
                     e.printStackTrace();
                 }
             }
         }
 
-        block.accept(new UninitializedNewVisitor());
+        traversal.addVisitor(new UninitializedNewVisitor());
+        // collect the referenced types of the finished statements so that the
+        // emitter does not need to walk them again in order to find imports
+        ReferencedTypesVisitor referenced = new ReferencedTypesVisitor();
+        traversal.addVisitor(referenced);
+        traversal.traverse(block);
+        entry.setReferencedTypes(referenced.getTypes(), referenced.getLambdas());
 
         return block;
     }
@@ -243,7 +269,7 @@ public class MethodDecompiler {
     private List<OpcodeBlock> makeGraph(PartialMethod partial) {
         InsnBlock instructions = partial.getOpcodes();
 
-        Set<Integer> break_points = new HashSet<>();
+        BitSet break_points = new BitSet(instructions.size());
 
         // queries all graph producers to determine where the instructions
         // should be broken up to form the graph
@@ -251,31 +277,24 @@ public class MethodDecompiler {
             step.collectBreakpoints(partial, break_points);
         }
 
-        // Sort the break points
-        List<Integer> sorted_break_points = new ArrayList<>(break_points);
-        sorted_break_points.sort(Comparator.naturalOrder());
         List<OpcodeBlock> block_list = new ArrayList<>();
 
         // turn all blocks to the basic body opcode block, the various
         // processors will then replace these with the specialized opcode blocks
         int last_brk = 0;
-        for (int brk : sorted_break_points) {
-            // accumulate the opcodes beween the next breakpoint and the last
-            // breakpoint.
+        for (int brk = break_points.nextSetBit(0); brk >= 0; brk = break_points.nextSetBit(brk + 1)) {
+            // the block holds the opcodes beween the next breakpoint and the
+            // last breakpoint.
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, brk);
             block_list.add(block);
-            for (int i = last_brk; i <= brk; i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions, last_brk, brk);
             last_brk = brk + 1;
         }
 
         if (last_brk < instructions.size()) {
             OpcodeBlock block = new BodyOpcodeBlock(last_brk, instructions.size() - 1);
             block_list.add(block);
-            for (int i = last_brk; i < instructions.size(); i++) {
-                block.getOpcodes().add(instructions.get(i));
-            }
+            block.setOpcodes(instructions, last_brk, instructions.size() - 1);
         }
 
         for (int i = 0; i < block_list.size() - 1; i++) {
@@ -287,7 +306,7 @@ public class MethodDecompiler {
 
         // form the edges of the graph
         for (GraphProducerStep step : this.graph_producers) {
-            step.formEdges(partial, sorted_break_points, block_list);
+            step.formEdges(partial, break_points, block_list);
         }
 
         return block_list;
@@ -27,6 +27,7 @@ package org.spongepowered.despector.decompiler.method;
 import org.spongepowered.despector.ast.Locals;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.config.DecompilerOptions;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
@@ -42,14 +43,20 @@ public class PartialMethod {
 
     private final MethodDecompiler decompiler;
     private final MethodEntry method;
+    private final DecompilerOptions options;
 
     private StatementBlock block;
     private List<OpcodeBlock> graph;
     private List<BlockSection> final_blocks = new ArrayList<>();
 
     public PartialMethod(MethodDecompiler decompiler, MethodEntry method) {
+        this(decompiler, method, new DecompilerOptions());
+    }
+
+    public PartialMethod(MethodDecompiler decompiler, MethodEntry method, DecompilerOptions options) {
         this.decompiler = decompiler;
         this.method = method;
+        this.options = options;
     }
 
     /**
@@ -59,6 +66,13 @@ public class PartialMethod {
         return this.decompiler;
     }
 
+    /**
+     * Gets the options of the decompiler which the method is decompiled by.
+     */
+    public DecompilerOptions getOptions() {
+        return this.options;
+    }
+
     /**
      * Gets the {@link MethodEntry} which is being populated.
      */
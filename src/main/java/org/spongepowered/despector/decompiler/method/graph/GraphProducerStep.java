@@ -27,8 +27,8 @@ package org.spongepowered.despector.decompiler.method.graph;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * A producer for dividing up the opcodes into blocks and joining them together
@@ -37,15 +37,15 @@ import java.util.Set;
 public interface GraphProducerStep {
 
     /**
-     * Adds the indices of any opcodes that the opcode list should be split
-     * after to the break_points set.
+     * Sets the indices of any opcodes that the opcode list should be split
+     * after in the break_points set.
      */
-    void collectBreakpoints(PartialMethod partial, Set<Integer> break_points);
+    void collectBreakpoints(PartialMethod partial, BitSet break_points);
 
     /**
      * Forms edges between blocks in the graph.
      */
-    void formEdges(PartialMethod partial, List<Integer> sorted_break_points, List<OpcodeBlock> block_list);
+    void formEdges(PartialMethod partial, BitSet break_points, List<OpcodeBlock> block_list);
 
     static OpcodeBlock find(List<OpcodeBlock> blocks, int op) {
         for (OpcodeBlock block : blocks) {
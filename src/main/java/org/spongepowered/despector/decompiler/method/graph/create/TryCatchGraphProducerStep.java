@@ -35,8 +35,8 @@ import org.spongepowered.despector.decompiler.method.graph.data.TryCatchMarkerTy
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.opcode.TryCatchMarkerOpcodeBlock;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * A graph producer that creates opcode blocks for try-catch statements. It
@@ -46,16 +46,20 @@ import java.util.Set;
 public class TryCatchGraphProducerStep implements GraphProducerStep {
 
     @Override
-    public void collectBreakpoints(PartialMethod partial, Set<Integer> break_points) {
+    public void collectBreakpoints(PartialMethod partial, BitSet break_points) {
         InsnBlock instructions = partial.getOpcodes();
         Locals locals = partial.getLocals();
 
         for (TryCatchRegion tc : partial.getOpcodes().getCatchRegions()) {
             if (tc.getStart() > 0) {
-                break_points.add(tc.getStart() - 1);
+                break_points.set(tc.getStart() - 1);
+            }
+            if (tc.getEnd() >= 0) {
+                break_points.set(tc.getEnd());
+            }
+            if (tc.getCatch() >= 0) {
+                break_points.set(tc.getCatch());
             }
-            break_points.add(tc.getEnd());
-            break_points.add(tc.getCatch());
 
             LocalInstance local = null;
             for (int i = tc.getCatch() + 1; i < instructions.size(); i++) {
@@ -71,13 +75,13 @@ public class TryCatchGraphProducerStep implements GraphProducerStep {
                 }
             }
             if (local != null && local.getEnd() < instructions.size() - 1) {
-                break_points.add(local.getEnd());
+                break_points.set(local.getEnd());
             }
         }
     }
 
     @Override
-    public void formEdges(PartialMethod partial, List<Integer> sorted_break_points, List<OpcodeBlock> block_list) {
+    public void formEdges(PartialMethod partial, BitSet break_points, List<OpcodeBlock> block_list) {
         for (int i = partial.getOpcodes().getCatchRegions().size() - 1; i >= 0; i--) {
             TryCatchRegion tc = partial.getOpcodes().getCatchRegions().get(i);
             TryCatchMarkerOpcodeBlock start_marker = new TryCatchMarkerOpcodeBlock(TryCatchMarkerType.START, tc);
@@ -25,9 +25,9 @@
 package org.spongepowered.despector.decompiler.method.graph.data.opcode;
 
 import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
 import org.spongepowered.despector.decompiler.method.graph.data.block.BlockSection;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -42,7 +42,7 @@ public abstract class OpcodeBlock {
 
     protected int start_pc;
     protected int end_pc;
-    protected final List<Insn> opcodes = new ArrayList<>();
+    private final OpcodeList opcodes = new OpcodeList();
     protected OpcodeBlock target;
 
     protected Set<OpcodeBlock> targetted_by = new HashSet<>();
@@ -78,6 +78,23 @@ public abstract class OpcodeBlock {
         return this.opcodes;
     }
 
+    /**
+     * Sets the opcodes of this block to the given range of instructions, the
+     * end being inclusive. The instructions are not copied unless the opcodes
+     * of this block are later modified.
+     */
+    public void setOpcodes(InsnBlock insns, int start, int end) {
+        this.opcodes.setRange(insns.getInstructions(), start, end);
+    }
+
+    /**
+     * Sets the opcodes of this block to the opcodes of the given block, for
+     * when this block is replacing it.
+     */
+    public void setOpcodes(OpcodeBlock other) {
+        this.opcodes.setFrom(other.opcodes);
+    }
+
     public Insn getLast() {
         return this.opcodes.get(this.opcodes.size() - 1);
     }
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.method.graph.data.opcode;
+
+import org.spongepowered.despector.decompiler.ir.Insn;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The opcodes of an {@link OpcodeBlock}. The list starts out as a view of a
+ * range of another list of instructions and only copies the range once it is
+ * modified.
+ */
+class OpcodeList extends AbstractList<Insn> implements RandomAccess {
+
+    private List<Insn> source = Collections.emptyList();
+    private int offset;
+    private int size;
+    private boolean owned;
+
+    /**
+     * Sets this list to a view of the given range of instructions, the end
+     * being inclusive.
+     */
+    void setRange(List<Insn> source, int start, int end) {
+        this.source = source;
+        this.offset = start;
+        this.size = end - start + 1;
+        this.owned = false;
+        this.modCount++;
+    }
+
+    /**
+     * Sets this list to the same opcodes as the given list, sharing the
+     * underlying range if the given list has not been modified.
+     */
+    void setFrom(OpcodeList other) {
+        if (other.owned) {
+            this.source = new ArrayList<>(other.source);
+            this.offset = 0;
+            this.size = this.source.size();
+            this.owned = true;
+            this.modCount++;
+        } else {
+            setRange(other.source, other.offset, other.offset + other.size - 1);
+        }
+    }
+
+    private List<Insn> owned() {
+        if (!this.owned) {
+            this.source = new ArrayList<>(this.source.subList(this.offset, this.offset + this.size));
+            this.offset = 0;
+            this.owned = true;
+        }
+        return this.source;
+    }
+
+    @Override
+    public Insn get(int index) {
+        if (this.owned) {
+            return this.source.get(index);
+        }
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return this.source.get(this.offset + index);
+    }
+
+    @Override
+    public int size() {
+        return this.owned ? this.source.size() : this.size;
+    }
+
+    @Override
+    public Insn set(int index, Insn insn) {
+        return owned().set(index, insn);
+    }
+
+    @Override
+    public void add(int index, Insn insn) {
+        owned().add(index, insn);
+        this.modCount++;
+    }
+
+    @Override
+    public Insn remove(int index) {
+        Insn removed = owned().remove(index);
+        this.modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        if (this.owned) {
+            this.source.clear();
+        } else {
+            this.source = new ArrayList<>();
+            this.offset = 0;
+            this.owned = true;
+        }
+        this.modCount++;
+    }
+
+}
@@ -24,7 +24,6 @@
  */
 package org.spongepowered.despector.decompiler.method.graph.process;
 
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.JumpInsn;
 import org.spongepowered.despector.decompiler.ir.SwitchInsn;
@@ -167,7 +166,7 @@ public class SwitchBlockProcessor implements GraphProcessor {
                     // recursively flatten the case area
                     partial.getDecompiler().flattenGraph(partial, case_region, case_region.size(), cs.getBody());
                 } catch (Throwable e) {
-                    if (ConfigManager.getConfig().print_opcodes_on_error) {
+                    if (partial.getOptions().printOpcodesOnError()) {
                         List<String> comment = new ArrayList<>();
                         for (OpcodeBlock op : case_region) {
                             comment.add(op.getDebugHeader());
@@ -222,7 +221,7 @@ public class SwitchBlockProcessor implements GraphProcessor {
                 } catch (Exception e) {
                     // TODO: should make a util function for this, it appears in
                     // a lot of places
-                    if (ConfigManager.getConfig().print_opcodes_on_error) {
+                    if (partial.getOptions().printOpcodesOnError()) {
                         List<String> comment = new ArrayList<>();
                         for (OpcodeBlock op : case_region) {
                             comment.add(op.getDebugHeader());
@@ -27,7 +27,6 @@ package org.spongepowered.despector.decompiler.method.graph.process;
 import static com.google.common.base.Preconditions.checkState;
 
 import org.spongepowered.despector.ast.Locals;
-import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.IntInsn;
 import org.spongepowered.despector.decompiler.method.PartialMethod;
@@ -97,7 +96,7 @@ public class TryCatchBlockProcessor implements GraphProcessor {
             try {
                 partial.getDecompiler().flattenGraph(partial, body, body.size(), try_section.getBody());
             } catch (Exception e) {
-                if (ConfigManager.getConfig().print_opcodes_on_error) {
+                if (partial.getOptions().printOpcodesOnError()) {
                     List<String> comment = new ArrayList<>();
                     for (OpcodeBlock op : body) {
                         comment.add(op.getDebugHeader());
@@ -193,7 +192,7 @@ public class TryCatchBlockProcessor implements GraphProcessor {
                     try {
                         partial.getDecompiler().flattenGraph(partial, catch_body, stop_index, cblock.getBody());
                     } catch (Exception e) {
-                        if (ConfigManager.getConfig().print_opcodes_on_error) {
+                        if (partial.getOptions().printOpcodesOnError()) {
                             List<String> comment = new ArrayList<>();
                             for (OpcodeBlock op : catch_body) {
                                 comment.add(op.getDebugHeader());
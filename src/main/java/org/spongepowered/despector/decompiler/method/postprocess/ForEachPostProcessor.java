@@ -30,21 +30,15 @@ import org.spongepowered.despector.ast.insn.Instruction;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
-import org.spongepowered.despector.ast.stmt.branch.DoWhile;
 import org.spongepowered.despector.ast.stmt.branch.For;
 import org.spongepowered.despector.ast.stmt.branch.ForEach;
-import org.spongepowered.despector.ast.stmt.branch.If;
-import org.spongepowered.despector.ast.stmt.branch.If.Elif;
-import org.spongepowered.despector.ast.stmt.branch.Switch;
-import org.spongepowered.despector.ast.stmt.branch.Switch.Case;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch.CatchBlock;
-import org.spongepowered.despector.ast.stmt.branch.While;
 import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
 import org.spongepowered.despector.transform.matcher.ConditionMatcher;
 import org.spongepowered.despector.transform.matcher.InstructionMatcher;
 import org.spongepowered.despector.transform.matcher.MatchContext;
 import org.spongepowered.despector.transform.matcher.StatementMatcher;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
+import org.spongepowered.despector.transform.traverse.StatementRewriter;
 import org.spongepowered.despector.util.AstUtil;
 
 import java.util.ArrayList;
@@ -57,7 +51,7 @@ import java.util.List;
  * <p>This handles both iterator based for each loops and loops over simple
  * arrays.</p>
  */
-public class ForEachPostProcessor implements StatementPostProcessor {
+public class ForEachPostProcessor implements StatementPostProcessor, StatementRewriter {
 
     private static final StatementMatcher<For> LIST_ITERATOR = StatementMatcher.forLoop()
             .init(MatchContext.storeLocal("list_iterator", StatementMatcher.localAssign()
@@ -118,39 +112,23 @@ public class ForEachPostProcessor implements StatementPostProcessor {
 
     @Override
     public void postprocess(StatementBlock block) {
+        new FusedTraversal().addRewriter(this).traverse(block);
+    }
+
+    @Override
+    public boolean addTo(FusedTraversal traversal) {
+        traversal.addRewriter(this);
+        return true;
+    }
+
+    @Override
+    public void rewrite(StatementBlock block) {
         List<Statement> to_remove = new ArrayList<>();
         for (Statement stmt : block.getStatements()) {
-            if (stmt instanceof If) {
-                If iif = (If) stmt;
-                postprocess(iif.getBody());
-                for (Elif elif : iif.getElifBlocks()) {
-                    postprocess(elif.getBody());
-                }
-                if (iif.getElseBlock() != null) {
-                    postprocess(iif.getElseBlock().getBody());
-                }
-            } else if (stmt instanceof While) {
-                While wwhile = (While) stmt;
-                postprocess(wwhile.getBody());
-            } else if (stmt instanceof DoWhile) {
-                DoWhile dowhile = (DoWhile) stmt;
-                postprocess(dowhile.getBody());
-            } else if (stmt instanceof For) {
+            if (stmt instanceof For) {
                 if (!checkIterator(block, (For) stmt)) {
                     checkArray(block, (For) stmt, to_remove);
                 }
-                postprocess(((For) stmt).getBody());
-            } else if (stmt instanceof Switch) {
-                Switch sswitch = (Switch) stmt;
-                for (Case cs : sswitch.getCases()) {
-                    postprocess(cs.getBody());
-                }
-            } else if (stmt instanceof TryCatch) {
-                TryCatch trycatch = (TryCatch) stmt;
-                postprocess(trycatch.getTryBlock());
-                for (CatchBlock ccatch : trycatch.getCatchBlocks()) {
-                    postprocess(ccatch.getBlock());
-                }
             }
         }
         for (Statement stmt : to_remove) {
@@ -29,19 +29,14 @@ import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
 import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
 import org.spongepowered.despector.ast.stmt.branch.Break;
-import org.spongepowered.despector.ast.stmt.branch.DoWhile;
 import org.spongepowered.despector.ast.stmt.branch.For;
-import org.spongepowered.despector.ast.stmt.branch.If;
-import org.spongepowered.despector.ast.stmt.branch.If.Elif;
-import org.spongepowered.despector.ast.stmt.branch.Switch;
-import org.spongepowered.despector.ast.stmt.branch.Switch.Case;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch.CatchBlock;
 import org.spongepowered.despector.ast.stmt.branch.While;
 import org.spongepowered.despector.ast.stmt.misc.Increment;
 import org.spongepowered.despector.transform.matcher.ConditionMatcher;
 import org.spongepowered.despector.transform.matcher.MatchContext;
 import org.spongepowered.despector.transform.matcher.StatementMatcher;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
+import org.spongepowered.despector.transform.traverse.StatementRewriter;
 import org.spongepowered.despector.util.AstUtil;
 
 import java.util.ArrayList;
@@ -51,7 +46,7 @@ import java.util.List;
  * A post processor that converts while loops to for loops where it is
  * determined likely that the original structure was a for loop.
  */
-public class ForFromWhilePostProcessor implements StatementPostProcessor {
+public class ForFromWhilePostProcessor implements StatementPostProcessor, StatementRewriter {
 
     private static final StatementMatcher<?> STORE = MatchContext.storeLocal("loop_val", StatementMatcher.localAssign()
             .build());
@@ -61,38 +56,21 @@ public class ForFromWhilePostProcessor implements StatementPostProcessor {
 
     @Override
     public void postprocess(StatementBlock block) {
+        new FusedTraversal().addRewriter(this).traverse(block);
+    }
+
+    @Override
+    public boolean addTo(FusedTraversal traversal) {
+        traversal.addRewriter(this);
+        return true;
+    }
+
+    @Override
+    public void rewrite(StatementBlock block) {
         List<Statement> to_remove = new ArrayList<>();
         for (Statement stmt : block.getStatements()) {
-            if (stmt instanceof If) {
-                If iif = (If) stmt;
-                postprocess(iif.getBody());
-                for (Elif elif : iif.getElifBlocks()) {
-                    postprocess(elif.getBody());
-                }
-                if (iif.getElseBlock() != null) {
-                    postprocess(iif.getElseBlock().getBody());
-                }
-            } else if (stmt instanceof While) {
-                While wwhile = (While) stmt;
-                checkWhile(block, wwhile, to_remove);
-                postprocess(wwhile.getBody());
-            } else if (stmt instanceof DoWhile) {
-                DoWhile dowhile = (DoWhile) stmt;
-                postprocess(dowhile.getBody());
-            } else if (stmt instanceof For) {
-                For ffor = (For) stmt;
-                postprocess(ffor.getBody());
-            } else if (stmt instanceof Switch) {
-                Switch sswitch = (Switch) stmt;
-                for (Case cs : sswitch.getCases()) {
-                    postprocess(cs.getBody());
-                }
-            } else if (stmt instanceof TryCatch) {
-                TryCatch trycatch = (TryCatch) stmt;
-                postprocess(trycatch.getTryBlock());
-                for (CatchBlock ccatch : trycatch.getCatchBlocks()) {
-                    postprocess(ccatch.getBlock());
-                }
+            if (stmt instanceof While) {
+                checkWhile(block, (While) stmt, to_remove);
             }
         }
         for (Statement stmt : to_remove) {
@@ -27,46 +27,32 @@ package org.spongepowered.despector.decompiler.method.postprocess;
 import org.spongepowered.despector.ast.insn.condition.AndCondition;
 import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.StatementBlock;
-import org.spongepowered.despector.ast.stmt.branch.DoWhile;
-import org.spongepowered.despector.ast.stmt.branch.For;
 import org.spongepowered.despector.ast.stmt.branch.If;
 import org.spongepowered.despector.ast.stmt.branch.If.Elif;
-import org.spongepowered.despector.ast.stmt.branch.Switch;
-import org.spongepowered.despector.ast.stmt.branch.Switch.Case;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch;
-import org.spongepowered.despector.ast.stmt.branch.TryCatch.CatchBlock;
-import org.spongepowered.despector.ast.stmt.branch.While;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
+import org.spongepowered.despector.transform.traverse.StatementRewriter;
 
 /**
  * A post processor which cleans up nested if statements that can be simplified.
  */
-public class IfCombiningPostProcessor implements StatementPostProcessor {
+public class IfCombiningPostProcessor implements StatementPostProcessor, StatementRewriter {
 
     @Override
     public void postprocess(StatementBlock block) {
+        new FusedTraversal().addRewriter(this).traverse(block);
+    }
+
+    @Override
+    public boolean addTo(FusedTraversal traversal) {
+        traversal.addRewriter(this);
+        return true;
+    }
+
+    @Override
+    public void rewrite(StatementBlock block) {
         for (Statement stmt : block.getStatements()) {
             if (stmt instanceof If) {
                 check((If) stmt);
-            } else if (stmt instanceof While) {
-                While wwhile = (While) stmt;
-                postprocess(wwhile.getBody());
-            } else if (stmt instanceof DoWhile) {
-                DoWhile dowhile = (DoWhile) stmt;
-                postprocess(dowhile.getBody());
-            } else if (stmt instanceof For) {
-                For ffor = (For) stmt;
-                postprocess(ffor.getBody());
-            } else if (stmt instanceof Switch) {
-                Switch sswitch = (Switch) stmt;
-                for (Case cs : sswitch.getCases()) {
-                    postprocess(cs.getBody());
-                }
-            } else if (stmt instanceof TryCatch) {
-                TryCatch trycatch = (TryCatch) stmt;
-                postprocess(trycatch.getTryBlock());
-                for (CatchBlock ccatch : trycatch.getCatchBlocks()) {
-                    postprocess(ccatch.getBlock());
-                }
             }
         }
     }
@@ -89,11 +75,7 @@ public class IfCombiningPostProcessor implements StatementPostProcessor {
                 }
             }
         }
-        postprocess(ifblock.getBody());
         if (!ifblock.getElifBlocks().isEmpty()) {
-            for (int i = 0; i < ifblock.getElifBlocks().size() - 1; i++) {
-                postprocess(ifblock.getElifBlocks().get(i).getBody());
-            }
             Elif last_elif = ifblock.getElifBlocks().get(ifblock.getElifBlocks().size() - 1);
             StatementBlock block = last_elif.getBody();
             if (ifblock.getElseBlock() == null) {
@@ -108,17 +90,14 @@ public class IfCombiningPostProcessor implements StatementPostProcessor {
                     }
                 }
             }
-            postprocess(block);
         }
         if (ifblock.getElseBlock() != null) {
             StatementBlock block = ifblock.getElseBlock().getBody();
             if (block.getStatementCount() == 1 && block.getStatement(0) instanceof If) {
                 If inner = (If) block.getStatement(0);
                 ifblock.new Elif(inner.getCondition(), inner.getBody());
-                postprocess(inner.getBody());
                 for (int i = 0; i < inner.getElifBlocks().size(); i++) {
                     Elif elif = inner.getElifBlocks().get(i);
-                    postprocess(elif.getBody());
                     ifblock.new Elif(elif.getCondition(), elif.getBody());
                 }
                 block.getStatements().clear();
@@ -127,8 +106,6 @@ public class IfCombiningPostProcessor implements StatementPostProcessor {
                 } else {
                     ifblock.setElseBlock(null);
                 }
-            } else {
-                postprocess(block);
             }
         }
 
@@ -25,6 +25,7 @@
 package org.spongepowered.despector.decompiler.method.postprocess;
 
 import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
 
 /**
  * A post processor for performing final operations to a statement block just
@@ -37,4 +38,13 @@ public interface StatementPostProcessor {
      */
     void postprocess(StatementBlock block);
 
+    /**
+     * Adds this post processor to the given traversal so that it may run in
+     * the same pass as other post processors. Returns false if this post
+     * processor cannot be fused and must be run on its own.
+     */
+    default boolean addTo(FusedTraversal traversal) {
+        return false;
+    }
+
 }
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.xref;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * An index of the cross references between methods, fields and types.
+ * 
+ * <p>Members are stored once in a member table and references are stored as
+ * parallel arrays of member ids. Lookup tables by source and by target are
+ * built on the first query after the index is modified.</p>
+ */
+public class XrefIndex {
+
+    public static final int VERSION = 1;
+
+    private static final XrefType[] TYPES = XrefType.values();
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final List<XrefMember> members = new ArrayList<>();
+    private final Map<XrefMember, Integer> member_ids = new HashMap<>();
+
+    private byte[] ref_type = new byte[64];
+    private int[] ref_from = new int[64];
+    private int[] ref_to = new int[64];
+    private int ref_count;
+
+    private int[] from_offsets;
+    private int[] from_refs;
+    private int[] to_offsets;
+    private int[] to_refs;
+
+    public XrefIndex() {
+
+    }
+
+    /**
+     * Gets the number of members in this index.
+     */
+    public synchronized int getMemberCount() {
+        return this.members.size();
+    }
+
+    /**
+     * Gets the number of references in this index.
+     */
+    public synchronized int getReferenceCount() {
+        return this.ref_count;
+    }
+
+    /**
+     * Gets all members in this index.
+     */
+    public synchronized List<XrefMember> getMembers() {
+        return new ArrayList<>(this.members);
+    }
+
+    /**
+     * Gets the id of the given member, adding it to the member table if
+     * needed.
+     */
+    synchronized int getMemberId(String owner, String name, String desc) {
+        XrefMember member = new XrefMember(intern(owner), intern(name), intern(desc));
+        Integer id = this.member_ids.get(member);
+        if (id == null) {
+            id = this.members.size();
+            this.members.add(member);
+            this.member_ids.put(member, id);
+            invalidate();
+        }
+        return id;
+    }
+
+    private String intern(String str) {
+        String existing = this.strings.putIfAbsent(str, str);
+        return existing == null ? str : existing;
+    }
+
+    /**
+     * Adds a reference of the given type from the given source member to the
+     * given target member.
+     */
+    public synchronized void addReference(XrefType type, XrefMember from, XrefMember to) {
+        checkNotNull(type, "type");
+        addReference(type.ordinal(), getMemberId(from.getOwner(), from.getName(), from.getDescription()),
+                getMemberId(to.getOwner(), to.getName(), to.getDescription()));
+    }
+
+    synchronized void addReference(int type, int from, int to) {
+        if (this.ref_count == this.ref_from.length) {
+            int size = this.ref_count * 2;
+            this.ref_type = Arrays.copyOf(this.ref_type, size);
+            this.ref_from = Arrays.copyOf(this.ref_from, size);
+            this.ref_to = Arrays.copyOf(this.ref_to, size);
+        }
+        this.ref_type[this.ref_count] = (byte) type;
+        this.ref_from[this.ref_count] = from;
+        this.ref_to[this.ref_count] = to;
+        this.ref_count++;
+        invalidate();
+    }
+
+    private void invalidate() {
+        this.from_offsets = null;
+        this.from_refs = null;
+        this.to_offsets = null;
+        this.to_refs = null;
+    }
+
+    /**
+     * Gets all members which reference the given target with a reference of
+     * the given type, or of any type if the type is null.
+     */
+    public synchronized List<XrefMember> getReferencesTo(XrefMember target, @Nullable XrefType type) {
+        Integer id = this.member_ids.get(target);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        buildIndex();
+        return collect(this.to_offsets, this.to_refs, this.ref_from, id, type);
+    }
+
+    /**
+     * Gets all members referenced by the given source with a reference of the
+     * given type, or of any type if the type is null.
+     */
+    public synchronized List<XrefMember> getReferencesFrom(XrefMember source, @Nullable XrefType type) {
+        Integer id = this.member_ids.get(source);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        buildIndex();
+        return collect(this.from_offsets, this.from_refs, this.ref_to, id, type);
+    }
+
+    /**
+     * Gets all methods which invoke the given method.
+     */
+    public List<XrefMember> getCallers(String owner, String name, String desc) {
+        return getReferencesTo(new XrefMember(owner, name, desc), XrefType.INVOKE);
+    }
+
+    /**
+     * Gets all methods invoked by the given method.
+     */
+    public List<XrefMember> getCallees(String owner, String name, String desc) {
+        return getReferencesFrom(new XrefMember(owner, name, desc), XrefType.INVOKE);
+    }
+
+    /**
+     * Gets all methods which read the given field.
+     */
+    public List<XrefMember> getFieldReaders(String owner, String name) {
+        return getReferencesTo(new XrefMember(owner, name, ""), XrefType.FIELD_READ);
+    }
+
+    /**
+     * Gets all methods which write to the given field.
+     */
+    public List<XrefMember> getFieldWriters(String owner, String name) {
+        return getReferencesTo(new XrefMember(owner, name, ""), XrefType.FIELD_WRITE);
+    }
+
+    /**
+     * Gets all methods which use the given type.
+     */
+    public List<XrefMember> getTypeUsers(String type) {
+        return getReferencesTo(new XrefMember(type, "", ""), XrefType.TYPE);
+    }
+
+    private List<XrefMember> collect(int[] offsets, int[] refs, int[] other, int id, @Nullable XrefType type) {
+        int start = offsets[id];
+        int end = offsets[id + 1];
+        List<XrefMember> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            int ref = refs[i];
+            if (type != null && this.ref_type[ref] != type.ordinal()) {
+                continue;
+            }
+            result.add(this.members.get(other[ref]));
+        }
+        return result;
+    }
+
+    private void buildIndex() {
+        if (this.from_offsets != null && this.to_offsets != null) {
+            return;
+        }
+        int count = this.members.size();
+        this.from_offsets = new int[count + 1];
+        this.to_offsets = new int[count + 1];
+        for (int i = 0; i < this.ref_count; i++) {
+            this.from_offsets[this.ref_from[i] + 1]++;
+            this.to_offsets[this.ref_to[i] + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            this.from_offsets[i + 1] += this.from_offsets[i];
+            this.to_offsets[i + 1] += this.to_offsets[i];
+        }
+        this.from_refs = new int[this.ref_count];
+        this.to_refs = new int[this.ref_count];
+        int[] from_next = Arrays.copyOf(this.from_offsets, count);
+        int[] to_next = Arrays.copyOf(this.to_offsets, count);
+        for (int i = 0; i < this.ref_count; i++) {
+            this.from_refs[from_next[this.ref_from[i]]++] = i;
+            this.to_refs[to_next[this.ref_to[i]]++] = i;
+        }
+    }
+
+    /**
+     * Writes this index to the given {@link MessagePacker}.
+     */
+    public synchronized void writeTo(MessagePacker pack) throws IOException {
+        List<String> string_table = new ArrayList<>(this.strings.keySet());
+        Map<String, Integer> string_ids = new HashMap<>();
+        for (int i = 0; i < string_table.size(); i++) {
+            string_ids.put(string_table.get(i), i);
+        }
+        pack.startMap(5);
+        pack.writeString("version").writeInt(VERSION);
+        pack.writeString("strings");
+        pack.startArray(string_table.size());
+        for (String str : string_table) {
+            pack.writeString(str);
+        }
+        pack.endArray();
+        ByteBuffer members = ByteBuffer.allocate(this.members.size() * 12);
+        for (XrefMember member : this.members) {
+            members.putInt(string_ids.get(member.getOwner()));
+            members.putInt(string_ids.get(member.getName()));
+            members.putInt(string_ids.get(member.getDescription()));
+        }
+        pack.writeString("members").writeBin(members.array());
+        pack.writeString("types").writeBin(Arrays.copyOf(this.ref_type, this.ref_count));
+        ByteBuffer refs = ByteBuffer.allocate(this.ref_count * 8);
+        for (int i = 0; i < this.ref_count; i++) {
+            refs.putInt(this.ref_from[i]);
+            refs.putInt(this.ref_to[i]);
+        }
+        pack.writeString("references").writeBin(refs.array());
+        pack.endMap();
+    }
+
+    /**
+     * Loads an index previously written with {@link #writeTo(MessagePacker)}.
+     */
+    public static XrefIndex load(MessageUnpacker unpack) throws IOException {
+        int size = unpack.readMap();
+        if (size != 5) {
+            throw new IllegalStateException("Expected map size 5 but was " + size);
+        }
+        expectKey(unpack, "version");
+        int version = unpack.readInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported xref index version " + version);
+        }
+        XrefIndex index = new XrefIndex();
+        expectKey(unpack, "strings");
+        int string_count = unpack.readArray();
+        String[] string_table = new String[string_count];
+        for (int i = 0; i < string_count; i++) {
+            string_table[i] = index.intern(unpack.readString());
+        }
+        expectKey(unpack, "members");
+        ByteBuffer members = ByteBuffer.wrap(unpack.readBinary());
+        while (members.hasRemaining()) {
+            XrefMember member = new XrefMember(string_table[members.getInt()], string_table[members.getInt()], string_table[members.getInt()]);
+            index.member_ids.put(member, index.members.size());
+            index.members.add(member);
+        }
+        expectKey(unpack, "types");
+        byte[] types = unpack.readBinary();
+        expectKey(unpack, "references");
+        ByteBuffer refs = ByteBuffer.wrap(unpack.readBinary());
+        if (refs.remaining() != types.length * 8) {
+            throw new IllegalStateException("Mismatched xref reference tables");
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] < 0 || types[i] >= TYPES.length) {
+                throw new IllegalStateException("Unknown xref type " + types[i]);
+            }
+            int from = refs.getInt();
+            int to = refs.getInt();
+            if (from < 0 || from >= index.members.size() || to < 0 || to >= index.members.size()) {
+                throw new IllegalStateException("Xref reference to unknown member");
+            }
+            index.addReference(types[i], from, to);
+        }
+        return index;
+    }
+
+    private static void expectKey(MessageUnpacker unpack, String key) throws IOException {
+        String actual = unpack.readString();
+        if (!actual.equals(key)) {
+            throw new IllegalStateException("Expected key " + key + " but was " + actual);
+        }
+    }
+
+}
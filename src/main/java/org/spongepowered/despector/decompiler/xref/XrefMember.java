@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.xref;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A member referenced from a {@link XrefIndex}. Methods have a method
+ * descriptor, fields have an empty descriptor and types have both an empty
+ * name and descriptor.
+ */
+public class XrefMember {
+
+    private final String owner;
+    private final String name;
+    private final String desc;
+
+    public XrefMember(String owner, String name, String desc) {
+        this.owner = checkNotNull(owner, "owner");
+        this.name = checkNotNull(name, "name");
+        this.desc = checkNotNull(desc, "desc");
+    }
+
+    /**
+     * Gets the internal name of the type owning this member.
+     */
+    public String getOwner() {
+        return this.owner;
+    }
+
+    /**
+     * Gets the name of this member.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the descriptor of this member.
+     */
+    public String getDescription() {
+        return this.desc;
+    }
+
+    /**
+     * Gets if this member is a method.
+     */
+    public boolean isMethod() {
+        return this.desc.startsWith("(");
+    }
+
+    /**
+     * Gets if this member represents a whole type.
+     */
+    public boolean isType() {
+        return this.name.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof XrefMember)) {
+            return false;
+        }
+        XrefMember m = (XrefMember) obj;
+        return this.owner.equals(m.owner) && this.name.equals(m.name) && this.desc.equals(m.desc);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        h = h * 37 + this.owner.hashCode();
+        h = h * 37 + this.name.hashCode();
+        h = h * 37 + this.desc.hashCode();
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        if (isType()) {
+            return this.owner;
+        }
+        if (isMethod()) {
+            return this.owner + "." + this.name + this.desc;
+        }
+        return this.owner + "." + this.name;
+    }
+
+}
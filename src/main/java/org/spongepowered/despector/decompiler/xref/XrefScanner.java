@@ -0,0 +1,379 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.decompiler.xref;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.ClassEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FieldRefEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.InvokeDynamicEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHandleEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodRefEntry;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Scans class files for cross references and adds them to an
+ * {@link XrefIndex}.
+ * 
+ * <p>Only the constant pool and the method code is read. No IR, graph or
+ * AST is built, which makes indexing far cheaper than a full
+ * decompilation.</p>
+ */
+public class XrefScanner {
+
+    /**
+     * The length in bytes of each opcode which has a fixed length, including
+     * the opcode itself.
+     */
+    private static final int[] OPCODE_LENGTHS = new int[202];
+
+    static {
+        for (int i = 0; i < OPCODE_LENGTHS.length; i++) {
+            OPCODE_LENGTHS[i] = 1;
+        }
+        OPCODE_LENGTHS[16] = 2; // BIPUSH
+        OPCODE_LENGTHS[17] = 3; // SIPUSH
+        OPCODE_LENGTHS[18] = 2; // LDC
+        OPCODE_LENGTHS[19] = 3; // LDC_W
+        OPCODE_LENGTHS[20] = 3; // LDC2_W
+        for (int i = 21; i <= 25; i++) {
+            OPCODE_LENGTHS[i] = 2; // xLOAD
+        }
+        for (int i = 54; i <= 58; i++) {
+            OPCODE_LENGTHS[i] = 2; // xSTORE
+        }
+        OPCODE_LENGTHS[132] = 3; // IINC
+        for (int i = 153; i <= 168; i++) {
+            OPCODE_LENGTHS[i] = 3; // IFxx, IF_xCMPxx, GOTO, JSR
+        }
+        OPCODE_LENGTHS[169] = 2; // RET
+        for (int i = 178; i <= 184; i++) {
+            OPCODE_LENGTHS[i] = 3; // field access and invokes
+        }
+        OPCODE_LENGTHS[185] = 5; // INVOKEINTERFACE
+        OPCODE_LENGTHS[186] = 5; // INVOKEDYNAMIC
+        OPCODE_LENGTHS[187] = 3; // NEW
+        OPCODE_LENGTHS[188] = 2; // NEWARRAY
+        OPCODE_LENGTHS[189] = 3; // ANEWARRAY
+        OPCODE_LENGTHS[192] = 3; // CHECKCAST
+        OPCODE_LENGTHS[193] = 3; // INSTANCEOF
+        OPCODE_LENGTHS[197] = 4; // MULTINEWARRAY
+        OPCODE_LENGTHS[198] = 3; // IFNULL
+        OPCODE_LENGTHS[199] = 3; // IFNONNULL
+        OPCODE_LENGTHS[200] = 5; // GOTO_W
+        OPCODE_LENGTHS[201] = 5; // JSR_W
+    }
+
+    private final XrefIndex index;
+
+    public XrefScanner(XrefIndex index) {
+        this.index = checkNotNull(index, "index");
+    }
+
+    /**
+     * Gets the index that references are added to.
+     */
+    public XrefIndex getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Scans every class file within the given jar.
+     */
+    public void scanJar(Path path) throws IOException {
+        try (JarInputStream jar = new JarInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            ZipEntry entry;
+            while ((entry = jar.getNextEntry()) != null) {
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                try {
+                    scan(jar);
+                } catch (SourceFormatException e) {
+                    if (!LibraryConfiguration.quiet) {
+                        System.err.println("Skipping " + entry.getName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans the given class file.
+     */
+    public void scan(InputStream input) throws IOException {
+        DataInputStream data = (input instanceof DataInputStream) ? (DataInputStream) input : new DataInputStream(input);
+        int magic = data.readInt();
+        if (magic != 0xCAFEBABE) {
+            throw new SourceFormatException("Not a java class file");
+        }
+        /* short minor = */ data.readShort();
+        /* short major = */ data.readShort();
+
+        ClassConstantPool pool = new ClassConstantPool();
+        pool.load(data);
+
+        /* int access_flags = */ data.readUnsignedShort();
+        String name = pool.getClass(data.readUnsignedShort()).name;
+        /* int super_index = */ data.readUnsignedShort();
+        int interfaces_count = data.readUnsignedShort();
+        data.skipBytes(interfaces_count * 2);
+
+        int field_count = data.readUnsignedShort();
+        for (int i = 0; i < field_count; i++) {
+            data.skipBytes(6);
+            skipAttributes(data);
+        }
+
+        List<PendingDynamic> dynamic = new ArrayList<>();
+        int method_count = data.readUnsignedShort();
+        for (int i = 0; i < method_count; i++) {
+            /* int method_access = */ data.readUnsignedShort();
+            String method_name = pool.getUtf8(data.readUnsignedShort());
+            String method_desc = pool.getUtf8(data.readUnsignedShort());
+            int attribute_count = data.readUnsignedShort();
+            for (int a = 0; a < attribute_count; a++) {
+                String attribute_name = pool.getUtf8(data.readUnsignedShort());
+                int length = data.readInt();
+                if ("Code".equals(attribute_name)) {
+                    /* int max_stack = */ data.readUnsignedShort();
+                    /* int max_locals = */ data.readUnsignedShort();
+                    byte[] code = new byte[data.readInt()];
+                    data.readFully(code);
+                    int source = this.index.getMemberId(name, method_name, method_desc);
+                    scanCode(code, pool, source, dynamic);
+                    int exception_table_length = data.readUnsignedShort();
+                    data.skipBytes(exception_table_length * 8);
+                    skipAttributes(data);
+                } else {
+                    data.skipBytes(length);
+                }
+            }
+        }
+
+        int attribute_count = data.readUnsignedShort();
+        for (int a = 0; a < attribute_count; a++) {
+            String attribute_name = pool.getUtf8(data.readUnsignedShort());
+            int length = data.readInt();
+            if ("BootstrapMethods".equals(attribute_name) && !dynamic.isEmpty()) {
+                int bsm_count = data.readUnsignedShort();
+                List<List<MethodRefEntry>> handles = new ArrayList<>(bsm_count);
+                for (int j = 0; j < bsm_count; j++) {
+                    /* int bsm_handle = */ data.readUnsignedShort();
+                    int arg_count = data.readUnsignedShort();
+                    List<MethodRefEntry> args = new ArrayList<>();
+                    for (int k = 0; k < arg_count; k++) {
+                        Entry arg = pool.getEntry(data.readUnsignedShort());
+                        if (arg instanceof MethodHandleEntry) {
+                            Entry ref = pool.getEntry(((MethodHandleEntry) arg).reference_index);
+                            if (ref instanceof MethodRefEntry) {
+                                args.add((MethodRefEntry) ref);
+                            }
+                        }
+                    }
+                    handles.add(args);
+                }
+                for (PendingDynamic pending : dynamic) {
+                    if (pending.bootstrap_index >= handles.size()) {
+                        continue;
+                    }
+                    for (MethodRefEntry ref : handles.get(pending.bootstrap_index)) {
+                        this.index.addReference(XrefType.INVOKE.ordinal(), pending.source, this.index.getMemberId(ref.cls, ref.name, ref.type_name));
+                    }
+                }
+            } else {
+                data.skipBytes(length);
+            }
+        }
+    }
+
+    private void scanCode(byte[] code, ClassConstantPool pool, int source, List<PendingDynamic> dynamic) {
+        // references are deduplicated per method as a method commonly makes
+        // many identical calls or field accesses
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < code.length;) {
+            int opcode_index = i;
+            int next = code[i++] & 0xFF;
+            switch (next) {
+            case 18: {// LDC
+                Entry entry = pool.getEntry(code[i++] & 0xFF);
+                if (entry instanceof ClassEntry) {
+                    addType(seen, source, ((ClassEntry) entry).name);
+                }
+                break;
+            }
+            case 19: {// LDC_W
+                Entry entry = pool.getEntry(readShort(code, i));
+                i += 2;
+                if (entry instanceof ClassEntry) {
+                    addType(seen, source, ((ClassEntry) entry).name);
+                }
+                break;
+            }
+            case 178: // GETSTATIC
+            case 180: { // GETFIELD
+                FieldRefEntry ref = pool.getFieldRef(readShort(code, i));
+                i += 2;
+                add(seen, XrefType.FIELD_READ, source, this.index.getMemberId(ref.cls, ref.name, ""));
+                break;
+            }
+            case 179: // PUTSTATIC
+            case 181: { // PUTFIELD
+                FieldRefEntry ref = pool.getFieldRef(readShort(code, i));
+                i += 2;
+                add(seen, XrefType.FIELD_WRITE, source, this.index.getMemberId(ref.cls, ref.name, ""));
+                break;
+            }
+            case 182: // INVOKEVIRTUAL
+            case 183: // INVOKESPECIAL
+            case 184: { // INVOKESTATIC
+                MethodRefEntry ref = pool.getMethodRef(readShort(code, i));
+                i += 2;
+                add(seen, XrefType.INVOKE, source, this.index.getMemberId(ref.cls, ref.name, ref.type_name));
+                break;
+            }
+            case 185: {// INVOKEINTERFACE
+                MethodRefEntry ref = pool.getInterfaceMethodRef(readShort(code, i));
+                i += 4;
+                add(seen, XrefType.INVOKE, source, this.index.getMemberId(ref.cls, ref.name, ref.type_name));
+                break;
+            }
+            case 186: {// INVOKEDYNAMIC
+                InvokeDynamicEntry handle = pool.getInvokeDynamic(readShort(code, i));
+                i += 4;
+                dynamic.add(new PendingDynamic(source, handle.bootstrap_index));
+                break;
+            }
+            case 187: // NEW
+            case 189: // ANEWARRAY
+            case 192: // CHECKCAST
+            case 193: {// INSTANCEOF
+                ClassEntry ref = pool.getClass(readShort(code, i));
+                i += 2;
+                addType(seen, source, ref.name);
+                break;
+            }
+            case 197: {// MULTINEWARRAY
+                ClassEntry ref = pool.getClass(readShort(code, i));
+                i += 3;
+                addType(seen, source, ref.name);
+                break;
+            }
+            case 170: {// TABLESWITCH
+                while (i % 4 != 0) {
+                    i++;
+                }
+                int low = readInt(code, i + 4);
+                int high = readInt(code, i + 8);
+                i += 12 + (high - low + 1) * 4;
+                break;
+            }
+            case 171: {// LOOKUPSWITCH
+                while (i % 4 != 0) {
+                    i++;
+                }
+                int npairs = readInt(code, i + 4);
+                i += 8 + npairs * 8;
+                break;
+            }
+            case 196: // WIDE
+                i += (code[i] & 0xFF) == 132 ? 5 : 3;
+                break;
+            default:
+                if (next >= OPCODE_LENGTHS.length) {
+                    throw new SourceFormatException("Unknown java opcode: " + next + " at " + opcode_index);
+                }
+                i += OPCODE_LENGTHS[next] - 1;
+                break;
+            }
+        }
+    }
+
+    private void addType(Set<Long> seen, int source, String type) {
+        // array types are indexed by their element type
+        int dims = 0;
+        while (type.charAt(dims) == '[') {
+            dims++;
+        }
+        if (dims > 0) {
+            if (type.charAt(dims) != 'L') {
+                return;
+            }
+            type = type.substring(dims + 1, type.length() - 1);
+        }
+        add(seen, XrefType.TYPE, source, this.index.getMemberId(type, "", ""));
+    }
+
+    private void add(Set<Long> seen, XrefType type, int source, int target) {
+        if (seen.add(((long) type.ordinal() << 32) | target)) {
+            this.index.addReference(type.ordinal(), source, target);
+        }
+    }
+
+    private static int readShort(byte[] code, int i) {
+        return ((code[i] & 0xFF) << 8) | (code[i + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] code, int i) {
+        return ((code[i] & 0xFF) << 24) | ((code[i + 1] & 0xFF) << 16) | ((code[i + 2] & 0xFF) << 8) | (code[i + 3] & 0xFF);
+    }
+
+    private static void skipAttributes(DataInputStream data) throws IOException {
+        int attribute_count = data.readUnsignedShort();
+        for (int a = 0; a < attribute_count; a++) {
+            data.skipBytes(2);
+            data.skipBytes(data.readInt());
+        }
+    }
+
+    private static class PendingDynamic {
+
+        final int source;
+        final int bootstrap_index;
+
+        PendingDynamic(int source, int bootstrap_index) {
+            this.source = source;
+            this.bootstrap_index = bootstrap_index;
+        }
+
+    }
+
+}
@@ -140,4 +140,17 @@ public abstract class AbstractEmitterContext {
         return this.insn_stack;
     }
 
+    /**
+     * Clears the current emitting state so that this context may be reused for
+     * another type.
+     */
+    public void reset() {
+        this.type = null;
+        this.outer_type = null;
+        this.method = null;
+        this.field = null;
+        this.statement = null;
+        this.insn_stack.clear();
+    }
+
 }
@@ -24,6 +24,7 @@
  */
 package org.spongepowered.despector.emitter;
 
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 
@@ -42,4 +43,22 @@ public interface Emitter<C extends AbstractEmitterContext> {
      */
     void emit(C ctx, TypeEntry type);
 
+    /**
+     * Gets if this emitter prints the body of the given method as part of its
+     * owning type. Bodies which are not printed may still be requested while
+     * emitting other methods, for example to inline a lambda.
+     */
+    default boolean emitsMethodBody(MethodEntry method) {
+        return true;
+    }
+
+    /**
+     * Gets if this emitter prints method bodies as statements. If not then
+     * methods are only translated to their intermediate representation and
+     * the graph and statement stages of the decompiler are skipped.
+     */
+    default boolean emitsStatements() {
+        return true;
+    }
+
 }
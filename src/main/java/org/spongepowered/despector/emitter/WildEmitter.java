@@ -25,7 +25,9 @@
 package org.spongepowered.despector.emitter;
 
 import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
 
 /**
@@ -46,4 +48,9 @@ public class WildEmitter implements Emitter<JavaEmitterContext> {
         }
     }
 
+    @Override
+    public boolean emitsMethodBody(MethodEntry method) {
+        return !method.isSynthetic() || ConfigManager.getConfig().emitter.emit_synthetics;
+    }
+
 }
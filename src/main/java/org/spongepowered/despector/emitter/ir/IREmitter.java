@@ -46,7 +46,12 @@ public class IREmitter implements Emitter<JavaEmitterContext> {
         setup(ctx);
         long emitting_start = System.nanoTime();
         ctx.emitOuterType(type);
-        Timing.time_emitting += System.nanoTime() - emitting_start;
+        Timing.time_emitting.addAndGet(System.nanoTime() - emitting_start);
+    }
+
+    @Override
+    public boolean emitsStatements() {
+        return false;
     }
 
 }
@@ -40,10 +40,13 @@ import org.spongepowered.despector.ast.type.InterfaceEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.LdcInsn;
 import org.spongepowered.despector.emitter.AstEmitter;
 import org.spongepowered.despector.emitter.format.EmitterFormat.BracePosition;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+import org.spongepowered.despector.emitter.java.instruction.StringConstantEmitter;
 import org.spongepowered.despector.emitter.java.special.GenericsEmitter;
+import org.spongepowered.despector.util.DebugUtil;
 import org.spongepowered.despector.util.TypeHelper;
 
 import java.util.List;
@@ -87,7 +90,7 @@ public class MethodIREmitter implements AstEmitter<JavaEmitterContext, MethodEnt
             return true;
         }
         if ("<init>".equals(method.getName()) && method.getAccessModifier() == AccessModifier.PUBLIC && method.getParamTypes().isEmpty()
-                && method.getInstructions().getStatements().size() == 2) {
+                && method.getInstructions() != null && method.getInstructions().getStatements().size() == 2) {
             // TODO this could omit somewhere the ctor is purely passing
             // constants to the super ctor
             return false;
@@ -260,7 +263,12 @@ public class MethodIREmitter implements AstEmitter<JavaEmitterContext, MethodEnt
         ctx.printIndentation();
         for (int i = 0; i < ir.size(); i++) {
             Insn next = ir.get(i);
-            ctx.printStringf("%3d %s", i, next.toString());
+            String text = next.toString();
+            if (next instanceof LdcInsn && ((LdcInsn) next).getConstant() instanceof String) {
+                // string constants may span several lines
+                text = DebugUtil.opcodeToString(next.getOpcode()) + " \"" + StringConstantEmitter.escape((String) ((LdcInsn) next).getConstant()) + "\"";
+            }
+            ctx.printStringf("%3d %s", i, text);
             ctx.newIndentedLine();
         }
 
@@ -27,41 +27,18 @@ package org.spongepowered.despector.emitter.java;
 import com.google.common.collect.Lists;
 import org.spongepowered.despector.ast.Annotation;
 import org.spongepowered.despector.ast.Annotation.EnumConstant;
-import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.SourceSet;
 import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.GenericClassTypeSignature;
 import org.spongepowered.despector.ast.generic.TypeArgument;
 import org.spongepowered.despector.ast.generic.TypeParameter;
 import org.spongepowered.despector.ast.generic.TypeSignature;
-import org.spongepowered.despector.ast.insn.InstructionVisitor;
-import org.spongepowered.despector.ast.insn.cst.DoubleConstant;
-import org.spongepowered.despector.ast.insn.cst.FloatConstant;
-import org.spongepowered.despector.ast.insn.cst.IntConstant;
-import org.spongepowered.despector.ast.insn.cst.LongConstant;
-import org.spongepowered.despector.ast.insn.cst.NullConstant;
-import org.spongepowered.despector.ast.insn.cst.StringConstant;
-import org.spongepowered.despector.ast.insn.cst.TypeConstant;
-import org.spongepowered.despector.ast.insn.misc.Cast;
-import org.spongepowered.despector.ast.insn.misc.InstanceOf;
-import org.spongepowered.despector.ast.insn.misc.MultiNewArray;
-import org.spongepowered.despector.ast.insn.misc.NewArray;
-import org.spongepowered.despector.ast.insn.misc.NumberCompare;
-import org.spongepowered.despector.ast.insn.misc.Ternary;
-import org.spongepowered.despector.ast.insn.op.NegativeOperator;
-import org.spongepowered.despector.ast.insn.op.Operator;
-import org.spongepowered.despector.ast.insn.var.ArrayAccess;
-import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
-import org.spongepowered.despector.ast.insn.var.LocalAccess;
-import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
 import org.spongepowered.despector.ast.stmt.invoke.Lambda;
-import org.spongepowered.despector.ast.stmt.invoke.MethodReference;
-import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
-import org.spongepowered.despector.ast.stmt.invoke.New;
-import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
 import org.spongepowered.despector.ast.type.FieldEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.ast.type.TypeEntry.InnerClassInfo;
+import org.spongepowered.despector.decompiler.method.special.ReferencedTypesVisitor;
 import org.spongepowered.despector.util.TypeHelper;
 
 import java.util.ArrayList;
@@ -115,8 +92,6 @@ public class ImportManager {
             return;
         }
         this.checked.add(type);
-        ImportWalker walker = new ImportWalker();
-
         for (Annotation anno : type.getAnnotations()) {
             check(anno);
         }
@@ -124,10 +99,10 @@ public class ImportManager {
             add("L" + i + ";");
         }
         for (MethodEntry method : type.getStaticMethods()) {
-            check(method, walker);
+            check(method);
         }
         for (MethodEntry method : type.getMethods()) {
-            check(method, walker);
+            check(method);
         }
         for (FieldEntry field : type.getStaticFields()) {
             check(field);
@@ -136,13 +111,27 @@ public class ImportManager {
             check(field);
         }
         for (InnerClassInfo info : type.getInnerClasses()) {
-            TypeEntry inner = type.getSource().get(info.getName());
+            TypeEntry inner;
+            if (isEmittedWithin(info, type)) {
+                inner = type.getSource().get(info.getName());
+            } else {
+                // inner classes which are only referenced are not requested
+                // from the loader, which would decompile them
+                inner = type.getSource().getLoaded(info.getName());
+            }
             if (inner != null && inner != type) {
                 calculateImports(inner);
             }
         }
     }
 
+    private static boolean isEmittedWithin(InnerClassInfo info, TypeEntry type) {
+        if (info.getOuterName() != null && !info.getOuterName().equals(type.getName())) {
+            return false;
+        }
+        return info.getName().startsWith(type.getName() + "$");
+    }
+
     /**
      * Adds the given type descriptor to the list of imports.
      */
@@ -188,12 +177,14 @@ public class ImportManager {
         }
     }
 
-    private void check(MethodEntry method, ImportWalker walker) {
+    private void check(MethodEntry method) {
         for (Annotation anno : method.getAnnotations()) {
             check(anno);
         }
-        if (!method.isAbstract() && method.getInstructions() != null) {
-            method.getInstructions().accept(walker);
+        // deferred bodies are not emitted, unless they are requested by the
+        // emitter in which case they are checked from where they are used
+        if (!method.isBodyDeferred()) {
+            checkBody(method);
         }
         check(method.getReturnType());
         for (TypeSignature param : method.getParamTypes()) {
@@ -212,6 +203,41 @@ public class ImportManager {
         }
     }
 
+    private void checkBody(MethodEntry method) {
+        if (method.isAbstract() || method.getInstructions() == null) {
+            return;
+        }
+        Set<String> referenced = method.getReferencedTypes();
+        List<Lambda> lambdas = method.getReferencedLambdas();
+        if (referenced == null || lambdas == null) {
+            ReferencedTypesVisitor visitor = new ReferencedTypesVisitor();
+            method.getInstructions().accept(visitor);
+            referenced = visitor.getTypes();
+            lambdas = visitor.getLambdas();
+        }
+        for (String desc : referenced) {
+            add(desc);
+        }
+        for (Lambda lambda : lambdas) {
+            check(lambda, method.getSource());
+        }
+    }
+
+    private void check(Lambda lambda, SourceSet source) {
+        TypeEntry owner = source.getLoaded(TypeHelper.descToType(lambda.getLambdaOwner()));
+        if (owner == null) {
+            return;
+        }
+        MethodEntry method = owner.getStaticMethod(lambda.getLambdaMethod(), lambda.getLambdaDescription());
+        if (method == null) {
+            method = owner.getMethod(lambda.getLambdaMethod(), lambda.getLambdaDescription());
+        }
+        if (method != null && method.isBodyDeferred()) {
+            // the lambda body is inlined where the lambda is created
+            checkBody(method);
+        }
+    }
+
     private void check(FieldEntry field) {
         for (Annotation anno : field.getAnnotations()) {
             check(anno);
@@ -297,118 +323,4 @@ public class ImportManager {
         }
     }
 
-    /**
-     * A visitor to gather types needing to be imported.
-     */
-    private class ImportWalker implements InstructionVisitor {
-
-        public ImportWalker() {
-        }
-
-        @Override
-        public void visitCast(Cast cast) {
-            ImportManager.this.check(cast.getType());
-        }
-
-        @Override
-        public void visitLocalInstance(LocalInstance local) {
-            ImportManager.this.check(local.getType());
-        }
-
-        @Override
-        public void visitTypeConstant(TypeConstant cst) {
-            ImportManager.this.add(cst.getConstant().getDescriptor());
-        }
-
-        @Override
-        public void visitNew(New ne) {
-            ImportManager.this.check(ne.getType());
-        }
-
-        @Override
-        public void visitArrayAccess(ArrayAccess insn) {
-        }
-
-        @Override
-        public void visitDoubleConstant(DoubleConstant insn) {
-        }
-
-        @Override
-        public void visitDynamicInvoke(Lambda insn) {
-        }
-
-        @Override
-        public void visitFloatConstant(FloatConstant insn) {
-        }
-
-        @Override
-        public void visitInstanceFieldAccess(InstanceFieldAccess insn) {
-        }
-
-        @Override
-        public void visitInstanceMethodInvoke(InstanceMethodInvoke insn) {
-        }
-
-        @Override
-        public void visitInstanceOf(InstanceOf insn) {
-        }
-
-        @Override
-        public void visitIntConstant(IntConstant insn) {
-        }
-
-        @Override
-        public void visitLocalAccess(LocalAccess insn) {
-        }
-
-        @Override
-        public void visitLongConstant(LongConstant insn) {
-        }
-
-        @Override
-        public void visitNegativeOperator(NegativeOperator insn) {
-        }
-
-        @Override
-        public void visitNewArray(NewArray insn) {
-        }
-
-        @Override
-        public void visitNullConstant(NullConstant insn) {
-        }
-
-        @Override
-        public void visitNumberCompare(NumberCompare insn) {
-        }
-
-        @Override
-        public void visitOperator(Operator insn) {
-        }
-
-        @Override
-        public void visitStaticFieldAccess(StaticFieldAccess insn) {
-        }
-
-        @Override
-        public void visitStaticMethodInvoke(StaticMethodInvoke insn) {
-        }
-
-        @Override
-        public void visitStringConstant(StringConstant insn) {
-        }
-
-        @Override
-        public void visitTernary(Ternary insn) {
-        }
-
-        @Override
-        public void visitMultiNewArray(MultiNewArray insn) {
-        }
-
-        @Override
-        public void visitMethodReference(MethodReference methodReference) {
-        }
-
-    }
-
 }
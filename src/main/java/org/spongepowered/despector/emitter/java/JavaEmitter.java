@@ -24,7 +24,9 @@
  */
 package org.spongepowered.despector.emitter.java;
 
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.parallel.Timing;
@@ -45,7 +47,12 @@ public class JavaEmitter implements Emitter<JavaEmitterContext> {
         setup(ctx);
         long emitting_start = System.nanoTime();
         ctx.emitOuterType(type);
-        Timing.time_emitting += System.nanoTime() - emitting_start;
+        Timing.time_emitting.addAndGet(System.nanoTime() - emitting_start);
+    }
+
+    @Override
+    public boolean emitsMethodBody(MethodEntry method) {
+        return !method.isSynthetic() || ConfigManager.getConfig().emitter.emit_synthetics;
     }
 
 }
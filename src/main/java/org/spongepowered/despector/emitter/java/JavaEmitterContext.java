@@ -102,6 +102,20 @@ public class JavaEmitterContext extends AbstractEmitterContext {
         this.block_statements.add(TryCatch.class);
     }
 
+    /**
+     * Gets the output this context is writing to.
+     */
+    public Writer getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Sets the output this context is writing to.
+     */
+    public void setOutput(Writer output) {
+        this.output = checkNotNull(output, "output");
+    }
+
     /**
      * Gets the emitter format.
      */
@@ -142,6 +156,20 @@ public class JavaEmitterContext extends AbstractEmitterContext {
         this.defined_locals.clear();
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        this.import_manager.reset();
+        this.defined_locals.clear();
+        this.indentation = 0;
+        this.offs = 0;
+        this.semicolons = true;
+        this.line_length = 0;
+        this.wrap_point = -1;
+        this.line_buffer.setLength(0);
+        this.is_wrapped = false;
+    }
+
     /**
      * Marks the given statement type as a block statement.
      */
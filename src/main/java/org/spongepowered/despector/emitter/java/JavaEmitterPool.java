@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.emitter.java;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * A thread safe pool of {@link JavaEmitterContext}s which are reset and reused
+ * between emits rather than being recreated for every type.
+ */
+public class JavaEmitterPool {
+
+    private static final int DEFAULT_MAX_IDLE = 16;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private final EmitterFormat format;
+    private final int max_idle;
+    private final Queue<PooledContext> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idle_count = new AtomicInteger();
+
+    public JavaEmitterPool(EmitterFormat format) {
+        this(format, DEFAULT_MAX_IDLE);
+    }
+
+    public JavaEmitterPool(EmitterFormat format, int max_idle) {
+        checkArgument(max_idle >= 0, "max_idle must be positive");
+        this.format = checkNotNull(format, "format");
+        this.max_idle = max_idle;
+    }
+
+    /**
+     * Gets the emitter format used by contexts created by this pool.
+     */
+    public EmitterFormat getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Gets the number of idle contexts currently held by this pool.
+     */
+    public int getIdleCount() {
+        return this.idle_count.get();
+    }
+
+    /**
+     * Takes a session from this pool, creating a new context if none are idle.
+     * The session must be closed once it is finished with to return its
+     * context to the pool.
+     */
+    public Session acquire() {
+        PooledContext pooled = this.idle.poll();
+        if (pooled == null) {
+            pooled = new PooledContext(this.format);
+        } else {
+            this.idle_count.decrementAndGet();
+        }
+        return new Session(this, pooled);
+    }
+
+    void release(PooledContext pooled) {
+        pooled.ctx.reset();
+        StringBuffer buffer = pooled.buffer.getBuffer();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            pooled.buffer = new StringWriter();
+        } else {
+            buffer.setLength(0);
+        }
+        pooled.ctx.setOutput(pooled.buffer);
+        if (this.idle_count.incrementAndGet() > this.max_idle) {
+            this.idle_count.decrementAndGet();
+            return;
+        }
+        this.idle.offer(pooled);
+    }
+
+    /**
+     * Emits the given type entry to a string using a pooled context.
+     */
+    public String emitToString(TypeEntry type) {
+        try (Session session = acquire()) {
+            return session.emitToString(type);
+        }
+    }
+
+    /**
+     * Emits the given type entry to the given writer using a pooled context.
+     */
+    public void emit(TypeEntry type, Writer output) {
+        try (Session session = acquire()) {
+            session.emit(type, output);
+        }
+    }
+
+    /**
+     * An emitter context and its output buffer held by the pool between
+     * sessions.
+     */
+    static class PooledContext {
+
+        final JavaEmitterContext ctx;
+        StringWriter buffer;
+
+        PooledContext(EmitterFormat format) {
+            this.buffer = new StringWriter();
+            this.ctx = new JavaEmitterContext(this.buffer, format);
+        }
+
+    }
+
+    /**
+     * A single emitter context checked out of a {@link JavaEmitterPool}. A
+     * session may only be used by one thread at a time, and a new session is
+     * handed out by every acquire so that a session which has been closed
+     * stays closed even once its context has been taken again.
+     */
+    public static class Session implements AutoCloseable {
+
+        private final JavaEmitterPool pool;
+        @Nullable private PooledContext pooled;
+
+        Session(JavaEmitterPool pool, PooledContext pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        /**
+         * Gets whether this session has been returned to the pool.
+         */
+        public boolean isClosed() {
+            return this.pooled == null;
+        }
+
+        /**
+         * Gets the underlying emitter context. The context must not be used
+         * once this session is closed.
+         */
+        public JavaEmitterContext getContext() {
+            return checkState().ctx;
+        }
+
+        /**
+         * Emits the given type entry to a string.
+         */
+        public String emitToString(TypeEntry type) {
+            PooledContext pooled = checkState();
+            pooled.ctx.reset();
+            pooled.buffer.getBuffer().setLength(0);
+            pooled.ctx.setOutput(pooled.buffer);
+            Emitters.<JavaEmitterContext>get(type.getLanguage()).emit(pooled.ctx, type);
+            return pooled.buffer.toString();
+        }
+
+        /**
+         * Emits the given type entry to the given writer.
+         */
+        public void emit(TypeEntry type, Writer output) {
+            PooledContext pooled = checkState();
+            pooled.ctx.reset();
+            pooled.ctx.setOutput(output);
+            try {
+                Emitters.<JavaEmitterContext>get(type.getLanguage()).emit(pooled.ctx, type);
+            } finally {
+                pooled.ctx.setOutput(pooled.buffer);
+            }
+        }
+
+        private PooledContext checkState() {
+            PooledContext pooled = this.pooled;
+            if (pooled == null) {
+                throw new IllegalStateException("Session has already been returned to the pool");
+            }
+            return pooled;
+        }
+
+        @Override
+        public void close() {
+            PooledContext pooled = this.pooled;
+            if (pooled == null) {
+                return;
+            }
+            this.pooled = null;
+            this.pool.release(pooled);
+        }
+
+    }
+
+}
@@ -273,7 +273,7 @@ public class EnumEntryEmitter implements AstEmitter<JavaEmitterContext, EnumEntr
                         continue;
                     }
                 }
-                if (mth.getName().equals("<init>") && mth.getInstructions().getStatements().size() == 2) {
+                if (mth.getName().equals("<init>") && mth.getInstructions() != null && mth.getInstructions().getStatements().size() == 2) {
                     // If the initializer contains only two statement (which
                     // will be the invoke of the super constructor and the void
                     // return) then we can
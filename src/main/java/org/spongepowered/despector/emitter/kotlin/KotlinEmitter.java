@@ -24,7 +24,9 @@
  */
 package org.spongepowered.despector.emitter.kotlin;
 
+import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.ConfigManager;
 import org.spongepowered.despector.emitter.Emitter;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.java.ImportManager;
@@ -57,4 +59,9 @@ public class KotlinEmitter implements Emitter<JavaEmitterContext> {
         ctx.emitOuterType(type);
     }
 
+    @Override
+    public boolean emitsMethodBody(MethodEntry method) {
+        return !method.isSynthetic() || ConfigManager.getConfig().emitter.emit_synthetics;
+    }
+
 }
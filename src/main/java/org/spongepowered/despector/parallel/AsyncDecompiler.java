@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.parallel;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.io.ByteStreams;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.DecompilerOptions;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Decompiles classes asynchronously on an executor. Each instance has its own
+ * decompiler, configured through {@link #getDecompiler()}, so that several
+ * independent jobs may run at once without sharing a scheduler or the
+ * mappings, memo and emitter of the global decompilers. The decompiler has its
+ * own {@link DecompilerOptions}, which start from the global settings when the
+ * instance is created.
+ */
+public class AsyncDecompiler {
+
+    private final Executor executor;
+    private final BaseDecompiler decompiler;
+
+    public AsyncDecompiler(Executor executor) {
+        this(executor, Language.ANY);
+    }
+
+    public AsyncDecompiler(Executor executor, Language lang) {
+        this.executor = checkNotNull(executor, "executor");
+        this.decompiler = new BaseDecompiler(checkNotNull(lang, "lang"));
+        this.decompiler.setOptions(new DecompilerOptions());
+    }
+
+    /**
+     * Gets the decompiler used by this job, which may be configured before
+     * classes are submitted.
+     */
+    public BaseDecompiler getDecompiler() {
+        return this.decompiler;
+    }
+
+    /**
+     * Submits the given class file to be decompiled into the given source
+     * set. The returned future completes once the class and all of its method
+     * bodies have been decompiled.
+     */
+    public CompletableFuture<TypeEntry> submit(byte[] data, SourceSet set) {
+        checkNotNull(data, "data");
+        checkNotNull(set, "set");
+        CompletableFuture<TypeEntry> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                future.complete(this.decompiler.decompileNow(new ByteArrayInputStream(data), set));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Submits the class file in the given stream to be decompiled into the
+     * given source set. The stream is read fully before this returns.
+     */
+    public CompletableFuture<TypeEntry> submit(InputStream input, SourceSet set) throws IOException {
+        return submit(ByteStreams.toByteArray(input), set);
+    }
+
+    /**
+     * Submits each of the given class files to be decompiled into the given
+     * source set.
+     */
+    public List<CompletableFuture<TypeEntry>> submitAll(Collection<byte[]> classes, SourceSet set) {
+        List<CompletableFuture<TypeEntry>> futures = new ArrayList<>(classes.size());
+        for (byte[] data : classes) {
+            futures.add(submit(data, set));
+        }
+        return futures;
+    }
+
+    /**
+     * Submits the given class files to be decompiled into the given source
+     * set. The returned future completes with the source set once every class
+     * has been decompiled, or exceptionally if any of them failed.
+     */
+    public CompletableFuture<SourceSet> submitBatch(Collection<byte[]> classes, SourceSet set) {
+        return allOf(submitAll(classes, set), set);
+    }
+
+    /**
+     * Submits every class file in the given jar to be decompiled into the
+     * given source set. The jar is read on the executor and the returned
+     * future completes with the source set once every class has been
+     * decompiled.
+     */
+    public CompletableFuture<SourceSet> submitJar(Path jar, SourceSet set) {
+        checkNotNull(jar, "jar");
+        checkNotNull(set, "set");
+        return CompletableFuture.supplyAsync(() -> {
+            List<CompletableFuture<TypeEntry>> futures = new ArrayList<>();
+            try (JarInputStream input = new JarInputStream(new BufferedInputStream(Files.newInputStream(jar)))) {
+                ZipEntry entry;
+                while ((entry = input.getNextEntry()) != null) {
+                    if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                        continue;
+                    }
+                    futures.add(submit(ByteStreams.toByteArray(input), set));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return futures;
+        }, this.executor).thenCompose(futures -> allOf(futures, set));
+    }
+
+    private static CompletableFuture<SourceSet> allOf(List<CompletableFuture<TypeEntry>> futures, SourceSet set) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> set);
+    }
+
+}
@@ -0,0 +1,619 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.parallel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.ast.Locals.LVT;
+import org.spongepowered.despector.ast.Locals.Local;
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.decompiler.BaseDecompiler.BootstrapMethod;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.ClassEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.DoubleEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Entry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FieldRefEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.FloatEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.IntEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.InvokeDynamicEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.LongEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodHandleEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodRefEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.MethodTypeEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.NameAndTypeEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.StringEntry;
+import org.spongepowered.despector.decompiler.loader.ClassConstantPool.Utf8Entry;
+import org.spongepowered.despector.decompiler.method.PartialMethod.TryCatchRegion;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.AstSerializer;
+import org.spongepowered.despector.util.serialization.BufferMessagePacker;
+import org.spongepowered.despector.util.serialization.BufferMessageUnpacker;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageType;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+/**
+ * A memo of decompiled method bodies which is shared by all types decompiled
+ * in a run, so that identical methods are only decompiled once.
+ *
+ * <p>Methods are keyed by a hash of their code with every constant pool
+ * reference replaced by the constant it resolves to, their catch table, local
+ * variable tables and descriptor. Neither the name of the method nor the type
+ * declaring it are part of the key, and every reference to the declaring type
+ * is keyed as a placeholder, so that the same method in several types (such
+ * as generated equals, hashCode and toString methods or the values and
+ * valueOf methods of enums) shares one key. Once a second method with the same
+ * key is found the locals and statements of the first are serialized with a
+ * string table, and every later method with that key gets a fresh copy of them
+ * with the references to the first declaring type replaced by its own.
+ * Methods loaded from the memo have no intermediate representation.</p>
+ */
+public class MethodBodyMemo {
+
+    public static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final ThreadLocal<KeyBuilder> KEY_BUILDER = ThreadLocal.withInitial(KeyBuilder::new);
+    private static final ThreadLocal<BufferMessagePacker> PACKER = ThreadLocal.withInitial(BufferMessagePacker::new);
+
+    // methods which have been decompiled once, their bodies are serialized
+    // when the first identical method is found
+    private final Cache<HashCode, MethodEntry> first_seen = CacheBuilder.newBuilder().weakValues().build();
+    private final Cache<HashCode, byte[]> bodies;
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    public MethodBodyMemo() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a memo which holds at most roughly the given number of bytes of
+     * serialized method bodies.
+     */
+    public MethodBodyMemo(long max_size) {
+        checkArgument(max_size > 0, "Max size must be positive");
+        this.bodies = CacheBuilder.newBuilder()
+                .maximumWeight(max_size)
+                .weigher((HashCode key, byte[] value) -> value.length)
+                .build();
+    }
+
+    /**
+     * Gets the number of methods which were looked up in this memo.
+     */
+    public long getLookups() {
+        return this.lookups.get();
+    }
+
+    /**
+     * Gets the number of methods whose body was taken from this memo.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the fraction of lookups which were hits.
+     */
+    public double getHitRate() {
+        long lookups = this.lookups.get();
+        return lookups == 0 ? 0 : this.hits.get() / (double) lookups;
+    }
+
+    /**
+     * Gets the number of serialized method bodies currently held.
+     */
+    public long getSize() {
+        return this.bodies.size();
+    }
+
+    /**
+     * Clears all method bodies and statistics of this memo.
+     */
+    public void reset() {
+        this.first_seen.invalidateAll();
+        this.bodies.invalidateAll();
+        this.lookups.set(0);
+        this.hits.set(0);
+    }
+
+    /**
+     * Gets the key of the given method, or null if its code cannot be
+     * keyed.
+     */
+    @Nullable
+    public HashCode getKey(MethodEntry mth, Language lang, byte[] code, List<TryCatchRegion> catch_regions, ClassConstantPool pool,
+            List<BootstrapMethod> bootstrap_methods) {
+        KeyBuilder key = KEY_BUILDER.get().reset(mth.getOwnerName());
+        key.putInt(lang.ordinal());
+        String name = mth.getName();
+        // the few names which change how a method is decompiled are keyed
+        if (name.startsWith("<") || name.startsWith("$SWITCH_TABLE$")) {
+            key.putString(name);
+        } else {
+            key.putString(null);
+        }
+        key.putString(mth.getDescription());
+        key.putString(mth.getMethodSignature().toString());
+        key.putBoolean(mth.isStatic());
+        // the names of locals are keyed as the locals of the stored method are
+        // loaded in place of those of the method loading it
+        Locals locals = mth.getLocals();
+        for (int i = 0; i < locals.getLocalCount(); i++) {
+            Local local = locals.getLocal(i);
+            for (int j = 0; j < local.getLVTCount(); j++) {
+                LVT lvt = local.getLVTByIndex(j);
+                key.putInt(i).putInt(lvt.start_pc).putInt(lvt.length);
+                key.putString(lvt.name);
+                key.putString(lvt.desc);
+                key.putString(lvt.signature);
+            }
+        }
+        key.putInt(catch_regions.size());
+        for (TryCatchRegion region : catch_regions) {
+            key.putInt(region.getStart()).putInt(region.getEnd()).putInt(region.getCatch());
+            key.putString(region.getException());
+        }
+        key.putInt(code.length);
+        if (!putCode(key, code, pool, bootstrap_methods)) {
+            return null;
+        }
+        return HASH.hashBytes(key.data, 0, key.size);
+    }
+
+    /**
+     * Sets the locals and statements of the given method from the body stored
+     * for the given key. Returns false if no body is stored.
+     */
+    public boolean load(HashCode key, MethodEntry mth) {
+        this.lookups.incrementAndGet();
+        byte[] data = this.bodies.getIfPresent(key);
+        if (data == null) {
+            MethodEntry first = this.first_seen.getIfPresent(key);
+            if (first == null || (data = serialize(first)) == null) {
+                return false;
+            }
+            this.bodies.put(key, data);
+            this.first_seen.invalidate(key);
+        }
+        // the method is decompiled from its own locals if the body fails to load
+        Locals own_locals = mth.getLocals();
+        try {
+            RebindingUnpacker unpack = new RebindingUnpacker(data);
+            AstSerializer.enableStringTable(unpack);
+            unpack.readMap();
+            unpack.readString();
+            unpack.rebind(unpack.readString(), mth.getOwnerName());
+            unpack.readString();
+            mth.setLocals(loadLocals(unpack, mth));
+            unpack.readString();
+            mth.setInstructions(AstLoader.loadMethodBody(unpack, mth));
+        } catch (IOException | RuntimeException e) {
+            mth.setLocals(own_locals);
+            this.bodies.invalidate(key);
+            return false;
+        }
+        mth.invalidateReferencedTypes();
+        this.hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Stores the given decompiled method under the given key. Its locals and
+     * statements are only serialized once an identical method is loaded, so
+     * the method must not be modified until decompilation has finished.
+     */
+    public void store(HashCode key, MethodEntry mth) {
+        if (mth.getInstructions() != null) {
+            this.first_seen.put(key, mth);
+        }
+    }
+
+    @Nullable
+    private static byte[] serialize(MethodEntry mth) {
+        StatementBlock block = mth.getInstructions();
+        if (block == null) {
+            return null;
+        }
+        BufferMessagePacker pack = PACKER.get().reset();
+        AstSerializer.enableStringTable(pack);
+        try {
+            pack.startMap(3);
+            pack.writeString("owner").writeString(mth.getOwnerName());
+            pack.writeString("locals");
+            writeLocals(mth.getLocals(), pack);
+            pack.writeString("instructions");
+            pack.startArray(block.getStatementCount());
+            for (Statement stmt : block.getStatements()) {
+                stmt.writeTo(pack);
+            }
+            pack.endArray();
+            pack.endMap();
+        } catch (IOException e) {
+            return null;
+        }
+        return pack.toByteArray();
+    }
+
+    /**
+     * Writes the given locals, keeping the parameter instance of each local
+     * apart from its other instances as instances created without a local
+     * variable table start at -1 as well.
+     */
+    private static void writeLocals(Locals locals, MessagePacker pack) throws IOException {
+        pack.startArray(locals.getLocalCount());
+        for (int i = 0; i < locals.getLocalCount(); i++) {
+            Local loc = locals.getLocal(i);
+            pack.startMap(3);
+            pack.writeString("index").writeInt(loc.getIndex());
+            pack.writeString("parameter");
+            if (loc.isParameter()) {
+                loc.getParameterInstance().writeTo(pack);
+            } else {
+                pack.writeNil();
+            }
+            pack.writeString("instances").startArray(loc.getInstances().size());
+            for (LocalInstance insn : loc.getInstances()) {
+                insn.writeTo(pack);
+            }
+            pack.endArray();
+            pack.endMap();
+        }
+        pack.endArray();
+    }
+
+    private static Locals loadLocals(MessageUnpacker unpack, MethodEntry mth) throws IOException {
+        Locals locals = new Locals(mth);
+        int size = unpack.readArray();
+        for (int i = 0; i < size; i++) {
+            unpack.readMap();
+            unpack.readString();
+            Local loc = locals.getLocal(unpack.readInt());
+            unpack.readString();
+            if (unpack.peekType() == MessageType.NIL) {
+                unpack.readNil();
+            } else {
+                loc.setParameterInstance(AstLoader.loadLocalInstance(unpack, loc, mth.getSource()));
+            }
+            unpack.readString();
+            int instances = unpack.readArray();
+            for (int j = 0; j < instances; j++) {
+                loc.getInstances().add(AstLoader.loadLocalInstance(unpack, loc, mth.getSource()));
+            }
+        }
+        return locals;
+    }
+
+    /**
+     * Finds the next reference to the given type in the given string, which is
+     * either the whole internal name of the type or that name in a type
+     * descriptor or signature.
+     */
+    static int indexOfType(String str, String type, int from) {
+        int i = from;
+        while ((i = str.indexOf(type, i)) != -1) {
+            int end = i + type.length();
+            if ((i == 0 || str.charAt(i - 1) == 'L' || isNameBoundary(str.charAt(i - 1))) && (end == str.length() || isNameBoundary(str.charAt(end)))) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static boolean isNameBoundary(char c) {
+        return c != '/' && !Character.isJavaIdentifierPart(c);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d method bodies reused (%.1f%%), %d bodies held", getHits(), getLookups(), getHitRate() * 100, getSize());
+    }
+
+    private static boolean putCode(KeyBuilder key, byte[] code, ClassConstantPool pool, List<BootstrapMethod> bootstrap_methods) {
+        for (int i = 0; i < code.length;) {
+            int opcode = code[i] & 0xFF;
+            int length;
+            int cst = -1;
+            if (opcode == 18) { // LDC
+                length = 2;
+                cst = code[i + 1] & 0xFF;
+            } else if ((opcode >= 19 && opcode <= 20) || (opcode >= 178 && opcode <= 184) || opcode == 187 || opcode == 189 || opcode == 192
+                    || opcode == 193) {
+                length = 3;
+                cst = readShort(code, i + 1);
+            } else if (opcode == 185 || opcode == 186) { // INVOKEINTERFACE, INVOKEDYNAMIC
+                length = 5;
+                cst = readShort(code, i + 1);
+            } else if (opcode == 197) { // MULTIANEWARRAY
+                length = 4;
+                cst = readShort(code, i + 1);
+            } else if (opcode == 170 || opcode == 171) { // TABLESWITCH, LOOKUPSWITCH
+                int pad = 3 - (i & 3);
+                int n = i + 1 + pad;
+                if (n + 12 > code.length) {
+                    return false;
+                }
+                if (opcode == 170) {
+                    length = 1 + pad + 12 + 4 * (readInt(code, n + 8) - readInt(code, n + 4) + 1);
+                } else {
+                    length = 1 + pad + 8 + 8 * readInt(code, n + 4);
+                }
+            } else if (opcode == 196) { // WIDE
+                length = (code[i + 1] & 0xFF) == 132 ? 6 : 4;
+            } else if (opcode > 201) {
+                return false;
+            } else {
+                length = getLength(opcode);
+            }
+            if (length <= 0 || i + length > code.length) {
+                return false;
+            }
+            if (cst == -1) {
+                key.putBytes(code, i, length);
+            } else {
+                key.putByte(code[i]);
+                putEntry(key, pool, cst, opcode == 186 ? bootstrap_methods : null);
+                int operands = opcode == 18 ? 2 : 3;
+                key.putBytes(code, i + operands, length - operands);
+            }
+            i += length;
+        }
+        return true;
+    }
+
+    private static int getLength(int opcode) {
+        if (opcode == 16 || (opcode >= 21 && opcode <= 25) || (opcode >= 54 && opcode <= 58) || opcode == 169 || opcode == 188) {
+            return 2;
+        }
+        if (opcode == 17 || opcode == 132 || (opcode >= 153 && opcode <= 168) || opcode == 198 || opcode == 199) {
+            return 3;
+        }
+        if (opcode == 200 || opcode == 201) {
+            return 5;
+        }
+        return 1;
+    }
+
+    private static void putEntry(KeyBuilder key, ClassConstantPool pool, int index, @Nullable List<BootstrapMethod> bootstrap_methods) {
+        putEntry(key, pool, pool.getEntry(index), bootstrap_methods);
+    }
+
+    private static void putEntry(KeyBuilder key, ClassConstantPool pool, Entry entry, @Nullable List<BootstrapMethod> bootstrap_methods) {
+        key.putInt(entry.type.ordinal());
+        if (entry instanceof Utf8Entry) {
+            key.putString(((Utf8Entry) entry).value);
+        } else if (entry instanceof IntEntry) {
+            key.putInt(((IntEntry) entry).value);
+        } else if (entry instanceof FloatEntry) {
+            key.putFloat(((FloatEntry) entry).value);
+        } else if (entry instanceof LongEntry) {
+            key.putLong(((LongEntry) entry).value);
+        } else if (entry instanceof DoubleEntry) {
+            key.putDouble(((DoubleEntry) entry).value);
+        } else if (entry instanceof StringEntry) {
+            key.putString(((StringEntry) entry).value);
+        } else if (entry instanceof ClassEntry) {
+            key.putString(((ClassEntry) entry).name);
+        } else if (entry instanceof NameAndTypeEntry) {
+            key.putString(((NameAndTypeEntry) entry).name);
+            key.putString(((NameAndTypeEntry) entry).type_name);
+        } else if (entry instanceof FieldRefEntry) {
+            FieldRefEntry ref = (FieldRefEntry) entry;
+            key.putString(ref.cls);
+            key.putString(ref.name);
+            key.putString(ref.type_name);
+        } else if (entry instanceof MethodRefEntry) {
+            MethodRefEntry ref = (MethodRefEntry) entry;
+            key.putString(ref.cls);
+            key.putString(ref.name);
+            key.putString(ref.type_name);
+        } else if (entry instanceof MethodHandleEntry) {
+            MethodHandleEntry handle = (MethodHandleEntry) entry;
+            key.putByte(handle.kind);
+            putEntry(key, pool, handle.reference_index, null);
+        } else if (entry instanceof MethodTypeEntry) {
+            key.putString(((MethodTypeEntry) entry).desc);
+        } else if (entry instanceof InvokeDynamicEntry) {
+            InvokeDynamicEntry indy = (InvokeDynamicEntry) entry;
+            key.putString(indy.name);
+            key.putString(indy.type_name);
+            if (bootstrap_methods != null) {
+                BootstrapMethod bsm = bootstrap_methods.get(indy.bootstrap_index);
+                putEntry(key, pool, bsm.handle, null);
+                key.putInt(bsm.arguments.length);
+                for (Entry arg : bsm.arguments) {
+                    putEntry(key, pool, arg, null);
+                }
+            }
+        }
+    }
+
+    private static int readShort(byte[] code, int i) {
+        return ((code[i] & 0xFF) << 8) | (code[i + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] code, int i) {
+        return ((code[i] & 0xFF) << 24) | ((code[i + 1] & 0xFF) << 16) | ((code[i + 2] & 0xFF) << 8) | (code[i + 3] & 0xFF);
+    }
+
+    /**
+     * A growable buffer which the key of a method is written to before it is
+     * hashed in one go.
+     */
+    private static class KeyBuilder {
+
+        byte[] data = new byte[1024];
+        int size;
+        String owner;
+
+        KeyBuilder reset(String owner) {
+            this.size = 0;
+            this.owner = owner;
+            return this;
+        }
+
+        private void ensure(int bytes) {
+            if (this.size + bytes > this.data.length) {
+                this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.size + bytes));
+            }
+        }
+
+        KeyBuilder putByte(byte b) {
+            ensure(1);
+            this.data[this.size++] = b;
+            return this;
+        }
+
+        KeyBuilder putBoolean(boolean b) {
+            return putByte(b ? (byte) 1 : (byte) 0);
+        }
+
+        KeyBuilder putInt(int i) {
+            ensure(4);
+            this.data[this.size++] = (byte) (i >>> 24);
+            this.data[this.size++] = (byte) (i >>> 16);
+            this.data[this.size++] = (byte) (i >>> 8);
+            this.data[this.size++] = (byte) i;
+            return this;
+        }
+
+        KeyBuilder putLong(long l) {
+            return putInt((int) (l >>> 32)).putInt((int) l);
+        }
+
+        KeyBuilder putFloat(float f) {
+            return putInt(Float.floatToRawIntBits(f));
+        }
+
+        KeyBuilder putDouble(double d) {
+            return putLong(Double.doubleToRawLongBits(d));
+        }
+
+        KeyBuilder putBytes(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, this.data, this.size, length);
+            this.size += length;
+            return this;
+        }
+
+        /**
+         * Puts the given string, with every reference to the owner of the
+         * method being keyed replaced by a placeholder.
+         */
+        KeyBuilder putString(@Nullable String str) {
+            if (str == null) {
+                return putInt(-1);
+            }
+            int references = 0;
+            for (int i = indexOfType(str, this.owner, 0); i != -1; i = indexOfType(str, this.owner, i + this.owner.length())) {
+                references++;
+            }
+            if (references == 0) {
+                return putChars(str, 0, str.length());
+            }
+            // lengths are never negative so this can not be mistaken for a
+            // plain string
+            putInt(-2 - references);
+            int last = 0;
+            for (int i = indexOfType(str, this.owner, 0); i != -1; i = indexOfType(str, this.owner, last)) {
+                putChars(str, last, i);
+                last = i + this.owner.length();
+            }
+            return putChars(str, last, str.length());
+        }
+
+        private KeyBuilder putChars(String str, int start, int end) {
+            int length = end - start;
+            putInt(length);
+            ensure(length * 2);
+            for (int i = start; i < end; i++) {
+                char c = str.charAt(i);
+                this.data[this.size++] = (byte) (c >>> 8);
+                this.data[this.size++] = (byte) c;
+            }
+            return this;
+        }
+
+    }
+
+    /**
+     * An unpacker which replaces every reference to the type which declared
+     * the stored method in the strings it reads with the type loading it.
+     */
+    private static class RebindingUnpacker extends BufferMessageUnpacker {
+
+        @Nullable private String from;
+        private String to;
+
+        RebindingUnpacker(byte[] data) {
+            super(data);
+        }
+
+        void rebind(String from, String to) {
+            this.from = from.equals(to) ? null : from;
+            this.to = to;
+        }
+
+        @Override
+        public String readString(int max_length) throws IOException {
+            String str = super.readString(max_length);
+            if (this.from == null) {
+                return str;
+            }
+            int i = indexOfType(str, this.from, 0);
+            if (i == -1) {
+                return str;
+            }
+            StringBuilder rebound = new StringBuilder(str.length() + this.to.length() - this.from.length());
+            int last = 0;
+            for (; i != -1; i = indexOfType(str, this.from, last)) {
+                rebound.append(str, last, i).append(this.to);
+                last = i + this.from.length();
+            }
+            return rebound.append(str, last, str.length()).toString();
+        }
+
+    }
+
+}
@@ -24,6 +24,9 @@
  */
 package org.spongepowered.despector.parallel;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.hash.HashCode;
 import org.spongepowered.despector.Language;
 import org.spongepowered.despector.ast.Annotation;
 import org.spongepowered.despector.ast.Locals.Local;
@@ -37,8 +40,9 @@ import org.spongepowered.despector.ast.stmt.misc.Comment;
 import org.spongepowered.despector.ast.type.EnumEntry;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
-import org.spongepowered.despector.config.ConfigManager;
+import org.spongepowered.despector.config.DecompilerOptions;
 import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
 import org.spongepowered.despector.decompiler.BaseDecompiler;
 import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.decompiler.BaseDecompiler.BootstrapMethod;
@@ -47,6 +51,8 @@ import org.spongepowered.despector.decompiler.ir.Insn;
 import org.spongepowered.despector.decompiler.loader.BytecodeTranslator;
 import org.spongepowered.despector.decompiler.loader.ClassConstantPool;
 import org.spongepowered.despector.decompiler.method.MethodDecompiler;
+import org.spongepowered.despector.emitter.Emitter;
+import org.spongepowered.despector.util.HeapReport;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -55,100 +61,217 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 public class MethodDecompileTask implements Runnable {
 
     private final TypeEntry entry;
-    private final ClassConstantPool pool;
+    private ClassConstantPool pool;
     private final List<UnfinishedMethod> unfinished_methods;
     private final BytecodeTranslator bytecode;
-    private final List<BootstrapMethod> bootstrap_methods;
+    private List<BootstrapMethod> bootstrap_methods;
+    @Nullable private final Emitter<?> emitter;
+    @Nullable private final MethodBodyMemo memo;
+    private final DecompilerOptions options;
 
     public MethodDecompileTask(TypeEntry entry, ClassConstantPool pool, List<UnfinishedMethod> unfinished_methods, BytecodeTranslator bytecode,
             List<BootstrapMethod> bootstrap_methods) {
+        this(entry, pool, unfinished_methods, bytecode, bootstrap_methods, null, null, new DecompilerOptions());
+    }
+
+    /**
+     * Creates a task which only decompiles the method bodies that the given
+     * emitter will print and defers the rest until they are requested. A null
+     * emitter decompiles every method body. For an emitter which does not
+     * print statements methods are only translated to their intermediate
+     * representation. If a memo is given then bodies
+     * identical to an already decompiled method are copied from it. The
+     * retention and error reporting of the methods follow the given options.
+     */
+    public MethodDecompileTask(TypeEntry entry, ClassConstantPool pool, List<UnfinishedMethod> unfinished_methods, BytecodeTranslator bytecode,
+            List<BootstrapMethod> bootstrap_methods, @Nullable Emitter<?> emitter, @Nullable MethodBodyMemo memo, DecompilerOptions options) {
         this.entry = entry;
         this.pool = pool;
         this.unfinished_methods = unfinished_methods;
         this.bytecode = bytecode;
         this.bootstrap_methods = bootstrap_methods;
+        this.emitter = emitter;
+        this.memo = memo;
+        this.options = checkNotNull(options, "options");
     }
 
     public TypeEntry getEntry() {
         return this.entry;
     }
 
+    /**
+     * Adds the raw bytecode still held by this task to the given report.
+     */
+    public void addCodeTo(HeapReport report) {
+        for (UnfinishedMethod unfinished : this.unfinished_methods) {
+            if (unfinished.code != null) {
+                report.addCode(unfinished.code.length);
+            }
+        }
+    }
+
     @Override
     public void run() {
+        run(false);
+    }
+
+    /**
+     * Defers decompiling every method body of the type until it is first
+     * requested, rather than decompiling them now.
+     */
+    public void defer() {
+        run(true);
+    }
+
+    private void run(boolean defer_all) {
+        Retention retention = this.options.getRetention();
+        ClassConstantPool pool = this.pool;
+        List<BootstrapMethod> bootstrap_methods = this.bootstrap_methods;
         for (UnfinishedMethod unfinished : this.unfinished_methods) {
             if (unfinished.code == null) {
+                unfinished.mth.release(retention);
                 continue;
             }
-            LibraryConfiguration.total_method_count++;
-            MethodEntry mth = unfinished.mth;
-            try {
-                mth.setIR(this.bytecode.createIR(mth.getMethodSignature(), unfinished.code, mth.getLocals(), unfinished.catch_regions, this.pool,
-                        this.bootstrap_methods));
-
-                if (unfinished.parameter_annotations != null) {
-                    for (Map.Entry<Integer, List<Annotation>> e : unfinished.parameter_annotations.entrySet()) {
-                        Local loc = mth.getLocals().getLocal(e.getKey());
-                        loc.getInstance(0).getAnnotations().addAll(e.getValue());
-                    }
-                }
+            if (defer_all || (this.emitter != null && !this.emitter.emitsMethodBody(unfinished.mth))) {
+                // the body is only decompiled if something asks for it while
+                // emitting, such as an inlined lambda or a synthetic accessor
+                LibraryConfiguration.deferred_method_count.incrementAndGet();
+                unfinished.mth.deferBody(() -> decompile(unfinished, pool, bootstrap_methods, retention));
+                continue;
+            }
+            decompile(unfinished, pool, bootstrap_methods, retention);
+        }
+        if (retention != Retention.ALL) {
+            this.pool = null;
+            this.bootstrap_methods = null;
+        }
+    }
 
-                if (BaseDecompiler.DUMP_IR_ON_LOAD) {
-                    System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
-                    System.out.println(mth.getIR());
-                }
+    private void decompile(UnfinishedMethod unfinished, ClassConstantPool pool, List<BootstrapMethod> bootstrap_methods, Retention retention) {
+        LibraryConfiguration.total_method_count.incrementAndGet();
+        MethodEntry mth = unfinished.mth;
+        try {
+            if (this.emitter != null && !this.emitter.emitsStatements()) {
+                decompileIR(unfinished, pool, bootstrap_methods, retention);
+                return;
+            }
+            HashCode key = null;
+            if (this.memo != null && unfinished.parameter_annotations == null) {
+                // parameter annotations are held by the locals so methods
+                // which have them are never shared
+                key = this.memo.getKey(mth, this.entry.getLanguage(), unfinished.code, unfinished.catch_regions, pool, bootstrap_methods);
+            }
+            StatementBlock block;
+            if (key != null && this.memo.load(key, mth)) {
+                block = mth.getInstructions();
+            } else {
+                createIR(unfinished, pool, bootstrap_methods);
                 MethodDecompiler mth_decomp = Decompilers.JAVA_METHOD;
                 if (this.entry.getLanguage() == Language.KOTLIN) {
                     mth_decomp = Decompilers.KOTLIN_METHOD;
                 }
-                StatementBlock block = mth_decomp.decompile(mth);
+                block = mth_decomp.decompile(mth, this.options);
                 mth.setInstructions(block);
+                if (key != null) {
+                    this.memo.store(key, mth);
+                }
+            }
 
-                if (this.entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
-                    EnumEntry e = (EnumEntry) this.entry;
-                    Set<String> names = new HashSet<>(e.getEnumConstants());
-                    e.getEnumConstants().clear();
-                    for (Statement stmt : block) {
-                        if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
-                            break;
-                        }
-                        StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
-                        if (!names.remove(assign.getFieldName())) {
-                            break;
-                        }
-                        New val = (New) assign.getValue();
-                        StringConstant cst = (StringConstant) val.getParameters()[0];
-                        e.addEnumConstant(cst.getConstant());
+            if (this.entry instanceof EnumEntry && mth.getName().equals("<clinit>")) {
+                EnumEntry e = (EnumEntry) this.entry;
+                Set<String> names = new HashSet<>(e.getEnumConstants());
+                e.getEnumConstants().clear();
+                for (Statement stmt : block) {
+                    if (names.isEmpty() || !(stmt instanceof StaticFieldAssignment)) {
+                        break;
                     }
-                    if (!names.isEmpty()) {
-                        System.err.println("Warning: Failed to find names for all enum constants in " + this.entry.getName());
+                    StaticFieldAssignment assign = (StaticFieldAssignment) stmt;
+                    if (!names.remove(assign.getFieldName())) {
+                        break;
                     }
+                    New val = (New) assign.getValue();
+                    StringConstant cst = (StringConstant) val.getParameters()[0];
+                    e.addEnumConstant(cst.getConstant());
                 }
-            } catch (Exception ex) {
-                if (!LibraryConfiguration.quiet) {
-                    System.err.println("Error decompiling method body for " + this.entry.getName() + " " + mth.toString());
-                    ex.printStackTrace();
+                if (!names.isEmpty()) {
+                    System.err.println("Warning: Failed to find names for all enum constants in " + this.entry.getName());
                 }
-                LibraryConfiguration.failed_method_count++;
-                StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
-                if (ConfigManager.getConfig().print_opcodes_on_error) {
-                    List<String> text = new ArrayList<>();
-                    text.add("Error decompiling block");
-                    if (mth.getIR() != null) {
-                        for (Insn next : mth.getIR()) {
-                            text.add(next.toString());
-                        }
-                    } else {
-                        mth.getLocals().bakeInstances(new MethodSignature(), Collections.emptyList());
+            }
+        } catch (Exception ex) {
+            if (!this.options.isQuiet()) {
+                System.err.println("Error decompiling method body for " + this.entry.getName() + " " + mth.toString());
+                ex.printStackTrace();
+            }
+            LibraryConfiguration.failed_method_count.incrementAndGet();
+            StatementBlock insns = new StatementBlock(StatementBlock.Type.METHOD);
+            if (this.options.printOpcodesOnError()) {
+                List<String> text = new ArrayList<>();
+                text.add("Error decompiling block");
+                if (mth.getIR() != null) {
+                    for (Insn next : mth.getIR()) {
+                        text.add(next.toString());
                     }
-                    insns.append(new Comment(text));
                 } else {
-                    insns.append(new Comment("Error decompiling block"));
+                    mth.getLocals().bakeInstances(new MethodSignature(), Collections.emptyList());
                 }
-                mth.setInstructions(insns);
+                insns.append(new Comment(text));
+            } else {
+                insns.append(new Comment("Error decompiling block"));
+            }
+            mth.setInstructions(insns);
+            mth.invalidateReferencedTypes();
+        }
+        if (retention != Retention.ALL) {
+            mth.release(retention);
+            unfinished.code = null;
+            unfinished.catch_regions = null;
+            unfinished.parameter_annotations = null;
+        }
+    }
+
+    private void createIR(UnfinishedMethod unfinished, ClassConstantPool pool, List<BootstrapMethod> bootstrap_methods) {
+        MethodEntry mth = unfinished.mth;
+        mth.setIR(this.bytecode.createIR(mth.getMethodSignature(), unfinished.code, mth.getLocals(), unfinished.catch_regions, pool,
+                bootstrap_methods));
+
+        if (unfinished.parameter_annotations != null) {
+            for (Map.Entry<Integer, List<Annotation>> e : unfinished.parameter_annotations.entrySet()) {
+                Local loc = mth.getLocals().getLocal(e.getKey());
+                loc.getInstance(0).getAnnotations().addAll(e.getValue());
+            }
+        }
+
+        if (BaseDecompiler.DUMP_IR_ON_LOAD) {
+            System.out.println("Instructions of " + mth.getName() + " " + mth.getDescription());
+            System.out.println(mth.getIR());
+        }
+    }
+
+    /**
+     * Only translates the given method to its intermediate representation,
+     * which is kept whatever the retention policy as it is all that will be
+     * emitted.
+     */
+    private void decompileIR(UnfinishedMethod unfinished, ClassConstantPool pool, List<BootstrapMethod> bootstrap_methods, Retention retention) {
+        try {
+            createIR(unfinished, pool, bootstrap_methods);
+        } catch (Exception ex) {
+            if (!this.options.isQuiet()) {
+                System.err.println("Error creating IR for " + this.entry.getName() + " " + unfinished.mth.toString());
+                ex.printStackTrace();
             }
+            LibraryConfiguration.failed_method_count.incrementAndGet();
+        }
+        if (retention != Retention.ALL) {
+            unfinished.mth.release(retention == Retention.MINIMAL ? Retention.IR : retention);
+            unfinished.code = null;
+            unfinished.catch_regions = null;
+            unfinished.parameter_annotations = null;
         }
     }
 
@@ -24,20 +24,30 @@
  */
 package org.spongepowered.despector.parallel;
 
+import org.spongepowered.despector.config.LibraryConfiguration;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Runs batches of tasks across a fixed set of worker threads. The workers are
+ * started with the first parallel batch and then kept waiting for the next
+ * batch so that repeated batches, such as the jobs of a long running daemon,
+ * reuse the same threads.
+ */
 public class Scheduler<T extends Runnable> {
 
     private static final int PARALLEL_THRESHOLD = 100;
 
-    private final Worker<T>[] workers;
+    private final Worker[] workers;
     private final List<T> tasks = new ArrayList<>();
 
     private ReentrantLock lock = new ReentrantLock();
+    private Condition work = this.lock.newCondition();
     private Condition finished = this.lock.newCondition();
+    private int generation;
     private int finished_count;
 
     @SuppressWarnings("unchecked")
@@ -45,7 +55,7 @@ public class Scheduler<T extends Runnable> {
         if (workers <= 0) {
             workers = 1;
         }
-        this.workers = new Worker[workers];
+        this.workers = new Scheduler.Worker[workers];
     }
 
     public void add(T task) {
@@ -63,29 +73,30 @@ public class Scheduler<T extends Runnable> {
             }
             return;
         }
-        for (int i = 0; i < this.workers.length; i++) {
-            this.workers[i] = new Worker<>();
+        if (this.workers[0] == null) {
+            for (int i = 0; i < this.workers.length; i++) {
+                this.workers[i] = new Worker(i);
+                this.workers[i].start();
+            }
         }
         int i = 0;
         for (T task : this.tasks) {
-            this.workers[i % this.workers.length].add(task);
+            this.workers[i % this.workers.length].tasks.add(task);
             i++;
         }
-        this.finished_count = 0;
-        for (Worker<T> worker : this.workers) {
-            worker.start();
-        }
         try {
             this.lock.lock();
-            this.finished.await();
+            this.finished_count = 0;
+            this.generation++;
+            this.work.signalAll();
+            while (this.finished_count < this.workers.length) {
+                this.finished.await();
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         } finally {
             this.lock.unlock();
         }
-        for (int j = 0; j < this.workers.length; j++) {
-            this.workers[j] = null;
-        }
     }
 
     public void reset() {
@@ -104,23 +115,42 @@ public class Scheduler<T extends Runnable> {
         }
     }
 
-    private class Worker<R> extends Thread {
-
-        private final List<T> tasks = new ArrayList<>();
+    private class Worker extends Thread {
 
-        Worker() {
-        }
+        final List<T> tasks = new ArrayList<>();
+        private int generation;
 
-        public void add(T task) {
-            this.tasks.add(task);
+        Worker(int index) {
+            super("Despector worker " + index);
+            setDaemon(true);
         }
 
         @Override
         public void run() {
-            for (T task : this.tasks) {
-                task.run();
+            while (true) {
+                try {
+                    Scheduler.this.lock.lock();
+                    while (this.generation == Scheduler.this.generation) {
+                        Scheduler.this.work.await();
+                    }
+                    this.generation = Scheduler.this.generation;
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    Scheduler.this.lock.unlock();
+                }
+                for (T task : this.tasks) {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        if (!LibraryConfiguration.quiet) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+                this.tasks.clear();
+                Scheduler.this.markWorkerDone();
             }
-            Scheduler.this.markWorkerDone();
         }
 
     }
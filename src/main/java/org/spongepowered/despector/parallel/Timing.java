@@ -24,11 +24,23 @@
  */
 package org.spongepowered.despector.parallel;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Timing {
 
-    public static long time_decompiling = 0;
-    public static long time_decompiling_methods = 0;
-    public static long time_loading_classes = 0;
-    public static long time_emitting = 0;
+    public static final AtomicLong time_decompiling = new AtomicLong();
+    public static final AtomicLong time_decompiling_methods = new AtomicLong();
+    public static final AtomicLong time_loading_classes = new AtomicLong();
+    public static final AtomicLong time_emitting = new AtomicLong();
+
+    /**
+     * Resets all timings.
+     */
+    public static void reset() {
+        time_decompiling.set(0);
+        time_decompiling_methods.set(0);
+        time_loading_classes.set(0);
+        time_emitting.set(0);
+    }
 
 }
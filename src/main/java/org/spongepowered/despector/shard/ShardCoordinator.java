@@ -0,0 +1,372 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.shard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Throwables;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.config.LibraryConfiguration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Decompiles a set of jars and directories by splitting their classes into
+ * shards and running each shard in a separate worker process.
+ *
+ * <p>Every worker is a new jvm running {@link Despector} with the same
+ * classpath as this process, restricted to the classes of its shard. Workers
+ * emit into their own directory and write a manifest of the emitted files.
+ * Once all shards are done the outputs are moved into the destination and the
+ * manifests are merged into {@link #MANIFEST}. A shard whose worker fails is
+ * split and rerun on its own without affecting the other shards, so a class
+ * which crashes the decompiler only loses the output of its own group.</p>
+ */
+public class ShardCoordinator {
+
+    public static final String MANIFEST = "despector-manifest.txt";
+
+    private final List<Path> sources = new ArrayList<>();
+    private final Path destination;
+    private final List<String> flags = new ArrayList<>();
+    private final List<String> jvm_args = new ArrayList<>();
+
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int shards = 0;
+    private int retries = 2;
+    private long timeout = 0;
+
+    private final List<String> failed_classes = new ArrayList<>();
+
+    /**
+     * Creates a new coordinator decompiling the given sources into the given
+     * destination directory.
+     */
+    public ShardCoordinator(List<Path> sources, Path destination) {
+        for (Path source : sources) {
+            this.sources.add(source.toAbsolutePath().normalize());
+        }
+        this.destination = destination.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Sets the number of worker processes to run at once.
+     */
+    public ShardCoordinator setWorkers(int workers) {
+        checkArgument(workers > 0, "Worker count must be positive but was %s", workers);
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * Sets the number of shards to split the classes into. Defaults to the
+     * number of workers if not set.
+     */
+    public ShardCoordinator setShards(int shards) {
+        checkArgument(shards > 0, "Shard count must be positive but was %s", shards);
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * Sets how many times a failed shard of a single top level class is
+     * retried before giving up.
+     */
+    public ShardCoordinator setRetries(int retries) {
+        checkArgument(retries >= 0, "Retry count must not be negative but was %s", retries);
+        this.retries = retries;
+        return this;
+    }
+
+    /**
+     * Sets the time in seconds after which a worker is killed and its shard
+     * counted as failed. Zero disables the timeout.
+     */
+    public ShardCoordinator setTimeout(long timeout) {
+        checkArgument(timeout >= 0, "Timeout must not be negative but was %s", timeout);
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Adds a flag which is passed on to every worker, such as
+     * {@code --config=} or {@code --lang=}.
+     */
+    public ShardCoordinator addFlag(String flag) {
+        this.flags.add(flag);
+        return this;
+    }
+
+    /**
+     * Adds an argument for the jvm of every worker, such as a heap size.
+     */
+    public ShardCoordinator addJvmArg(String arg) {
+        this.jvm_args.add(arg);
+        return this;
+    }
+
+    /**
+     * Gets the classes which could not be decompiled in the last run.
+     */
+    public List<String> getFailedClasses() {
+        return Collections.unmodifiableList(this.failed_classes);
+    }
+
+    /**
+     * Runs all shards and merges their outputs into the destination. Returns
+     * whether every class was decompiled, the outputs of successful shards
+     * are merged either way.
+     */
+    public boolean run() throws IOException {
+        this.failed_classes.clear();
+        Map<String, Long> classes = ShardPlanner.scan(this.sources);
+        if (classes.isEmpty()) {
+            System.err.println("No sources found.");
+            return false;
+        }
+        List<List<String>> plan = ShardPlanner.plan(classes, this.shards == 0 ? this.workers : this.shards);
+        Files.createDirectories(this.destination);
+        Path work = Files.createTempDirectory(this.destination, ".shards");
+        if (!LibraryConfiguration.quiet) {
+            System.out.println("Decompiling " + classes.size() + " classes in " + plan.size() + " shards with " + this.workers + " workers");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.workers, plan.size()));
+        List<Future<List<String>>> tasks = new ArrayList<>();
+        List<String> completed = new ArrayList<>();
+        try {
+            for (int i = 0; i < plan.size(); i++) {
+                String id = String.valueOf(i);
+                List<String> shard = plan.get(i);
+                tasks.add(executor.submit(() -> {
+                    List<String> done = new ArrayList<>();
+                    runShard(work, id, shard, done);
+                    return done;
+                }));
+            }
+            for (Future<List<String>> task : tasks) {
+                completed.addAll(task.get());
+            }
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shards", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<String> manifest = new ArrayList<>();
+        for (String id : completed) {
+            Path output = work.resolve("shard-" + id);
+            for (String file : Files.readAllLines(work.resolve("shard-" + id + ".manifest"), StandardCharsets.UTF_8)) {
+                Path target = this.destination.resolve(file);
+                Files.createDirectories(target.getParent());
+                Files.move(output.resolve(file), target, StandardCopyOption.REPLACE_EXISTING);
+                manifest.add(file);
+            }
+        }
+        Collections.sort(manifest);
+        Files.write(this.destination.resolve(MANIFEST), manifest, StandardCharsets.UTF_8);
+
+        if (this.failed_classes.isEmpty()) {
+            delete(work);
+            return true;
+        }
+        Collections.sort(this.failed_classes);
+        if (!LibraryConfiguration.quiet) {
+            System.err.println(this.failed_classes.size() + " classes failed to decompile, see the logs in " + work);
+        }
+        return false;
+    }
+
+    /**
+     * Runs the given shard in a worker. If the worker fails and the shard
+     * holds more than one top level class it is split in half and each half
+     * is run on its own, so that a single bad class only fails its own
+     * group. Only shards which cannot be split any further are retried.
+     */
+    private void runShard(Path work, String id, List<String> shard, List<String> completed) throws IOException, InterruptedException {
+        List<List<String>> groups = new ArrayList<>();
+        String last = null;
+        for (String name : shard) {
+            String outer = ShardPlanner.getOuterName(name);
+            if (!outer.equals(last)) {
+                groups.add(new ArrayList<>());
+                last = outer;
+            }
+            groups.get(groups.size() - 1).add(name);
+        }
+        int attempts = groups.size() > 1 ? 1 : this.retries + 1;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            if (runWorker(work, id, shard)) {
+                completed.add(id);
+                return;
+            }
+            if (!LibraryConfiguration.quiet) {
+                System.err.println("Shard " + id + " of " + shard.size() + " classes failed on attempt " + (attempt + 1));
+            }
+        }
+        if (groups.size() == 1) {
+            synchronized (this.failed_classes) {
+                this.failed_classes.addAll(shard);
+            }
+            return;
+        }
+        int half = groups.size() / 2;
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            (i < half ? first : second).addAll(groups.get(i));
+        }
+        runShard(work, id + "." + 0, first, completed);
+        runShard(work, id + "." + 1, second, completed);
+    }
+
+    private boolean runWorker(Path work, String id, List<String> shard) throws IOException, InterruptedException {
+        Path shard_file = work.resolve("shard-" + id + ".txt");
+        Path manifest = work.resolve("shard-" + id + ".manifest");
+        Path output = work.resolve("shard-" + id);
+        Path log = work.resolve("shard-" + id + ".log");
+        Files.write(shard_file, shard, StandardCharsets.UTF_8);
+        Files.deleteIfExists(manifest);
+        delete(output);
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(this.jvm_args);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Despector.class.getName());
+        command.addAll(this.flags);
+        command.add("--shard=" + shard_file);
+        command.add("--manifest=" + manifest);
+        for (Path source : this.sources) {
+            command.add(source.toString());
+        }
+        command.add(output.toString());
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
+        if (this.timeout > 0) {
+            if (!process.waitFor(this.timeout, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+                return false;
+            }
+        } else {
+            process.waitFor();
+        }
+        return process.exitValue() == 0 && Files.exists(manifest);
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Runs a sharded decompile. Accepts the same arguments as
+     * {@link Despector#main} as well as {@code --workers=}, {@code --shards=},
+     * {@code --retries=}, {@code --timeout=} and repeated {@code --jvm-arg=}
+     * arguments.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java -cp Despector.jar " + ShardCoordinator.class.getName() + " [sources...] [destination]");
+            return;
+        }
+        List<Path> sources = new ArrayList<>();
+        List<String> flags = new ArrayList<>();
+        List<String> jvm_args = new ArrayList<>();
+        int workers = 0;
+        int shards = 0;
+        int retries = -1;
+        long timeout = 0;
+        for (int i = 0; i < args.length - 1; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--workers=")) {
+                workers = Integer.parseInt(arg.substring(10));
+            } else if (arg.startsWith("--shards=")) {
+                shards = Integer.parseInt(arg.substring(9));
+            } else if (arg.startsWith("--retries=")) {
+                retries = Integer.parseInt(arg.substring(10));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = Long.parseLong(arg.substring(10));
+            } else if (arg.startsWith("--jvm-arg=")) {
+                jvm_args.add(arg.substring(10));
+            } else if (arg.startsWith("-")) {
+                flags.add(arg);
+            } else {
+                sources.add(Paths.get(arg));
+            }
+        }
+        ShardCoordinator coordinator = new ShardCoordinator(sources, Paths.get(args[args.length - 1]));
+        if (workers > 0) {
+            coordinator.setWorkers(workers);
+        }
+        if (shards > 0) {
+            coordinator.setShards(shards);
+        }
+        if (retries >= 0) {
+            coordinator.setRetries(retries);
+        }
+        coordinator.setTimeout(timeout);
+        for (String flag : flags) {
+            coordinator.addFlag(flag);
+        }
+        for (String arg : jvm_args) {
+            coordinator.addJvmArg(arg);
+        }
+        if (!coordinator.run()) {
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.shard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Splits the classes of a set of jars and directories into shards which can be
+ * decompiled independently.
+ *
+ * <p>Inner classes are always placed in the same shard as their outer class
+ * so that they can still be emitted inline. Class groups are assigned to
+ * shards largest first, always to the shard with the smallest total size so
+ * far.</p>
+ */
+public final class ShardPlanner {
+
+    /**
+     * Gets the name of the top level class which the given class belongs to.
+     */
+    public static String getOuterName(String name) {
+        int pkg = name.lastIndexOf('/');
+        int inner = name.indexOf('$', pkg + 1);
+        if (inner <= pkg + 1) {
+            return name;
+        }
+        return name.substring(0, inner);
+    }
+
+    /**
+     * Gets the sizes of all classes in the given jars and directories keyed
+     * by their internal names.
+     */
+    public static Map<String, Long> scan(List<Path> sources) throws IOException {
+        Map<String, Long> classes = new HashMap<>();
+        for (Path source : sources) {
+            if (Files.isDirectory(source)) {
+                scanDirectory(source, source.toFile(), classes);
+            } else if (source.toString().endsWith(".jar")) {
+                scanJar(source, classes);
+            }
+        }
+        return classes;
+    }
+
+    private static void scanDirectory(Path root, File file, Map<String, Long> classes) throws IOException {
+        if (file.isDirectory()) {
+            for (File f : file.listFiles()) {
+                scanDirectory(root, f, classes);
+            }
+        } else if (file.getName().endsWith(".class")) {
+            String name = root.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+            classes.put(name.substring(0, name.length() - 6), file.length());
+        } else if (file.getName().endsWith(".jar")) {
+            scanJar(file.toPath(), classes);
+        }
+    }
+
+    private static void scanJar(Path path, Map<String, Long> classes) throws IOException {
+        try (JarInputStream jar = new JarInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] buffer = new byte[8192];
+            ZipEntry entry;
+            while ((entry = jar.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(".class")) {
+                    continue;
+                }
+                long size = entry.getSize();
+                if (size < 0) {
+                    size = 0;
+                    int read;
+                    while ((read = jar.read(buffer)) != -1) {
+                        size += read;
+                    }
+                }
+                classes.put(name.substring(0, name.length() - 6), size);
+            }
+        }
+    }
+
+    /**
+     * Splits the given classes into at most the given number of shards. Empty
+     * shards are not returned.
+     */
+    public static List<List<String>> plan(Map<String, Long> classes, int count) {
+        checkArgument(count > 0, "Shard count must be positive but was %s", count);
+        Map<String, List<String>> groups = new HashMap<>();
+        Map<String, Long> group_sizes = new HashMap<>();
+        for (Map.Entry<String, Long> e : classes.entrySet()) {
+            String outer = getOuterName(e.getKey());
+            List<String> group = groups.get(outer);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(outer, group);
+            }
+            group.add(e.getKey());
+            group_sizes.merge(outer, e.getValue(), Long::sum);
+        }
+        List<String> order = new ArrayList<>(groups.keySet());
+        // sort by size first and then by name so that plans are stable
+        Collections.sort(order);
+        order.sort((a, b) -> Long.compare(group_sizes.get(b), group_sizes.get(a)));
+
+        List<List<String>> shards = new ArrayList<>();
+        long[] sizes = new long[count];
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(count, (a, b) -> {
+            int c = Long.compare(sizes[a], sizes[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+            lightest.add(i);
+        }
+        for (String outer : order) {
+            int next = lightest.poll();
+            shards.get(next).addAll(groups.get(outer));
+            sizes[next] += group_sizes.get(outer);
+            lightest.add(next);
+        }
+        List<List<String>> result = new ArrayList<>();
+        for (List<String> shard : shards) {
+            if (!shard.isEmpty()) {
+                Collections.sort(shard);
+                result.add(shard);
+            }
+        }
+        return result;
+    }
+
+    private ShardPlanner() {
+    }
+
+}
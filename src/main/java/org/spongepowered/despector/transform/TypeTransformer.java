@@ -28,6 +28,10 @@ import org.spongepowered.despector.ast.type.TypeEntry;
 
 /**
  * A transformer which can perform some operation against a type.
+ * 
+ * <p>Transformers which change the types referenced from within method bodies
+ * must invalidate the precomputed referenced types of the affected methods with
+ * {@link org.spongepowered.despector.ast.type.MethodEntry#invalidateReferencedTypes()}.</p>
  */
 public interface TypeTransformer {
 
@@ -0,0 +1,155 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.matcher;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.insn.Instruction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A set of instruction matchers which are prefiltered by the class of the
+ * instruction being matched. Only the matchers which could possibly match
+ * an instruction are tried, each in full and in the order they were added, so
+ * testing many patterns against an instruction costs roughly as much as testing
+ * the patterns for its class.
+ */
+public class CompiledInstructionMatcher<K> {
+
+    private final DispatchTable<Entry<K>> table;
+    private final int size;
+
+    CompiledInstructionMatcher(List<Entry<K>> entries) {
+        this.table = new DispatchTable<>(entries, (e) -> e.matcher.getInstructionType());
+        this.size = entries.size();
+    }
+
+    /**
+     * Gets the number of matchers in this set.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the key of the first matcher, in the order they were added, which
+     * matches the given instruction. The given context is reset before each
+     * matcher is tried and holds the locals stored by the successful matcher
+     * afterwards.
+     */
+    @Nullable
+    public K match(MatchContext ctx, @Nullable Instruction insn) {
+        Object[] candidates = this.table.get(insn == null ? null : insn.getClass());
+        for (int i = 0; i < candidates.length; i++) {
+            @SuppressWarnings("unchecked")
+            Entry<K> e = (Entry<K>) candidates[i];
+            ctx.reset();
+            if (e.matcher.matches(ctx, insn)) {
+                return e.key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the key of the first matcher which matches the given instruction.
+     */
+    @Nullable
+    public K match(@Nullable Instruction insn) {
+        return match(MatchContext.create(), insn);
+    }
+
+    /**
+     * Passes the key of every matcher which matches the given instruction to
+     * the given consumer along with the context holding the locals stored by
+     * that matcher.
+     */
+    public void matchAll(MatchContext ctx, @Nullable Instruction insn, BiConsumer<K, MatchContext> consumer) {
+        Object[] candidates = this.table.get(insn == null ? null : insn.getClass());
+        for (int i = 0; i < candidates.length; i++) {
+            @SuppressWarnings("unchecked")
+            Entry<K> e = (Entry<K>) candidates[i];
+            ctx.reset();
+            if (e.matcher.matches(ctx, insn)) {
+                consumer.accept(e.key, ctx);
+            }
+        }
+    }
+
+    private static class Entry<K> {
+
+        final K key;
+        final InstructionMatcher<?> matcher;
+
+        Entry(K key, InstructionMatcher<?> matcher) {
+            this.key = key;
+            this.matcher = matcher;
+        }
+
+    }
+
+    /**
+     * A builder for compiled instruction matchers.
+     */
+    public static class Builder<K> {
+
+        private final List<Entry<K>> entries = new ArrayList<>();
+
+        public Builder() {
+        }
+
+        /**
+         * Adds the given matcher with the given key. Matchers are tried in the
+         * order they are added.
+         */
+        public Builder<K> add(K key, InstructionMatcher<?> matcher) {
+            this.entries.add(new Entry<>(checkNotNull(key, "key"), checkNotNull(matcher, "matcher")));
+            return this;
+        }
+
+        /**
+         * Resets this builder.
+         */
+        public Builder<K> reset() {
+            this.entries.clear();
+            return this;
+        }
+
+        /**
+         * Creates a new compiled matcher from the matchers added to this
+         * builder.
+         */
+        public CompiledInstructionMatcher<K> build() {
+            return new CompiledInstructionMatcher<>(this.entries);
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A dispatch table from a concrete node class to the ordered list of
+ * candidates which may match a node of that class.
+ */
+class DispatchTable<E> {
+
+    private final List<E> entries;
+    private final Function<E, Class<?>> type_getter;
+    private final Map<Class<?>, Object[]> branches = new ConcurrentHashMap<>();
+    private final Object[] untyped;
+
+    DispatchTable(List<E> entries, Function<E, Class<?>> type_getter) {
+        this.entries = new ArrayList<>(entries);
+        this.type_getter = type_getter;
+        List<E> untyped = new ArrayList<>();
+        for (E e : this.entries) {
+            if (type_getter.apply(e) == null) {
+                untyped.add(e);
+            }
+        }
+        this.untyped = untyped.toArray();
+    }
+
+    /**
+     * Gets the candidates for the given node type, in the order they were
+     * added. A null type returns only the candidates which do not require a
+     * type.
+     */
+    Object[] get(@Nullable Class<?> type) {
+        if (type == null) {
+            return this.untyped;
+        }
+        Object[] branch = this.branches.get(type);
+        if (branch == null) {
+            branch = build(type);
+            this.branches.put(type, branch);
+        }
+        return branch;
+    }
+
+    private Object[] build(Class<?> type) {
+        List<E> branch = new ArrayList<>();
+        for (E e : this.entries) {
+            Class<?> required = this.type_getter.apply(e);
+            if (required == null || required.isAssignableFrom(type)) {
+                branch.add(e);
+            }
+        }
+        return branch.toArray();
+    }
+
+}
@@ -67,6 +67,16 @@ public interface InstructionMatcher<T extends Instruction> {
         return match(ctx, insn) != null;
     }
 
+    /**
+     * Gets the instruction type that this matcher requires, or null if this
+     * matcher may match instructions of any type. Used by
+     * {@link CompiledInstructionMatcher} to dispatch on the instruction class.
+     */
+    @Nullable
+    default Class<? extends Instruction> getInstructionType() {
+        return null;
+    }
+
     /**
      * A matcher which matches any instruction.
      */
@@ -108,6 +118,10 @@ public interface InstructionMatcher<T extends Instruction> {
         return new NullConstantMatcher.Builder();
     }
 
+    public static <K> CompiledInstructionMatcher.Builder<K> compile() {
+        return new CompiledInstructionMatcher.Builder<>();
+    }
+
     /**
      * An instruction matcher that matches any instruction.
      */
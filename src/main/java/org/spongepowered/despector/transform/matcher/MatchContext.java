@@ -29,8 +29,7 @@ import org.spongepowered.despector.ast.stmt.Statement;
 import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
 import org.spongepowered.despector.ast.stmt.branch.ForEach;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * A match context used to share context between matchers.
@@ -45,7 +44,9 @@ public class MatchContext {
         return new MatchContext();
     }
 
-    private Map<String, LocalInstance> locals;
+    private String[] names;
+    private LocalInstance[] locals;
+    private int size;
 
     MatchContext() {
 
@@ -55,20 +56,57 @@ public class MatchContext {
      * Stores the given local as the given identifier.
      */
     public void setLocal(String ident, LocalInstance local) {
-        if (this.locals == null) {
-            this.locals = new HashMap<>();
+        int slot = slot(ident);
+        if (slot == -1) {
+            if (this.names == null) {
+                this.names = new String[4];
+                this.locals = new LocalInstance[4];
+            } else if (this.size == this.names.length) {
+                this.names = Arrays.copyOf(this.names, this.size * 2);
+                this.locals = Arrays.copyOf(this.locals, this.size * 2);
+            }
+            slot = this.size++;
+            this.names[slot] = ident;
         }
-        this.locals.put(ident, local);
+        this.locals[slot] = local;
     }
 
     /**
      * Gets the local defined by the given identifier.
      */
     public LocalInstance getLocal(String ident) {
-        if (this.locals == null) {
+        int slot = slot(ident);
+        if (slot == -1) {
             return null;
         }
-        return this.locals.get(ident);
+        return this.locals[slot];
+    }
+
+    /**
+     * Clears all stored locals. The identifiers are kept so that a context
+     * reused across many matches does not need to reallocate.
+     */
+    public void reset() {
+        if (this.locals != null) {
+            Arrays.fill(this.locals, 0, this.size, null);
+        }
+    }
+
+    private int slot(String ident) {
+        // a context only ever holds a handful of identifiers so a linear scan
+        // is cheaper than hashing
+        for (int i = 0; i < this.size; i++) {
+            // identifiers are almost always the same string constants
+            if (this.names[i] == ident) {
+                return i;
+            }
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (this.names[i].equals(ident)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -92,6 +130,11 @@ public class MatchContext {
             return this.internal;
         }
 
+        @Override
+        public Class<? extends Statement> getStatementType() {
+            return this.internal.getStatementType();
+        }
+
         @Override
         public T match(MatchContext ctx, Statement stmt) {
             T inner = this.internal.match(ctx, stmt);
@@ -66,6 +66,16 @@ public interface StatementMatcher<T extends Statement> {
         return match(ctx, stmt) != null;
     }
 
+    /**
+     * Gets the statement type that this matcher requires, or null if this
+     * matcher may match statements of any type. Used by
+     * {@link CompiledStatementMatcher} to dispatch on the statement class.
+     */
+    @Nullable
+    default Class<? extends Statement> getStatementType() {
+        return null;
+    }
+
     /**
      * A matcher which matches any statement.
      */
@@ -116,6 +126,10 @@ public interface StatementMatcher<T extends Statement> {
         return new ReturnValueMatcher.Builder();
     }
 
+    static <K> CompiledStatementMatcher.Builder<K> compile() {
+        return new CompiledStatementMatcher.Builder<>();
+    }
+
     /**
      * A statement matcher that matches any statement.
      */
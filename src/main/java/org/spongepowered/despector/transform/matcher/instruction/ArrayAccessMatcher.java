@@ -42,6 +42,11 @@ public class ArrayAccessMatcher implements InstructionMatcher<ArrayAccess> {
         this.index = index == null ? InstructionMatcher.ANY : index;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return ArrayAccess.class;
+    }
+
     @Override
     public ArrayAccess match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof ArrayAccess)) {
@@ -44,6 +44,11 @@ public class InstanceFieldAccessMatcher implements InstructionMatcher<InstanceFi
         this.desc = desc;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return InstanceFieldAccess.class;
+    }
+
     @Override
     public InstanceFieldAccess match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof InstanceFieldAccess)) {
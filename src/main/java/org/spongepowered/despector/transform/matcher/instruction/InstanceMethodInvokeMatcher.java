@@ -54,6 +54,11 @@ public class InstanceMethodInvokeMatcher implements InstructionMatcher<InstanceM
         this.parameters = parameters;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return InstanceMethodInvoke.class;
+    }
+
     @Override
     public InstanceMethodInvoke match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof InstanceMethodInvoke)) {
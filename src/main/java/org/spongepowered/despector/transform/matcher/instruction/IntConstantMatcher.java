@@ -40,6 +40,11 @@ public class IntConstantMatcher implements InstructionMatcher<IntConstant> {
         this.value = value;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return IntConstant.class;
+    }
+
     @Override
     public IntConstant match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof IntConstant)) {
@@ -48,6 +48,11 @@ public class LocalAccessMatcher implements InstructionMatcher<LocalAccess> {
         this.allow_missing = allow_missing;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return LocalAccess.class;
+    }
+
     @Override
     public LocalAccess match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof LocalAccess)) {
@@ -37,6 +37,11 @@ public class NullConstantMatcher implements InstructionMatcher<NullConstant> {
     NullConstantMatcher() {
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return NullConstant.class;
+    }
+
     @Override
     public NullConstant match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof NullConstant)) {
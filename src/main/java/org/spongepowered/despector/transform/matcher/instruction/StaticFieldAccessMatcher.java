@@ -45,6 +45,11 @@ public class StaticFieldAccessMatcher implements InstructionMatcher<StaticFieldA
         this.desc = desc;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return StaticFieldAccess.class;
+    }
+
     @Override
     public StaticFieldAccess match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof StaticFieldAccess)) {
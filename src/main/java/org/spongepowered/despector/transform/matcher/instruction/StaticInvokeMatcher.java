@@ -49,6 +49,11 @@ public class StaticInvokeMatcher implements InstructionMatcher<StaticMethodInvok
         this.parameters = parameters;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return StaticMethodInvoke.class;
+    }
+
     @Override
     public StaticMethodInvoke match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof StaticMethodInvoke)) {
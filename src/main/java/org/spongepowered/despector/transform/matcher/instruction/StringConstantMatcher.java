@@ -40,6 +40,11 @@ public class StringConstantMatcher implements InstructionMatcher<StringConstant>
         this.value = value;
     }
 
+    @Override
+    public Class<? extends Instruction> getInstructionType() {
+        return StringConstant.class;
+    }
+
     @Override
     public StringConstant match(MatchContext ctx, Instruction insn) {
         if (!(insn instanceof StringConstant)) {
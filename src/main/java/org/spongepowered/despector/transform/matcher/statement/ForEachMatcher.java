@@ -49,6 +49,11 @@ public class ForEachMatcher implements StatementMatcher<ForEach> {
         this.body = body;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return ForEach.class;
+    }
+
     @Override
     public ForEach match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof ForEach)) {
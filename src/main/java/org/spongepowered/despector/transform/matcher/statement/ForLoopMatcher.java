@@ -50,6 +50,11 @@ public class ForLoopMatcher implements StatementMatcher<For> {
         this.body = body;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return For.class;
+    }
+
     @Override
     public For match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof For)) {
@@ -50,6 +50,11 @@ public class IfMatcher implements StatementMatcher<If> {
         return this.condition;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return If.class;
+    }
+
     @Override
     public If match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof If)) {
@@ -40,6 +40,11 @@ public class IncrementMatcher implements StatementMatcher<Increment> {
         this.value = value;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return Increment.class;
+    }
+
     @Override
     public Increment match(MatchContext ctx, Statement insn) {
         if (!(insn instanceof Increment)) {
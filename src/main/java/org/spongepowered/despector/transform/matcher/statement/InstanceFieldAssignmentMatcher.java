@@ -55,6 +55,11 @@ public class InstanceFieldAssignmentMatcher implements StatementMatcher<Instance
         this.owner_val = owner_val;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return InstanceFieldAssignment.class;
+    }
+
     @Override
     public InstanceFieldAssignment match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof InstanceFieldAssignment)) {
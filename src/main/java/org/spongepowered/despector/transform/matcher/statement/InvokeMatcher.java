@@ -41,6 +41,11 @@ public class InvokeMatcher implements StatementMatcher<InvokeStatement> {
         this.value = value;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return InvokeStatement.class;
+    }
+
     @Override
     public InvokeStatement match(MatchContext ctx, Statement insn) {
         if (!(insn instanceof InvokeStatement)) {
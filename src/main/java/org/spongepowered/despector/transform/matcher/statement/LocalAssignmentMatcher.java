@@ -52,6 +52,11 @@ public class LocalAssignmentMatcher implements StatementMatcher<LocalAssignment>
         return this.value;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return LocalAssignment.class;
+    }
+
     @Override
     public LocalAssignment match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof LocalAssignment)) {
@@ -41,6 +41,11 @@ public class ReturnValueMatcher implements StatementMatcher<Return> {
         this.value = value;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return Return.class;
+    }
+
     @Override
     public Return match(MatchContext ctx, Statement insn) {
         if (!(insn instanceof Return)) {
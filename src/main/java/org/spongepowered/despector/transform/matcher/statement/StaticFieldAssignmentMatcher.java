@@ -52,6 +52,11 @@ public class StaticFieldAssignmentMatcher implements StatementMatcher<StaticFiel
         this.unwrap = unwrap;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return StaticFieldAssignment.class;
+    }
+
     @Override
     public StaticFieldAssignment match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof StaticFieldAssignment)) {
@@ -46,6 +46,11 @@ public class WhileLoopMatcher implements StatementMatcher<While> {
         this.body = body;
     }
 
+    @Override
+    public Class<? extends Statement> getStatementType() {
+        return While.class;
+    }
+
     @Override
     public While match(MatchContext ctx, Statement stmt) {
         if (!(stmt instanceof While)) {
@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.search;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.insn.Instruction;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.transform.matcher.InstructionMatcher;
+import org.spongepowered.despector.transform.matcher.MatchContext;
+import org.spongepowered.despector.transform.matcher.StatementMatcher;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * Searches every method of every type in a source set for statements or
+ * instructions matching a given matcher.
+ * 
+ * <p>Types are searched in parallel and matches are passed to the consumer
+ * as soon as they are found, from whichever thread found them. Consumers
+ * must therefore be thread safe. A type which fails to be searched is logged
+ * and skipped.</p>
+ * 
+ * <p>The search threads are started with the first parallel search and kept
+ * for every search after it, until the pattern search is closed.</p>
+ */
+public class PatternSearch implements AutoCloseable {
+
+    private final SourceSet source;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    @Nullable private ExecutorService executor;
+
+    public PatternSearch(SourceSet source) {
+        this.source = checkNotNull(source, "source");
+    }
+
+    /**
+     * Gets the source set being searched.
+     */
+    public SourceSet getSource() {
+        return this.source;
+    }
+
+    /**
+     * Gets the number of threads used to search.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Sets the number of threads used to search. A value of one searches on
+     * the calling thread. This must not be called while a search is running.
+     */
+    public synchronized void setThreads(int threads) {
+        threads = Math.max(1, threads);
+        if (threads != this.threads) {
+            this.threads = threads;
+            close();
+        }
+    }
+
+    /**
+     * Stops the search threads. A later parallel search starts new ones.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(this.threads, (r) -> {
+                Thread thread = new Thread(r, "Despector pattern search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.executor;
+    }
+
+    /**
+     * Passes every statement matching the given matcher to the given consumer
+     * and returns the number of matches once the search has completed.
+     */
+    public <T extends Statement> int searchStatements(StatementMatcher<T> matcher, Consumer<SearchMatch<T>> consumer) {
+        checkNotNull(matcher, "matcher");
+        checkNotNull(consumer, "consumer");
+        return run((type) -> new TypeSearch(type) {
+
+            @Override
+            protected void visitStatement(Statement stmt) {
+                T match = matcher.match(MatchContext.create(), stmt);
+                if (match != null) {
+                    report(consumer, stmt, match);
+                }
+            }
+
+            @Override
+            protected void visitInstruction(Instruction insn) {
+            }
+
+        });
+    }
+
+    /**
+     * Passes every instruction matching the given matcher to the given
+     * consumer and returns the number of matches once the search has
+     * completed.
+     */
+    public <T extends Instruction> int searchInstructions(InstructionMatcher<T> matcher, Consumer<SearchMatch<T>> consumer) {
+        checkNotNull(matcher, "matcher");
+        checkNotNull(consumer, "consumer");
+        return run((type) -> new TypeSearch(type) {
+
+            @Override
+            protected void visitInstruction(Instruction insn) {
+                T match = matcher.match(MatchContext.create(), insn);
+                if (match != null) {
+                    report(consumer, this.current, match);
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Gets all statements matching the given matcher.
+     */
+    public <T extends Statement> List<SearchMatch<T>> findStatements(StatementMatcher<T> matcher) {
+        List<SearchMatch<T>> matches = Collections.synchronizedList(new ArrayList<>());
+        searchStatements(matcher, matches::add);
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Gets all instructions matching the given matcher.
+     */
+    public <T extends Instruction> List<SearchMatch<T>> findInstructions(InstructionMatcher<T> matcher) {
+        List<SearchMatch<T>> matches = Collections.synchronizedList(new ArrayList<>());
+        searchInstructions(matcher, matches::add);
+        return new ArrayList<>(matches);
+    }
+
+    private int run(Function<TypeEntry, TypeSearch> factory) {
+        List<TypeEntry> types = new ArrayList<>(this.source.getAllClasses());
+        AtomicInteger count = new AtomicInteger();
+        if (this.threads == 1 || types.size() < 2) {
+            for (TypeEntry type : types) {
+                try {
+                    count.addAndGet(searchType(factory, type));
+                } catch (Exception e) {
+                    failed(type, e);
+                }
+            }
+            return count.get();
+        }
+        ExecutorService executor = getExecutor();
+        List<Future<?>> tasks = new ArrayList<>(types.size());
+        try {
+            for (TypeEntry type : types) {
+                tasks.add(executor.submit(() -> count.addAndGet(searchType(factory, type))));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    tasks.get(i).get();
+                } catch (ExecutionException e) {
+                    failed(types.get(i), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+        }
+        return count.get();
+    }
+
+    /**
+     * Reports a type which could not be searched. The rest of the source set
+     * is still searched.
+     */
+    private static void failed(TypeEntry type, Throwable e) {
+        if (!LibraryConfiguration.quiet) {
+            System.err.println("Error searching " + type.getName());
+            e.printStackTrace();
+        }
+    }
+
+    private static int searchType(Function<TypeEntry, TypeSearch> factory, TypeEntry type) {
+        TypeSearch search = factory.apply(type);
+        for (MethodEntry method : type.getStaticMethods()) {
+            search.searchMethod(method);
+        }
+        for (MethodEntry method : type.getMethods()) {
+            search.searchMethod(method);
+        }
+        return search.count;
+    }
+
+    /**
+     * A visitor searching the methods of a single type.
+     */
+    private abstract static class TypeSearch extends SearchVisitor {
+
+        protected final TypeEntry type;
+        protected MethodEntry method;
+        protected Statement current;
+        protected int count;
+
+        TypeSearch(TypeEntry type) {
+            this.type = type;
+        }
+
+        void searchMethod(MethodEntry mth) {
+            StatementBlock block = mth.getInstructions();
+            if (block == null) {
+                return;
+            }
+            this.method = mth;
+            new FusedTraversal().addVisitor(this).traverse(block);
+        }
+
+        @Override
+        protected void visitStatement(Statement stmt) {
+            this.current = stmt;
+        }
+
+        @Override
+        protected void resumeStatement(Statement stmt) {
+            this.current = stmt;
+        }
+
+        protected <T> void report(Consumer<SearchMatch<T>> consumer, Statement stmt, T match) {
+            this.count++;
+            consumer.accept(new SearchMatch<>(this.type, this.method, stmt, match));
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.search;
+
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+
+/**
+ * A single match found by a {@link PatternSearch} along with its location.
+ */
+public class SearchMatch<T> {
+
+    private final TypeEntry type;
+    private final MethodEntry method;
+    private final Statement statement;
+    private final T match;
+
+    public SearchMatch(TypeEntry type, MethodEntry method, Statement statement, T match) {
+        this.type = type;
+        this.method = method;
+        this.statement = statement;
+        this.match = match;
+    }
+
+    /**
+     * Gets the type containing the match.
+     */
+    public TypeEntry getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the method containing the match.
+     */
+    public MethodEntry getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Gets the statement containing the match. For a statement match this is
+     * the matched statement itself.
+     */
+    public Statement getStatement() {
+        return this.statement;
+    }
+
+    /**
+     * Gets the matched statement or instruction.
+     */
+    public T getMatch() {
+        return this.match;
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getName() + "." + this.method.getName() + this.method.getDescription() + ": " + this.match;
+    }
+
+}
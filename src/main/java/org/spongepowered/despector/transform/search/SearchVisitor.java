@@ -0,0 +1,374 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.search;
+
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.insn.Instruction;
+import org.spongepowered.despector.ast.insn.InstructionVisitor;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.CompareCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.ConditionVisitor;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.ast.insn.cst.DoubleConstant;
+import org.spongepowered.despector.ast.insn.cst.FloatConstant;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.insn.cst.LongConstant;
+import org.spongepowered.despector.ast.insn.cst.NullConstant;
+import org.spongepowered.despector.ast.insn.cst.StringConstant;
+import org.spongepowered.despector.ast.insn.cst.TypeConstant;
+import org.spongepowered.despector.ast.insn.misc.Cast;
+import org.spongepowered.despector.ast.insn.misc.InstanceOf;
+import org.spongepowered.despector.ast.insn.misc.MultiNewArray;
+import org.spongepowered.despector.ast.insn.misc.NewArray;
+import org.spongepowered.despector.ast.insn.misc.NumberCompare;
+import org.spongepowered.despector.ast.insn.misc.Ternary;
+import org.spongepowered.despector.ast.insn.op.NegativeOperator;
+import org.spongepowered.despector.ast.insn.op.Operator;
+import org.spongepowered.despector.ast.insn.var.ArrayAccess;
+import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
+import org.spongepowered.despector.ast.insn.var.LocalAccess;
+import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.stmt.StatementVisitor;
+import org.spongepowered.despector.ast.stmt.assign.ArrayAssignment;
+import org.spongepowered.despector.ast.stmt.assign.InstanceFieldAssignment;
+import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
+import org.spongepowered.despector.ast.stmt.assign.StaticFieldAssignment;
+import org.spongepowered.despector.ast.stmt.branch.Break;
+import org.spongepowered.despector.ast.stmt.branch.DoWhile;
+import org.spongepowered.despector.ast.stmt.branch.For;
+import org.spongepowered.despector.ast.stmt.branch.ForEach;
+import org.spongepowered.despector.ast.stmt.branch.If;
+import org.spongepowered.despector.ast.stmt.branch.If.Elif;
+import org.spongepowered.despector.ast.stmt.branch.If.Else;
+import org.spongepowered.despector.ast.stmt.branch.Switch;
+import org.spongepowered.despector.ast.stmt.branch.TryCatch;
+import org.spongepowered.despector.ast.stmt.branch.TryCatch.CatchBlock;
+import org.spongepowered.despector.ast.stmt.branch.While;
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
+import org.spongepowered.despector.ast.stmt.invoke.InvokeStatement;
+import org.spongepowered.despector.ast.stmt.invoke.Lambda;
+import org.spongepowered.despector.ast.stmt.invoke.MethodReference;
+import org.spongepowered.despector.ast.stmt.invoke.New;
+import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
+import org.spongepowered.despector.ast.stmt.misc.Comment;
+import org.spongepowered.despector.ast.stmt.misc.Increment;
+import org.spongepowered.despector.ast.stmt.misc.Return;
+import org.spongepowered.despector.ast.stmt.misc.Throw;
+
+import javax.annotation.Nullable;
+
+/**
+ * A visitor which reports every statement and every instruction within a
+ * traversed statement tree. Instructions are always reported after the
+ * statement which directly contains them, or after that statement is resumed
+ * once a statement nested within it has been visited.
+ */
+abstract class SearchVisitor implements StatementVisitor, InstructionVisitor, ConditionVisitor {
+
+    @Nullable private For loop;
+
+    /**
+     * Called for each statement.
+     */
+    protected abstract void visitStatement(Statement stmt);
+
+    /**
+     * Called for each instruction.
+     */
+    protected abstract void visitInstruction(Instruction insn);
+
+    /**
+     * Called when the instructions which follow are directly contained by the
+     * given statement again, after those of a statement nested within it.
+     * The condition of an else-if block is contained by its if statement.
+     */
+    protected void resumeStatement(Statement stmt) {
+    }
+
+    private void visitCondition(Condition cond) {
+        // the init statement of a for loop is visited before its condition
+        if (this.loop != null && this.loop.getCondition() == cond) {
+            resumeStatement(this.loop);
+            this.loop = null;
+        }
+    }
+
+    @Override
+    public void visitArrayAssignment(ArrayAssignment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitBreak(Break stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitCatchBlock(CatchBlock stmt) {
+    }
+
+    @Override
+    public void visitComment(Comment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitDoWhile(DoWhile stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitElif(Elif stmt) {
+        resumeStatement(stmt.getIf());
+    }
+
+    @Override
+    public void visitElse(Else stmt) {
+    }
+
+    @Override
+    public void visitFor(For stmt) {
+        visitStatement(stmt);
+        this.loop = stmt;
+    }
+
+    @Override
+    public void visitForEach(ForEach stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitIf(If stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitIncrement(Increment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitInstanceFieldAssignment(InstanceFieldAssignment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitInvoke(InvokeStatement stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitLocalAssignment(LocalAssignment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitReturn(Return stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitStaticFieldAssignment(StaticFieldAssignment stmt) {
+        visitStatement(stmt);
+    }
+
+    @Override
+    public void visitSwitch(Switch tableSwitch) {
+        visitStatement(tableSwitch);
+    }
+
+    @Override
+    public void visitSwitchCase(Switch.Case case1) {
+    }
+
+    @Override
+    public void visitThrow(Throw throwException) {
+        visitStatement(throwException);
+    }
+
+    @Override
+    public void visitTryCatch(TryCatch tryBlock) {
+        visitStatement(tryBlock);
+    }
+
+    @Override
+    public void visitWhile(While whileLoop) {
+        visitStatement(whileLoop);
+    }
+
+    @Override
+    public void visitArrayAccess(ArrayAccess insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitCast(Cast insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitDoubleConstant(DoubleConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitDynamicInvoke(Lambda insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitFloatConstant(FloatConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitInstanceFieldAccess(InstanceFieldAccess insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitInstanceMethodInvoke(InstanceMethodInvoke insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitInstanceOf(InstanceOf insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitIntConstant(IntConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitLocalAccess(LocalAccess insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitLocalInstance(LocalInstance local) {
+    }
+
+    @Override
+    public void visitLongConstant(LongConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitMultiNewArray(MultiNewArray insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitNegativeOperator(NegativeOperator insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitNew(New insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitNewArray(NewArray insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitNullConstant(NullConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitNumberCompare(NumberCompare insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitOperator(Operator insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitStaticFieldAccess(StaticFieldAccess insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitStaticMethodInvoke(StaticMethodInvoke insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitStringConstant(StringConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitTernary(Ternary insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitTypeConstant(TypeConstant insn) {
+        visitInstruction(insn);
+    }
+
+    @Override
+    public void visitMethodReference(MethodReference methodReference) {
+        visitInstruction(methodReference);
+    }
+
+    @Override
+    public void visitAndCondition(AndCondition andCondition) {
+        visitCondition(andCondition);
+    }
+
+    @Override
+    public void visitBooleanCondition(BooleanCondition booleanCondition) {
+        visitCondition(booleanCondition);
+    }
+
+    @Override
+    public void visitCompareCondition(CompareCondition compareCondition) {
+        visitCondition(compareCondition);
+    }
+
+    @Override
+    public void visitInverseCondition(InverseCondition inverseCondition) {
+        visitCondition(inverseCondition);
+    }
+
+    @Override
+    public void visitOrCondition(OrCondition orCondition) {
+        visitCondition(orCondition);
+    }
+
+}
@@ -0,0 +1,741 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.transform.traverse;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.AstVisitor;
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.insn.Instruction;
+import org.spongepowered.despector.ast.insn.InstructionVisitor;
+import org.spongepowered.despector.ast.insn.condition.AndCondition;
+import org.spongepowered.despector.ast.insn.condition.BooleanCondition;
+import org.spongepowered.despector.ast.insn.condition.CompareCondition;
+import org.spongepowered.despector.ast.insn.condition.Condition;
+import org.spongepowered.despector.ast.insn.condition.ConditionVisitor;
+import org.spongepowered.despector.ast.insn.condition.InverseCondition;
+import org.spongepowered.despector.ast.insn.condition.OrCondition;
+import org.spongepowered.despector.ast.insn.cst.DoubleConstant;
+import org.spongepowered.despector.ast.insn.cst.FloatConstant;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.insn.cst.LongConstant;
+import org.spongepowered.despector.ast.insn.cst.NullConstant;
+import org.spongepowered.despector.ast.insn.cst.StringConstant;
+import org.spongepowered.despector.ast.insn.cst.TypeConstant;
+import org.spongepowered.despector.ast.insn.misc.Cast;
+import org.spongepowered.despector.ast.insn.misc.InstanceOf;
+import org.spongepowered.despector.ast.insn.misc.MultiNewArray;
+import org.spongepowered.despector.ast.insn.misc.NewArray;
+import org.spongepowered.despector.ast.insn.misc.NumberCompare;
+import org.spongepowered.despector.ast.insn.misc.Ternary;
+import org.spongepowered.despector.ast.insn.op.NegativeOperator;
+import org.spongepowered.despector.ast.insn.op.Operator;
+import org.spongepowered.despector.ast.insn.var.ArrayAccess;
+import org.spongepowered.despector.ast.insn.var.InstanceFieldAccess;
+import org.spongepowered.despector.ast.insn.var.LocalAccess;
+import org.spongepowered.despector.ast.insn.var.StaticFieldAccess;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.StatementVisitor;
+import org.spongepowered.despector.ast.stmt.assign.ArrayAssignment;
+import org.spongepowered.despector.ast.stmt.assign.InstanceFieldAssignment;
+import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
+import org.spongepowered.despector.ast.stmt.assign.StaticFieldAssignment;
+import org.spongepowered.despector.ast.stmt.branch.Break;
+import org.spongepowered.despector.ast.stmt.branch.DoWhile;
+import org.spongepowered.despector.ast.stmt.branch.For;
+import org.spongepowered.despector.ast.stmt.branch.ForEach;
+import org.spongepowered.despector.ast.stmt.branch.If;
+import org.spongepowered.despector.ast.stmt.branch.If.Elif;
+import org.spongepowered.despector.ast.stmt.branch.If.Else;
+import org.spongepowered.despector.ast.stmt.branch.Switch;
+import org.spongepowered.despector.ast.stmt.branch.Switch.Case;
+import org.spongepowered.despector.ast.stmt.branch.TryCatch;
+import org.spongepowered.despector.ast.stmt.branch.TryCatch.CatchBlock;
+import org.spongepowered.despector.ast.stmt.branch.While;
+import org.spongepowered.despector.ast.stmt.invoke.InstanceMethodInvoke;
+import org.spongepowered.despector.ast.stmt.invoke.InvokeStatement;
+import org.spongepowered.despector.ast.stmt.invoke.Lambda;
+import org.spongepowered.despector.ast.stmt.invoke.MethodReference;
+import org.spongepowered.despector.ast.stmt.invoke.New;
+import org.spongepowered.despector.ast.stmt.invoke.StaticMethodInvoke;
+import org.spongepowered.despector.ast.stmt.misc.Comment;
+import org.spongepowered.despector.ast.stmt.misc.Increment;
+import org.spongepowered.despector.ast.stmt.misc.Return;
+import org.spongepowered.despector.ast.stmt.misc.Throw;
+import org.spongepowered.despector.config.LibraryConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A traversal which runs any number of visitors and {@link StatementRewriter}s
+ * over a statement tree in a single depth first pass.
+ * 
+ * <p>When a statement block is reached all rewriters are first applied to it
+ * in the order that they were added, the statements of the block are then
+ * visited and descended into. Visitors therefore always observe the tree as it
+ * is after rewriting.</p>
+ * 
+ * <p>Each visitor receives the same callbacks in the same order as if it had
+ * been passed to {@link StatementBlock#accept} on its own.</p>
+ */
+public class FusedTraversal {
+
+    private static final Map<Class<?>, StatementWalker<?>> walkers = new HashMap<>();
+
+    static {
+        register(ArrayAssignment.class, (t, stmt) -> {
+            t.stmt_dispatch.visitArrayAssignment(stmt);
+            t.visitInstruction(stmt.getArray());
+            t.visitInstruction(stmt.getIndex());
+            t.visitInstruction(stmt.getValue());
+        });
+        register(Break.class, (t, stmt) -> t.stmt_dispatch.visitBreak(stmt));
+        register(Comment.class, (t, stmt) -> t.stmt_dispatch.visitComment(stmt));
+        register(DoWhile.class, (t, stmt) -> {
+            t.stmt_dispatch.visitDoWhile(stmt);
+            t.visitCondition(stmt.getCondition());
+            t.traverse(stmt.getBody());
+        });
+        register(For.class, (t, stmt) -> {
+            t.stmt_dispatch.visitFor(stmt);
+            if (stmt.getInit() != null) {
+                t.walk(stmt.getInit());
+            }
+            t.visitCondition(stmt.getCondition());
+            if (stmt.getIncr() != null) {
+                t.walk(stmt.getIncr());
+            }
+            t.traverse(stmt.getBody());
+        });
+        register(ForEach.class, (t, stmt) -> {
+            t.stmt_dispatch.visitForEach(stmt);
+            t.visitLocal(stmt.getValueAssignment());
+            t.visitInstruction(stmt.getCollectionValue());
+            t.traverse(stmt.getBody());
+        });
+        register(If.class, (t, stmt) -> {
+            t.stmt_dispatch.visitIf(stmt);
+            t.visitCondition(stmt.getCondition());
+            t.traverse(stmt.getBody());
+            for (Elif elif : stmt.getElifBlocks()) {
+                t.stmt_dispatch.visitElif(elif);
+                t.visitCondition(elif.getCondition());
+                t.traverse(elif.getBody());
+            }
+            if (stmt.getElseBlock() != null) {
+                t.stmt_dispatch.visitElse(stmt.getElseBlock());
+                t.traverse(stmt.getElseBlock().getBody());
+            }
+        });
+        register(Increment.class, (t, stmt) -> {
+            t.stmt_dispatch.visitIncrement(stmt);
+            t.visitLocal(stmt.getLocal());
+        });
+        register(InstanceFieldAssignment.class, (t, stmt) -> {
+            t.stmt_dispatch.visitInstanceFieldAssignment(stmt);
+            t.visitInstruction(stmt.getOwner());
+            t.visitInstruction(stmt.getValue());
+        });
+        register(InvokeStatement.class, (t, stmt) -> {
+            t.stmt_dispatch.visitInvoke(stmt);
+            t.visitInstruction(stmt.getInstruction());
+        });
+        register(LocalAssignment.class, (t, stmt) -> {
+            t.stmt_dispatch.visitLocalAssignment(stmt);
+            t.visitLocal(stmt.getLocal());
+            t.visitInstruction(stmt.getValue());
+        });
+        register(Return.class, (t, stmt) -> {
+            t.stmt_dispatch.visitReturn(stmt);
+            if (stmt.getValue().isPresent()) {
+                t.visitInstruction(stmt.getValue().get());
+            }
+        });
+        register(StaticFieldAssignment.class, (t, stmt) -> {
+            t.stmt_dispatch.visitStaticFieldAssignment(stmt);
+            t.visitInstruction(stmt.getValue());
+        });
+        register(Switch.class, (t, stmt) -> {
+            t.stmt_dispatch.visitSwitch(stmt);
+            t.visitInstruction(stmt.getSwitchVar());
+            for (Case cs : stmt.getCases()) {
+                t.stmt_dispatch.visitSwitchCase(cs);
+                t.traverse(cs.getBody());
+            }
+        });
+        register(Throw.class, (t, stmt) -> {
+            t.stmt_dispatch.visitThrow(stmt);
+            t.visitInstruction(stmt.getException());
+        });
+        register(TryCatch.class, (t, stmt) -> {
+            t.stmt_dispatch.visitTryCatch(stmt);
+            t.traverse(stmt.getTryBlock());
+            for (CatchBlock ccatch : stmt.getCatchBlocks()) {
+                t.stmt_dispatch.visitCatchBlock(ccatch);
+                t.traverse(ccatch.getBlock());
+            }
+        });
+        register(While.class, (t, stmt) -> {
+            t.stmt_dispatch.visitWhile(stmt);
+            t.visitCondition(stmt.getCondition());
+            t.traverse(stmt.getBody());
+        });
+    }
+
+    private static <T extends Statement> void register(Class<T> type, StatementWalker<T> walker) {
+        walkers.put(type, walker);
+    }
+
+    private final List<AstVisitor> visitors = new ArrayList<>();
+    private final List<StatementRewriter> rewriters = new ArrayList<>();
+    private final List<StatementRewriter> failed = new ArrayList<>();
+
+    private final StatementDispatcher stmt_dispatch = new StatementDispatcher();
+    private final InstructionDispatcher insn_dispatch = new InstructionDispatcher();
+    private final ConditionDispatcher cond_dispatch = new ConditionDispatcher();
+    private final List<InstructionVisitor> local_visitors = new ArrayList<>();
+
+    public FusedTraversal() {
+
+    }
+
+    /**
+     * Adds the given visitor to this traversal. The visitor may implement any
+     * of {@link StatementVisitor}, {@link InstructionVisitor} and
+     * {@link ConditionVisitor}.
+     */
+    public FusedTraversal addVisitor(AstVisitor visitor) {
+        checkNotNull(visitor, "visitor");
+        this.visitors.add(visitor);
+        if (visitor instanceof StatementVisitor) {
+            this.stmt_dispatch.stmt_visitors.add((StatementVisitor) visitor);
+        }
+        if (visitor instanceof ConditionVisitor) {
+            this.cond_dispatch.cond_visitors.add((ConditionVisitor) visitor);
+            if (visitor instanceof InstructionVisitor) {
+                this.cond_dispatch.insn_visitors.add((InstructionVisitor) visitor);
+            }
+        } else if (visitor instanceof InstructionVisitor) {
+            this.insn_dispatch.insn_visitors.add((InstructionVisitor) visitor);
+        }
+        if (visitor instanceof InstructionVisitor) {
+            this.local_visitors.add((InstructionVisitor) visitor);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given rewriter to this traversal.
+     */
+    public FusedTraversal addRewriter(StatementRewriter rewriter) {
+        this.rewriters.add(checkNotNull(rewriter, "rewriter"));
+        return this;
+    }
+
+    /**
+     * Gets if this traversal has no visitors or rewriters.
+     */
+    public boolean isEmpty() {
+        return this.visitors.isEmpty() && this.rewriters.isEmpty();
+    }
+
+    /**
+     * Gets the rewriters which have thrown an exception during a traversal and
+     * were not applied to the remainder of the tree.
+     */
+    public List<StatementRewriter> getFailedRewriters() {
+        return this.failed;
+    }
+
+    /**
+     * Traverses the given statement block and all blocks nested within it.
+     */
+    public void traverse(StatementBlock block) {
+        for (StatementRewriter rewriter : this.rewriters) {
+            if (this.failed.contains(rewriter)) {
+                continue;
+            }
+            try {
+                rewriter.rewrite(block);
+            } catch (Exception e) {
+                if (!LibraryConfiguration.quiet) {
+                    System.err.println("Failed to apply rewriter: " + rewriter.getClass().getSimpleName());
+                    e.printStackTrace();
+                }
+                this.failed.add(rewriter);
+            }
+        }
+        if (this.visitors.isEmpty() && this.rewriters.size() == this.failed.size()) {
+            return;
+        }
+        for (Statement stmt : block.getStatements()) {
+            walk(stmt);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void walk(Statement stmt) {
+        StatementWalker<Statement> walker = (StatementWalker<Statement>) walkers.get(stmt.getClass());
+        if (walker == null) {
+            // an unknown statement type, we have no way to find nested blocks
+            // so the visitors walk it on their own and no rewriters are applied
+            for (AstVisitor visitor : this.visitors) {
+                stmt.accept(visitor);
+            }
+            return;
+        }
+        walker.walk(this, stmt);
+    }
+
+    void visitInstruction(Instruction insn) {
+        if (!this.insn_dispatch.insn_visitors.isEmpty()) {
+            insn.accept(this.insn_dispatch);
+        }
+        if (!this.cond_dispatch.isEmpty()) {
+            insn.accept(this.cond_dispatch);
+        }
+    }
+
+    void visitCondition(Condition cond) {
+        if (!this.insn_dispatch.insn_visitors.isEmpty()) {
+            cond.accept(this.insn_dispatch);
+        }
+        if (!this.cond_dispatch.isEmpty()) {
+            cond.accept(this.cond_dispatch);
+        }
+    }
+
+    void visitLocal(LocalInstance local) {
+        for (InstructionVisitor visitor : this.local_visitors) {
+            visitor.visitLocalInstance(local);
+        }
+    }
+
+    /**
+     * A walker for a specific statement type which visits the statement and
+     * descends into its children.
+     */
+    private static interface StatementWalker<T extends Statement> {
+
+        void walk(FusedTraversal traversal, T stmt);
+
+    }
+
+    /**
+     * Forwards statement callbacks to all statement visitors.
+     */
+    private static class StatementDispatcher implements StatementVisitor {
+
+        final List<StatementVisitor> stmt_visitors = new ArrayList<>();
+
+        @Override
+        public void visitArrayAssignment(ArrayAssignment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitArrayAssignment(stmt);
+            }
+        }
+
+        @Override
+        public void visitBreak(Break stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitBreak(stmt);
+            }
+        }
+
+        @Override
+        public void visitCatchBlock(CatchBlock stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitCatchBlock(stmt);
+            }
+        }
+
+        @Override
+        public void visitComment(Comment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitComment(stmt);
+            }
+        }
+
+        @Override
+        public void visitDoWhile(DoWhile stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitDoWhile(stmt);
+            }
+        }
+
+        @Override
+        public void visitElif(Elif stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitElif(stmt);
+            }
+        }
+
+        @Override
+        public void visitElse(Else stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitElse(stmt);
+            }
+        }
+
+        @Override
+        public void visitFor(For stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitFor(stmt);
+            }
+        }
+
+        @Override
+        public void visitForEach(ForEach stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitForEach(stmt);
+            }
+        }
+
+        @Override
+        public void visitIf(If stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitIf(stmt);
+            }
+        }
+
+        @Override
+        public void visitIncrement(Increment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitIncrement(stmt);
+            }
+        }
+
+        @Override
+        public void visitInstanceFieldAssignment(InstanceFieldAssignment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitInstanceFieldAssignment(stmt);
+            }
+        }
+
+        @Override
+        public void visitInvoke(InvokeStatement stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitInvoke(stmt);
+            }
+        }
+
+        @Override
+        public void visitLocalAssignment(LocalAssignment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitLocalAssignment(stmt);
+            }
+        }
+
+        @Override
+        public void visitReturn(Return stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitReturn(stmt);
+            }
+        }
+
+        @Override
+        public void visitStaticFieldAssignment(StaticFieldAssignment stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitStaticFieldAssignment(stmt);
+            }
+        }
+
+        @Override
+        public void visitSwitch(Switch stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitSwitch(stmt);
+            }
+        }
+
+        @Override
+        public void visitSwitchCase(Case stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitSwitchCase(stmt);
+            }
+        }
+
+        @Override
+        public void visitThrow(Throw stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitThrow(stmt);
+            }
+        }
+
+        @Override
+        public void visitTryCatch(TryCatch stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitTryCatch(stmt);
+            }
+        }
+
+        @Override
+        public void visitWhile(While stmt) {
+            for (StatementVisitor visitor : this.stmt_visitors) {
+                visitor.visitWhile(stmt);
+            }
+        }
+
+    }
+
+    /**
+     * Forwards instruction callbacks to all instruction visitors which do not
+     * also visit conditions.
+     */
+    private static class InstructionDispatcher implements InstructionVisitor {
+
+        final List<InstructionVisitor> insn_visitors = new ArrayList<>();
+
+        @Override
+        public void visitArrayAccess(ArrayAccess insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitArrayAccess(insn);
+            }
+        }
+
+        @Override
+        public void visitCast(Cast insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitCast(insn);
+            }
+        }
+
+        @Override
+        public void visitDoubleConstant(DoubleConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitDoubleConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitDynamicInvoke(Lambda insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitDynamicInvoke(insn);
+            }
+        }
+
+        @Override
+        public void visitFloatConstant(FloatConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitFloatConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitInstanceFieldAccess(InstanceFieldAccess insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitInstanceFieldAccess(insn);
+            }
+        }
+
+        @Override
+        public void visitInstanceMethodInvoke(InstanceMethodInvoke insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitInstanceMethodInvoke(insn);
+            }
+        }
+
+        @Override
+        public void visitInstanceOf(InstanceOf insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitInstanceOf(insn);
+            }
+        }
+
+        @Override
+        public void visitIntConstant(IntConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitIntConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitLocalAccess(LocalAccess insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitLocalAccess(insn);
+            }
+        }
+
+        @Override
+        public void visitLocalInstance(LocalInstance insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitLocalInstance(insn);
+            }
+        }
+
+        @Override
+        public void visitLongConstant(LongConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitLongConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitMultiNewArray(MultiNewArray insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitMultiNewArray(insn);
+            }
+        }
+
+        @Override
+        public void visitNegativeOperator(NegativeOperator insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitNegativeOperator(insn);
+            }
+        }
+
+        @Override
+        public void visitNew(New insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitNew(insn);
+            }
+        }
+
+        @Override
+        public void visitNewArray(NewArray insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitNewArray(insn);
+            }
+        }
+
+        @Override
+        public void visitNullConstant(NullConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitNullConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitNumberCompare(NumberCompare insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitNumberCompare(insn);
+            }
+        }
+
+        @Override
+        public void visitOperator(Operator insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitOperator(insn);
+            }
+        }
+
+        @Override
+        public void visitStaticFieldAccess(StaticFieldAccess insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitStaticFieldAccess(insn);
+            }
+        }
+
+        @Override
+        public void visitStaticMethodInvoke(StaticMethodInvoke insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitStaticMethodInvoke(insn);
+            }
+        }
+
+        @Override
+        public void visitStringConstant(StringConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitStringConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitTernary(Ternary insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitTernary(insn);
+            }
+        }
+
+        @Override
+        public void visitTypeConstant(TypeConstant insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitTypeConstant(insn);
+            }
+        }
+
+        @Override
+        public void visitMethodReference(MethodReference insn) {
+            for (InstructionVisitor visitor : this.insn_visitors) {
+                visitor.visitMethodReference(insn);
+            }
+        }
+
+    }
+
+    /**
+     * Forwards instruction and condition callbacks to all visitors which visit
+     * conditions. This is kept separate as condition visitors are descended
+     * into the arguments of compound conditions while other visitors are not.
+     */
+    private static class ConditionDispatcher extends InstructionDispatcher implements ConditionVisitor {
+
+        final List<ConditionVisitor> cond_visitors = new ArrayList<>();
+
+        boolean isEmpty() {
+            return this.cond_visitors.isEmpty();
+        }
+
+        @Override
+        public void visitAndCondition(AndCondition cond) {
+            for (ConditionVisitor visitor : this.cond_visitors) {
+                visitor.visitAndCondition(cond);
+            }
+        }
+
+        @Override
+        public void visitBooleanCondition(BooleanCondition cond) {
+            for (ConditionVisitor visitor : this.cond_visitors) {
+                visitor.visitBooleanCondition(cond);
+            }
+        }
+
+        @Override
+        public void visitCompareCondition(CompareCondition cond) {
+            for (ConditionVisitor visitor : this.cond_visitors) {
+                visitor.visitCompareCondition(cond);
+            }
+        }
+
+        @Override
+        public void visitInverseCondition(InverseCondition cond) {
+            for (ConditionVisitor visitor : this.cond_visitors) {
+                visitor.visitInverseCondition(cond);
+            }
+        }
+
+        @Override
+        public void visitOrCondition(OrCondition cond) {
+            for (ConditionVisitor visitor : this.cond_visitors) {
+                visitor.visitOrCondition(cond);
+            }
+        }
+
+    }
+
+}
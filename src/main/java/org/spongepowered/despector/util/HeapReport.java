@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util;
+
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.ast.Locals.Local;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An estimate of the heap used by the intermediate data of decompiled
+ * methods, by category.
+ *
+ * <p>Sizes are estimated from the shallow sizes of the objects involved on a
+ * 64 bit jvm with compressed references, and do not include data shared with
+ * the rest of the ast such as constant pool strings.</p>
+ */
+public class HeapReport {
+
+    private static final int ARRAY_HEADER = 16;
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int INSN_SIZE = 24;
+    private static final int LVT_SIZE = 32;
+
+    private final Map<Category, long[]> totals = new EnumMap<>(Category.class);
+
+    public HeapReport() {
+        for (Category category : Category.values()) {
+            this.totals.put(category, new long[2]);
+        }
+    }
+
+    /**
+     * Gets the estimated number of bytes used by the given category.
+     */
+    public synchronized long getSize(Category category) {
+        return this.totals.get(category)[1];
+    }
+
+    /**
+     * Gets the number of entries counted for the given category.
+     */
+    public synchronized long getCount(Category category) {
+        return this.totals.get(category)[0];
+    }
+
+    /**
+     * Gets the estimated number of bytes used by all categories.
+     */
+    public synchronized long getTotalSize() {
+        long total = 0;
+        for (long[] values : this.totals.values()) {
+            total += values[1];
+        }
+        return total;
+    }
+
+    private void add(Category category, long count, long size) {
+        long[] values = this.totals.get(category);
+        values[0] += count;
+        values[1] += size;
+    }
+
+    /**
+     * Adds the raw bytecode of the given size which is still held.
+     */
+    public synchronized void addCode(int length) {
+        add(Category.CODE, 1, ARRAY_HEADER + length);
+    }
+
+    /**
+     * Adds the intermediate data held by all methods of the given type.
+     */
+    public synchronized void add(TypeEntry type) {
+        for (MethodEntry mth : type.getStaticMethods()) {
+            add(mth);
+        }
+        for (MethodEntry mth : type.getMethods()) {
+            add(mth);
+        }
+    }
+
+    private void add(MethodEntry mth) {
+        InsnBlock ir = mth.getIR();
+        if (ir != null) {
+            int[] indices = ir.getOpcodeIndices();
+            long size = OBJECT_HEADER + 3 * REFERENCE + ARRAY_HEADER + (long) ir.size() * (REFERENCE + INSN_SIZE);
+            if (indices != null) {
+                size += ARRAY_HEADER + indices.length * 4L;
+            }
+            add(Category.IR, ir.size(), size);
+        }
+        if (mth.block_debug != null) {
+            long size = ARRAY_HEADER + mth.block_debug.length * REFERENCE;
+            for (String debug : mth.block_debug) {
+                if (debug != null) {
+                    size += OBJECT_HEADER + 12 + ARRAY_HEADER + debug.length() * 2L;
+                }
+            }
+            add(Category.BLOCK_DEBUG, 1, size);
+        }
+        Locals locals = mth.getLocals();
+        if (locals != null) {
+            int count = 0;
+            for (int i = 0; i < locals.getLocalCount(); i++) {
+                Local local = locals.getLocal(i);
+                count += local.getLVTCount();
+            }
+            add(Category.LVT, count, count * (long) (REFERENCE + LVT_SIZE));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder str = new StringBuilder();
+        for (Category category : Category.values()) {
+            long[] values = this.totals.get(category);
+            str.append(String.format("%-12s %10d entries %10d KB\n", category.name().toLowerCase(), values[0], values[1] / 1024));
+        }
+        str.append(String.format("%-12s %21s %10d KB\n", "total", "", getTotalSize() / 1024));
+        return str.toString();
+    }
+
+    /**
+     * A category of intermediate method data.
+     */
+    public static enum Category {
+        /**
+         * The raw bytecode of methods held by finished decompile tasks.
+         */
+        CODE,
+        /**
+         * The intermediate representation of methods.
+         */
+        IR,
+        /**
+         * The block debug output of methods.
+         */
+        BLOCK_DEBUG,
+        /**
+         * The local variable table entries of locals.
+         */
+        LVT,
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util;
+
+import java.util.List;
+
+/**
+ * A map from bytecode offsets to the index of the first instruction which
+ * starts at that offset.
+ */
+public class LabelIndex {
+
+    private static final LabelIndex EMPTY = new LabelIndex(new int[0], -1);
+
+    /**
+     * Gets a label index with no instructions.
+     */
+    public static LabelIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a label index from the given list of instruction start offsets,
+     * which must be in ascending order.
+     */
+    public static LabelIndex of(List<Integer> insn_starts) {
+        if (insn_starts.isEmpty()) {
+            return EMPTY;
+        }
+        int last = insn_starts.get(insn_starts.size() - 1);
+        int[] indices = new int[last + 1];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = -1;
+        }
+        for (int i = insn_starts.size() - 1; i >= 0; i--) {
+            indices[insn_starts.get(i)] = i;
+        }
+        return new LabelIndex(indices, last);
+    }
+
+    private final int[] indices;
+    private final int last;
+
+    private LabelIndex(int[] indices, int last) {
+        this.indices = indices;
+        this.last = last;
+    }
+
+    /**
+     * Gets the index of the first instruction starting at the given offset, or
+     * -1 if no instruction starts there.
+     */
+    public int indexOf(int offset) {
+        if (offset < 0 || offset >= this.indices.length) {
+            return -1;
+        }
+        return this.indices[offset];
+    }
+
+    /**
+     * Gets if this index contains no instructions.
+     */
+    public boolean isEmpty() {
+        return this.last == -1;
+    }
+
+    /**
+     * Gets the offset of the last instruction, or -1 if this index is empty.
+     */
+    public int getLastOffset() {
+        return this.last;
+    }
+
+}
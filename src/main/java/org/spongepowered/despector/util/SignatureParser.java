@@ -26,6 +26,7 @@ package org.spongepowered.despector.util;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.collect.MapMaker;
 import org.spongepowered.despector.ast.generic.ClassSignature;
 import org.spongepowered.despector.ast.generic.ClassTypeSignature;
 import org.spongepowered.despector.ast.generic.GenericClassTypeSignature;
@@ -38,6 +39,7 @@ import org.spongepowered.despector.ast.generic.VoidTypeSignature;
 import org.spongepowered.despector.ast.generic.WildcardType;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A parser for various generic signatures.
@@ -45,6 +47,7 @@ import java.util.List;
 public final class SignatureParser {
 
     private static final String VALID_PRIM = "BSIJFDCZ";
+    private static final ConcurrentMap<String, MethodSignature> METHODS = new MapMaker().weakValues().makeMap();
 
     /**
      * Parses the given class signature.
@@ -87,6 +90,23 @@ public final class SignatureParser {
         return sig;
     }
 
+    /**
+     * Gets the parsed method signature for the given signature. Equal
+     * signatures share a single instance for as long as it is reachable, so
+     * the returned signature must not be modified.
+     */
+    public static MethodSignature internMethod(String signature) {
+        MethodSignature sig = METHODS.get(signature);
+        if (sig == null) {
+            MethodSignature parsed = parseMethod(signature);
+            sig = METHODS.putIfAbsent(TypeHelper.intern(signature), parsed);
+            if (sig == null) {
+                sig = parsed;
+            }
+        }
+        return sig;
+    }
+
     private static void parseFormalTypeParameters(Parser parser, List<TypeParameter> type_params) {
         while (parser.peek() != '>') {
             String identifier = parser.nextIdentifier();
@@ -137,7 +157,7 @@ public final class SignatureParser {
             ident.append('T');
             ident.append(parser.nextIdentifier());
             ident.append(';');
-            TypeVariableSignature sig = new TypeVariableSignature(ident.toString());
+            TypeVariableSignature sig = new TypeVariableSignature(TypeHelper.intern(ident.toString()));
             parser.expect(';');
             return sig;
         }
@@ -160,7 +180,7 @@ public final class SignatureParser {
             ident.append(parser.nextIdentifier());
         }
         ident.append(";");
-        GenericClassTypeSignature sig = new GenericClassTypeSignature(ident.toString());
+        GenericClassTypeSignature sig = new GenericClassTypeSignature(TypeHelper.intern(ident.toString()));
         if (parser.check('<')) {
             while (!parser.check('>')) {
                 char wild = parser.peek();
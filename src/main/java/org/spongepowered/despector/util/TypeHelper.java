@@ -25,6 +25,8 @@
 package org.spongepowered.despector.util;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Lists;
 
 import java.util.BitSet;
@@ -38,6 +40,16 @@ import java.util.regex.Pattern;
 public final class TypeHelper {
 
     private static final Pattern ANON_CLASS = Pattern.compile(".*\\$[0-9]+");
+    private static final Interner<String> DESCRIPTORS = Interners.newWeakInterner();
+
+    /**
+     * Gets the shared instance of the given name or descriptor. Equal strings
+     * interned through this method are the same instance for as long as any
+     * of them is reachable.
+     */
+    public static String intern(String desc) {
+        return DESCRIPTORS.intern(desc);
+    }
 
     public static boolean isAnonClass(String name) {
         return ANON_CLASS.matcher(name).matches();
@@ -235,7 +247,7 @@ public final class TypeHelper {
             if (is_array) {
                 accu = "[" + accu;
             }
-            params.add(accu);
+            params.add(intern(accu));
             accu = "";
             is_array = false;
         }
@@ -250,7 +262,7 @@ public final class TypeHelper {
     public static String getRet(String signature) {
         Matcher matcher = DESC.matcher(signature);
         if (matcher.find()) {
-            return matcher.group(1);
+            return intern(matcher.group(1));
         }
         throw new IllegalStateException("Expected return type, but '" + signature + "' is not a valid method signature");
     }
@@ -0,0 +1,403 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.serialization;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A random access archive of serialized types.
+ * 
+ * <p>The archive starts with a magic number and version and ends with an
+ * index mapping each type name to the location of its record, followed by
+ * the offset of that index. Each record holds the type with its method
+ * bodies omitted, then a table of the method bodies and the bodies
+ * themselves. Opening an archive only reads the index, and types and method
+ * bodies are deserialized from the memory mapped file as they are
+ * requested.</p>
+ */
+public class AstArchive implements AutoCloseable {
+
+    public static final int MAGIC = 0x44535041;
+    public static final int VERSION = 1;
+
+    /**
+     * Writes all types in the given source set to an archive at the given
+     * path.
+     */
+    public static void write(SourceSet set, Path path) throws IOException {
+        write(set.getAllClasses(), path);
+    }
+
+    /**
+     * Writes the given types to an archive at the given path.
+     */
+    public static void write(Collection<TypeEntry> types, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long position = 8;
+            List<IndexEntry> index = new ArrayList<>(types.size());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            for (TypeEntry type : types) {
+                buffer.reset();
+                try (MessagePacker pack = new MessagePacker(buffer)) {
+                    type.writeTo(pack, false);
+                }
+                int skeleton_length = buffer.size();
+                writeBodies(type, buffer);
+                index.add(new IndexEntry(type.getName(), position, skeleton_length, buffer.size() - skeleton_length));
+                buffer.writeTo(out);
+                position += buffer.size();
+            }
+            out.writeInt(index.size());
+            for (IndexEntry entry : index) {
+                out.writeUTF(entry.name);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.skeleton_length);
+                out.writeInt(entry.body_length);
+            }
+            out.writeLong(position);
+        }
+    }
+
+    private static void writeBodies(TypeEntry type, ByteArrayOutputStream buffer) throws IOException {
+        List<MethodEntry> methods = new ArrayList<>();
+        for (MethodEntry mth : type.getStaticMethods()) {
+            if (mth.getInstructions() != null) {
+                methods.add(mth);
+            }
+        }
+        for (MethodEntry mth : type.getMethods()) {
+            if (mth.getInstructions() != null) {
+                methods.add(mth);
+            }
+        }
+        List<byte[]> bodies = new ArrayList<>(methods.size());
+        for (MethodEntry mth : methods) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (MessagePacker pack = new MessagePacker(body)) {
+                StatementBlock block = mth.getInstructions();
+                pack.startArray(block.getStatementCount());
+                for (Statement stmt : block.getStatements()) {
+                    stmt.writeTo(pack);
+                }
+                pack.endArray();
+            }
+            bodies.add(body.toByteArray());
+        }
+        try (MessagePacker pack = new MessagePacker(buffer)) {
+            pack.startArray(methods.size());
+            for (int i = 0; i < methods.size(); i++) {
+                MethodEntry mth = methods.get(i);
+                pack.startArray(3);
+                pack.writeString(mth.getName());
+                pack.writeString(mth.getDescription());
+                pack.writeInt(bodies.get(i).length);
+                pack.endArray();
+            }
+            pack.endArray();
+        }
+        for (byte[] body : bodies) {
+            buffer.write(body);
+        }
+    }
+
+    /**
+     * Opens the archive at the given path.
+     */
+    public static AstArchive open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive is too large to map: " + size + " bytes");
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new AstArchive(channel, data);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final Map<String, IndexEntry> index;
+
+    private AstArchive(FileChannel channel, ByteBuffer data) throws IOException {
+        this.channel = channel;
+        this.data = data;
+        if (data.limit() < 16 || data.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not an ast archive");
+        }
+        int version = data.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported ast archive version " + version);
+        }
+        long index_offset = data.getLong(data.limit() - 8);
+        if (index_offset < 8 || index_offset > data.limit() - 12) {
+            throw new IllegalStateException("Corrupt ast archive index offset " + index_offset);
+        }
+        DataInputStream in = new DataInputStream(new ByteBufferStream(slice(index_offset, data.limit() - 8 - index_offset)));
+        int count = in.readInt();
+        this.index = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            IndexEntry entry = new IndexEntry(in.readUTF(), in.readLong(), in.readInt(), in.readInt());
+            if (entry.offset < 8 || entry.offset + entry.skeleton_length + entry.body_length > index_offset) {
+                throw new IllegalStateException("Corrupt ast archive entry for " + entry.name);
+            }
+            this.index.put(entry.name, entry);
+        }
+    }
+
+    /**
+     * Gets the number of types in this archive.
+     */
+    public int getTypeCount() {
+        return this.index.size();
+    }
+
+    /**
+     * Gets the names of all types in this archive.
+     */
+    public Collection<String> getTypeNames() {
+        return Collections.unmodifiableCollection(this.index.keySet());
+    }
+
+    /**
+     * Gets if this archive contains a type with the given name.
+     */
+    public boolean contains(String name) {
+        return this.index.containsKey(name);
+    }
+
+    /**
+     * Loads the type with the given name including all method bodies, or
+     * returns null if this archive does not contain the type.
+     */
+    @Nullable
+    public TypeEntry loadType(String name, SourceSet set) throws IOException {
+        return loadType(name, set, true);
+    }
+
+    /**
+     * Loads the type with the given name, or returns null if this archive
+     * does not contain the type. If bodies are not loaded then they may be
+     * loaded later with {@link #loadBodies(TypeEntry)}.
+     */
+    @Nullable
+    public TypeEntry loadType(String name, SourceSet set, boolean with_bodies) throws IOException {
+        IndexEntry entry = this.index.get(checkNotNull(name, "name"));
+        if (entry == null) {
+            return null;
+        }
+        TypeEntry type = AstLoader.loadType(new BufferMessageUnpacker(slice(entry.offset, entry.skeleton_length)), set);
+        if (with_bodies) {
+            loadBodies(type);
+        }
+        return type;
+    }
+
+    /**
+     * Loads every type in this archive into the given source set.
+     */
+    public void loadAll(SourceSet set) throws IOException {
+        for (String name : this.index.keySet()) {
+            set.add(loadType(name, set, true));
+        }
+    }
+
+    /**
+     * Loads the bodies of all methods of the given type which do not yet have
+     * a body.
+     */
+    public void loadBodies(TypeEntry type) throws IOException {
+        IndexEntry entry = this.index.get(type.getName());
+        if (entry == null) {
+            return;
+        }
+        for (BodyEntry body : readBodyTable(entry)) {
+            MethodEntry mth = findMethod(type, body.name, body.desc);
+            if (mth != null && mth.getInstructions() == null) {
+                mth.setInstructions(loadBody(mth, body));
+            }
+        }
+    }
+
+    /**
+     * Loads the body of the given method, returning null if the method has no
+     * body in this archive.
+     */
+    @Nullable
+    public StatementBlock loadBody(MethodEntry method) throws IOException {
+        IndexEntry entry = this.index.get(method.getOwnerName());
+        if (entry == null) {
+            return null;
+        }
+        for (BodyEntry body : readBodyTable(entry)) {
+            if (body.name.equals(method.getName()) && body.desc.equals(method.getDescription())) {
+                return loadBody(method, body);
+            }
+        }
+        return null;
+    }
+
+    private StatementBlock loadBody(MethodEntry method, BodyEntry body) throws IOException {
+        return AstLoader.loadMethodBody(new BufferMessageUnpacker(slice(body.offset, body.length)), method);
+    }
+
+    private List<BodyEntry> readBodyTable(IndexEntry entry) throws IOException {
+        long start = entry.offset + entry.skeleton_length;
+        BufferMessageUnpacker unpack = new BufferMessageUnpacker(slice(start, entry.body_length));
+        int count = unpack.readArray();
+        List<BodyEntry> bodies = new ArrayList<>(count);
+        String[] names = new String[count];
+        String[] descs = new String[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            unpack.readArray();
+            names[i] = unpack.readString();
+            descs[i] = unpack.readString();
+            lengths[i] = unpack.readInt();
+        }
+        long offset = start + unpack.position();
+        for (int i = 0; i < count; i++) {
+            bodies.add(new BodyEntry(names[i], descs[i], offset, lengths[i]));
+            offset += lengths[i];
+        }
+        return bodies;
+    }
+
+    @Nullable
+    private static MethodEntry findMethod(TypeEntry type, String name, String desc) {
+        MethodEntry mth = type.getMethod(name, desc);
+        if (mth == null) {
+            mth = type.getStaticMethod(name, desc);
+        }
+        return mth;
+    }
+
+    private ByteBuffer slice(long offset, long length) {
+        ByteBuffer buf = this.data.duplicate();
+        buf.position((int) offset);
+        buf.limit((int) (offset + length));
+        return buf.slice();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private static class IndexEntry {
+
+        final String name;
+        final long offset;
+        final int skeleton_length;
+        final int body_length;
+
+        IndexEntry(String name, long offset, int skeleton_length, int body_length) {
+            this.name = name;
+            this.offset = offset;
+            this.skeleton_length = skeleton_length;
+            this.body_length = body_length;
+        }
+
+    }
+
+    private static class BodyEntry {
+
+        final String name;
+        final String desc;
+        final long offset;
+        final int length;
+
+        BodyEntry(String name, String desc, long offset, int length) {
+            this.name = name;
+            this.desc = desc;
+            this.offset = offset;
+            this.length = length;
+        }
+
+    }
+
+    private static class ByteBufferStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+    }
+
+}
@@ -132,11 +132,16 @@ public class AstLoader {
     }
 
     public static void loadSources(SourceSet set, InputStream stream) throws IOException {
-        MessageUnpacker unpack = new MessageUnpacker(stream);
+        loadSources(set, new MessageUnpacker(stream));
+    }
+
+    public static void loadSources(SourceSet set, MessageUnpacker unpack) throws IOException {
         startMap(unpack, 2);
         expectKey(unpack, "version");
         int version = unpack.readInt();
-        if (version != AstSerializer.VERSION) {
+        if (version == AstSerializer.VERSION_2) {
+            AstSerializer.enableStringTable(unpack);
+        } else if (version != AstSerializer.VERSION_1) {
             throw new IllegalStateException("Unsupported ast version " + version);
         }
         expectKey(unpack, "classes");
@@ -366,7 +371,7 @@ public class AstLoader {
         entry.setMethodSignature(loadMethodSignature(unpack));
         expectKey(unpack, "locals");
         Locals locals = loadLocals(unpack, entry, set);
-        method_locals = locals;
+        state.get().locals = locals;
         entry.setLocals(locals);
         expectKey(unpack, "instructions");
         if (unpack.peekType() == MessageType.NIL) {
@@ -383,6 +388,15 @@ public class AstLoader {
         return entry;
     }
 
+    /**
+     * Loads a method body which was written separately from its method. The
+     * locals of the given method must already be loaded.
+     */
+    public static StatementBlock loadMethodBody(MessageUnpacker unpack, MethodEntry method) throws IOException {
+        state.get().locals = method.getLocals();
+        return loadBlock(unpack, StatementBlock.Type.METHOD);
+    }
+
     public static Locals loadLocals(MessageUnpacker unpack, MethodEntry method, SourceSet set) throws IOException {
         int size = unpack.readArray();
         Locals locals = new Locals(method);
@@ -395,31 +409,38 @@ public class AstLoader {
             expectKey(unpack, "instances");
             int sz = unpack.readArray();
             for (int j = 0; j < sz; j++) {
-                startMap(unpack, 6);
-                expectKey(unpack, "name");
-                String name = unpack.readString();
-                expectKey(unpack, "type");
-                TypeSignature type = loadTypeSignature(unpack);
-                expectKey(unpack, "start");
-                int start = unpack.readInt();
-                expectKey(unpack, "end");
-                int end = unpack.readInt();
-                expectKey(unpack, "final");
-                boolean efinal = unpack.readBool();
-                LocalInstance insn = new LocalInstance(loc, name, type, start, end);
-                insn.setEffectivelyFinal(efinal);
-                expectKey(unpack, "annotations");
-                int annotations = unpack.readArray();
-                for (int k = 0; k < annotations; k++) {
-                    insn.getAnnotations().add(loadAnnotation(unpack, set));
-                }
-                loc.addInstance(insn);
+                loc.addInstance(loadLocalInstance(unpack, loc, set));
             }
         }
 
         return locals;
     }
 
+    /**
+     * Loads the complete form of a local instance of the given local.
+     */
+    public static LocalInstance loadLocalInstance(MessageUnpacker unpack, Local loc, SourceSet set) throws IOException {
+        startMap(unpack, 6);
+        expectKey(unpack, "name");
+        String name = unpack.readString();
+        expectKey(unpack, "type");
+        TypeSignature type = loadTypeSignature(unpack);
+        expectKey(unpack, "start");
+        int start = unpack.readInt();
+        expectKey(unpack, "end");
+        int end = unpack.readInt();
+        expectKey(unpack, "final");
+        boolean efinal = unpack.readBool();
+        LocalInstance insn = new LocalInstance(loc, name, type, start, end);
+        insn.setEffectivelyFinal(efinal);
+        expectKey(unpack, "annotations");
+        int annotations = unpack.readArray();
+        for (int k = 0; k < annotations; k++) {
+            insn.getAnnotations().add(loadAnnotation(unpack, set));
+        }
+        return insn;
+    }
+
     private static StatementBlock loadBlock(MessageUnpacker unpack, StatementBlock.Type type) throws IOException {
         if (unpack.peekType() == MessageType.NIL) {
             unpack.readNil();
@@ -664,7 +685,7 @@ public class AstLoader {
         } else {
             unpack.readNil();
         }
-        Local loc = method_locals.getLocal(index);
+        Local loc = state.get().locals.getLocal(index);
         return loc.find(start, type);
     }
 
@@ -673,8 +694,7 @@ public class AstLoader {
     private static final Map<Integer, Function<MessageUnpacker, Condition>> condition_loaders;
     private static final Map<Integer, Function<MessageUnpacker, TypeSignature>> signature_loaders;
 
-    private static final Map<Integer, Breakable> breakables = new HashMap<>();
-    private static Locals method_locals;
+    private static final ThreadLocal<LoadState> state = ThreadLocal.withInitial(LoadState::new);
 
     static {
         statement_loaders = new HashMap<>();
@@ -717,7 +737,7 @@ public class AstLoader {
                 boolean nested = unpack.readBool();
                 expectKey(unpack, "break_id");
                 int key = unpack.readInt();
-                Breakable brk = breakables.get(key);
+                Breakable brk = state.get().breakables.get(key);
                 return new Break(brk, type, nested);
             } catch (IOException e) {
                 Throwables.propagate(e);
@@ -758,12 +778,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    state.get().breakables.put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = state.get().breakables.entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -823,12 +843,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    state.get().breakables.put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = state.get().breakables.entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -850,12 +870,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    state.get().breakables.put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = state.get().breakables.entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -1321,12 +1341,12 @@ public class AstLoader {
                 expectKey(unpack, "breakpoints");
                 int brk_size = unpack.readArray();
                 for (int i = 0; i < brk_size; i++) {
-                    breakables.put(unpack.readInt(), loop);
+                    state.get().breakables.put(unpack.readInt(), loop);
                 }
                 expectKey(unpack, "body");
                 StatementBlock body = loadBlock(unpack, StatementBlock.Type.WHILE);
                 loop.setBody(body);
-                for (Iterator<Map.Entry<Integer, Breakable>> it = breakables.entrySet().iterator(); it.hasNext();) {
+                for (Iterator<Map.Entry<Integer, Breakable>> it = state.get().breakables.entrySet().iterator(); it.hasNext();) {
                     Map.Entry<Integer, Breakable> n = it.next();
                     if (n.getValue() == loop) {
                         it.remove();
@@ -1450,4 +1470,14 @@ public class AstLoader {
         });
     }
 
+    /**
+     * The state of the method currently being loaded on a thread.
+     */
+    private static class LoadState {
+
+        Locals locals;
+        final Map<Integer, Breakable> breakables = new HashMap<>();
+
+    }
+
 }
@@ -29,7 +29,37 @@ package org.spongepowered.despector.util.serialization;
  */
 public final class AstSerializer {
 
-    public static final int VERSION = 1;
+    /**
+     * The original format which writes every map key and string value in full.
+     */
+    public static final int VERSION_1 = 1;
+    /**
+     * The compact format which enables a string table seeded with the known
+     * keys directly after the version, so that keys are written as
+     * small integer tags and repeated names and descriptors are written as
+     * references to their first occurrence.
+     */
+    public static final int VERSION_2 = 2;
+    /**
+     * The format written when no version is given. This stays the original
+     * format so that existing readers of serialized asts keep working, the
+     * compact format must be asked for explicitly.
+     */
+    public static final int VERSION = VERSION_1;
+
+    // The seed of the string table of the version 2 format. The index of each
+    // key is its tag so new keys must only ever be appended.
+    private static final String[] KEYS = {
+            "abstract", "access", "annotations", "args", "array", "block", "body", "break_id", "breakpoints", "breaks", "bridge", "callee",
+            "cases", "catch", "classbound", "classes", "collection", "comment", "condition", "constant", "cst", "ctor", "default",
+            "deprecated", "desc", "description", "dummy_name", "elif", "else", "end", "enumconstants", "enumtype", "ex", "exceptions",
+            "false", "fields", "final", "id", "identifier", "incr", "increment", "index", "indices", "init", "inner", "inner_classes",
+            "instances", "instructions", "interfacebounds", "interfaces", "inverse", "language", "left", "local", "locals", "method",
+            "methods", "methodsignature", "name", "native", "nested", "op", "operator", "outer_name", "owner", "owner_val", "parameters",
+            "params", "returntype", "right", "runtime", "signature", "simple_name", "size", "sizes", "start", "static", "staticfields",
+            "staticmethods", "strictfp", "superclass", "supername", "synchronized", "synthetic", "transient", "true", "type",
+            "type_parameters", "typename", "val", "value", "values", "var", "varargs", "volatile", "wildcard"
+    };
 
     public static final int ENTRY_ID_CLASS = 0x00;
     public static final int ENTRY_ID_ENUM = 0x01;
@@ -98,6 +128,20 @@ public final class AstSerializer {
     public static final int CONDITION_ID_COMPARE = 0x93;
     public static final int CONDITION_ID_INVERSE = 0x94;
 
+    /**
+     * Enables the {@link #VERSION_2} string table on the given packer.
+     */
+    public static void enableStringTable(MessagePacker pack) {
+        pack.enableStringTable(KEYS);
+    }
+
+    /**
+     * Enables the {@link #VERSION_2} string table on the given unpacker.
+     */
+    public static void enableStringTable(MessageUnpacker unpack) {
+        unpack.enableStringTable(KEYS);
+    }
+
     private AstSerializer() {
     }
 
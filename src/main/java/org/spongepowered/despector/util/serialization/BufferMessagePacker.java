@@ -0,0 +1,464 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.serialization;
+
+import static org.spongepowered.despector.util.serialization.MessageType.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A {@link MessagePacker} which writes directly into a {@link ByteBuffer}.
+ *
+ * <p>The buffer is either owned by the packer and grown as needed, or
+ * supplied by the caller (for example a memory mapped region of a file) in
+ * which case writing past its limit throws a
+ * {@link BufferOverflowException}. Strings are encoded straight into the
+ * buffer and the structure of maps and arrays is tracked in a primitive
+ * stack. The output is byte for byte identical to {@link MessagePacker}.</p>
+ *
+ * <p>The structure checks can be compiled out by setting the
+ * {@code despector.msgpack.unchecked} system property to true.</p>
+ */
+public class BufferMessagePacker extends MessagePacker {
+
+    /**
+     * Whether the packers check that maps and arrays are filled with exactly
+     * the declared number of values.
+     */
+    public static final boolean STRUCTURE_CHECKS = !Boolean.getBoolean("despector.msgpack.unchecked");
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_POSITIVE_FIXINT = 0x7F;
+    private static final int MIN_NEGATUVE_FIXINT = -32;
+    private static final int NIBBLE_MASK = 0xF;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int SHORT_MASK = 0xFFFF;
+    private static final int MAX_FIXSTRING_LENGTH = 31;
+
+    private ByteBuffer buffer;
+    private final int start;
+    private final boolean growable;
+
+    private int[] frame_remaining = new int[16];
+    private boolean[] frame_map = new boolean[16];
+    private int depth;
+
+    /**
+     * Creates a packer writing into a growable heap buffer.
+     */
+    public BufferMessagePacker() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * Creates a packer writing into a growable buffer with the given initial
+     * capacity, which is allocated outside of the heap if direct is set.
+     */
+    public BufferMessagePacker(int capacity, boolean direct) {
+        this.buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        this.start = 0;
+        this.growable = true;
+        reset();
+    }
+
+    /**
+     * Creates a packer writing into the given buffer starting at its current
+     * position and up to its limit. The buffer is never grown and its position
+     * is not changed.
+     */
+    public BufferMessagePacker(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.start = buffer.position();
+        this.growable = false;
+        reset();
+    }
+
+    /**
+     * Gets the number of bytes written.
+     */
+    public int size() {
+        return this.buffer.position() - this.start;
+    }
+
+    /**
+     * Gets a view of the bytes written so far.
+     */
+    public ByteBuffer getBuffer() {
+        ByteBuffer view = this.buffer.duplicate();
+        view.limit(view.position());
+        view.position(this.start);
+        return view.slice();
+    }
+
+    /**
+     * Gets a copy of the bytes written so far.
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[size()];
+        ByteBuffer view = getBuffer();
+        view.get(data);
+        return data;
+    }
+
+    /**
+     * Writes the bytes written so far to the given output stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (this.buffer.hasArray()) {
+            out.write(this.buffer.array(), this.buffer.arrayOffset() + this.start, size());
+        } else {
+            out.write(toByteArray());
+        }
+    }
+
+    /**
+     * Discards everything written so far so that the packer can be reused for
+     * a new value. The string table, if any, is kept.
+     */
+    public BufferMessagePacker reset() {
+        this.buffer.position(this.start);
+        this.depth = 0;
+        this.frame_map[0] = true;
+        this.frame_remaining[0] = 1;
+        resetObjectIds();
+        return this;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void ensure(int bytes) {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        if (!this.growable) {
+            throw new BufferOverflowException();
+        }
+        int capacity = Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes);
+        ByteBuffer next = this.buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        this.buffer.flip();
+        next.put(this.buffer);
+        this.buffer = next;
+    }
+
+    @Override
+    public MessagePacker writeNil() throws IOException {
+        decreaseFrame();
+        ensure(1);
+        this.buffer.put((byte) TYPE_NIL);
+        return this;
+    }
+
+    @Override
+    public MessagePacker writeBool(boolean val) throws IOException {
+        decreaseFrame();
+        ensure(1);
+        this.buffer.put((byte) (val ? TYPE_BOOL_TRUE : TYPE_BOOL_FALSE));
+        return this;
+    }
+
+    @Override
+    public MessagePacker writeInt(long val) throws IOException {
+        decreaseFrame();
+        writeIntValue(val);
+        return this;
+    }
+
+    private void writeIntValue(long val) {
+        if (val >= 0 && val <= MAX_POSITIVE_FIXINT) {
+            ensure(1);
+            this.buffer.put((byte) val);
+        } else if (val < 0 && val >= MIN_NEGATUVE_FIXINT) {
+            ensure(1);
+            this.buffer.put((byte) val);
+        } else if (val <= Byte.MAX_VALUE && val >= Byte.MIN_VALUE) {
+            ensure(2);
+            this.buffer.put((byte) TYPE_INT8);
+            this.buffer.put((byte) val);
+        } else if (val <= Short.MAX_VALUE && val >= Short.MIN_VALUE) {
+            ensure(3);
+            this.buffer.put((byte) TYPE_INT16);
+            this.buffer.putShort((short) val);
+        } else if (val <= Integer.MAX_VALUE && val >= Integer.MIN_VALUE) {
+            ensure(5);
+            this.buffer.put((byte) TYPE_INT32);
+            this.buffer.putInt((int) val);
+        } else {
+            ensure(9);
+            this.buffer.put((byte) TYPE_INT64);
+            this.buffer.putLong(val);
+        }
+    }
+
+    @Override
+    public MessagePacker writeUnsignedInt(long val) throws IOException {
+        decreaseFrame();
+        // values above 16 bits are always written as 64 bit to match the
+        // output of MessagePacker
+        if (val <= MAX_POSITIVE_FIXINT) {
+            ensure(1);
+            this.buffer.put((byte) (val & MAX_POSITIVE_FIXINT));
+        } else if (val <= BYTE_MASK) {
+            ensure(2);
+            this.buffer.put((byte) TYPE_UINT8);
+            this.buffer.put((byte) val);
+        } else if (val <= SHORT_MASK) {
+            ensure(3);
+            this.buffer.put((byte) TYPE_UINT16);
+            this.buffer.putShort((short) val);
+        } else {
+            ensure(9);
+            this.buffer.put((byte) TYPE_UINT64);
+            this.buffer.putLong(val);
+        }
+        return this;
+    }
+
+    @Override
+    public MessagePacker writeFloat(float val) throws IOException {
+        decreaseFrame();
+        ensure(5);
+        this.buffer.put((byte) TYPE_FLOAT);
+        this.buffer.putFloat(val);
+        return this;
+    }
+
+    @Override
+    public MessagePacker writeDouble(double val) throws IOException {
+        decreaseFrame();
+        ensure(9);
+        this.buffer.put((byte) TYPE_DOUBLE);
+        this.buffer.putDouble(val);
+        return this;
+    }
+
+    @Override
+    public MessagePacker writeString(String val) throws IOException {
+        decreaseStringFrame();
+        int index = lookupString(val);
+        if (index != -1) {
+            writeIntValue(index);
+            return this;
+        }
+        int chars = val.length();
+        int len = utf8Length(val);
+        if (len <= MAX_FIXSTRING_LENGTH) {
+            ensure(len + 1);
+            this.buffer.put((byte) (TYPE_STR5_MASK | len));
+        } else if (len < BYTE_MASK) {
+            ensure(len + 2);
+            this.buffer.put((byte) TYPE_STR8);
+            this.buffer.put((byte) len);
+        } else if (len < SHORT_MASK) {
+            ensure(len + 3);
+            this.buffer.put((byte) TYPE_STR16);
+            this.buffer.putShort((short) len);
+        } else {
+            ensure(len + 5);
+            this.buffer.put((byte) TYPE_STR32);
+            this.buffer.putInt(len);
+        }
+        if (len == chars) {
+            // only ascii characters and unpaired surrogates encode to a single byte
+            for (int i = 0; i < chars; i++) {
+                char c = val.charAt(i);
+                this.buffer.put(c < 0x80 ? (byte) c : (byte) '?');
+            }
+        } else {
+            encodeUtf8(val);
+        }
+        return this;
+    }
+
+    private static int utf8Length(String val) {
+        int chars = val.length();
+        int len = chars;
+        for (int i = 0; i < chars; i++) {
+            char c = val.charAt(i);
+            if (c < 0x80) {
+                continue;
+            } else if (c < 0x800) {
+                len += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(val.charAt(i + 1))) {
+                len += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                len += 2;
+            }
+            // unpaired surrogates are replaced with a single '?'
+        }
+        return len;
+    }
+
+    private void encodeUtf8(String val) {
+        int chars = val.length();
+        for (int i = 0; i < chars; i++) {
+            char c = val.charAt(i);
+            if (c < 0x80) {
+                this.buffer.put((byte) c);
+            } else if (c < 0x800) {
+                this.buffer.put((byte) (0xC0 | (c >> 6)));
+                this.buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(val.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, val.charAt(++i));
+                this.buffer.put((byte) (0xF0 | (cp >> 18)));
+                this.buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                this.buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                this.buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                this.buffer.put((byte) '?');
+            } else {
+                this.buffer.put((byte) (0xE0 | (c >> 12)));
+                this.buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                this.buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    @Override
+    public MessagePacker writeBin(byte[] data) throws IOException {
+        decreaseFrame();
+        if (data.length < BYTE_MASK) {
+            ensure(data.length + 2);
+            this.buffer.put((byte) TYPE_BIN8);
+            this.buffer.put((byte) data.length);
+        } else if (data.length < SHORT_MASK) {
+            ensure(data.length + 3);
+            this.buffer.put((byte) TYPE_BIN16);
+            this.buffer.putShort((short) data.length);
+        } else {
+            ensure(data.length + 5);
+            this.buffer.put((byte) TYPE_BIN32);
+            this.buffer.putInt(data.length);
+        }
+        this.buffer.put(data);
+        return this;
+    }
+
+    @Override
+    public MessagePacker startArray(int len) throws IOException {
+        decreaseFrame();
+        if (len < NIBBLE_MASK) {
+            ensure(1);
+            this.buffer.put((byte) (TYPE_ARRAY8_MASK | len));
+        } else if (len < SHORT_MASK) {
+            ensure(3);
+            this.buffer.put((byte) TYPE_ARRAY16);
+            this.buffer.putShort((short) len);
+        } else {
+            ensure(5);
+            this.buffer.put((byte) TYPE_ARRAY32);
+            this.buffer.putInt(len);
+        }
+        pushFrame(false, len);
+        return this;
+    }
+
+    @Override
+    public MessagePacker endArray() {
+        popFrame(false);
+        return this;
+    }
+
+    @Override
+    public MessagePacker startMap(int len) throws IOException {
+        decreaseFrame();
+        if (len < NIBBLE_MASK) {
+            ensure(1);
+            this.buffer.put((byte) (TYPE_MAP8_MASK | len));
+        } else if (len < SHORT_MASK) {
+            ensure(3);
+            this.buffer.put((byte) TYPE_MAP16);
+            this.buffer.putShort((short) len);
+        } else {
+            ensure(5);
+            this.buffer.put((byte) TYPE_MAP32);
+            this.buffer.putInt(len);
+        }
+        pushFrame(true, len * 2);
+        return this;
+    }
+
+    @Override
+    public MessagePacker endMap() {
+        popFrame(true);
+        return this;
+    }
+
+    private void pushFrame(boolean map, int remaining) {
+        if (!STRUCTURE_CHECKS) {
+            return;
+        }
+        this.depth++;
+        if (this.depth == this.frame_remaining.length) {
+            this.frame_remaining = Arrays.copyOf(this.frame_remaining, this.depth * 2);
+            this.frame_map = Arrays.copyOf(this.frame_map, this.depth * 2);
+        }
+        this.frame_map[this.depth] = map;
+        this.frame_remaining[this.depth] = remaining;
+    }
+
+    private void popFrame(boolean map) {
+        if (!STRUCTURE_CHECKS) {
+            return;
+        }
+        if (this.depth == 0) {
+            throw new IllegalStateException("Frame underflow");
+        }
+        if (this.frame_map[this.depth] != map) {
+            throw new IllegalStateException(map ? "Attempted to end array frame as map" : "Attempted to end map frame as array");
+        }
+        if (this.frame_remaining[this.depth] != 0) {
+            throw new IllegalStateException("Frame underflow");
+        }
+        this.depth--;
+    }
+
+    private void decreaseFrame() {
+        if (!STRUCTURE_CHECKS) {
+            return;
+        }
+        if (this.frame_map[this.depth] && this.frame_remaining[this.depth] % 2 == 0) {
+            throw new IllegalStateException("Expected map key");
+        }
+        decreaseStringFrame();
+    }
+
+    private void decreaseStringFrame() {
+        if (!STRUCTURE_CHECKS) {
+            return;
+        }
+        if (--this.frame_remaining[this.depth] < 0) {
+            throw new IllegalStateException("Frame " + (this.frame_map[this.depth] ? "MAP" : "ARRAY") + " overflowed");
+        }
+    }
+
+}
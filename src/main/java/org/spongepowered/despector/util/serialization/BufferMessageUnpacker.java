@@ -0,0 +1,338 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.serialization;
+
+import static org.spongepowered.despector.util.serialization.MessageType.*;
+
+import com.google.common.base.Charsets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link MessageUnpacker} which reads directly from a {@link ByteBuffer},
+ * such as a heap buffer or a memory mapped region of a file.
+ *
+ * <p>The type of the next value is peeked without marking the input, and
+ * strings in heap buffers are decoded in place without an intermediate
+ * copy.</p>
+ */
+public class BufferMessageUnpacker extends MessageUnpacker {
+
+    private static final int FIXINT_TYPE_MASK = 0x80;
+    private static final int FIXINT_MASK = 0x7F;
+    private static final int SHORTSTRING_TYPE_MASK = 0xE0;
+    private static final int SHORTSTRING_MASK = 0x1F;
+    private static final int SHORTARRAY_MASK = 0xF0;
+    private static final int NIBBLE_MASK = 0xF;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates an unpacker reading the given data.
+     */
+    public BufferMessageUnpacker(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Creates an unpacker reading the given buffer from its current position
+     * up to its limit. The position of the given buffer is not changed.
+     */
+    public BufferMessageUnpacker(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     */
+    public int position() {
+        return this.buffer.position();
+    }
+
+    /**
+     * Gets the number of bytes which have not been read yet.
+     */
+    public int remaining() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private int next() {
+        return this.buffer.get() & 0xFF;
+    }
+
+    private static IllegalStateException unexpected(int next, MessageType expected) {
+        return new IllegalStateException("Unexpected type " + MessageType.of(next).name() + " but expected " + expected.name());
+    }
+
+    @Override
+    public MessageType peekType() throws IOException {
+        return MessageType.of(this.buffer.get(this.buffer.position()) & 0xFF);
+    }
+
+    @Override
+    public void readNil() throws IOException {
+        int next = next();
+        if (next != TYPE_NIL) {
+            throw unexpected(next, MessageType.NIL);
+        }
+    }
+
+    @Override
+    public boolean readBool() throws IOException {
+        int next = next();
+        if (next == TYPE_BOOL_TRUE) {
+            return true;
+        } else if (next == TYPE_BOOL_FALSE) {
+            return false;
+        }
+        throw unexpected(next, MessageType.BOOL);
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0 || (next & TYPE_NEGINT_MASK) == TYPE_NEGINT_MASK) {
+            return (byte) next;
+        } else if (next == TYPE_INT8) {
+            return this.buffer.get();
+        }
+        throw unexpected(next, MessageType.INT);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0 || (next & TYPE_NEGINT_MASK) == TYPE_NEGINT_MASK) {
+            return (byte) next;
+        } else if (next == TYPE_INT8) {
+            return this.buffer.get();
+        } else if (next == TYPE_INT16) {
+            return this.buffer.getShort();
+        }
+        throw unexpected(next, MessageType.INT);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0 || (next & TYPE_NEGINT_MASK) == TYPE_NEGINT_MASK) {
+            return (byte) next;
+        } else if (next == TYPE_INT8) {
+            return this.buffer.get();
+        } else if (next == TYPE_INT16) {
+            return this.buffer.getShort();
+        } else if (next == TYPE_INT32) {
+            return this.buffer.getInt();
+        }
+        throw unexpected(next, MessageType.INT);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0 || (next & TYPE_NEGINT_MASK) == TYPE_NEGINT_MASK) {
+            return (byte) next;
+        } else if (next == TYPE_INT8) {
+            return this.buffer.get();
+        } else if (next == TYPE_INT16) {
+            return this.buffer.getShort();
+        } else if (next == TYPE_INT32) {
+            return this.buffer.getInt();
+        } else if (next == TYPE_INT64) {
+            return this.buffer.getLong();
+        }
+        throw unexpected(next, MessageType.INT);
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            return next;
+        } else if (next == TYPE_UINT8) {
+            return next();
+        }
+        throw unexpected(next, MessageType.UINT);
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            return next;
+        } else if (next == TYPE_UINT8) {
+            return next();
+        } else if (next == TYPE_UINT16) {
+            return this.buffer.getShort() & 0xFFFF;
+        }
+        throw unexpected(next, MessageType.UINT);
+    }
+
+    @Override
+    public long readUnsignedInt() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            return next;
+        } else if (next == TYPE_UINT8) {
+            return next();
+        } else if (next == TYPE_UINT16) {
+            return this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_UINT32) {
+            return this.buffer.getInt() & 0xFFFFFFFFL;
+        }
+        throw unexpected(next, MessageType.UINT);
+    }
+
+    @Override
+    public long readUnsignedLong() throws IOException {
+        int next = next();
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            return next;
+        } else if (next == TYPE_UINT8) {
+            return next();
+        } else if (next == TYPE_UINT16) {
+            return this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_UINT32) {
+            return this.buffer.getInt() & 0xFFFFFFFFL;
+        } else if (next == TYPE_UINT64) {
+            return this.buffer.getLong();
+        }
+        throw unexpected(next, MessageType.UINT);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        int next = next();
+        if (next != TYPE_FLOAT) {
+            throw unexpected(next, MessageType.FLOAT);
+        }
+        return this.buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        int next = next();
+        if (next != TYPE_DOUBLE) {
+            throw unexpected(next, MessageType.DOUBLE);
+        }
+        return this.buffer.getDouble();
+    }
+
+    @Override
+    public String readString(int max_length) throws IOException {
+        int next = next();
+        int len;
+        if ((next & SHORTSTRING_TYPE_MASK) == TYPE_STR5_MASK) {
+            len = next & SHORTSTRING_MASK;
+        } else if (next == TYPE_STR8) {
+            len = next();
+        } else if (next == TYPE_STR16) {
+            len = this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_STR32) {
+            len = this.buffer.getInt();
+        } else if (isStringTableEnabled()) {
+            return getTableString(readStringIndex(next));
+        } else {
+            throw unexpected(next, MessageType.STRING);
+        }
+        checkLength(len, max_length);
+        String str;
+        if (this.buffer.hasArray()) {
+            int pos = this.buffer.position();
+            str = new String(this.buffer.array(), this.buffer.arrayOffset() + pos, len, Charsets.UTF_8);
+            this.buffer.position(pos + len);
+        } else {
+            byte[] data = new byte[len];
+            this.buffer.get(data);
+            str = new String(data, Charsets.UTF_8);
+        }
+        addTableString(str);
+        return str;
+    }
+
+    private int readStringIndex(int next) {
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            return next;
+        } else if (next == TYPE_INT8) {
+            return this.buffer.get();
+        } else if (next == TYPE_INT16) {
+            return this.buffer.getShort();
+        } else if (next == TYPE_INT32) {
+            return this.buffer.getInt();
+        }
+        throw unexpected(next, MessageType.STRING);
+    }
+
+    @Override
+    public byte[] readBinary() throws IOException {
+        int next = next();
+        int len;
+        if (next == TYPE_BIN8) {
+            len = next();
+        } else if (next == TYPE_BIN16) {
+            len = this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_BIN32) {
+            len = this.buffer.getInt();
+        } else {
+            throw unexpected(next, MessageType.BIN);
+        }
+        byte[] data = new byte[len];
+        this.buffer.get(data);
+        return data;
+    }
+
+    @Override
+    public int readArray() throws IOException {
+        int next = next();
+        if ((next & SHORTARRAY_MASK) == TYPE_ARRAY8_MASK) {
+            return next & NIBBLE_MASK;
+        } else if (next == TYPE_ARRAY16) {
+            return this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_ARRAY32) {
+            return this.buffer.getInt();
+        }
+        throw unexpected(next, MessageType.ARRAY);
+    }
+
+    @Override
+    public int readMap() throws IOException {
+        int next = next();
+        if ((next & SHORTARRAY_MASK) == TYPE_MAP8_MASK) {
+            return next & NIBBLE_MASK;
+        } else if (next == TYPE_MAP16) {
+            return this.buffer.getShort() & 0xFFFF;
+        } else if (next == TYPE_MAP32) {
+            return this.buffer.getInt();
+        }
+        throw unexpected(next, MessageType.MAP);
+    }
+
+}
@@ -33,6 +33,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * A serializer for writing files using the messagepack format.
@@ -48,6 +51,8 @@ public class MessagePacker implements AutoCloseable {
 
     private final DataOutputStream stream;
     private final Deque<Frame> frames = new ArrayDeque<>();
+    private Map<String, Integer> string_table;
+    private final Map<Object, Integer> object_ids = new IdentityHashMap<>();
 
     public MessagePacker(OutputStream str) {
         if (str instanceof DataOutputStream) {
@@ -58,11 +63,77 @@ public class MessagePacker implements AutoCloseable {
         this.frames.push(new Frame(FrameType.MAP, 1));
     }
 
+    /**
+     * Creates a packer for subclasses which provide their own output and
+     * override every write method.
+     */
+    protected MessagePacker() {
+        this.stream = null;
+    }
+
     @Override
     public void close() throws IOException {
         this.stream.close();
     }
 
+    /**
+     * Enables the string table for all following strings. The table is
+     * initialized with the given seed values and each other string is written
+     * once in full and then by its index in the table for every later
+     * occurrence. The reader must enable its string table with the same seed at
+     * the same point in the stream.
+     */
+    public MessagePacker enableStringTable(String... seed) {
+        this.string_table = new HashMap<>();
+        for (String str : seed) {
+            this.string_table.putIfAbsent(str, this.string_table.size());
+        }
+        return this;
+    }
+
+    /**
+     * Gets the id which references to the given object are written with, such
+     * as the breaks of a loop. Ids are numbered in the order objects are first
+     * seen since the last reset so that the output is the same every time the
+     * same tree is written.
+     */
+    public int getObjectId(Object obj) {
+        Integer id = this.object_ids.get(obj);
+        if (id == null) {
+            id = this.object_ids.size();
+            this.object_ids.put(obj, id);
+        }
+        return id;
+    }
+
+    /**
+     * Clears the ids given out by {@link #getObjectId(Object)}.
+     */
+    public void resetObjectIds() {
+        this.object_ids.clear();
+    }
+
+    /**
+     * Gets if the string table is enabled.
+     */
+    public boolean isStringTableEnabled() {
+        return this.string_table != null;
+    }
+
+    /**
+     * Gets the index of the given string in the string table. If the string
+     * table is enabled and the string is not yet in it then it is added and -1
+     * is returned so that the string is written in full. If the string table is
+     * disabled -1 is always returned.
+     */
+    protected int lookupString(String val) {
+        if (this.string_table == null) {
+            return -1;
+        }
+        Integer index = this.string_table.putIfAbsent(val, this.string_table.size());
+        return index == null ? -1 : index.intValue();
+    }
+
     /**
      * Writes a nil value.
      */
@@ -86,6 +157,11 @@ public class MessagePacker implements AutoCloseable {
      */
     public MessagePacker writeInt(long val) throws IOException {
         decreaseFrame();
+        writeIntValue(val);
+        return this;
+    }
+
+    private void writeIntValue(long val) throws IOException {
         if (val >= 0 && val <= MAX_POSITIVE_FIXINT) {
             this.stream.writeByte((int) (val & MAX_POSITIVE_FIXINT));
         } else if (val < 0 && val >= MIN_NEGATUVE_FIXINT) {
@@ -103,7 +179,6 @@ public class MessagePacker implements AutoCloseable {
             this.stream.writeByte(TYPE_INT64);
             this.stream.writeLong(val);
         }
-        return this;
     }
 
     /**
@@ -154,6 +229,11 @@ public class MessagePacker implements AutoCloseable {
      */
     public MessagePacker writeString(String val) throws IOException {
         decreaseStringFrame();
+        int index = lookupString(val);
+        if (index != -1) {
+            writeIntValue(index);
+            return this;
+        }
         byte[] chars = val.getBytes(Charsets.UTF_8);
         int len = chars.length;
         if (len <= MAX_FIXSTRING_LENGTH) {
@@ -32,6 +32,7 @@ import com.google.common.base.Charsets;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * A deserializer for data using the messagepack format.
@@ -47,6 +48,8 @@ public class MessageUnpacker implements AutoCloseable {
     private static final int NIBBLE_MASK = 0xF;
 
     private final DataInputStream stream;
+    private String[] string_table;
+    private int string_table_size;
 
     public MessageUnpacker(InputStream str) {
         if (str instanceof DataInputStream) {
@@ -57,11 +60,60 @@ public class MessageUnpacker implements AutoCloseable {
         checkState(this.stream.markSupported());
     }
 
+    /**
+     * Creates an unpacker for subclasses which provide their own input and
+     * override every read method.
+     */
+    protected MessageUnpacker() {
+        this.stream = null;
+    }
+
     @Override
     public void close() throws IOException {
         this.stream.close();
     }
 
+    /**
+     * Enables the string table for all following strings. The seed must match
+     * the seed given to {@link MessagePacker#enableStringTable} when the data
+     * was written.
+     */
+    public MessageUnpacker enableStringTable(String... seed) {
+        this.string_table = Arrays.copyOf(seed, Math.max(seed.length * 2, 16));
+        this.string_table_size = seed.length;
+        return this;
+    }
+
+    /**
+     * Gets if the string table is enabled.
+     */
+    public boolean isStringTableEnabled() {
+        return this.string_table != null;
+    }
+
+    /**
+     * Gets the string at the given index of the string table.
+     */
+    protected String getTableString(int index) {
+        if (index < 0 || index >= this.string_table_size) {
+            throw new IllegalStateException("String table index " + index + " out of bounds");
+        }
+        return this.string_table[index];
+    }
+
+    /**
+     * Adds the given string to the string table if it is enabled.
+     */
+    protected void addTableString(String str) {
+        if (this.string_table == null) {
+            return;
+        }
+        if (this.string_table_size == this.string_table.length) {
+            this.string_table = Arrays.copyOf(this.string_table, this.string_table.length * 2);
+        }
+        this.string_table[this.string_table_size++] = str;
+    }
+
     /**
      * Peeks at the next type in the input.
      */
@@ -266,7 +318,14 @@ public class MessageUnpacker implements AutoCloseable {
      * Reads a string value from the input.
      */
     public String readString() throws IOException {
-        expectType(MessageType.STRING);
+        return readString(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a string value from the input, failing before the string is read
+     * if it is longer than the given number of bytes.
+     */
+    public String readString(int max_length) throws IOException {
         int next = this.stream.readUnsignedByte();
         int len = -1;
         if ((next & SHORTSTRING_TYPE_MASK) == TYPE_STR5_MASK) {
@@ -277,10 +336,43 @@ public class MessageUnpacker implements AutoCloseable {
             len = this.stream.readUnsignedShort();
         } else if (next == TYPE_STR32) {
             len = this.stream.readInt();
+        } else if (this.string_table != null) {
+            return readStringReference(next);
+        } else {
+            throw new IllegalStateException("Unexpected type " + MessageType.of(next).name() + " but expected STRING");
         }
+        checkLength(len, max_length);
         byte[] data = new byte[len];
-        this.stream.read(data);
-        return new String(data, Charsets.UTF_8);
+        this.stream.readFully(data);
+        String str = new String(data, Charsets.UTF_8);
+        addTableString(str);
+        return str;
+    }
+
+    /**
+     * Checks that a string of the given length, which is negative if its
+     * length does not fit in an int, is no longer than the given limit.
+     */
+    protected static void checkLength(int len, int max_length) {
+        if (len < 0 || len > max_length) {
+            throw new IllegalStateException("String of " + (len & 0xFFFFFFFFL) + " bytes is longer than the limit of " + max_length);
+        }
+    }
+
+    private String readStringReference(int next) throws IOException {
+        int index = -1;
+        if ((next & FIXINT_TYPE_MASK) == 0) {
+            index = next;
+        } else if (next == TYPE_INT8) {
+            index = this.stream.readByte();
+        } else if (next == TYPE_INT16) {
+            index = this.stream.readShort();
+        } else if (next == TYPE_INT32) {
+            index = this.stream.readInt();
+        } else {
+            throw new IllegalStateException("Unexpected type " + MessageType.of(next).name() + " but expected STRING");
+        }
+        return getTableString(index);
     }
 
     /**
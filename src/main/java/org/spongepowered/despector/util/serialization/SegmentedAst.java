@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.despector.util.serialization;
+
+import com.google.common.base.Throwables;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A container of serialized types which is split into independently loadable
+ * segments.
+ *
+ * <p>The container starts with a magic number, a version and the number of
+ * segments. Each segment is then prefixed with its length in bytes and holds a
+ * chunk of types in the same format as {@link SourceSet#writeTo}, including
+ * its own string table. Segments can therefore be decoded concurrently, and
+ * {@link #load(SourceSet, InputStream, int)} reads the segments on the calling
+ * thread while a pool of threads decodes them into the source set.</p>
+ */
+public final class SegmentedAst {
+
+    public static final int MAGIC = 0x44535053;
+    public static final int VERSION = 1;
+    public static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    /**
+     * Writes all types in the given source set to a segmented container at
+     * the given path.
+     */
+    public static void write(SourceSet set, Path path) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            write(set.getAllClasses(), out, DEFAULT_SEGMENT_SIZE);
+        }
+    }
+
+    /**
+     * Writes the given types to the given output stream in segments of at
+     * most the given number of types.
+     */
+    public static void write(Collection<TypeEntry> types, OutputStream stream, int segment_size) throws IOException {
+        if (segment_size < 1) {
+            throw new IllegalArgumentException("Segment size must be positive but was " + segment_size);
+        }
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        int segments = (types.size() + segment_size - 1) / segment_size;
+        out.writeInt(segments);
+        Iterator<TypeEntry> it = types.iterator();
+        for (int i = 0; i < segments; i++) {
+            int size = Math.min(segment_size, types.size() - i * segment_size);
+            BufferMessagePacker pack = new BufferMessagePacker();
+            pack.startMap(2);
+            pack.writeString("version").writeInt(AstSerializer.VERSION_2);
+            AstSerializer.enableStringTable(pack);
+            pack.writeString("classes");
+            pack.startArray(size);
+            for (int j = 0; j < size; j++) {
+                it.next().writeTo(pack);
+            }
+            pack.endArray();
+            pack.endMap();
+            out.writeInt(pack.size());
+            pack.writeTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Loads all types from the segmented container at the given path into the
+     * given source set, using one thread per available processor.
+     */
+    public static void load(SourceSet set, Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            load(set, in, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Loads all types from the given segmented container into the given
+     * source set. A thread count of one loads every segment on the calling
+     * thread.
+     */
+    public static void load(SourceSet set, InputStream stream, int threads) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IllegalStateException("Not a segmented ast");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported segmented ast version " + version);
+        }
+        int segments = in.readInt();
+        if (segments < 0) {
+            throw new IllegalStateException("Corrupt segment count " + segments);
+        }
+        if (threads <= 1 || segments < 2) {
+            for (int i = 0; i < segments; i++) {
+                AstLoader.loadSources(set, new BufferMessageUnpacker(readSegment(in)));
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, segments), (r) -> {
+            Thread thread = new Thread(r, "Despector ast loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>(segments);
+            for (int i = 0; i < segments; i++) {
+                byte[] segment = readSegment(in);
+                tasks.add(executor.submit(() -> {
+                    AstLoader.loadSources(set, new BufferMessageUnpacker(segment));
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading segments", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] readSegment(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IllegalStateException("Corrupt segment length " + length);
+        }
+        byte[] segment = new byte[length];
+        in.readFully(segment);
+        return segment;
+    }
+
+    private SegmentedAst() {
+    }
+
+}
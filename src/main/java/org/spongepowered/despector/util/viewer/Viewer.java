@@ -29,6 +29,7 @@ import org.spongepowered.despector.Despector;
 import org.spongepowered.despector.ast.type.MethodEntry;
 import org.spongepowered.despector.ast.type.TypeEntry;
 import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.format.EmitterFormat;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
@@ -125,6 +126,7 @@ public class Viewer {
         LibraryConfiguration.parallel = false;
         LibraryConfiguration.quiet = false;
         LibraryConfiguration.emit_block_debug = true;
+        LibraryConfiguration.retention = Retention.ALL;
 
         tabs.put(TabType.SOURCE, new TabData(TabType.SOURCE));
         tabs.put(TabType.BYTECODE, new TabData(TabType.BYTECODE));
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.ast.Locals.Local;
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.insn.cst.IntConstant;
+import org.spongepowered.despector.ast.insn.cst.StringConstant;
+import org.spongepowered.despector.ast.insn.var.LocalAccess;
+import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
+import org.spongepowered.despector.ast.stmt.misc.Return;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.transform.matcher.CompiledInstructionMatcher;
+import org.spongepowered.despector.transform.matcher.CompiledStatementMatcher;
+import org.spongepowered.despector.transform.matcher.InstructionMatcher;
+import org.spongepowered.despector.transform.matcher.MatchContext;
+import org.spongepowered.despector.transform.matcher.StatementMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CompiledMatcherTest {
+
+    private static LocalInstance createLocal(int index, String name) {
+        MethodEntry method = new MethodEntry(new SourceSet());
+        method.setStatic(true);
+        Locals locals = new Locals(method);
+        Local l = locals.getLocal(index);
+        LocalInstance insn = new LocalInstance(l, name, ClassTypeSignature.INT, -1, -1);
+        l.addInstance(insn);
+        return insn;
+    }
+
+    private static final StatementMatcher<?> ASSIGN_FIVE = MatchContext.storeLocal("five", StatementMatcher.localAssign()
+            .value(InstructionMatcher.intConstant()
+                    .value(5)
+                    .build())
+            .build());
+    private static final StatementMatcher<?> ASSIGN_ANY = StatementMatcher.localAssign()
+            .build();
+    private static final StatementMatcher<?> RETURN_LOCAL = StatementMatcher.returnValue()
+            .value(InstructionMatcher.localAccess()
+                    .fromContext("returned")
+                    .allowMissing()
+                    .build())
+            .build();
+
+    @Test
+    public void testDispatch() {
+        CompiledStatementMatcher<String> compiled = StatementMatcher.<String>compile()
+                .add("five", ASSIGN_FIVE)
+                .add("assign", ASSIGN_ANY)
+                .add("return", RETURN_LOCAL)
+                .build();
+        Assert.assertEquals(3, compiled.size());
+
+        LocalInstance local = createLocal(0, "i");
+        MatchContext ctx = MatchContext.create();
+        Assert.assertEquals("five", compiled.match(ctx, new LocalAssignment(local, new IntConstant(5))));
+        Assert.assertEquals(local, ctx.getLocal("five"));
+        Assert.assertEquals("assign", compiled.match(ctx, new LocalAssignment(local, new StringConstant("a"))));
+        Assert.assertNull(ctx.getLocal("five"));
+        Assert.assertEquals("return", compiled.match(ctx, new Return(new LocalAccess(local))));
+        Assert.assertEquals(local, ctx.getLocal("returned"));
+        Assert.assertNull(compiled.match(ctx, new Return()));
+    }
+
+    @Test
+    public void testMatchAll() {
+        CompiledStatementMatcher<String> compiled = StatementMatcher.<String>compile()
+                .add("five", ASSIGN_FIVE)
+                .add("return", RETURN_LOCAL)
+                .add("assign", ASSIGN_ANY)
+                .add("any", StatementMatcher.ANY)
+                .build();
+        List<String> found = new ArrayList<>();
+        compiled.matchAll(MatchContext.create(), new LocalAssignment(createLocal(0, "i"), new IntConstant(5)), (k, c) -> found.add(k));
+        Assert.assertEquals(3, found.size());
+        Assert.assertEquals("five", found.get(0));
+        Assert.assertEquals("assign", found.get(1));
+        Assert.assertEquals("any", found.get(2));
+    }
+
+    @Test
+    public void testInstructions() {
+        CompiledInstructionMatcher<Integer> compiled = InstructionMatcher.<Integer>compile()
+                .add(0, InstructionMatcher.intConstant().value(1).build())
+                .add(1, InstructionMatcher.stringConstant().value("a").build())
+                .add(2, InstructionMatcher.intConstant().build())
+                .build();
+        Assert.assertEquals(Integer.valueOf(0), compiled.match(new IntConstant(1)));
+        Assert.assertEquals(Integer.valueOf(2), compiled.match(new IntConstant(2)));
+        Assert.assertEquals(Integer.valueOf(1), compiled.match(new StringConstant("a")));
+        Assert.assertNull(compiled.match(new StringConstant("b")));
+    }
+
+    @Test
+    public void testContextSlots() {
+        MatchContext ctx = MatchContext.create();
+        List<LocalInstance> locals = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LocalInstance local = createLocal(i, "l" + i);
+            locals.add(local);
+            ctx.setLocal("l" + i, local);
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(locals.get(i), ctx.getLocal(new String("l" + i)));
+        }
+        ctx.setLocal("l3", locals.get(0));
+        Assert.assertEquals(locals.get(0), ctx.getLocal("l3"));
+        ctx.reset();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(ctx.getLocal("l" + i));
+        }
+        Assert.assertNull(ctx.getLocal("missing"));
+    }
+
+}
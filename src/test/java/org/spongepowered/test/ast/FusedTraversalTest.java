@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.AstVisitor;
+import org.spongepowered.despector.ast.insn.InstructionVisitor;
+import org.spongepowered.despector.ast.insn.condition.ConditionVisitor;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.stmt.StatementVisitor;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.transform.traverse.FusedTraversal;
+import org.spongepowered.despector.util.TypeHelper;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.test.util.TestHelper;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FusedTraversalTest {
+
+    private static AstVisitor recorder(List<String> log, Class<?>... types) {
+        return (AstVisitor) Proxy.newProxyInstance(FusedTraversalTest.class.getClassLoader(), types, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(log, args);
+            }
+            log.add(method.getName() + " " + System.identityHashCode(args[0]));
+            return null;
+        });
+    }
+
+    private static void check(Class<?> cls) {
+        TypeEntry type = TestHelper.get(cls);
+        List<MethodEntry> methods = new ArrayList<>(type.getMethods());
+        methods.addAll(type.getStaticMethods());
+        for (MethodEntry mth : methods) {
+            StatementBlock block = mth.getInstructions();
+            if (block == null) {
+                continue;
+            }
+            List<String> stmt_expected = new ArrayList<>();
+            List<String> insn_expected = new ArrayList<>();
+            List<String> cond_expected = new ArrayList<>();
+            block.accept(recorder(stmt_expected, StatementVisitor.class));
+            block.accept(recorder(insn_expected, InstructionVisitor.class));
+            block.accept(recorder(cond_expected, InstructionVisitor.class, ConditionVisitor.class));
+
+            List<String> stmt_actual = new ArrayList<>();
+            List<String> insn_actual = new ArrayList<>();
+            List<String> cond_actual = new ArrayList<>();
+            new FusedTraversal()
+                    .addVisitor(recorder(stmt_actual, StatementVisitor.class))
+                    .addVisitor(recorder(insn_actual, InstructionVisitor.class))
+                    .addVisitor(recorder(cond_actual, InstructionVisitor.class, ConditionVisitor.class))
+                    .traverse(block);
+            Assert.assertEquals(mth.getName(), stmt_expected, stmt_actual);
+            Assert.assertEquals(mth.getName(), insn_expected, insn_actual);
+            Assert.assertEquals(mth.getName(), cond_expected, cond_actual);
+        }
+    }
+
+    @Test
+    public void testVisitOrder() {
+        check(FusedTraversal.class);
+        check(MessagePacker.class);
+        check(TypeHelper.class);
+    }
+
+    @Test
+    public void testRewritersAppliedToNestedBlocks() {
+        TypeEntry type = TestHelper.get(TypeHelper.class);
+        List<StatementBlock> blocks = new ArrayList<>();
+        int count = 0;
+        for (MethodEntry mth : type.getStaticMethods()) {
+            if (mth.getInstructions() == null) {
+                continue;
+            }
+            new FusedTraversal().addRewriter(blocks::add).traverse(mth.getInstructions());
+            count++;
+        }
+        Assert.assertTrue(blocks.size() > count);
+    }
+
+}
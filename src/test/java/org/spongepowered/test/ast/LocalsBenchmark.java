@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Times decompiling synthetic methods with a large number of locals, either
+ * each in its own slot or reusing a few slots across many scopes.
+ */
+public class LocalsBenchmark {
+
+    // slots above 255 need the unsupported wide opcode
+    private static final int WIDE_LOCALS = 250;
+    private static final int SCOPES = 8000;
+    private static final int ROUNDS = 10;
+
+    /**
+     * Generates a method with the given number of int locals, each in its own
+     * slot and live until the end of the method.
+     */
+    public static void generateWide(ClassWriter cw, String name, int count) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, "()I", null, null);
+        mv.visitCode();
+        Label end = new Label();
+        for (int i = 0; i < count; i++) {
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(Opcodes.ISTORE, i);
+            Label start = new Label();
+            mv.visitLabel(start);
+            mv.visitLocalVariable("v" + i, "I", null, start, end, i);
+        }
+        mv.visitInsn(Opcodes.ICONST_0);
+        for (int i = 0; i < count; i++) {
+            mv.visitVarInsn(Opcodes.ILOAD, i);
+            mv.visitInsn(Opcodes.IADD);
+        }
+        mv.visitLabel(end);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(2, count);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates a method with the given number of sequential scopes which
+     * each declare new locals in the same two slots.
+     */
+    public static void generateReused(ClassWriter cw, String name, int count) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, "()I", null, null);
+        mv.visitCode();
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitVarInsn(Opcodes.ISTORE, 0);
+        Label first = new Label();
+        mv.visitLabel(first);
+        for (int i = 0; i < count; i++) {
+            mv.visitLdcInsn(i);
+            mv.visitVarInsn(Opcodes.ISTORE, 1);
+            Label start = new Label();
+            mv.visitLabel(start);
+            mv.visitVarInsn(Opcodes.ILOAD, 0);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitVarInsn(Opcodes.ISTORE, 0);
+            Label end = new Label();
+            mv.visitLabel(end);
+            mv.visitLocalVariable("s" + i, "I", null, start, end, 1);
+        }
+        Label last = new Label();
+        mv.visitVarInsn(Opcodes.ILOAD, 0);
+        mv.visitLabel(last);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitLocalVariable("total", "I", null, first, last, 0);
+        mv.visitMaxs(2, 2);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates a class containing a method with the given number of locals
+     * in separate slots and a method with the given number of scopes.
+     */
+    public static byte[] generate(String name, int locals, int scopes) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        generateWide(cw, "wide", locals);
+        generateReused(cw, "reused", scopes);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        LibraryConfiguration.quiet = true;
+        LibraryConfiguration.parallel = false;
+        byte[] data = generate("bench/Locals", WIDE_LOCALS, SCOPES);
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Decompilers.WILD.decompile(new ByteArrayInputStream(data), new SourceSet());
+            System.out.printf("decompile %d locals and %d scopes: %d ms%n", WIDE_LOCALS, SCOPES, (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.spongepowered.despector.ast.Locals;
+import org.spongepowered.despector.ast.Locals.Local;
+import org.spongepowered.despector.ast.Locals.LocalInstance;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.generic.MethodSignature;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.util.LabelIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class LocalsTest {
+
+    private static Locals locals() {
+        MethodEntry mth = new MethodEntry(new SourceSet());
+        mth.setStatic(true);
+        mth.setMethodSignature(new MethodSignature());
+        return new Locals(mth);
+    }
+
+    private static LocalInstance linear(Local local, int index) {
+        for (LocalInstance insn : local.getInstances()) {
+            if (index >= insn.getStart() - 1 && index <= insn.getEnd()) {
+                return insn;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testOverlappingInstances() {
+        Random rand = new Random(42);
+        Local local = locals().getLocal(0);
+        for (int i = 0; i < 200; i++) {
+            int start = rand.nextInt(1000);
+            local.addInstance(new LocalInstance(local, "v" + i, ClassTypeSignature.INT, start, start + rand.nextInt(50)));
+        }
+        for (int index = -2; index < 1100; index++) {
+            LocalInstance expected = linear(local, index);
+            if (expected != null) {
+                assertSame(expected, local.getInstance(index));
+            }
+        }
+    }
+
+    @Test
+    public void testAddAfterLookup() {
+        Local local = locals().getLocal(0);
+        for (int i = 0; i < 10; i++) {
+            local.addInstance(new LocalInstance(local, "v" + i, ClassTypeSignature.INT, i * 10, i * 10 + 5));
+        }
+        assertEquals("v3", local.getInstance(32).getName());
+        local.addInstance(new LocalInstance(local, "late", ClassTypeSignature.INT, 7, 8));
+        assertEquals("late", local.getInstance(7).getName());
+        assertEquals("v0", local.getInstance(4).getName());
+    }
+
+    @Test
+    public void testNonConflictingName() {
+        Locals locals = locals();
+        for (int i = 0; i < 3; i++) {
+            Local local = locals.getLocal(i);
+            String name = i == 0 ? "i" : "i" + i;
+            local.addInstance(new LocalInstance(local, name, ClassTypeSignature.INT, 1, 10));
+        }
+        assertEquals("i12", locals.getNonConflictingName("i", 5));
+        assertEquals("j", locals.getNonConflictingName("j", 5));
+    }
+
+    @Test
+    public void testLabelIndex() {
+        LabelIndex labels = LabelIndex.of(Arrays.asList(0, 1, 1, 4, 7));
+        assertEquals(0, labels.indexOf(0));
+        assertEquals(1, labels.indexOf(1));
+        assertEquals(-1, labels.indexOf(2));
+        assertEquals(3, labels.indexOf(4));
+        assertEquals(4, labels.indexOf(7));
+        assertEquals(-1, labels.indexOf(8));
+        assertEquals(-1, labels.indexOf(-1));
+        assertEquals(7, labels.getLastOffset());
+        assertTrue(LabelIndex.of(Collections.emptyList()).isEmpty());
+    }
+
+}
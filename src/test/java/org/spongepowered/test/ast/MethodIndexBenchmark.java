@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.Decompilers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Times loading a synthetic class with a large number of overloaded methods
+ * and looking each of them up by name and descriptor.
+ */
+public class MethodIndexBenchmark {
+
+    private static final int NAMES = 100;
+    private static final int OVERLOADS = 100;
+    private static final int ROUNDS = 10;
+
+    public static String getName(int index) {
+        return "m" + (index % NAMES);
+    }
+
+    public static String getDescriptor(int index) {
+        StringBuilder desc = new StringBuilder("(");
+        for (int i = 0; i < index / NAMES; i++) {
+            desc.append('I');
+        }
+        return desc.append(")V").toString();
+    }
+
+    /**
+     * Generates a class with the given number of static methods, spread as
+     * overloads over a fixed set of names.
+     */
+    public static byte[] generate(String name, int count) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        for (int i = 0; i < count; i++) {
+            MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, getName(i), getDescriptor(i), null, null);
+            mv.visitCode();
+            mv.visitInsn(Opcodes.RETURN);
+            mv.visitMaxs(0, i / NAMES);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        LibraryConfiguration.quiet = true;
+        LibraryConfiguration.parallel = false;
+        int count = NAMES * OVERLOADS;
+        byte[] data = generate("bench/Methods", count);
+        String[] names = new String[count];
+        String[] descs = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = getName(i);
+            descs[i] = getDescriptor(i);
+        }
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            TypeEntry type = Decompilers.WILD.decompile(new ByteArrayInputStream(data), new SourceSet());
+            long load = System.nanoTime() - start;
+            start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < count; i++) {
+                if (type.getStaticMethod(names[i], descs[i]) != null) {
+                    found++;
+                }
+            }
+            long lookup = System.nanoTime() - start;
+            System.out.printf("load %d methods: %d ms, lookup %d methods: %d us%n", type.getStaticMethodCount(), load / 1000000, found,
+                    lookup / 1000);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.ClassEntry;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MethodIndexTest {
+
+    private static MethodEntry method(SourceSet set, String name, String desc, boolean is_static) {
+        MethodEntry mth = new MethodEntry(set);
+        mth.setName(name);
+        mth.setDescription(desc);
+        mth.setStatic(is_static);
+        return mth;
+    }
+
+    @Test
+    public void testLookup() {
+        SourceSet set = new SourceSet();
+        TypeEntry type = new ClassEntry(set, Language.JAVA, "test/Methods");
+        int count = 10000;
+        List<MethodEntry> added = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MethodEntry mth = method(set, MethodIndexBenchmark.getName(i), MethodIndexBenchmark.getDescriptor(i), (i & 1) == 0);
+            type.addMethod(mth);
+            added.add(mth);
+        }
+        assertEquals(count / 2, type.getStaticMethodCount());
+        assertEquals(count / 2, type.getMethodCount());
+        for (int i = 0; i < count; i++) {
+            MethodEntry mth = added.get(i);
+            if (mth.isStatic()) {
+                assertSame(mth, type.getStaticMethod(mth.getName(), mth.getDescription()));
+                assertNull(type.getMethod(mth.getName(), mth.getDescription()));
+            } else {
+                assertSame(mth, type.getMethod(mth.getName(), mth.getDescription()));
+                assertNull(type.getStaticMethod(mth.getName(), mth.getDescription()));
+            }
+        }
+        assertNull(type.getMethod("m0", "(J)V"));
+        assertNull(type.getMethod("missing", "()V"));
+
+        int i = 0;
+        for (MethodEntry mth : type.getStaticMethods()) {
+            assertSame(added.get(i), mth);
+            i += 2;
+        }
+        i = 1;
+        for (MethodEntry mth : type.getMethods()) {
+            assertSame(added.get(i), mth);
+            i += 2;
+        }
+    }
+
+    @Test
+    public void testByName() {
+        SourceSet set = new SourceSet();
+        TypeEntry type = new ClassEntry(set, Language.JAVA, "test/Methods");
+        MethodEntry single = method(set, "single", "()V", false);
+        type.addMethod(single);
+        type.addMethod(method(set, "overloaded", "()V", false));
+        type.addMethod(method(set, "overloaded", "(I)V", false));
+        assertSame(single, type.getMethod("single"));
+        assertNull(type.getMethod("missing"));
+        try {
+            type.getMethod("overloaded");
+            throw new AssertionError("Expected ambiguous method lookup to fail");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicate() {
+        SourceSet set = new SourceSet();
+        TypeEntry type = new ClassEntry(set, Language.JAVA, "test/Methods");
+        type.addMethod(method(set, "twice", "(I)V", true));
+        type.addMethod(method(set, "twice", "(I)V", true));
+    }
+
+}
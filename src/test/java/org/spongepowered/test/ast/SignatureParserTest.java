@@ -26,6 +26,8 @@ package org.spongepowered.test.ast;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -39,6 +41,7 @@ import org.spongepowered.despector.ast.generic.TypeSignature;
 import org.spongepowered.despector.ast.generic.TypeVariableSignature;
 import org.spongepowered.despector.ast.generic.WildcardType;
 import org.spongepowered.despector.util.SignatureParser;
+import org.spongepowered.despector.util.TypeHelper;
 
 public class SignatureParserTest {
 
@@ -126,4 +129,25 @@ public class SignatureParserTest {
         assertEquals("Lio/github/katrix/katlib/shade/scala/Option;", parent.getDescriptor());
     }
 
+    @Test
+    public void testInterned() {
+        String desc = "Lcom/example/Interned;";
+        assertSame(TypeHelper.intern(desc), TypeHelper.intern(new String(desc)));
+        ClassTypeSignature type = ClassTypeSignature.of(desc);
+        assertSame(type, ClassTypeSignature.of(new String(desc)));
+        assertSame(TypeHelper.intern(desc), type.getType());
+        assertNotSame(type, ClassTypeSignature.of(desc, true));
+        assertEquals(type, ClassTypeSignature.of(desc, true));
+        assertEquals(type.hashCode(), ClassTypeSignature.of(desc, true).hashCode());
+
+        String sig = "(Lcom/example/Interned;I)Lcom/example/Interned;";
+        MethodSignature mth = SignatureParser.internMethod(sig);
+        assertSame(mth, SignatureParser.internMethod(new String(sig)));
+        assertNotSame(mth, SignatureParser.parseMethod(sig));
+        assertEquals(mth, SignatureParser.parseMethod(sig));
+        assertSame(TypeHelper.intern(desc), ((GenericClassTypeSignature) mth.getParameters().get(0)).getType());
+        assertSame(ClassTypeSignature.INT, mth.getParameters().get(1));
+        assertSame(TypeHelper.intern(desc), ((GenericClassTypeSignature) mth.getReturnType()).getType());
+    }
+
 }
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.ast;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.AccessModifier;
+import org.spongepowered.despector.ast.SpillingSourceSet;
+import org.spongepowered.despector.ast.generic.ClassSignature;
+import org.spongepowered.despector.ast.type.ClassEntry;
+import org.spongepowered.despector.ast.type.EnumEntry;
+import org.spongepowered.despector.ast.type.InterfaceEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SpillingSourceSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<TypeEntry> types() {
+        return Arrays.asList(TestHelper.get(First.class), TestHelper.get(Second.class), TestHelper.get(Third.class));
+    }
+
+    @Test
+    public void testSpillAndReload() throws IOException {
+        Path spill = this.folder.getRoot().toPath().resolve("types.spill");
+        List<TypeEntry> types = types();
+        try (SpillingSourceSet set = new SpillingSourceSet(0, spill)) {
+            for (TypeEntry type : types) {
+                set.add(type);
+            }
+            Assert.assertEquals(1, set.getHeldCount());
+            Assert.assertEquals(2, set.getSpillCount());
+
+            set.releaseSpilled();
+            for (TypeEntry type : types) {
+                TypeEntry loaded = set.get(type.getName());
+                Assert.assertNotNull(loaded);
+                Assert.assertArrayEquals(TestHelper.serialize(type), TestHelper.serialize(loaded));
+                if (loaded != type) {
+                    Assert.assertSame(set, loaded.getSource());
+                }
+            }
+            Assert.assertEquals(2, set.getReloadCount());
+            Assert.assertNull(set.get("missing/Type"));
+        }
+        Assert.assertFalse(Files.exists(spill));
+    }
+
+    @Test
+    public void testWithinBudget() throws IOException {
+        List<TypeEntry> types = types();
+        try (SpillingSourceSet set = new SpillingSourceSet(Long.MAX_VALUE, this.folder.getRoot().toPath().resolve("types.spill"))) {
+            for (TypeEntry type : types) {
+                set.add(type);
+            }
+            Assert.assertEquals(3, set.getHeldCount());
+            Assert.assertEquals(0, set.getSpillCount());
+            for (TypeEntry type : types) {
+                Assert.assertSame(type, set.get(type.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void testIterationKeepsChanges() throws IOException {
+        List<TypeEntry> types = types();
+        try (SpillingSourceSet set = new SpillingSourceSet(0, this.folder.getRoot().toPath().resolve("types.spill"))) {
+            for (TypeEntry type : types) {
+                set.add(type);
+            }
+            List<String> names = new ArrayList<>();
+            for (TypeEntry type : set.getAllClasses()) {
+                type.setSynthetic(true);
+                names.add(type.getName());
+            }
+            Assert.assertEquals(3, names.size());
+            set.releaseSpilled();
+            for (TypeEntry type : set.getAllClasses()) {
+                Assert.assertTrue(type.isSynthetic());
+            }
+        }
+    }
+
+    private static TypeEntry create(TypeEntry type) {
+        type.setAccessModifier(AccessModifier.PUBLIC);
+        type.setSignature(new ClassSignature());
+        return type;
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        try (SpillingSourceSet set = new SpillingSourceSet(0, this.folder.getRoot().toPath().resolve("types.spill"))) {
+            set.add(new ClassEntry(set, Language.JAVA, "test/Replaced") {
+
+                @Override
+                public void writeTo(MessagePacker pack, boolean with_bodies) throws IOException {
+                    throw new IOException("Not serializable");
+                }
+
+            });
+            Assert.assertEquals(1, set.getPinnedCount());
+
+            set.add(create(new InterfaceEntry(set, Language.JAVA, "test/Replaced")));
+            Assert.assertEquals(0, set.getPinnedCount());
+            Assert.assertEquals(1, set.getAllInterfaces().size());
+
+            set.add(create(new EnumEntry(set, Language.JAVA, "test/Replaced")));
+            Assert.assertEquals(0, set.getAllInterfaces().size());
+            Assert.assertEquals(1, set.getAllEnums().size());
+            Assert.assertTrue(set.getAllEnums().iterator().next() instanceof EnumEntry);
+        }
+    }
+
+    public static class First {
+
+        public int sum(int a, int b) {
+            return a + b;
+        }
+
+    }
+
+    public static class Second {
+
+        private String name;
+
+        public String getName() {
+            if (this.name == null) {
+                return "none";
+            }
+            return this.name;
+        }
+
+    }
+
+    public static class Third {
+
+        public static void loop(int[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= 2;
+            }
+        }
+
+    }
+
+}
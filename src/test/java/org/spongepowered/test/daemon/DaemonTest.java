@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.daemon;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.daemon.DaemonClient;
+import org.spongepowered.despector.daemon.DaemonServer;
+import org.spongepowered.despector.parallel.Timing;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class DaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Thread start(DaemonServer server) {
+        Thread thread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testDecompile() throws Exception {
+        Path daemon_file = this.folder.getRoot().toPath().resolve("daemon");
+        Path work = this.folder.newFolder("work").toPath();
+        try (InputStream in = Timing.class.getResourceAsStream("Timing.class")) {
+            Files.copy(in, work.resolve("Timing.class"));
+        }
+        DaemonServer server = new DaemonServer(0, daemon_file);
+        Thread thread = start(server);
+
+        DaemonClient client = new DaemonClient(daemon_file);
+        Assert.assertEquals(DaemonServer.STATUS_OK, client.ping());
+        for (int i = 0; i < 2; i++) {
+            Path out = work.resolve("out" + i);
+            Assert.assertEquals(client.getOutput(), DaemonServer.STATUS_OK, client.decompile(Arrays.asList("Timing.class", "out" + i), work));
+            Path source = out.resolve("org/spongepowered/despector/parallel/Timing.java");
+            Assert.assertTrue(Files.exists(source));
+            Assert.assertTrue(new String(Files.readAllBytes(source), StandardCharsets.UTF_8).contains("class Timing"));
+        }
+        Assert.assertEquals(DaemonServer.STATUS_FAILED, client.decompile(Arrays.asList("missing.class", "out"), work));
+
+        Assert.assertEquals(DaemonServer.STATUS_OK, client.stop());
+        thread.join(10000);
+        Assert.assertFalse(server.isRunning());
+        Assert.assertFalse(Files.exists(daemon_file));
+    }
+
+    @Test
+    public void testRejectsBadToken() throws Exception {
+        Path daemon_file = this.folder.getRoot().toPath().resolve("daemon");
+        DaemonServer server = new DaemonServer(0, daemon_file);
+        Thread thread = start(server);
+
+        Path forged = this.folder.getRoot().toPath().resolve("forged");
+        Files.write(forged, Arrays.asList(String.valueOf(server.getPort()), "0000"), StandardCharsets.UTF_8);
+        DaemonClient bad = new DaemonClient(forged);
+        Assert.assertEquals(DaemonServer.STATUS_REJECTED, bad.stop());
+        Assert.assertTrue(server.isRunning());
+
+        Assert.assertEquals(DaemonServer.STATUS_OK, new DaemonClient(daemon_file).stop());
+        thread.join(10000);
+        Assert.assertFalse(server.isRunning());
+    }
+
+    @Test(timeout = 30000)
+    public void testBadClients() throws Exception {
+        Path daemon_file = this.folder.getRoot().toPath().resolve("daemon");
+        DaemonServer server = new DaemonServer(0, daemon_file);
+        server.setRequestTimeout(200);
+        Thread thread = start(server);
+
+        // a client which never sends its request is dropped
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            Assert.assertTrue(idle.isConnected());
+            DaemonClient client = new DaemonClient(daemon_file);
+            Assert.assertEquals(DaemonServer.STATUS_OK, client.ping());
+        }
+
+        // a token claiming to be 2gb long is refused before it is allocated
+        try (Socket huge = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            MessagePacker pack = new MessagePacker(huge.getOutputStream());
+            pack.startMap(1);
+            pack.writeString("token");
+            huge.getOutputStream().write(new byte[] {(byte) 0xDB, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+            huge.getOutputStream().flush();
+            Assert.assertEquals(-1, huge.getInputStream().read());
+        }
+        Assert.assertTrue(server.isRunning());
+
+        Assert.assertEquals(DaemonServer.STATUS_OK, new DaemonClient(daemon_file).stop());
+        thread.join(10000);
+        Assert.assertFalse(server.isRunning());
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
+import org.spongepowered.despector.decompiler.error.SourceFormatException;
+import org.spongepowered.despector.decompiler.mapping.Mappings;
+import org.spongepowered.despector.parallel.AsyncDecompiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class AsyncDecompilerTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        this.executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private static String name(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static byte[] read(Class<?> type) throws IOException {
+        try (InputStream input = type.getResourceAsStream("/" + name(type) + ".class")) {
+            return ByteStreams.toByteArray(input);
+        }
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        AsyncDecompiler async = new AsyncDecompiler(this.executor);
+        SourceSet set = new SourceSet();
+        SourceSet result = async.submitBatch(Arrays.asList(read(First.class), read(Second.class)), set).join();
+        Assert.assertSame(set, result);
+        TypeEntry first = set.get(name(First.class));
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(first.getStaticMethod("value").getInstructions());
+        Assert.assertNotNull(set.get(name(Second.class)));
+    }
+
+    @Test
+    public void testIndependentJobs() throws IOException {
+        Mappings mappings = new Mappings();
+        mappings.addClass(name(First.class), "org/example/Renamed");
+        AsyncDecompiler mapped = new AsyncDecompiler(this.executor);
+        mapped.getDecompiler().setMappings(mappings);
+        AsyncDecompiler plain = new AsyncDecompiler(this.executor);
+
+        SourceSet mapped_set = new SourceSet();
+        SourceSet plain_set = new SourceSet();
+        CompletableFuture<TypeEntry> mapped_type = mapped.submit(read(First.class), mapped_set);
+        CompletableFuture<TypeEntry> plain_type = plain.submit(read(First.class), plain_set);
+        Assert.assertEquals("org/example/Renamed", mapped_type.join().getName());
+        Assert.assertEquals(name(First.class), plain_type.join().getName());
+        Assert.assertNull(plain_set.get("org/example/Renamed"));
+    }
+
+    @Test
+    public void testIndependentOptions() throws IOException {
+        AsyncDecompiler minimal = new AsyncDecompiler(this.executor);
+        minimal.getDecompiler().getOptions().setRetention(Retention.MINIMAL);
+        AsyncDecompiler all = new AsyncDecompiler(this.executor);
+        all.getDecompiler().getOptions().setRetention(Retention.ALL);
+
+        CompletableFuture<TypeEntry> minimal_type = minimal.submit(read(First.class), new SourceSet());
+        CompletableFuture<TypeEntry> all_type = all.submit(read(First.class), new SourceSet());
+        Assert.assertNull(minimal_type.join().getStaticMethod("value").getIR());
+        Assert.assertNotNull(all_type.join().getStaticMethod("value").getIR());
+        Assert.assertEquals(Retention.ALL, LibraryConfiguration.retention);
+    }
+
+    @Test
+    public void testJar() throws IOException {
+        Path jar = Files.createTempFile("async", ".jar");
+        try {
+            try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(jar))) {
+                for (Class<?> type : Arrays.asList(First.class, Second.class)) {
+                    output.putNextEntry(new ZipEntry(name(type) + ".class"));
+                    output.write(read(type));
+                    output.closeEntry();
+                }
+            }
+            SourceSet set = new AsyncDecompiler(this.executor).submitJar(jar, new SourceSet()).join();
+            Assert.assertEquals(2, set.getAllClasses().size());
+            Assert.assertNotNull(set.get(name(Second.class)));
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        CompletableFuture<TypeEntry> future = new AsyncDecompiler(this.executor).submit(new byte[] {0, 1, 2, 3}, new SourceSet());
+        try {
+            future.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof SourceFormatException);
+        }
+    }
+
+    public static class First {
+
+        public static int value() {
+            return 5;
+        }
+
+    }
+
+    public static class Second {
+
+        public String name() {
+            return "second";
+        }
+
+    }
+
+}
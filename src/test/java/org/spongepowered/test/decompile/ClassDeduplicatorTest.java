@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.ClassDeduplicator;
+import org.spongepowered.despector.decompiler.ClassDeduplicator.Conflict;
+import org.spongepowered.despector.decompiler.Decompiler;
+import org.spongepowered.despector.decompiler.JarWalker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+public class ClassDeduplicatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAdd() {
+        ClassDeduplicator dedup = new ClassDeduplicator();
+        Assert.assertTrue(dedup.add("a/A", new byte[] {1, 2, 3}, "first"));
+        Assert.assertFalse(dedup.add("a/A", new byte[] {1, 2, 3}, "second"));
+        Assert.assertTrue(dedup.add("a/B", new byte[] {1, 2, 3}, "second"));
+        Assert.assertEquals(1, dedup.getDuplicateCount());
+        Assert.assertTrue(dedup.getConflicts().isEmpty());
+
+        Assert.assertTrue(dedup.add("a/A", new byte[] {1, 2, 4}, "third"));
+        Assert.assertEquals(1, dedup.getConflicts().size());
+        Conflict conflict = dedup.getConflicts().get(0);
+        Assert.assertEquals("a/A", conflict.getName());
+        Assert.assertEquals("first", conflict.getPreviousSource());
+        Assert.assertEquals("third", conflict.getSource());
+        Assert.assertEquals(2, dedup.getClassCount());
+    }
+
+    private Path jar(String name, Class<?>... types) throws IOException {
+        Path jar = this.folder.getRoot().toPath().resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jar_out = new JarOutputStream(out)) {
+            for (Class<?> type : types) {
+                String entry = type.getName().replace('.', '/') + ".class";
+                jar_out.putNextEntry(new ZipEntry(entry));
+                try (InputStream in = type.getClassLoader().getResourceAsStream(entry)) {
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        jar_out.write(buffer, 0, read);
+                    }
+                }
+                jar_out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Test
+    public void testJars() throws IOException {
+        List<Integer> sizes = new ArrayList<>();
+        Decompiler decomp = new Decompiler() {
+
+            @Override
+            public boolean isValid(String name) {
+                return name.endsWith(".class");
+            }
+
+            @Override
+            public TypeEntry decompile(InputStream input, SourceSet source) throws IOException {
+                byte[] buffer = new byte[4096];
+                int size = 0;
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    size += read;
+                }
+                sizes.add(size);
+                return null;
+            }
+        };
+        ClassDeduplicator dedup = new ClassDeduplicator();
+        for (Path path : new Path[] {jar("first.jar", First.class, Second.class), jar("shaded.jar", First.class)}) {
+            JarWalker walker = new JarWalker(path);
+            walker.setDeduplicator(dedup);
+            walker.walk(new SourceSet(), decomp);
+        }
+        Assert.assertEquals(2, sizes.size());
+        Assert.assertTrue(sizes.get(0) > 0);
+        Assert.assertEquals(1, dedup.getDuplicateCount());
+        Assert.assertEquals(2, dedup.getClassCount());
+    }
+
+    public static class First {
+
+        public int get() {
+            return 1;
+        }
+
+    }
+
+    public static class Second {
+
+        public String name() {
+            return "second";
+        }
+
+    }
+
+}
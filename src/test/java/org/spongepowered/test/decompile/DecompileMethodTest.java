@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+public class DecompileMethodTest {
+
+    private final SourceSet source = new SourceSet();
+
+    private MethodEntry decompile(String name, String desc) throws IOException {
+        try (InputStream input = Sample.class.getResourceAsStream("/" + Sample.class.getName().replace('.', '/') + ".class")) {
+            return Despector.decompileMethod(input, this.source, Language.ANY, name, desc);
+        }
+    }
+
+    private TypeEntry getSample() {
+        return this.source.get(Sample.class.getName().replace('.', '/'));
+    }
+
+    @Test
+    public void testOnlyRequestedMethod() throws IOException {
+        MethodEntry describe = decompile("describe", "()Ljava/lang/String;");
+        Assert.assertNotNull(describe);
+        Assert.assertFalse(describe.isBodyDeferred());
+        Assert.assertNotNull(describe.getInstructions());
+
+        TypeEntry type = getSample();
+        MethodEntry clamp = type.getStaticMethod("clamp");
+        Assert.assertTrue(clamp.isBodyDeferred());
+        Assert.assertNotNull(clamp.getInstructions());
+        Assert.assertFalse(clamp.isBodyDeferred());
+    }
+
+    @Test
+    public void testLambdas() throws IOException {
+        MethodEntry supplier = decompile("supplier", "()Ljava/util/function/Supplier;");
+        Assert.assertNotNull(supplier);
+        TypeEntry type = getSample();
+        boolean found = false;
+        for (MethodEntry mth : type.getMethods()) {
+            if (mth.getName().startsWith("lambda$supplier$")) {
+                Assert.assertFalse(mth.isBodyDeferred());
+                found = true;
+            }
+        }
+        Assert.assertTrue(found);
+        Assert.assertTrue(type.getMethod("describe").isBodyDeferred());
+    }
+
+    @Test
+    public void testNestedLambdas() throws IOException {
+        Assert.assertNotNull(decompile("nested", "()Ljava/util/function/Supplier;"));
+        TypeEntry type = getSample();
+        int lambdas = 0;
+        for (MethodEntry mth : type.getMethods()) {
+            if (mth.getName().startsWith("lambda$") && !mth.getName().startsWith("lambda$supplier$")) {
+                Assert.assertFalse(mth.isBodyDeferred());
+                lambdas++;
+            }
+        }
+        Assert.assertEquals(2, lambdas);
+    }
+
+    @Test
+    public void testMissing() throws IOException {
+        Assert.assertNull(decompile("missing", "()V"));
+        Assert.assertNull(decompile("describe", "()V"));
+    }
+
+    public static class Sample {
+
+        private int value;
+
+        public static int clamp(int value, int min, int max) {
+            if (value < min) {
+                return min;
+            }
+            return value > max ? max : value;
+        }
+
+        public String describe() {
+            return "value " + this.value;
+        }
+
+        public Supplier<String> supplier() {
+            return () -> "value " + this.value;
+        }
+
+        public Supplier<Supplier<String>> nested() {
+            return () -> () -> "nested " + this.value;
+        }
+
+    }
+
+}
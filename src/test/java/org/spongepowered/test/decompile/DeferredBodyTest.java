@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.emitter.Emitters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntSupplier;
+
+public class DeferredBodyTest {
+
+    private final Retention retention = LibraryConfiguration.retention;
+
+    @After
+    public void restore() {
+        LibraryConfiguration.retention = this.retention;
+        Decompilers.WILD.setEmitter(null);
+    }
+
+    private static TypeEntry decompile(boolean plan) throws IOException {
+        Decompilers.WILD.setEmitter(plan ? Emitters.JAVA : null);
+        File file = new File(Sample.class.getProtectionDomain().getCodeSource().getLocation().getPath(),
+                Sample.class.getName().replace('.', '/') + ".class");
+        TypeEntry type = Decompilers.WILD.decompile(file, new SourceSet());
+        Decompilers.WILD.flushTasks();
+        return type;
+    }
+
+    private static MethodEntry getLambda(TypeEntry type) {
+        for (MethodEntry mth : type.getStaticMethods()) {
+            if (mth.isSynthetic() && mth.getName().startsWith("lambda$")) {
+                return mth;
+            }
+        }
+        throw new AssertionError("No lambda found in " + type.getName());
+    }
+
+    @Test
+    public void testNoPlan() throws IOException {
+        TypeEntry type = decompile(false);
+        Assert.assertFalse(getLambda(type).isBodyDeferred());
+        Assert.assertFalse(type.getStaticMethod("supplier").isBodyDeferred());
+    }
+
+    @Test
+    public void testDeferred() throws IOException {
+        TypeEntry type = decompile(true);
+        MethodEntry lambda = getLambda(type);
+        Assert.assertFalse(type.getStaticMethod("supplier").isBodyDeferred());
+        Assert.assertTrue(lambda.isBodyDeferred());
+
+        Assert.assertNotNull(lambda.getInstructions());
+        Assert.assertFalse(lambda.isBodyDeferred());
+        Assert.assertEquals(1, lambda.getInstructions().getStatementCount());
+    }
+
+    @Test
+    public void testEmitInlinesDeferred() throws IOException {
+        LibraryConfiguration.retention = Retention.MINIMAL;
+        TypeEntry type = decompile(true);
+        MethodEntry lambda = getLambda(type);
+        Assert.assertTrue(lambda.isBodyDeferred());
+
+        String emitted = Despector.emitToString(type);
+        Assert.assertFalse(lambda.isBodyDeferred());
+        Assert.assertTrue(emitted, emitted.contains("-> Math.abs("));
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        TypeEntry type = decompile(true);
+        MethodEntry lambda = getLambda(type);
+        StatementBlock body = new StatementBlock(StatementBlock.Type.METHOD);
+        CountDownLatch started = new CountDownLatch(1);
+        lambda.deferBody(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lambda.setInstructions(body);
+        });
+        Thread loader = new Thread(lambda::getInstructions);
+        loader.start();
+        started.await();
+        // a second thread must wait for the body rather than see none
+        Assert.assertSame(body, lambda.getInstructions());
+        loader.join();
+        Assert.assertFalse(lambda.isBodyDeferred());
+    }
+
+    public static class Sample {
+
+        public static IntSupplier supplier(int value) {
+            return () -> Math.abs(value);
+        }
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+
+public class DisassembleTest {
+
+    @After
+    public void restore() {
+        Decompilers.WILD.setEmitter(null);
+    }
+
+    @Test
+    public void testIROnly() throws IOException {
+        Decompilers.WILD.setEmitter(Emitters.IR);
+        File file = new File(Sample.class.getProtectionDomain().getCodeSource().getLocation().getPath(),
+                Sample.class.getName().replace('.', '/') + ".class");
+        TypeEntry type = Decompilers.WILD.decompile(file, new SourceSet());
+        Decompilers.WILD.flushTasks();
+
+        MethodEntry greet = type.getStaticMethod("greet");
+        Assert.assertNotNull(greet.getIR());
+        Assert.assertNull(greet.getInstructions());
+
+        StringWriter writer = new StringWriter();
+        JavaEmitterContext ctx = new JavaEmitterContext(writer, EmitterFormat.defaults());
+        Emitters.IR.emit(ctx, type);
+        String text = writer.toString();
+        Assert.assertTrue(text, text.contains("PUSH \"hello\\nworld\""));
+        Assert.assertTrue(text, text.contains("ARETURN"));
+    }
+
+    public static class Sample {
+
+        public static String greet() {
+            return "hello\nworld";
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.parallel.MethodBodyMemo;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+public class MethodBodyMemoTest {
+
+    @After
+    public void restore() {
+        Decompilers.WILD.setMethodBodyMemo(null);
+    }
+
+    private static TypeEntry decompile(MethodBodyMemo memo) throws IOException {
+        return decompile(memo, Sample.class);
+    }
+
+    private static TypeEntry decompile(@Nullable MethodBodyMemo memo, Class<?> cls) throws IOException {
+        Decompilers.WILD.setMethodBodyMemo(memo);
+        File file = new File(cls.getProtectionDomain().getCodeSource().getLocation().getPath(), cls.getName().replace('.', '/') + ".class");
+        TypeEntry type = Decompilers.WILD.decompile(file, new SourceSet());
+        Decompilers.WILD.flushTasks();
+        return type;
+    }
+
+    @Test
+    public void testReuse() throws IOException {
+        MethodBodyMemo memo = new MethodBodyMemo();
+        TypeEntry first = decompile(memo);
+        Assert.assertEquals(0, memo.getHits());
+        long lookups = memo.getLookups();
+        Assert.assertTrue(lookups > 0);
+
+        TypeEntry second = decompile(memo);
+        Assert.assertEquals(lookups * 2, memo.getLookups());
+        Assert.assertTrue(memo.getHits() > 0);
+
+        MethodEntry name = second.getStaticMethod("name");
+        Assert.assertNull(name.getIR());
+        Assert.assertNotSame(first.getStaticMethod("name").getInstructions(), name.getInstructions());
+        Assert.assertNotSame(first.getStaticMethod("name").getLocals(), name.getLocals());
+        Assert.assertEquals(Despector.emitToString(first), Despector.emitToString(second));
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        MethodBodyMemo memo = new MethodBodyMemo();
+        TypeEntry first = decompile(memo);
+        memo.reset();
+        Assert.assertEquals(0, memo.getLookups());
+        decompile(memo);
+        Assert.assertEquals(0, memo.getHits());
+        Assert.assertNotNull(first);
+    }
+
+    @Test
+    public void testReuseAcrossTypes() throws IOException {
+        MethodBodyMemo memo = new MethodBodyMemo();
+        decompile(memo, Sample.class);
+        Assert.assertEquals(0, memo.getHits());
+        TypeEntry other = decompile(memo, OtherSample.class);
+        // the constructor, clamp, describe and copy are the same in both types
+        Assert.assertEquals(4, memo.getHits());
+        Assert.assertNull(other.getMethod("copy").getIR());
+        Assert.assertEquals(Despector.emitToString(decompile(null, OtherSample.class)), Despector.emitToString(other));
+    }
+
+    public static class Sample {
+
+        private int value;
+
+        public static String name() {
+            return "sample";
+        }
+
+        public static int clamp(int value, int min, int max) {
+            if (value < min) {
+                return min;
+            }
+            return value > max ? max : value;
+        }
+
+        public String describe() {
+            return "value " + this.value;
+        }
+
+        public Sample copy() {
+            Sample copy = new Sample();
+            copy.value = this.value;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value;
+        }
+
+    }
+
+    public static class OtherSample {
+
+        private int value;
+
+        public static String name() {
+            return "other";
+        }
+
+        public static int clamp(int value, int min, int max) {
+            if (value < min) {
+                return min;
+            }
+            return value > max ? max : value;
+        }
+
+        public String describe() {
+            return "value " + this.value;
+        }
+
+        public OtherSample copy() {
+            OtherSample copy = new OtherSample();
+            copy.value = this.value;
+            return copy;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.value + 1;
+        }
+
+    }
+
+}
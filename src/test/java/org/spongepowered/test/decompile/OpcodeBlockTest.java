@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.ir.Insn;
+import org.spongepowered.despector.decompiler.ir.InsnBlock;
+import org.spongepowered.despector.decompiler.ir.IntInsn;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.BodyOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.GotoOpcodeBlock;
+import org.spongepowered.despector.decompiler.method.graph.data.opcode.OpcodeBlock;
+
+import java.util.Iterator;
+
+public class OpcodeBlockTest {
+
+    private static InsnBlock insns(int count) {
+        InsnBlock block = new InsnBlock();
+        for (int i = 0; i < count; i++) {
+            block.append(new IntInsn(Insn.ICONST, i));
+        }
+        return block;
+    }
+
+    @Test
+    public void testRange() {
+        InsnBlock insns = insns(10);
+        OpcodeBlock block = new BodyOpcodeBlock(3, 6);
+        block.setOpcodes(insns, 3, 6);
+        assertEquals(4, block.getOpcodes().size());
+        assertSame(insns.get(3), block.getOpcodes().get(0));
+        assertSame(insns.get(6), block.getLast());
+        try {
+            block.getOpcodes().get(4);
+            throw new AssertionError("Expected index outside of the range to fail");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testModifyCopies() {
+        InsnBlock insns = insns(10);
+        OpcodeBlock block = new BodyOpcodeBlock(2, 5);
+        block.setOpcodes(insns, 2, 5);
+        OpcodeBlock replacement = new GotoOpcodeBlock(2, 5);
+        replacement.setOpcodes(block);
+
+        for (Iterator<Insn> it = block.getOpcodes().iterator(); it.hasNext();) {
+            if (((IntInsn) it.next()).getValue() == 3) {
+                it.remove();
+            }
+        }
+        block.getOpcodes().add(insns.get(9));
+        assertEquals(4, block.getOpcodes().size());
+        assertSame(insns.get(4), block.getOpcodes().get(1));
+        assertSame(insns.get(9), block.getLast());
+
+        assertEquals(10, insns.size());
+        assertEquals(4, replacement.getOpcodes().size());
+        assertSame(insns.get(3), replacement.getOpcodes().get(1));
+
+        replacement.getOpcodes().clear();
+        assertEquals(0, replacement.getOpcodes().size());
+        assertEquals(4, block.getOpcodes().size());
+    }
+
+}
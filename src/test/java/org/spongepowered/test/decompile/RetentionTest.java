@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.decompile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.config.Retention;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.util.HeapReport;
+import org.spongepowered.despector.util.HeapReport.Category;
+
+import java.io.File;
+import java.io.IOException;
+
+public class RetentionTest {
+
+    private final Retention retention = LibraryConfiguration.retention;
+
+    @After
+    public void restore() {
+        LibraryConfiguration.retention = this.retention;
+        Decompilers.WILD.setHeapReport(null);
+    }
+
+    private static TypeEntry decompile(Retention retention, HeapReport report) throws IOException {
+        LibraryConfiguration.retention = retention;
+        Decompilers.WILD.setHeapReport(report);
+        File file = new File(Sample.class.getProtectionDomain().getCodeSource().getLocation().getPath(),
+                Sample.class.getName().replace('.', '/') + ".class");
+        TypeEntry type = Decompilers.WILD.decompile(file, new SourceSet());
+        Decompilers.WILD.flushTasks();
+        return type;
+    }
+
+    @Test
+    public void testAll() throws IOException {
+        HeapReport report = new HeapReport();
+        MethodEntry mth = decompile(Retention.ALL, report).getStaticMethod("sum", "([I)I");
+        Assert.assertNotNull(mth.getInstructions());
+        Assert.assertNotNull(mth.getIR());
+        Assert.assertNotNull(mth.block_debug);
+        Assert.assertTrue(report.getSize(Category.CODE) > 0);
+        Assert.assertTrue(report.getSize(Category.IR) > 0);
+    }
+
+    @Test
+    public void testIR() throws IOException {
+        HeapReport report = new HeapReport();
+        MethodEntry mth = decompile(Retention.IR, report).getStaticMethod("sum", "([I)I");
+        Assert.assertNotNull(mth.getInstructions());
+        Assert.assertNotNull(mth.getIR());
+        Assert.assertNull(mth.block_debug);
+        Assert.assertEquals(0, report.getSize(Category.CODE));
+        Assert.assertEquals(0, report.getCount(Category.BLOCK_DEBUG));
+        Assert.assertTrue(report.getSize(Category.IR) > 0);
+    }
+
+    @Test
+    public void testMinimal() throws IOException {
+        HeapReport report = new HeapReport();
+        MethodEntry mth = decompile(Retention.MINIMAL, report).getStaticMethod("sum", "([I)I");
+        Assert.assertNotNull(mth.getInstructions());
+        Assert.assertNull(mth.getIR());
+        Assert.assertNull(mth.block_debug);
+        for (int i = 0; i < mth.getLocals().getLocalCount(); i++) {
+            Assert.assertEquals(0, mth.getLocals().getLocal(i).getLVTCount());
+        }
+        Assert.assertEquals(0, report.getTotalSize());
+    }
+
+    public static class Sample {
+
+        public static int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                total += values[i];
+            }
+            return total;
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.emitter;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.generic.ClassTypeSignature;
+import org.spongepowered.despector.ast.insn.misc.Cast;
+import org.spongepowered.despector.ast.stmt.misc.Return;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.emitter.Emitters;
+import org.spongepowered.despector.transform.TypeTransformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.IntSupplier;
+
+public class ImportManagerTest {
+
+    @After
+    public void restore() {
+        Decompilers.WILD.setEmitter(null);
+    }
+
+    private static TypeEntry decompile() throws IOException {
+        // with an emitter set the lambda bodies are deferred until emitted
+        Decompilers.WILD.setEmitter(Emitters.JAVA);
+        File file = new File(Sample.class.getProtectionDomain().getCodeSource().getLocation().getPath(),
+                Sample.class.getName().replace('.', '/') + ".class");
+        TypeEntry type = Decompilers.WILD.decompile(file, new SourceSet());
+        Decompilers.WILD.flushTasks();
+        return type;
+    }
+
+    @Test
+    public void testCachedMatchesWalked() throws IOException {
+        TypeEntry cached = decompile();
+        Assert.assertNotNull(cached.getStaticMethod("size").getReferencedTypes());
+        String cached_src = Despector.emitToString(cached);
+
+        TypeEntry walked = decompile();
+        walked.invalidateReferencedTypes();
+        Assert.assertNull(walked.getStaticMethod("size").getReferencedTypes());
+        String walked_src = Despector.emitToString(walked);
+
+        Assert.assertEquals(walked_src, cached_src);
+        // only referenced from within the deferred lambda body
+        Assert.assertTrue(cached_src, cached_src.contains("import java.util.ArrayList;"));
+    }
+
+    @Test
+    public void testInvalidated() throws IOException {
+        TypeTransformer transformer = (type) -> {
+            MethodEntry method = type.getStaticMethod("value");
+            Return ret = (Return) method.getInstructions().getStatement(0);
+            ret.setValue(new Cast(ClassTypeSignature.of("Ljava/io/Serializable;"), ret.getValue().get()));
+            type.invalidateReferencedTypes();
+        };
+        TypeEntry type = decompile();
+        transformer.transform(type);
+        String src = Despector.emitToString(type);
+        Assert.assertTrue(src, src.contains("import java.io.Serializable;"));
+        Assert.assertTrue(src, src.contains("(Serializable) "));
+    }
+
+    public static class Sample {
+
+        public static IntSupplier size() {
+            return () -> new ArrayList<String>().size();
+        }
+
+        public static Object value() {
+            return "value";
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.emitter;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.despector.Language;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.decompiler.BaseDecompiler;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.emitter.format.EmitterFormat;
+import org.spongepowered.despector.emitter.java.JavaEmitterPool;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class JavaEmitterPoolTest {
+
+    private static TypeEntry basic;
+    private static TypeEntry generics;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        LibraryConfiguration.quiet = false;
+        LibraryConfiguration.parallel = false;
+        basic = load("javaclasses/BasicClass");
+        generics = load("javaclasses/GenericsTestClass");
+    }
+
+    private static TypeEntry load(String classname) throws Exception {
+        InputStream compiled = Thread.currentThread().getContextClassLoader().getResourceAsStream(classname + ".class.test");
+        BaseDecompiler decomp = Decompilers.JAVA;
+        TypeEntry type = decomp.decompile(compiled, new SourceSet());
+        decomp.flushTasks();
+        return type;
+    }
+
+    private static String expected(String classname) throws Exception {
+        URL source = Thread.currentThread().getContextClassLoader().getResource(classname + ".java.test");
+        return new String(Files.readAllBytes(Paths.get(source.toURI()))).replaceAll("\r\n", "\n");
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        JavaEmitterPool pool = new JavaEmitterPool(EmitterFormat.defaults(), 1);
+        String basic_src = expected("javaclasses/BasicClass");
+        String generics_src = expected("javaclasses/GenericsTestClass");
+        Assert.assertEquals(basic_src, pool.emitToString(basic));
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(generics_src, pool.emitToString(generics));
+        Assert.assertEquals(basic_src, pool.emitToString(basic));
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testSessionClosed() {
+        JavaEmitterPool pool = new JavaEmitterPool(EmitterFormat.defaults());
+        JavaEmitterPool.Session session = pool.acquire();
+        session.close();
+        try {
+            session.emitToString(basic);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStaleSession() throws Exception {
+        JavaEmitterPool pool = new JavaEmitterPool(EmitterFormat.defaults(), 1);
+        JavaEmitterPool.Session stale = pool.acquire();
+        stale.close();
+        try (JavaEmitterPool.Session session = pool.acquire()) {
+            Assert.assertEquals(0, pool.getIdleCount());
+            Assert.assertFalse(session.isClosed());
+            Assert.assertTrue(stale.isClosed());
+            try {
+                stale.getContext();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            try {
+                stale.emitToString(basic);
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            stale.close();
+            Assert.assertEquals(expected("javaclasses/BasicClass"), session.emitToString(basic));
+        }
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        JavaEmitterPool pool = new JavaEmitterPool(EmitterFormat.defaults(), 4);
+        String basic_src = expected("javaclasses/BasicClass");
+        String generics_src = expected("javaclasses/GenericsTestClass");
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                final boolean even = i % 2 == 0;
+                results.add(exec.submit(() -> {
+                    if (even) {
+                        return basic_src.equals(pool.emitToString(basic));
+                    }
+                    return generics_src.equals(pool.emitToString(generics));
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            exec.shutdown();
+        }
+        Assert.assertTrue(pool.getIdleCount() <= 4);
+    }
+
+}
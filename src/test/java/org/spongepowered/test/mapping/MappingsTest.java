@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.mapping;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.Despector;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.FieldEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.decompiler.Decompilers;
+import org.spongepowered.despector.decompiler.mapping.Mappings;
+import org.spongepowered.despector.decompiler.mapping.MappingsLoader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class MappingsTest {
+
+    private static final String SAMPLE = "org/spongepowered/test/mapping/MappingsTest$Sample";
+
+    @After
+    public void restore() {
+        Decompilers.WILD.setMappings(null);
+    }
+
+    private static Mappings load(String format, String text) throws IOException {
+        Mappings mappings = new Mappings();
+        MappingsLoader.getLoader(format).load(mappings, new BufferedReader(new StringReader(text)));
+        return mappings;
+    }
+
+    @Test
+    public void testDescriptors() {
+        Mappings mappings = new Mappings();
+        mappings.addClass("a", "net/example/Foo");
+        mappings.addClass("b", "net/example/Bar");
+        mappings.addClass("a$c", "net/example/Foo$Inner");
+        Assert.assertEquals("(ILnet/example/Foo;[Lnet/example/Bar;)Ljava/lang/String;", mappings.mapDescriptor("(ILa;[Lb;)Ljava/lang/String;"));
+        Assert.assertEquals("[[Lnet/example/Foo;", mappings.mapType("[[La;"));
+        Assert.assertEquals("net/example/Foo$Inner", mappings.mapClass("a$c"));
+        Assert.assertEquals("net/example/Bar$1", mappings.mapClass("b$1"));
+        Assert.assertEquals("d", mappings.mapClass("d"));
+
+        Assert.assertEquals("<L:Lnet/example/Foo;>(TL;Ljava/util/List<+Lnet/example/Bar;>;)V",
+                mappings.mapSignature("<L:La;>(TL;Ljava/util/List<+Lb;>;)V"));
+        Assert.assertEquals("<T::Ljava/lang/Comparable<TT;>;>Lnet/example/Foo<TT;>.Inner;",
+                mappings.mapSignature("<T::Ljava/lang/Comparable<TT;>;>La<TT;>.c;"));
+    }
+
+    @Test
+    public void testSrg() throws IOException {
+        Mappings mappings = load("srg", "PK: . net/example\n"
+                + "CL: a net/example/Foo\n"
+                + "FD: a/b net/example/Foo/count\n"
+                + "MD: a/c (La;)V net/example/Foo/copy (Lnet/example/Foo;)V\n");
+        Assert.assertEquals("net/example/Foo", mappings.mapClass("a"));
+        Assert.assertEquals("count", mappings.mapField("a", "b"));
+        Assert.assertEquals("copy", mappings.mapMethod("a", "c", "(La;)V"));
+        Assert.assertEquals("c", mappings.mapMethod("a", "c", "()V"));
+    }
+
+    @Test
+    public void testTsrg() throws IOException {
+        Mappings mappings = load("tsrg", "a net/example/Foo\n"
+                + "\tb count\n"
+                + "\tc (La;)V copy\n");
+        Assert.assertEquals("net/example/Foo", mappings.mapClass("a"));
+        Assert.assertEquals("count", mappings.mapField("a", "b"));
+        Assert.assertEquals("copy", mappings.mapMethod("a", "c", "(La;)V"));
+
+        mappings = load("tsrg", "tsrg2 obf srg mcp\n"
+                + "a net/example/Foo Foo\n"
+                + "\tb field_1 count\n"
+                + "\td I field_2 size\n"
+                + "\tc (La;)V func_1 copy\n"
+                + "\t\t0 o p_1 other\n");
+        Assert.assertEquals("field_1", mappings.mapField("a", "b"));
+        Assert.assertEquals("field_2", mappings.mapField("a", "d"));
+        Assert.assertEquals("func_1", mappings.mapMethod("a", "c", "(La;)V"));
+    }
+
+    @Test
+    public void testProguard() throws IOException {
+        Mappings mappings = load("proguard", "# comment\n"
+                + "net.example.Foo -> a:\n"
+                + "    int count -> b\n"
+                + "    1:4:void copy(net.example.Foo,int[]):12:15 -> c\n"
+                + "    5:6:void net.example.Other.inlined():20:21 -> c\n"
+                + "    net.example.Foo self() -> d\n");
+        Assert.assertEquals("net/example/Foo", mappings.mapClass("a"));
+        Assert.assertEquals("count", mappings.mapField("a", "b"));
+        Assert.assertEquals("copy", mappings.mapMethod("a", "c", "(La;[I)V"));
+        Assert.assertEquals("self", mappings.mapMethod("a", "d", "()La;"));
+        Assert.assertEquals(1, mappings.getClassCount());
+        Assert.assertEquals(2, mappings.getMethodCount());
+    }
+
+    @Test
+    public void testDecompile() throws IOException {
+        Mappings mappings = new Mappings();
+        mappings.addClass(SAMPLE, "net/example/Renamed");
+        mappings.addField(SAMPLE, "value", "count");
+        mappings.addMethod(SAMPLE, "get", "()I", "getCount");
+        mappings.addMethod(SAMPLE, "copy", "(L" + SAMPLE + ";)V", "copyFrom");
+        Decompilers.WILD.setMappings(mappings);
+        File file = new File(Sample.class.getProtectionDomain().getCodeSource().getLocation().getPath(), SAMPLE + ".class");
+        SourceSet set = new SourceSet();
+        TypeEntry type = Decompilers.WILD.decompile(file, set);
+        Decompilers.WILD.flushTasks();
+
+        Assert.assertEquals("net/example/Renamed", type.getName());
+        Assert.assertNotNull(set.get("net/example/Renamed"));
+        Assert.assertNotNull(type.getMethod("getCount", "()I"));
+        Assert.assertNotNull(type.getMethod("copyFrom", "(Lnet/example/Renamed;)V"));
+        FieldEntry field = type.getField("count");
+        Assert.assertNotNull(field);
+
+        String emitted = Despector.emitToString(type);
+        Assert.assertFalse(emitted, emitted.contains("Sample"));
+        Assert.assertTrue(emitted, emitted.contains(".getCount()"));
+        Assert.assertTrue(emitted, emitted.contains("this.count"));
+    }
+
+    public static class Sample {
+
+        private int value;
+
+        public int get() {
+            return this.value;
+        }
+
+        public void copy(Sample other) {
+            this.value = other.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.insn.cst.StringConstant;
+import org.spongepowered.despector.ast.stmt.assign.LocalAssignment;
+import org.spongepowered.despector.ast.stmt.branch.For;
+import org.spongepowered.despector.ast.stmt.branch.If;
+import org.spongepowered.despector.ast.stmt.invoke.InvokeStatement;
+import org.spongepowered.despector.config.LibraryConfiguration;
+import org.spongepowered.despector.transform.matcher.InstructionMatcher;
+import org.spongepowered.despector.transform.matcher.StatementMatcher;
+import org.spongepowered.despector.transform.search.PatternSearch;
+import org.spongepowered.despector.transform.search.SearchMatch;
+import org.spongepowered.test.util.TestHelper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PatternSearchTest {
+
+    private static PatternSearch create(int threads) {
+        return create(threads, Haystack.class, OtherHaystack.class);
+    }
+
+    private static PatternSearch create(int threads, Class<?>... types) {
+        SourceSet set = new SourceSet();
+        for (Class<?> type : types) {
+            set.add(TestHelper.get(type));
+        }
+        PatternSearch search = new PatternSearch(set);
+        search.setThreads(threads);
+        return search;
+    }
+
+    @Test
+    public void testInstructionSearch() {
+        for (int threads : new int[] {1, 4}) {
+            List<SearchMatch<StringConstant>> matches = create(threads).findInstructions(InstructionMatcher.stringConstant()
+                    .value("needle")
+                    .build());
+            Assert.assertEquals(3, matches.size());
+            for (SearchMatch<StringConstant> match : matches) {
+                Assert.assertEquals("needle", match.getMatch().getConstant());
+                Assert.assertTrue(match.getStatement() instanceof InvokeStatement);
+                Assert.assertTrue(match.getMethod().getName().startsWith("find"));
+            }
+        }
+    }
+
+    @Test
+    public void testStatementSearch() {
+        AtomicInteger count = new AtomicInteger();
+        int found = create(4).searchStatements(StatementMatcher.localAssign()
+                .value(InstructionMatcher.intConstant()
+                        .value(5)
+                        .build())
+                .build(), (match) -> {
+                    Assert.assertTrue(match.getMatch() instanceof LocalAssignment);
+                    Assert.assertEquals(match.getStatement(), match.getMatch());
+                    Assert.assertEquals("findNested", match.getMethod().getName());
+                    count.incrementAndGet();
+                });
+        Assert.assertEquals(1, found);
+        Assert.assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testConditionSearch() {
+        for (int threads : new int[] {1, 4}) {
+            try (PatternSearch search = create(threads, ConditionHaystack.class, OtherHaystack.class)) {
+                // repeated searches reuse the same threads
+                for (int i = 0; i < 2; i++) {
+                    List<SearchMatch<StringConstant>> matches = search.findInstructions(InstructionMatcher.stringConstant()
+                            .value("needle")
+                            .build());
+                    Assert.assertEquals(3, matches.size());
+                    for (SearchMatch<StringConstant> match : matches) {
+                        String name = match.getMethod().getName();
+                        if (name.equals("findElif")) {
+                            Assert.assertTrue(match.getStatement() instanceof If);
+                        } else if (name.equals("findLoop")) {
+                            Assert.assertTrue(match.getStatement() instanceof For);
+                        } else {
+                            Assert.assertEquals("findStatic", name);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFailedType() {
+        boolean quiet = LibraryConfiguration.quiet;
+        LibraryConfiguration.quiet = true;
+        try {
+            for (int threads : new int[] {1, 4}) {
+                AtomicInteger count = new AtomicInteger();
+                create(threads).searchInstructions(InstructionMatcher.stringConstant()
+                        .value("needle")
+                        .build(), (match) -> {
+                            if (match.getType().getName().endsWith("$Haystack")) {
+                                throw new IllegalStateException();
+                            }
+                            count.incrementAndGet();
+                        });
+                // the other type is still searched
+                Assert.assertEquals(1, count.get());
+            }
+        } finally {
+            LibraryConfiguration.quiet = quiet;
+        }
+    }
+
+    public static class Haystack {
+
+        public void findDirect() {
+            System.out.println("needle");
+            System.out.println("hay");
+        }
+
+        public void findNested(int x) {
+            int y = 5;
+            if (x > y) {
+                System.out.println("needle");
+            }
+        }
+
+    }
+
+    public static class ConditionHaystack {
+
+        public void findElif(String x) {
+            if (x.isEmpty()) {
+                System.out.println("hay");
+            } else if (x.equals("needle")) {
+                System.out.println("straw");
+            }
+        }
+
+        public void findLoop() {
+            for (int i = 0; i < "needle".length(); i++) {
+                System.out.println(i);
+            }
+        }
+
+    }
+
+    public static class OtherHaystack {
+
+        public static void findStatic() {
+            System.out.println("needle");
+        }
+
+    }
+
+}
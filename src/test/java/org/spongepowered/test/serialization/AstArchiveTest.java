@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.serialization;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.StatementBlock;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.AstArchive;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class AstArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write() throws IOException {
+        Path path = this.folder.newFile("test.dspa").toPath();
+        AstArchive.write(Arrays.asList(TestHelper.get(First.class), TestHelper.get(Second.class)), path);
+        return path;
+    }
+
+    @Test
+    public void testLoadType() throws IOException {
+        try (AstArchive archive = AstArchive.open(write())) {
+            Assert.assertEquals(2, archive.getTypeCount());
+            TypeEntry original = TestHelper.get(Second.class);
+            Assert.assertTrue(archive.contains(original.getName()));
+            Assert.assertNull(archive.loadType("missing/Type", new SourceSet()));
+            TypeEntry loaded = archive.loadType(original.getName(), new SourceSet());
+            Assert.assertArrayEquals(TestHelper.serialize(original), TestHelper.serialize(loaded));
+        }
+    }
+
+    @Test
+    public void testLazyBodies() throws IOException {
+        try (AstArchive archive = AstArchive.open(write())) {
+            TypeEntry original = TestHelper.get(First.class);
+            TypeEntry loaded = archive.loadType(original.getName(), new SourceSet(), false);
+            MethodEntry sum = loaded.getStaticMethod("sum", "([I)I");
+            Assert.assertNull(sum.getInstructions());
+
+            StatementBlock body = archive.loadBody(sum);
+            Assert.assertNotNull(body);
+            Assert.assertEquals(original.getStaticMethod("sum", "([I)I").getInstructions().getStatementCount(), body.getStatementCount());
+            Assert.assertNull(sum.getInstructions());
+
+            archive.loadBodies(loaded);
+            Assert.assertArrayEquals(TestHelper.serialize(original), TestHelper.serialize(loaded));
+        }
+    }
+
+    public static class First {
+
+        public static int sum(int[] values) {
+            int total = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] > 0) {
+                    total += values[i];
+                }
+            }
+            return total;
+        }
+
+        public String name() {
+            return "first";
+        }
+
+    }
+
+    public static class Second {
+
+        private int value;
+
+        public void set(int value) {
+            this.value = value;
+        }
+
+        public int get() {
+            return this.value;
+        }
+
+    }
+
+}
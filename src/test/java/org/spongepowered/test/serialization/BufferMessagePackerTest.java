@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.serialization;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.stmt.Statement;
+import org.spongepowered.despector.ast.type.MethodEntry;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.AstSerializer;
+import org.spongepowered.despector.util.serialization.BufferMessagePacker;
+import org.spongepowered.despector.util.serialization.BufferMessageUnpacker;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageType;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public class BufferMessagePackerTest {
+
+    private static final String[] STRINGS = {"", "a", "java/lang/Object", "\u00e9t\u00e9", "\u4e2d\u6587", "\ud83d\ude00", "bad\ud800", repeat('x', 40),
+            repeat('y', 255), repeat('z', 70000)};
+
+    private static String repeat(char c, int count) {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            str.append(c);
+        }
+        return str.toString();
+    }
+
+    private static void writeAll(MessagePacker pack) throws IOException {
+        pack.startArray(38);
+        long[] ints = {0, 1, 127, 128, -1, -32, -33, -128, -129, 32767, 32768, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE};
+        for (long val : ints) {
+            pack.writeInt(val);
+        }
+        for (long val : new long[] {0, 200, 60000, 1L << 40}) {
+            pack.writeUnsignedInt(val);
+        }
+        for (String str : STRINGS) {
+            pack.writeString(str);
+        }
+        pack.writeNil();
+        pack.writeBool(true);
+        pack.writeBool(false);
+        pack.writeFloat(1.5f);
+        pack.writeDouble(-2.25);
+        pack.writeBin(new byte[] {1, 2, 3});
+        pack.writeBin(new byte[300]);
+        pack.startArray(15);
+        for (int i = 0; i < 15; i++) {
+            pack.writeInt(i);
+        }
+        pack.endArray();
+        pack.startMap(2);
+        pack.writeString("key").writeString("value");
+        pack.writeString("other").writeNil();
+        pack.endMap();
+        pack.startMap(0);
+        pack.endMap();
+        pack.endArray();
+    }
+
+    private static void readAll(MessageUnpacker unpack) throws IOException {
+        Assert.assertEquals(38, unpack.readArray());
+        Assert.assertEquals(0, unpack.readInt());
+        Assert.assertEquals(1, unpack.readByte());
+        Assert.assertEquals(127, unpack.readShort());
+        Assert.assertEquals(128, unpack.readInt());
+        Assert.assertEquals(-1, unpack.readInt());
+        Assert.assertEquals(-32, unpack.readByte());
+        Assert.assertEquals(-33, unpack.readShort());
+        Assert.assertEquals(-128, unpack.readLong());
+        Assert.assertEquals(-129, unpack.readInt());
+        Assert.assertEquals(32767, unpack.readInt());
+        Assert.assertEquals(32768, unpack.readLong());
+        Assert.assertEquals(Integer.MAX_VALUE, unpack.readInt());
+        Assert.assertEquals(Integer.MIN_VALUE, unpack.readLong());
+        Assert.assertEquals(Long.MAX_VALUE, unpack.readLong());
+        Assert.assertEquals(0, unpack.readUnsignedByte());
+        Assert.assertEquals(MessageType.UINT, unpack.peekType());
+        unpack.readUnsignedShort();
+        unpack.readUnsignedInt();
+        Assert.assertEquals(1L << 40, unpack.readUnsignedLong());
+        for (String str : STRINGS) {
+            Assert.assertEquals(str.replace('\ud800', '?'), unpack.readString());
+        }
+        unpack.readNil();
+        Assert.assertTrue(unpack.readBool());
+        Assert.assertFalse(unpack.readBool());
+        Assert.assertEquals(1.5f, unpack.readFloat(), 0);
+        Assert.assertEquals(-2.25, unpack.readDouble(), 0);
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, unpack.readBinary());
+        Assert.assertEquals(300, unpack.readBinary().length);
+        Assert.assertEquals(15, unpack.readArray());
+        for (int i = 0; i < 15; i++) {
+            Assert.assertEquals(i, unpack.readInt());
+        }
+        Assert.assertEquals(2, unpack.readMap());
+        Assert.assertEquals("key", unpack.readString());
+        Assert.assertEquals("value", unpack.readString());
+        Assert.assertEquals("other", unpack.readString());
+        Assert.assertEquals(MessageType.NIL, unpack.peekType());
+        unpack.readNil();
+        Assert.assertEquals(0, unpack.readMap());
+    }
+
+    @Test
+    public void testWireCompatible() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAll(new MessagePacker(out));
+        byte[] expected = out.toByteArray();
+
+        BufferMessagePacker heap = new BufferMessagePacker(16, false);
+        writeAll(heap);
+        Assert.assertArrayEquals(expected, heap.toByteArray());
+        BufferMessagePacker direct = new BufferMessagePacker(16, true);
+        writeAll(direct);
+        Assert.assertArrayEquals(expected, direct.toByteArray());
+
+        readAll(new MessageUnpacker(new ByteArrayInputStream(expected)));
+        readAll(new BufferMessageUnpacker(expected));
+        ByteBuffer buf = ByteBuffer.allocateDirect(expected.length);
+        buf.put(expected).flip();
+        readAll(new BufferMessageUnpacker(buf));
+    }
+
+    @Test
+    public void testFixedBuffer() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.position(2);
+        BufferMessagePacker pack = new BufferMessagePacker(buf);
+        pack.startArray(2);
+        pack.writeInt(1);
+        pack.writeString("ab");
+        pack.endArray();
+        Assert.assertEquals(5, pack.size());
+        Assert.assertEquals(2, buf.position());
+        Assert.assertArrayEquals(new byte[] {(byte) 0x92, 1, (byte) 0xA2, 'a', 'b'}, pack.toByteArray());
+
+        pack.reset();
+        try {
+            pack.writeString("too long for the buffer");
+            Assert.fail();
+        } catch (BufferOverflowException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStructureChecks() throws IOException {
+        if (!BufferMessagePacker.STRUCTURE_CHECKS) {
+            return;
+        }
+        BufferMessagePacker pack = new BufferMessagePacker();
+        pack.startMap(1);
+        try {
+            pack.writeInt(1);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        pack = new BufferMessagePacker();
+        pack.startArray(2);
+        pack.writeInt(1);
+        try {
+            pack.endArray();
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSourceSet() throws IOException {
+        SourceSet set = new SourceSet();
+        set.add(TestHelper.get(AstArchiveTest.First.class));
+        set.add(TestHelper.get(SegmentedAstTest.Loops.class));
+        for (int version : new int[] {AstSerializer.VERSION_1, AstSerializer.VERSION_2}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            set.writeTo(new MessagePacker(out), version);
+            BufferMessagePacker pack = new BufferMessagePacker();
+            set.writeTo(pack, version);
+            Assert.assertArrayEquals(out.toByteArray(), pack.toByteArray());
+
+            SourceSet loaded = new SourceSet();
+            AstLoader.loadSources(loaded, new BufferMessageUnpacker(pack.getBuffer()));
+            for (TypeEntry type : set.getAllClasses()) {
+                BufferMessagePacker expected = new BufferMessagePacker();
+                type.writeTo(expected);
+                BufferMessagePacker actual = new BufferMessagePacker();
+                loaded.get(type.getName()).writeTo(actual);
+                Assert.assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testReset() throws IOException {
+        TypeEntry type = TestHelper.get(SegmentedAstTest.Loops.class);
+        SourceSet set = new SourceSet();
+        set.add(type);
+        BufferMessagePacker pack = new BufferMessagePacker();
+        set.writeTo(pack);
+        SourceSet loaded = new SourceSet();
+        AstLoader.loadSources(loaded, new BufferMessageUnpacker(pack.getBuffer()));
+
+        // a reused packer must number the breaks of another tree from zero
+        BufferMessagePacker fresh = new BufferMessagePacker();
+        writeBody(fresh, type.getStaticMethod("count"));
+        BufferMessagePacker reused = new BufferMessagePacker();
+        writeBody(reused, loaded.get(type.getName()).getStaticMethod("count"));
+        reused.reset();
+        writeBody(reused, type.getStaticMethod("count"));
+        Assert.assertArrayEquals(fresh.toByteArray(), reused.toByteArray());
+    }
+
+    private static void writeBody(MessagePacker pack, MethodEntry mth) throws IOException {
+        pack.startArray(mth.getInstructions().getStatementCount());
+        for (Statement stmt : mth.getInstructions().getStatements()) {
+            stmt.writeTo(pack);
+        }
+        pack.endArray();
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.serialization;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.AstLoader;
+import org.spongepowered.despector.util.serialization.AstSerializer;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class CompactSerializationTest {
+
+    private static byte[] serialize(SourceSet set, int version) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        set.writeTo(new MessagePacker(out), version);
+        return out.toByteArray();
+    }
+
+    private static SourceSet load(byte[] data) throws IOException {
+        SourceSet set = new SourceSet();
+        AstLoader.loadSources(set, new BufferedInputStream(new ByteArrayInputStream(data)));
+        return set;
+    }
+
+    @Test
+    public void testStringTable() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessagePacker pack = new MessagePacker(out);
+        pack.enableStringTable("key");
+        pack.startMap(3);
+        pack.writeString("key").writeString("Ljava/lang/String;");
+        pack.writeString("other").writeString("Ljava/lang/String;");
+        pack.writeString("many").startArray(200);
+        for (int i = 0; i < 200; i++) {
+            pack.writeString("value" + (i % 150));
+        }
+        pack.endArray();
+        pack.endMap();
+
+        MessageUnpacker unpack = new MessageUnpacker(new ByteArrayInputStream(out.toByteArray()));
+        unpack.enableStringTable("key");
+        Assert.assertEquals(3, unpack.readMap());
+        Assert.assertEquals("key", unpack.readString());
+        String desc = unpack.readString();
+        Assert.assertEquals("Ljava/lang/String;", desc);
+        Assert.assertEquals("other", unpack.readString());
+        Assert.assertSame(desc, unpack.readString());
+        Assert.assertEquals("many", unpack.readString());
+        Assert.assertEquals(200, unpack.readArray());
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals("value" + (i % 150), unpack.readString());
+        }
+    }
+
+    @Test
+    public void testVersions() throws IOException {
+        SourceSet set = new SourceSet();
+        set.add(TestHelper.get(AstArchiveTest.First.class));
+        set.add(TestHelper.get(AstArchiveTest.Second.class));
+
+        byte[] v1 = serialize(set, AstSerializer.VERSION_1);
+        byte[] v2 = serialize(set, AstSerializer.VERSION_2);
+        Assert.assertTrue(v2.length < v1.length);
+        // the compact format is only written when asked for
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        set.writeTo(new MessagePacker(out));
+        Assert.assertArrayEquals(v1, out.toByteArray());
+
+        SourceSet loaded_v1 = load(v1);
+        SourceSet loaded_v2 = load(v2);
+        for (TypeEntry type : set.getAllClasses()) {
+            byte[] expected = TestHelper.serialize(type);
+            Assert.assertArrayEquals(expected, TestHelper.serialize(loaded_v1.get(type.getName())));
+            Assert.assertArrayEquals(expected, TestHelper.serialize(loaded_v2.get(type.getName())));
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.serialization;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.ast.SourceSet;
+import org.spongepowered.despector.ast.type.TypeEntry;
+import org.spongepowered.despector.util.serialization.SegmentedAst;
+import org.spongepowered.test.util.TestHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class SegmentedAstTest {
+
+    private static void check(List<TypeEntry> types, int segment_size, int threads) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SegmentedAst.write(types, out, segment_size);
+        SourceSet loaded = new SourceSet();
+        SegmentedAst.load(loaded, new ByteArrayInputStream(out.toByteArray()), threads);
+        Assert.assertEquals(types.size(), loaded.getAllClasses().size());
+        for (TypeEntry type : types) {
+            Assert.assertArrayEquals(TestHelper.serialize(type), TestHelper.serialize(loaded.get(type.getName())));
+        }
+    }
+
+    @Test
+    public void testSingleThread() throws IOException {
+        List<TypeEntry> types = Arrays.asList(TestHelper.get(AstArchiveTest.First.class), TestHelper.get(AstArchiveTest.Second.class),
+                TestHelper.get(Loops.class));
+        check(types, 2, 1);
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        List<TypeEntry> types = Arrays.asList(TestHelper.get(AstArchiveTest.First.class), TestHelper.get(AstArchiveTest.Second.class),
+                TestHelper.get(Loops.class));
+        for (int i = 0; i < 10; i++) {
+            check(types, 1, 3);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBadMagic() throws IOException {
+        SegmentedAst.load(new SourceSet(), new ByteArrayInputStream(new byte[12]), 1);
+    }
+
+    public static class Loops {
+
+        public static int count(int[] values, int limit) {
+            int found = 0;
+            outer: for (int i = 0; i < values.length; i++) {
+                while (values[i] > limit) {
+                    if (values[i] == 0) {
+                        break outer;
+                    }
+                    values[i]--;
+                    found++;
+                }
+            }
+            return found;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.shard;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.spongepowered.despector.shard.ShardCoordinator;
+import org.spongepowered.despector.shard.ShardPlanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+public class ShardTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOuterName() {
+        Assert.assertEquals("a/b/Outer", ShardPlanner.getOuterName("a/b/Outer"));
+        Assert.assertEquals("a/b/Outer", ShardPlanner.getOuterName("a/b/Outer$Inner"));
+        Assert.assertEquals("a/b/Outer", ShardPlanner.getOuterName("a/b/Outer$1$2"));
+        Assert.assertEquals("a/b/$Odd", ShardPlanner.getOuterName("a/b/$Odd"));
+    }
+
+    @Test
+    public void testPlanKeepsInnerClasses() {
+        Map<String, Long> classes = new HashMap<>();
+        classes.put("a/Big", 1000L);
+        classes.put("a/Big$Inner", 10L);
+        classes.put("a/Small", 100L);
+        classes.put("a/Small$1", 100L);
+        classes.put("a/Other", 300L);
+        List<List<String>> plan = ShardPlanner.plan(classes, 2);
+        Assert.assertEquals(2, plan.size());
+        Assert.assertEquals(Arrays.asList("a/Big", "a/Big$Inner"), plan.get(0));
+        Assert.assertEquals(Arrays.asList("a/Other", "a/Small", "a/Small$1"), plan.get(1));
+
+        Assert.assertEquals(3, ShardPlanner.plan(classes, 8).size());
+    }
+
+    private static void add(JarOutputStream jar, Class<?> type) throws IOException {
+        String name = type.getName().replace('.', '/') + ".class";
+        jar.putNextEntry(new ZipEntry(name));
+        try (InputStream in = type.getClassLoader().getResourceAsStream(name)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                jar.write(buffer, 0, read);
+            }
+        }
+        jar.closeEntry();
+    }
+
+    @Test
+    public void testCoordinator() throws IOException {
+        Path jar = this.folder.getRoot().toPath().resolve("input.jar");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jar_out = new JarOutputStream(out)) {
+            add(jar_out, First.class);
+            add(jar_out, Second.class);
+            add(jar_out, Second.Inner.class);
+        }
+        Path output = this.folder.newFolder("out").toPath();
+        ShardCoordinator coordinator = new ShardCoordinator(Arrays.asList(jar), output).setWorkers(2).setRetries(0);
+        Assert.assertTrue(coordinator.run());
+        Assert.assertTrue(coordinator.getFailedClasses().isEmpty());
+
+        List<String> manifest = Files.readAllLines(output.resolve(ShardCoordinator.MANIFEST), StandardCharsets.UTF_8);
+        Assert.assertEquals(Arrays.asList("org/spongepowered/test/shard/First.java", "org/spongepowered/test/shard/Second.java"), manifest);
+        String second = new String(Files.readAllBytes(output.resolve(manifest.get(1))), StandardCharsets.UTF_8);
+        Assert.assertTrue(second.contains("class Inner"));
+        try (Stream<Path> files = Files.list(output)) {
+            Assert.assertEquals(2, files.count());
+        }
+    }
+
+}
+
+class First {
+
+    public int get() {
+        return 1;
+    }
+
+}
+
+class Second {
+
+    public String name() {
+        return "second";
+    }
+
+    static class Inner {
+
+        public long value() {
+            return 2L;
+        }
+
+    }
+
+}
@@ -33,8 +33,10 @@ import org.spongepowered.despector.decompiler.Decompilers;
 import org.spongepowered.despector.emitter.Emitters;
 import org.spongepowered.despector.emitter.format.EmitterFormat;
 import org.spongepowered.despector.emitter.java.JavaEmitterContext;
+import org.spongepowered.despector.util.serialization.MessagePacker;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -94,6 +96,16 @@ public class TestHelper {
         return type;
     }
 
+    /**
+     * Serializes the given type, for comparing types which have been written
+     * and loaded again with the originals.
+     */
+    public static byte[] serialize(TypeEntry type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        type.writeTo(new MessagePacker(out));
+        return out.toByteArray();
+    }
+
     public static String getAsString(byte[] data, String method_name) {
         TypeEntry type = null;
         try {
@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) Despector <https://despector.voxelgenesis.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.test.xref;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.despector.decompiler.xref.XrefIndex;
+import org.spongepowered.despector.decompiler.xref.XrefMember;
+import org.spongepowered.despector.decompiler.xref.XrefScanner;
+import org.spongepowered.despector.decompiler.xref.XrefType;
+import org.spongepowered.despector.util.serialization.MessagePacker;
+import org.spongepowered.despector.util.serialization.MessageUnpacker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class XrefIndexTest {
+
+    private static final String TARGET = "org/spongepowered/test/xref/XrefIndexTest$Target";
+    private static final String USER = "org/spongepowered/test/xref/XrefIndexTest$User";
+
+    private static XrefIndex create() throws IOException {
+        XrefIndex index = new XrefIndex();
+        XrefScanner scanner = new XrefScanner(index);
+        for (Class<?> cls : new Class<?>[] {Target.class, User.class}) {
+            try (InputStream in = cls.getResourceAsStream("/" + cls.getName().replace('.', '/') + ".class")) {
+                scanner.scan(in);
+            }
+        }
+        return index;
+    }
+
+    private static List<String> names(List<XrefMember> members) {
+        List<String> names = new ArrayList<>();
+        for (XrefMember member : members) {
+            names.add(member.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testInvokes() throws IOException {
+        XrefIndex index = create();
+        List<String> callers = names(index.getCallers(TARGET, "call", "(I)V"));
+        Assert.assertEquals(2, callers.size());
+        Assert.assertTrue(callers.contains("direct"));
+        Assert.assertTrue(callers.contains("loop"));
+        Assert.assertTrue(names(index.getCallees(USER, "direct", "(L" + TARGET + ";)V")).contains("call"));
+        // the lambda body is reached through the invokedynamic bootstrap
+        List<XrefMember> lambda = index.getCallees(USER, "lambda", "()Ljava/util/function/Supplier;");
+        Assert.assertEquals(1, lambda.size());
+        Assert.assertTrue(lambda.get(0).getName().startsWith("lambda$"));
+    }
+
+    @Test
+    public void testFieldsAndTypes() throws IOException {
+        XrefIndex index = create();
+        Assert.assertEquals(names(index.getFieldReaders(TARGET, "value")), Arrays.asList("read"));
+        List<String> writers = names(index.getFieldWriters(TARGET, "value"));
+        Assert.assertTrue(writers.contains("write"));
+        Assert.assertTrue(writers.contains("call"));
+        List<String> users = names(index.getTypeUsers(TARGET));
+        Assert.assertTrue(users.contains("create"));
+        Assert.assertTrue(users.contains("array"));
+    }
+
+    @Test
+    public void testQueryAfterQuery() throws IOException {
+        XrefIndex index = create();
+        Assert.assertEquals(2, index.getCallers(TARGET, "call", "(I)V").size());
+        int members = index.getMemberCount();
+        Assert.assertTrue(index.getCallers(TARGET, "missing", "()V").isEmpty());
+        Assert.assertTrue(index.getCallees(USER, "missing", "()V").isEmpty());
+        Assert.assertEquals(members, index.getMemberCount());
+
+        // scanning a method without references only adds its member
+        try (InputStream in = Empty.class.getResourceAsStream("/" + Empty.class.getName().replace('.', '/') + ".class")) {
+            new XrefScanner(index).scan(in);
+        }
+        Assert.assertTrue(index.getCallees(Empty.class.getName().replace('.', '/'), "nothing", "()V").isEmpty());
+
+        // members added after the lookup tables are built
+        XrefMember added = new XrefMember(USER, "added", "()V");
+        index.addReference(XrefType.INVOKE, added, new XrefMember(TARGET, "call", "(I)V"));
+        Assert.assertEquals(3, index.getCallers(TARGET, "call", "(I)V").size());
+        Assert.assertEquals(1, index.getCallees(USER, "added", "()V").size());
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        XrefIndex index = create();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(new MessagePacker(out));
+        XrefIndex loaded = XrefIndex.load(new MessageUnpacker(new ByteArrayInputStream(out.toByteArray())));
+        Assert.assertEquals(index.getMemberCount(), loaded.getMemberCount());
+        Assert.assertEquals(index.getReferenceCount(), loaded.getReferenceCount());
+        for (XrefMember member : index.getMembers()) {
+            for (XrefType type : XrefType.values()) {
+                Assert.assertEquals(index.getReferencesFrom(member, type), loaded.getReferencesFrom(member, type));
+                Assert.assertEquals(index.getReferencesTo(member, type), loaded.getReferencesTo(member, type));
+            }
+        }
+    }
+
+    public static class Target {
+
+        public int value;
+
+        public void call(int i) {
+            this.value = i;
+        }
+
+    }
+
+    public static class User {
+
+        public void direct(Target t) {
+            t.call(1);
+            t.call(2);
+        }
+
+        public void loop(Target[] targets) {
+            for (Target t : targets) {
+                t.call(0);
+            }
+        }
+
+        public int read(Target t) {
+            return t.value;
+        }
+
+        public void write(Target t) {
+            t.value = 5;
+        }
+
+        public Object create() {
+            return new Target();
+        }
+
+        public Object array() {
+            return new Target[0];
+        }
+
+        public Supplier<String> lambda() {
+            return () -> String.valueOf(1);
+        }
+
+    }
+
+    public static interface Empty {
+
+        default void nothing() {
+        }
+
+    }
+
+}